@@ -0,0 +1,61 @@
+import org.springframework.boot.gradle.tasks.bundling.BootJar
+
+plugins {
+    java
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+// JMH harnesses for inventory-service, not a deployable service.
+// Run all:      ./gradlew :benchmarks:benchmark
+// Run a subset: ./gradlew :benchmarks:benchmark -Pjmh.includes=ReservationServiceBenchmark
+// Extra JMH options (e.g. -Pjmh.args="-f 1 -i 3") are passed through; results go to build/results/jmh.
+// ReservationServiceBenchmark uses in-memory H2 unless BENCH_JDBC_URL points at a PostgreSQL
+// (BENCH_JDBC_USER / BENCH_JDBC_PASSWORD, default postgres/postgres).
+
+dependencies {
+    // Load generator (src/main): HTTP client is the JDK's
+    implementation("org.hdrhistogram:HdrHistogram:2.1.12")
+    implementation("com.fasterxml.jackson.core:jackson-databind")
+    runtimeOnly("org.postgresql:postgresql")
+
+    jmh(project(":inventory-service"))
+    jmh("org.springframework.boot:spring-boot-starter-data-jpa")
+    jmh("org.springframework.kafka:spring-kafka")
+    jmh("com.h2database:h2")
+    jmh("org.postgresql:postgresql")
+}
+
+jmh {
+    jmhVersion.set("1.37")
+}
+
+// Runs from the classpath instead of the merged jmhJar: merging drops all but one
+// META-INF/spring.factories and AutoConfiguration.imports, which the Spring context needs.
+tasks.register<JavaExec>("benchmark") {
+    description = "Runs JMH benchmarks, reporting throughput and sample-time percentiles"
+    group = "benchmark"
+    dependsOn("jmhCompileGeneratedClasses")
+    val generated = layout.buildDirectory
+    classpath = files(generated.dir("jmh-generated-classes"), generated.dir("jmh-generated-resources")) +
+            sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    val results = generated.file("results/jmh/results.json").get().asFile
+    doFirst { results.parentFile.mkdirs() }
+    args(listOfNotNull(findProperty("jmh.includes")?.toString()))
+    args("-rf", "json", "-rff", results.absolutePath)
+    findProperty("jmh.args")?.let { args(it.toString().split(" ").filter(String::isNotBlank)) }
+}
+
+// Open-model HTTP load test against a running inventory-service, see InventoryLoadTest.
+// ./gradlew :benchmarks:loadTest -PloadTest.args="--rate=1000 --zipf-exponent=1.1 --jdbc-url=..."
+tasks.register<JavaExec>("loadTest") {
+    description = "Drives reserve/confirm/release over HTTP and checks stock accounting afterwards"
+    group = "benchmark"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.ecommerce.inventory.loadtest.InventoryLoadTest")
+    findProperty("loadTest.args")?.let { args(it.toString().split(" ").filter(String::isNotBlank)) }
+}
+
+tasks.named<BootJar>("bootJar") {
+    enabled = false
+}
@@ -0,0 +1,95 @@
+package com.ecommerce.inventory.benchmarks;
+
+import com.ecommerce.inventory.event.InventoryReservedEvent;
+import com.ecommerce.inventory.kafka.serialization.BinaryEventCodec;
+import com.ecommerce.inventory.kafka.serialization.InventoryEventDeserializer;
+import com.ecommerce.inventory.kafka.serialization.InventoryEventSerializer;
+import com.ecommerce.inventory.kafka.serialization.SchemaRegistry;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost and size of an inventory.reserved event in the JSON and binary formats,
+ * through the same serializer and deserializer the service uses.
+ *
+ * The encoded size of each format is printed on setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventSerializationBenchmark {
+
+    private static final String TOPIC = "inventory.reserved";
+
+    @Param({"json", "binary"})
+    public String format;
+
+    private Path registryFile;
+    private InventoryEventSerializer serializer;
+    private InventoryEventDeserializer deserializer;
+    private InventoryReservedEvent event;
+    private byte[] encoded;
+    private RecordHeaders encodedHeaders;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        registryFile = Files.createTempFile("inventory-events", ".json");
+        Files.delete(registryFile);
+        BinaryEventCodec codec = new BinaryEventCodec(new SchemaRegistry(registryFile));
+        serializer = new InventoryEventSerializer(codec, "binary".equals(format) ? Set.of(TOPIC) : Set.of());
+        deserializer = new InventoryEventDeserializer(codec);
+        deserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "*"), false);
+
+        event = InventoryReservedEvent.builder()
+                .orderId("ORD-20261016-000123")
+                .productId("SKU-100042")
+                .quantity(2)
+                .reservationId("ORD-20261016-000123:SKU-100042")
+                .timestamp(LocalDateTime.now().toString())
+                .build();
+        encodedHeaders = new RecordHeaders();
+        encoded = serializer.serialize(TOPIC, encodedHeaders, event);
+        System.out.printf("%n%s: %d bytes per inventory.reserved event%n", format, encoded.length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(registryFile);
+        Files.deleteIfExists(registryFile.resolveSibling(registryFile.getFileName() + ".lock"));
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(TOPIC, new RecordHeaders(), event);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        // JsonDeserializer consumes the type headers, so each call gets a copy
+        return deserializer.deserialize(TOPIC, new RecordHeaders(encodedHeaders.toArray()), encoded);
+    }
+}
@@ -0,0 +1,71 @@
+package com.ecommerce.inventory.benchmarks;
+
+import com.ecommerce.inventory.dto.InventoryResponse;
+import com.ecommerce.inventory.entity.Inventory;
+import com.ecommerce.inventory.service.InventoryMapper;
+import com.ecommerce.inventory.service.InventoryMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded cost of the Inventory domain operations and of mapping
+ * an inventory to its response.
+ *
+ * Every benchmark leaves the entity as it found it (reserve is paired with
+ * release, confirm with addStock), so iterations do not drift into the
+ * insufficient-stock path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InventoryBenchmark {
+
+    private final InventoryMapper mapper = new InventoryMapperImpl();
+    private Inventory inventory;
+
+    @Setup
+    public void setUp() {
+        inventory = Inventory.builder()
+                .id(1L)
+                .productId("BENCH-SKU")
+                .totalQuantity(1_000_000)
+                .reservedQuantity(0)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Benchmark
+    public Inventory reserveRelease() {
+        inventory.reserve(1);
+        inventory.release(1);
+        return inventory;
+    }
+
+    @Benchmark
+    public Inventory reserveConfirm() {
+        inventory.reserve(1);
+        inventory.confirm(1);
+        inventory.addStock(1);
+        return inventory;
+    }
+
+    @Benchmark
+    public InventoryResponse toResponse() {
+        return mapper.toResponse(inventory);
+    }
+}
@@ -0,0 +1,199 @@
+package com.ecommerce.inventory.benchmarks;
+
+import com.ecommerce.inventory.InventoryServiceApplication;
+import com.ecommerce.inventory.dto.InventoryRequest;
+import com.ecommerce.inventory.dto.ReservationRequest;
+import com.ecommerce.inventory.dto.ReservationResponse;
+import com.ecommerce.inventory.service.InventoryService;
+import com.ecommerce.inventory.service.ReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ReservationService.reserveStock through the full Spring context (transaction,
+ * duplicate check, lock strategy, reservation insert, outbox write).
+ *
+ * sameSku: all threads reserve one product, measuring row-lock contention.
+ * disjointSkus: every thread reserves its own product, the uncontended baseline.
+ * Thread counts 1/8/64 are the nested subclasses; compare lockStrategy
+ * values at the same thread count. SampleTime reports p99 latency.
+ *
+ * Runs on in-memory H2 by default. H2 locking differs from PostgreSQL, so
+ * lock-strategy comparisons should set BENCH_JDBC_URL to a scratch PostgreSQL
+ * database (schema is migrated by Flyway, benchmark rows are deleted between
+ * iterations).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public abstract class ReservationServiceBenchmark {
+
+    private static final int PRODUCTS = 64;
+    // Never runs out within an iteration; stock is reset between iterations
+    private static final int STOCK = 100_000_000;
+    private static final String PRODUCT_PREFIX = "JMH-";
+
+    @Param({"PESSIMISTIC", "CONDITIONAL_UPDATE"})
+    public String lockStrategy;
+
+    private ConfigurableApplicationContext context;
+    private ReservationService reservationService;
+    private JdbcTemplate jdbcTemplate;
+
+    private final AtomicLong orderSequence = new AtomicLong();
+    // At most 64 consecutive values per trial, so threads of one trial get distinct products
+    private static final AtomicInteger THREAD_SEQUENCE = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(InventoryServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                // As command-line arguments: they must override application.yml
+                .run(properties().entrySet().stream()
+                        .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                        .toArray(String[]::new));
+        reservationService = context.getBean(ReservationService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        InventoryService inventoryService = context.getBean(InventoryService.class);
+        deleteBenchmarkRows();
+        jdbcTemplate.update("DELETE FROM inventory WHERE product_id LIKE ?", PRODUCT_PREFIX + "%");
+        for (int i = 0; i < PRODUCTS; i++) {
+            inventoryService.createInventory(new InventoryRequest(productId(i), STOCK, null));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStock() {
+        deleteBenchmarkRows();
+        jdbcTemplate.update("UPDATE inventory SET reserved_quantity = 0 WHERE product_id LIKE ?",
+                PRODUCT_PREFIX + "%");
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    /**
+     * Product of the calling benchmark thread for disjointSkus.
+     */
+    @State(Scope.Thread)
+    public static class ThreadProduct {
+        String productId;
+
+        @Setup(Level.Trial)
+        public void assign() {
+            productId = productId(THREAD_SEQUENCE.getAndIncrement() % PRODUCTS);
+        }
+    }
+
+    @Benchmark
+    public ReservationResponse sameSku() {
+        return reserve(productId(0));
+    }
+
+    @Benchmark
+    public ReservationResponse disjointSkus(ThreadProduct product) {
+        return reserve(product.productId);
+    }
+
+    private ReservationResponse reserve(String productId) {
+        String orderId = PRODUCT_PREFIX + "ORDER-" + orderSequence.incrementAndGet();
+        return reservationService.reserveStock(ReservationRequest.builder()
+                .productId(productId)
+                .orderId(orderId)
+                .quantity(1)
+                .build());
+    }
+
+    private void deleteBenchmarkRows() {
+        jdbcTemplate.update("DELETE FROM inventory_reservation WHERE order_id LIKE ?", PRODUCT_PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM outbox_event");
+    }
+
+    private static String productId(int index) {
+        return PRODUCT_PREFIX + index;
+    }
+
+    private Map<String, Object> properties() {
+        Map<String, Object> properties = new HashMap<>();
+        String jdbcUrl = System.getenv("BENCH_JDBC_URL");
+        if (jdbcUrl == null) {
+            properties.put("spring.datasource.url", "jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1");
+            properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+            properties.put("spring.datasource.username", "sa");
+            properties.put("spring.datasource.password", "");
+            // Migrations are PostgreSQL-only
+            properties.put("spring.flyway.enabled", "false");
+            properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+            properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        } else {
+            properties.put("spring.datasource.url", jdbcUrl);
+            properties.put("spring.datasource.username", System.getenv().getOrDefault("BENCH_JDBC_USER", "postgres"));
+            properties.put("spring.datasource.password", System.getenv().getOrDefault("BENCH_JDBC_PASSWORD", "postgres"));
+        }
+        properties.put("spring.datasource.hikari.maximum-pool-size", 64);
+        properties.put("inventory.reservation.lock-strategy", lockStrategy);
+
+        // No broker: events stay in the outbox, background jobs are parked
+        properties.put("spring.kafka.listener.auto-startup", "false");
+        properties.put("spring.kafka.admin.auto-create", "false");
+        properties.put("inventory.outbox.poll-interval-ms", Long.MAX_VALUE);
+        properties.put("inventory.levels.enabled", "false");
+        properties.put("inventory.settlement.enabled", "false");
+        properties.put("inventory.reservation.partitions.enabled", "false");
+        properties.put("inventory.reservation.expiry.sweep-interval-ms", Long.MAX_VALUE);
+        properties.put("inventory.cache.l2.type", "in-memory");
+        // The merged JMH jar keeps one META-INF/spring.factories, which breaks Spring Data
+        // strict repository detection; the service has no Redis repositories anyway
+        properties.put("spring.data.redis.repositories.enabled", "false");
+        // Not the dev profile: it logs every SQL statement
+        properties.put("spring.profiles.active", "bench");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.com.ecommerce.inventory", "WARN");
+        properties.put("logging.level.org.hibernate.SQL", "WARN");
+        properties.put("logging.level.org.hibernate.type.descriptor.sql.BasicBinder", "WARN");
+        // Its single startup poll uses a PostgreSQL advisory lock
+        properties.put("logging.level.com.ecommerce.inventory.kafka.OutboxRelay", "OFF");
+        return properties;
+    }
+
+    @Threads(1)
+    public static class OneThread extends ReservationServiceBenchmark {
+    }
+
+    @Threads(8)
+    public static class EightThreads extends ReservationServiceBenchmark {
+    }
+
+    @Threads(64)
+    public static class SixtyFourThreads extends ReservationServiceBenchmark {
+    }
+}
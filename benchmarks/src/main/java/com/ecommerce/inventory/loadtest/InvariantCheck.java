@@ -0,0 +1,72 @@
+package com.ecommerce.inventory.loadtest;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stock accounting check run against the service database after a load run.
+ *
+ * For every load-test product the reserved quantity (inventory row plus
+ * shards) must equal what is still held: PENDING reservations, CONFIRMED
+ * reservations not settled yet and unused stock leases. Reserved above
+ * total would be an oversell and is reported separately.
+ */
+final class InvariantCheck {
+
+    private static final String QUERY = """
+            SELECT i.product_id,
+                   i.total_quantity + COALESCE(s.total, 0) AS total,
+                   i.reserved_quantity + COALESCE(s.reserved, 0) AS reserved,
+                   COALESCE(r.held, 0) + COALESCE(l.leased, 0) AS held
+            FROM inventory i
+            LEFT JOIN (SELECT inventory_id, SUM(total_quantity) AS total, SUM(reserved_quantity) AS reserved
+                       FROM inventory_shard GROUP BY inventory_id) s ON s.inventory_id = i.id
+            LEFT JOIN (SELECT inventory_id, SUM(reserved_quantity) AS held
+                       FROM inventory_reservation
+                       WHERE status = 'PENDING' OR (status = 'CONFIRMED' AND settled_at IS NULL)
+                       GROUP BY inventory_id) r ON r.inventory_id = i.id
+            LEFT JOIN (SELECT inventory_id, SUM(quantity) AS leased
+                       FROM stock_lease GROUP BY inventory_id) l ON l.inventory_id = i.id
+            WHERE i.product_id LIKE ?
+            ORDER BY i.product_id
+            """;
+
+    private InvariantCheck() {
+    }
+
+    /**
+     * @return one line per violating product, empty if the accounting holds
+     */
+    static List<String> run(LoadTestOptions options) throws SQLException {
+        List<String> violations = new ArrayList<>();
+        int checked = 0;
+        try (Connection connection = DriverManager.getConnection(
+                options.jdbcUrl(), options.jdbcUser(), options.jdbcPassword());
+             PreparedStatement statement = connection.prepareStatement(QUERY)) {
+            statement.setString(1, options.productPrefix() + "%");
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    checked++;
+                    String productId = rows.getString("product_id");
+                    long total = rows.getLong("total");
+                    long reserved = rows.getLong("reserved");
+                    long held = rows.getLong("held");
+                    if (reserved > total) {
+                        violations.add(String.format("%s oversold: reserved %d > total %d", productId, reserved, total));
+                    }
+                    if (reserved != held) {
+                        violations.add(String.format("%s reserved %d but reservations and leases hold %d",
+                                productId, reserved, held));
+                    }
+                }
+            }
+        }
+        System.out.printf("Invariant check: %d products, %d violations%n", checked, violations.size());
+        return violations;
+    }
+}
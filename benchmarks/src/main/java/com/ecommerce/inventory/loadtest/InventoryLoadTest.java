@@ -0,0 +1,252 @@
+package com.ecommerce.inventory.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Open-model HTTP load generator for the inventory reservation endpoints.
+ *
+ * Reservations arrive as a Poisson process at a fixed rate regardless of how
+ * fast the service answers, on Zipf-skewed SKUs. Each successful reservation
+ * is then confirmed, released or left PENDING. Latency is measured from the
+ * scheduled arrival time, so queueing in the generator is not hidden
+ * (no coordinated omission). Arrivals beyond max-in-flight are dropped.
+ *
+ * With --jdbc-url the stock accounting of the load-test products is checked
+ * afterwards; the exit code is 1 if it does not hold.
+ *
+ * Run against a started service:
+ * ./gradlew :benchmarks:loadTest -PloadTest.args="--rate=1000 --duration-s=60 --jdbc-url=jdbc:postgresql://localhost:5432/inventory_db"
+ */
+public final class InventoryLoadTest {
+
+    private static final String API = "/api/v1/inventory";
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    enum Operation { RESERVE, CONFIRM, RELEASE }
+
+    enum Outcome { OK, REJECTED, ERROR }
+
+    private final LoadTestOptions options;
+    private final ZipfGenerator skus;
+    private final HttpClient http;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, Map<Outcome, LongAdder>> outcomes = new EnumMap<>(Operation.class);
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong orderSequence = new AtomicLong();
+    private volatile boolean recording;
+
+    InventoryLoadTest(LoadTestOptions options) {
+        this.options = options;
+        this.skus = new ZipfGenerator(options.products(), options.zipfExponent());
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(MAX_LATENCY_MICROS, 3));
+            Map<Outcome, LongAdder> counts = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : Outcome.values()) {
+                counts.put(outcome, new LongAdder());
+            }
+            outcomes.put(operation, counts);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        boolean consistent = new InventoryLoadTest(options).run();
+        System.exit(consistent ? 0 : 1);
+    }
+
+    boolean run() throws Exception {
+        createProducts();
+        System.out.printf("Run %s: %d SKUs, zipf %.2f (hottest SKU gets %.1f%%), %.0f arrivals/s%n",
+                runId, options.products(), options.zipfExponent(), skus.hottestShare() * 100, options.rate());
+
+        generate(options.warmup());
+        recording = true;
+        generate(options.duration());
+        recording = false;
+        awaitInFlight();
+
+        report();
+        if (options.histogramDir() != null) {
+            writeHistograms(Path.of(options.histogramDir()));
+        }
+        if (options.jdbcUrl() == null) {
+            System.out.println("No --jdbc-url, invariant check skipped");
+            return true;
+        }
+        Thread.sleep(options.settle().toMillis());
+        List<String> violations = InvariantCheck.run(options);
+        violations.forEach(System.out::println);
+        return violations.isEmpty();
+    }
+
+    private void createProducts() throws IOException, InterruptedException {
+        for (int rank = 0; rank < options.products(); rank++) {
+            String body = String.format("{\"productId\":\"%s\",\"totalQuantity\":%d}", productId(rank), options.stock());
+            HttpResponse<String> response = http.send(post(API, body), HttpResponse.BodyHandlers.ofString());
+            // 400 INVENTORY_ALREADY_EXISTS: reused from an earlier run
+            if (response.statusCode() != 201 && response.statusCode() != 200 && response.statusCode() != 400) {
+                throw new IllegalStateException("Cannot create " + productId(rank) + ": " + response.statusCode());
+            }
+        }
+    }
+
+    /**
+     * Poisson arrivals for the given time; the next arrival time does not depend on responses.
+     */
+    private void generate(Duration period) {
+        long end = System.nanoTime() + period.toNanos();
+        long next = System.nanoTime();
+        while (next < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long scheduled = next;
+            next += (long) (-Math.log(1.0 - ThreadLocalRandom.current().nextDouble()) / options.rate() * 1e9);
+
+            if (inFlight.get() >= options.maxInFlight()) {
+                if (recording) {
+                    dropped.increment();
+                }
+                continue;
+            }
+            reserve(scheduled);
+        }
+    }
+
+    private void reserve(long scheduled) {
+        String orderId = "load-" + runId + "-" + orderSequence.incrementAndGet();
+        String body = String.format("{\"productId\":\"%s\",\"orderId\":\"%s\",\"quantity\":%d}",
+                productId(skus.next()), orderId, options.quantity());
+        send(Operation.RESERVE, post(API + "/reserve", body), scheduled, outcome -> {
+            if (outcome != Outcome.OK) {
+                return;
+            }
+            double draw = ThreadLocalRandom.current().nextDouble();
+            if (draw < options.confirmRatio()) {
+                send(Operation.CONFIRM, post(API + "/confirm/" + orderId, ""), System.nanoTime(), ignored -> { });
+            } else if (draw < options.confirmRatio() + options.releaseRatio()) {
+                send(Operation.RELEASE, post(API + "/release/" + orderId, ""), System.nanoTime(), ignored -> { });
+            }
+        });
+    }
+
+    private void send(Operation operation, HttpRequest request, long scheduled,
+                      Consumer<Outcome> then) {
+        boolean record = recording;
+        inFlight.incrementAndGet();
+        http.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> error == null ? outcome(operation, response) : Outcome.ERROR)
+                .thenAccept(outcome -> {
+                    if (record) {
+                        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled);
+                        latencies.get(operation).recordValue(Math.min(micros, MAX_LATENCY_MICROS));
+                        outcomes.get(operation).get(outcome).increment();
+                    }
+                    then.accept(outcome);
+                })
+                .whenComplete((ignored, error) -> inFlight.decrementAndGet());
+    }
+
+    private Outcome outcome(Operation operation, HttpResponse<String> response) {
+        int status = response.statusCode();
+        if (status == 409) {
+            return Outcome.REJECTED;
+        }
+        if (status != 200) {
+            return Outcome.ERROR;
+        }
+        if (operation != Operation.RESERVE) {
+            return Outcome.OK;
+        }
+        try {
+            return objectMapper.readTree(response.body()).path("success").asBoolean() ? Outcome.OK : Outcome.REJECTED;
+        } catch (IOException e) {
+            return Outcome.ERROR;
+        }
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    private void report() {
+        double seconds = options.duration().toMillis() / 1000.0;
+        System.out.printf("%n%-8s %9s %9s %9s %7s %9s %9s %9s %9s %9s %9s%n", "op", "count", "ok", "rejected",
+                "errors", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            Map<Outcome, LongAdder> counts = outcomes.get(operation);
+            System.out.printf("%-8s %9d %9d %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    operation, histogram.getTotalCount(),
+                    counts.get(Outcome.OK).sum(), counts.get(Outcome.REJECTED).sum(), counts.get(Outcome.ERROR).sum(),
+                    histogram.getTotalCount() / seconds,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+        }
+        System.out.printf("Dropped arrivals (max-in-flight %d reached): %d%n%n", options.maxInFlight(), dropped.sum());
+    }
+
+    private void writeHistograms(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Operation operation : Operation.values()) {
+            Path file = directory.resolve(runId + "-" + operation.name().toLowerCase() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                // Recorded in microseconds, written in milliseconds
+                latencies.get(operation).outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        System.out.println("HDR histograms written to " + directory.toAbsolutePath());
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder(URI.create(options.baseUrl() + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private String productId(int rank) {
+        return options.productPrefix() + rank;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
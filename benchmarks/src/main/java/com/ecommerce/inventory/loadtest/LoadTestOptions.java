@@ -0,0 +1,81 @@
+package com.ecommerce.inventory.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Options of {@link InventoryLoadTest}, given as --name=value arguments.
+ *
+ * @param baseUrl inventory-service base URL
+ * @param products number of SKUs, created on setup if missing
+ * @param productPrefix SKU prefix; the invariant check only looks at these products
+ * @param stock initial total quantity of each created SKU
+ * @param zipfExponent SKU skew; 0 is uniform, around 1 puts most load on a few hot SKUs
+ * @param rate reservation arrivals per second (Poisson, open model)
+ * @param duration length of the measured run
+ * @param warmup load applied before measuring, not recorded
+ * @param quantity units per reservation
+ * @param confirmRatio share of successful reservations confirmed afterwards
+ * @param releaseRatio share of successful reservations released afterwards; the rest stay PENDING
+ * @param maxInFlight arrivals beyond this many outstanding requests are dropped and counted
+ * @param jdbcUrl database of the service for the invariant check; skipped if absent
+ * @param jdbcUser database user
+ * @param jdbcPassword database password
+ * @param settle wait before the invariant check, for write-behind and settlement to catch up
+ * @param histogramDir directory for .hgrm percentile files; none if absent
+ */
+public record LoadTestOptions(
+        String baseUrl,
+        int products,
+        String productPrefix,
+        int stock,
+        double zipfExponent,
+        double rate,
+        Duration duration,
+        Duration warmup,
+        int quantity,
+        double confirmRatio,
+        double releaseRatio,
+        int maxInFlight,
+        String jdbcUrl,
+        String jdbcUser,
+        String jdbcPassword,
+        Duration settle,
+        String histogramDir) {
+
+    public static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        LoadTestOptions options = new LoadTestOptions(
+                values.getOrDefault("base-url", "http://localhost:8082"),
+                Integer.parseInt(values.getOrDefault("products", "1000")),
+                values.getOrDefault("product-prefix", "LOAD-"),
+                Integer.parseInt(values.getOrDefault("stock", "100000")),
+                Double.parseDouble(values.getOrDefault("zipf-exponent", "1.0")),
+                Double.parseDouble(values.getOrDefault("rate", "500")),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration-s", "60"))),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmup-s", "10"))),
+                Integer.parseInt(values.getOrDefault("quantity", "1")),
+                Double.parseDouble(values.getOrDefault("confirm-ratio", "0.6")),
+                Double.parseDouble(values.getOrDefault("release-ratio", "0.3")),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "2000")),
+                values.get("jdbc-url"),
+                values.getOrDefault("jdbc-user", "postgres"),
+                values.getOrDefault("jdbc-password", "postgres"),
+                Duration.ofMillis(Long.parseLong(values.getOrDefault("settle-ms", "5000"))),
+                values.get("histogram-dir"));
+
+        if (options.confirmRatio + options.releaseRatio > 1.0) {
+            throw new IllegalArgumentException("confirm-ratio + release-ratio must not exceed 1");
+        }
+        return options;
+    }
+}
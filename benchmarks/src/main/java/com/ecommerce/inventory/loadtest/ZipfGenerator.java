@@ -0,0 +1,38 @@
+package com.ecommerce.inventory.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Zipf-distributed ranks over [0, n): rank k is drawn with probability
+ * proportional to 1 / (k + 1)^exponent. Rank 0 is the hottest key.
+ */
+final class ZipfGenerator {
+
+    private final double[] cumulative;
+
+    ZipfGenerator(int n, double exponent) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cumulative[k] /= sum;
+        }
+    }
+
+    int next() {
+        int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+        // Not found: insertion point is the first rank whose cumulative probability exceeds the draw
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+
+    /**
+     * Share of draws going to the hottest key.
+     */
+    double hottestShare() {
+        return cumulative[0];
+    }
+}
@@ -0,0 +1,46 @@
+package com.ecommerce.inventory.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoadTestOptionsTest {
+
+    @Test
+    void defaultsWithoutArguments() {
+        LoadTestOptions options = LoadTestOptions.parse(new String[0]);
+
+        assertThat(options.baseUrl()).isEqualTo("http://localhost:8082");
+        assertThat(options.rate()).isEqualTo(500.0);
+        assertThat(options.jdbcUrl()).isNull();
+        assertThat(options.histogramDir()).isNull();
+    }
+
+    @Test
+    void parsesNamedValues() {
+        LoadTestOptions options = LoadTestOptions.parse(new String[]{
+                "--rate=1000", "--zipf-exponent=1.1", "--duration-s=30", "--settle-ms=250",
+                "--jdbc-url=jdbc:postgresql://localhost/inventory_db"});
+
+        assertThat(options.rate()).isEqualTo(1000.0);
+        assertThat(options.zipfExponent()).isEqualTo(1.1);
+        assertThat(options.duration()).isEqualTo(Duration.ofSeconds(30));
+        assertThat(options.settle()).isEqualTo(Duration.ofMillis(250));
+        assertThat(options.jdbcUrl()).isEqualTo("jdbc:postgresql://localhost/inventory_db");
+    }
+
+    @Test
+    void rejectsMalformedArgument() {
+        assertThatThrownBy(() -> LoadTestOptions.parse(new String[]{"rate=1000"}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsRatiosAboveOne() {
+        assertThatThrownBy(() -> LoadTestOptions.parse(new String[]{"--confirm-ratio=0.7", "--release-ratio=0.4"}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,51 @@
+package com.ecommerce.inventory.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ZipfGeneratorTest {
+
+    private static final int DRAWS = 200_000;
+
+    @Test
+    void ranksStayInRange() {
+        ZipfGenerator generator = new ZipfGenerator(10, 1.2);
+
+        for (int i = 0; i < DRAWS; i++) {
+            assertThat(generator.next()).isBetween(0, 9);
+        }
+    }
+
+    @Test
+    void zeroExponentIsUniform() {
+        ZipfGenerator generator = new ZipfGenerator(4, 0.0);
+        int[] counts = draw(generator, 4);
+
+        assertThat(generator.hottestShare()).isCloseTo(0.25, within(1e-9));
+        for (int count : counts) {
+            assertThat((double) count / DRAWS).isBetween(0.23, 0.27);
+        }
+    }
+
+    @Test
+    void hotKeysGetMostOfTheLoad() {
+        ZipfGenerator generator = new ZipfGenerator(100, 1.0);
+        int[] counts = draw(generator, 100);
+
+        // H(100) = 5.187..., rank 0 gets 1 / H(100)
+        assertThat(generator.hottestShare()).isBetween(0.19, 0.20);
+        assertThat((double) counts[0] / DRAWS).isBetween(0.18, 0.21);
+        // Rank k is drawn about (k + 1) times less often than rank 0
+        assertThat((double) counts[0] / counts[9]).isBetween(8.0, 12.0);
+    }
+
+    private static int[] draw(ZipfGenerator generator, int n) {
+        int[] counts = new int[n];
+        for (int i = 0; i < DRAWS; i++) {
+            counts[generator.next()]++;
+        }
+        return counts;
+    }
+}
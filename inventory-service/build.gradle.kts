@@ -22,6 +22,10 @@ dependencies {
     runtimeOnly("org.postgresql:postgresql")
     implementation("org.flywaydb:flyway-core")
 
+    // Cache: in-process L1 (Caffeine), Redis L2
+    implementation("org.springframework.boot:spring-boot-starter-data-redis")
+    implementation("com.github.ben-manes.caffeine:caffeine")
+
     // Kafka
     implementation("org.springframework.kafka:spring-kafka")
     testImplementation("org.springframework.kafka:spring-kafka-test")
@@ -40,6 +44,7 @@ dependencies {
     testImplementation("org.testcontainers:testcontainers:1.19.3")
     testImplementation("org.testcontainers:postgresql:1.19.3")
     testImplementation("org.testcontainers:kafka:1.19.3")
+    testImplementation("org.testcontainers:junit-jupiter:1.19.3")
     testRuntimeOnly("com.h2database:h2")
 }
 
@@ -47,3 +52,21 @@ dependencies {
 tasks.withType<Test> {
     useJUnitPlatform()
 }
+
+tasks.named<Test>("test") {
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
+}
+
+// Benchmarks need Docker (Testcontainers) and are not part of the regular build
+tasks.register<Test>("contentionBenchmark") {
+    description = "Runs reservation contention benchmarks against PostgreSQL/Kafka containers"
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+    testLogging.showStandardStreams = true
+}
@@ -0,0 +1,118 @@
+package com.ecommerce.inventory.cache;
+
+import com.ecommerce.inventory.dto.InventoryResponse;
+import com.ecommerce.inventory.service.StockChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Two-tier read-through cache of inventory views.
+ *
+ * L1 is an in-process Caffeine cache (size and TTL bounded), L2 a shared
+ * AvailabilityStore (Redis, or an in-memory stand-in). Every entry carries
+ * its load time and each read passes its own staleness bound, so endpoints
+ * can accept different ages from the same entries.
+ *
+ * Stock changes evict both tiers after commit. Other replicas' L1 is not
+ * evicted; their reads are bounded by the staleness of the endpoint.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AvailabilityCache {
+
+    private final Optional<AvailabilityStore> sharedStore;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${inventory.cache.l1.max-size:10000}")
+    private long l1MaxSize;
+
+    @Value("${inventory.cache.l1.ttl-ms:5000}")
+    private long l1TtlMs;
+
+    @Value("${inventory.cache.l2.ttl-ms:30000}")
+    private long l2TtlMs;
+
+    private Cache<String, CachedAvailability> local;
+
+    @PostConstruct
+    void init() {
+        local = Caffeine.newBuilder()
+                .maximumSize(l1MaxSize)
+                .expireAfterWrite(Duration.ofMillis(l1TtlMs))
+                .build();
+    }
+
+    /**
+     * Read through both tiers.
+     *
+     * @param productId the product ID
+     * @param maxStaleness oldest acceptable entry for this endpoint
+     * @param loader reads the inventory from the source on a miss
+     * @return cached or freshly loaded inventory
+     */
+    public InventoryResponse get(String productId, Duration maxStaleness, Supplier<InventoryResponse> loader) {
+        if (!enabled || maxStaleness.isZero()) {
+            return loader.get();
+        }
+        long now = System.currentTimeMillis();
+        long maxAge = maxStaleness.toMillis();
+
+        CachedAvailability cached = local.getIfPresent(productId);
+        if (cached != null && cached.ageMillis(now) <= maxAge) {
+            count("l1");
+            return cached.inventory();
+        }
+
+        if (sharedStore.isPresent()) {
+            Optional<CachedAvailability> shared = sharedStore.get().get(productId);
+            if (shared.isPresent() && shared.get().ageMillis(now) <= maxAge) {
+                local.put(productId, shared.get());
+                count("l2");
+                return shared.get().inventory();
+            }
+        }
+
+        count("miss");
+        CachedAvailability loaded = new CachedAvailability(loader.get(), System.currentTimeMillis());
+        local.put(productId, loaded);
+        sharedStore.ifPresent(store -> store.put(productId, loaded, Duration.ofMillis(l2TtlMs)));
+        return loaded.inventory();
+    }
+
+    /**
+     * Evict changed products from both tiers once the transaction commits
+     * (immediately when there is none).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        if (enabled && !event.productIds().isEmpty()) {
+            evict(event.productIds());
+        }
+    }
+
+    private void evict(List<String> productIds) {
+        local.invalidateAll(productIds);
+        sharedStore.ifPresent(store -> productIds.forEach(store::evict));
+        log.debug("Evicted availability cache for {}", productIds);
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("inventory.cache.requests", "result", result).increment();
+    }
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.inventory.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Shared (L2) tier of the availability cache.
+ * Implementations must never throw on store failures; a failure is a miss.
+ */
+public interface AvailabilityStore {
+
+    Optional<CachedAvailability> get(String productId);
+
+    void put(String productId, CachedAvailability value, Duration ttl);
+
+    void evict(String productId);
+}
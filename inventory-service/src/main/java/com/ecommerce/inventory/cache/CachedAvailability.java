@@ -0,0 +1,16 @@
+package com.ecommerce.inventory.cache;
+
+import com.ecommerce.inventory.dto.InventoryResponse;
+
+/**
+ * Cached inventory view with the time it was read from the source.
+ *
+ * @param inventory inventory as returned by the service
+ * @param loadedAtMillis epoch millis when it was loaded
+ */
+public record CachedAvailability(InventoryResponse inventory, long loadedAtMillis) {
+
+    public long ageMillis(long nowMillis) {
+        return nowMillis - loadedAtMillis;
+    }
+}
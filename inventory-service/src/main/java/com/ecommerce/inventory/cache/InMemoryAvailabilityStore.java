@@ -0,0 +1,44 @@
+package com.ecommerce.inventory.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Embedded stand-in for the Redis tier (tests, single-instance setups).
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.cache.l2.type", havingValue = "in-memory")
+public class InMemoryAvailabilityStore implements AvailabilityStore {
+
+    private record Entry(CachedAvailability value, long expiresAtMillis) {
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<CachedAvailability> get(String productId) {
+        Entry entry = entries.get(productId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.expiresAtMillis() < System.currentTimeMillis()) {
+            entries.remove(productId, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry.value());
+    }
+
+    @Override
+    public void put(String productId, CachedAvailability value, Duration ttl) {
+        entries.put(productId, new Entry(value, System.currentTimeMillis() + ttl.toMillis()));
+    }
+
+    @Override
+    public void evict(String productId) {
+        entries.remove(productId);
+    }
+}
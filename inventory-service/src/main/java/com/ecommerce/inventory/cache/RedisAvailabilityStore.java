@@ -0,0 +1,56 @@
+package com.ecommerce.inventory.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Redis L2 tier. Entries are JSON strings with a TTL; Redis errors
+ * are logged and treated as misses so reads fall back to the database.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.cache.l2.type", havingValue = "redis", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class RedisAvailabilityStore implements AvailabilityStore {
+
+    private static final String KEY_PREFIX = "inventory:availability:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public Optional<CachedAvailability> get(String productId) {
+        try {
+            String json = redisTemplate.opsForValue().get(KEY_PREFIX + productId);
+            return json == null ? Optional.empty() : Optional.of(objectMapper.readValue(json, CachedAvailability.class));
+        } catch (Exception e) {
+            log.debug("Redis read failed for product {}: {}", productId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void put(String productId, CachedAvailability value, Duration ttl) {
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + productId, objectMapper.writeValueAsString(value), ttl);
+        } catch (Exception e) {
+            log.debug("Redis write failed for product {}: {}", productId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void evict(String productId) {
+        try {
+            redisTemplate.delete(KEY_PREFIX + productId);
+        } catch (Exception e) {
+            log.warn("Redis evict failed for product {}: {}", productId, e.getMessage());
+        }
+    }
+}
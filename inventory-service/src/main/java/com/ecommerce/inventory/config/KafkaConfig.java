@@ -1,5 +1,11 @@
 package com.ecommerce.inventory.config;
 
+import com.ecommerce.inventory.kafka.InventoryProducer;
+import com.ecommerce.inventory.kafka.serialization.BinaryEventCodec;
+import com.ecommerce.inventory.kafka.serialization.InventoryEventDeserializer;
+import com.ecommerce.inventory.kafka.serialization.InventoryEventSerializer;
+import com.ecommerce.inventory.kafka.serialization.SchemaRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
@@ -8,12 +14,15 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 @Configuration
 public class KafkaConfig {
@@ -21,16 +30,46 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${spring.kafka.consumer.max-poll-records:100}")
+    private int maxPollRecords;
+
+    @Value("${inventory.levels.partitions:6}")
+    private int levelsPartitions;
+
+    @Value("${inventory.levels.replicas:1}")
+    private int levelsReplicas;
+
+    // Topics switched to the binary event format; all their consumers must read it
+    @Value("${inventory.events.binary-topics:}")
+    private Set<String> binaryTopics;
+
+    @Value("${inventory.events.schema-registry-path:schemas/inventory-events.json}")
+    private String schemaRegistryPath;
+
+    @Bean
+    public SchemaRegistry eventSchemaRegistry() {
+        return new SchemaRegistry(Path.of(schemaRegistryPath));
+    }
+
+    @Bean
+    public BinaryEventCodec binaryEventCodec() {
+        return new BinaryEventCodec(eventSchemaRegistry());
+    }
+
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
         Map<String, Object> config = new HashMap<>();
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
         config.put(ProducerConfig.ACKS_CONFIG, "all");
         config.put(ProducerConfig.RETRIES_CONFIG, 3);
         config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
-        return new DefaultKafkaProducerFactory<>(config);
+        // Same batching as spring.kafka.producer.properties; the outbox relay sends whole batches
+        config.put(ProducerConfig.LINGER_MS_CONFIG, 10);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, 32768);
+        // JSON unless the topic is in inventory.events.binary-topics
+        return new DefaultKafkaProducerFactory<>(config, new StringSerializer(),
+                new InventoryEventSerializer(binaryEventCodec(), binaryTopics));
     }
 
     @Bean
@@ -44,11 +83,13 @@ public class KafkaConfig {
         config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ConsumerConfig.GROUP_ID_CONFIG, "inventory-service");
         config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
         config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
         config.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
-        return new DefaultKafkaConsumerFactory<>(config);
+        // Reads JSON and binary events, by the inventory-format header
+        InventoryEventDeserializer valueDeserializer = new InventoryEventDeserializer(binaryEventCodec());
+        valueDeserializer.configure(config, false);
+        return new DefaultKafkaConsumerFactory<>(config, new StringDeserializer(), valueDeserializer);
     }
 
     @Bean
@@ -58,4 +99,47 @@ public class KafkaConfig {
         factory.setConsumerFactory(consumerFactory());
         return factory;
     }
+
+    /**
+     * Consumer for order events: raw String values (parsed by the listener,
+     * so one malformed record cannot fail deserialization of the poll).
+     */
+    @Bean
+    public ConsumerFactory<String, String> batchConsumerFactory() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, "inventory-service");
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        return new DefaultKafkaConsumerFactory<>(config);
+    }
+
+    /**
+     * Batch listeners receive a whole poll and commit offsets manually.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> batchListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(batchConsumerFactory());
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+
+    /**
+     * Log-compacted topic with the latest level of every product (keyed by productId).
+     * Created by KafkaAdmin on startup if missing.
+     */
+    @Bean
+    public NewTopic inventoryLevelsTopic() {
+        return TopicBuilder.name(InventoryProducer.INVENTORY_LEVELS_TOPIC)
+                .partitions(levelsPartitions)
+                .replicas(levelsReplicas)
+                .compact()
+                .build();
+    }
 }
@@ -0,0 +1,269 @@
+package com.ecommerce.inventory.controller;
+
+import com.ecommerce.inventory.dto.FlashSaleResponse;
+import com.ecommerce.inventory.dto.InventoryResponse;
+import com.ecommerce.inventory.dto.InventoryShardResponse;
+import com.ecommerce.inventory.dto.ReconciliationReport;
+import com.ecommerce.inventory.dto.StockLocationRequest;
+import com.ecommerce.inventory.dto.StockLocationResponse;
+import com.ecommerce.inventory.entity.Inventory;
+import com.ecommerce.inventory.service.FlashSaleGate;
+import com.ecommerce.inventory.service.InventoryLocationService;
+import com.ecommerce.inventory.service.InventoryReconciliationService;
+import com.ecommerce.inventory.service.InventoryMapper;
+import com.ecommerce.inventory.service.InventoryService;
+import com.ecommerce.inventory.service.InventoryShardService;
+import com.ecommerce.inventory.service.StockLedgerService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Operational endpoints for inventory tuning (hot product modes) and audits.
+ */
+@RestController
+@RequestMapping("/api/v1/inventory/admin")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Inventory Administration", description = "Operational APIs for hot product stock modes")
+public class InventoryAdminController {
+
+    private final InventoryService inventoryService;
+    private final InventoryShardService shardService;
+    private final InventoryMapper inventoryMapper;
+    private final FlashSaleGate flashSaleGate;
+    private final InventoryReconciliationService reconciliationService;
+    private final StockLedgerService stockLedger;
+    private final InventoryLocationService locationService;
+
+    /**
+     * List stock shards of a product.
+     */
+    @GetMapping("/{productId}/shards")
+    @Operation(summary = "Get stock shards", description = "List stock shards of a sharded product")
+    public ResponseEntity<List<InventoryShardResponse>> getShards(
+            @PathVariable String productId) {
+        InventoryResponse inventory = inventoryService.getInventory(productId);
+        List<InventoryShardResponse> shards = shardService.getShards(inventory.getId()).stream()
+                .map(inventoryMapper::toShardResponse)
+                .toList();
+        return ResponseEntity.ok(shards);
+    }
+
+    /**
+     * Enable sharded counters or change the shard count.
+     */
+    @PutMapping("/{productId}/shards")
+    @Operation(summary = "Configure stock shards", description = "Split free stock of a hot product across N shard rows")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Shards configured"),
+            @ApiResponse(responseCode = "400", description = "Invalid shard count or shard still in use")
+    })
+    public ResponseEntity<InventoryResponse> configureShards(
+            @PathVariable String productId,
+            @RequestParam int count) {
+        log.info("Configuring {} stock shards for product: {}", count, productId);
+        Inventory inventory = shardService.configureShards(productId, count);
+        return ResponseEntity.ok(inventoryService.toResponse(inventory));
+    }
+
+    /**
+     * Rebalance free stock evenly across shards (online).
+     */
+    @PostMapping("/{productId}/shards/rebalance")
+    @Operation(summary = "Rebalance stock shards", description = "Redistribute free stock evenly across shards")
+    public ResponseEntity<InventoryResponse> rebalanceShards(
+            @PathVariable String productId) {
+        log.info("Rebalancing stock shards for product: {}", productId);
+        Inventory inventory = shardService.rebalance(productId);
+        return ResponseEntity.ok(inventoryService.toResponse(inventory));
+    }
+
+    /**
+     * Fold shards back into the inventory row.
+     */
+    @DeleteMapping("/{productId}/shards")
+    @Operation(summary = "Disable stock shards", description = "Merge all shards back into the inventory row")
+    public ResponseEntity<InventoryResponse> disableShards(
+            @PathVariable String productId) {
+        log.info("Disabling stock shards for product: {}", productId);
+        Inventory inventory = shardService.disableSharding(productId);
+        return ResponseEntity.ok(inventoryService.toResponse(inventory));
+    }
+
+    /**
+     * Switch a product to the append-only stock ledger.
+     */
+    @PutMapping("/{productId}/ledger")
+    @Operation(summary = "Enable ledger mode",
+            description = "Snapshot the product's stock and append further stock changes to the stock ledger")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Ledger mode enabled"),
+            @ApiResponse(responseCode = "400", description = "Product is sharded, leased or ledger mode is disabled")
+    })
+    public ResponseEntity<InventoryResponse> enableLedger(
+            @PathVariable String productId) {
+        log.info("Enabling ledger mode for product: {}", productId);
+        Inventory inventory = stockLedger.enable(productId);
+        return ResponseEntity.ok(inventoryService.toResponse(inventory));
+    }
+
+    /**
+     * Move stock of a ledger-mode product back to its inventory row.
+     */
+    @DeleteMapping("/{productId}/ledger")
+    @Operation(summary = "Disable ledger mode", description = "Close the stock ledger and write its stock onto the inventory row")
+    public ResponseEntity<InventoryResponse> disableLedger(
+            @PathVariable String productId) {
+        log.info("Disabling ledger mode for product: {}", productId);
+        Inventory inventory = stockLedger.disable(productId);
+        return ResponseEntity.ok(inventoryService.toResponse(inventory));
+    }
+
+    /**
+     * Stock of a ledger-mode product at a point in time.
+     */
+    @GetMapping("/{productId}/ledger/as-of")
+    @Operation(summary = "Get stock at a point in time",
+            description = "Stock of a ledger-mode product from the snapshot and ledger entries up to the given time")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stock at that time"),
+            @ApiResponse(responseCode = "400", description = "Product was not in ledger mode at that time")
+    })
+    public ResponseEntity<InventoryResponse> getStockAsOf(
+            @PathVariable String productId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime timestamp) {
+        return ResponseEntity.ok(inventoryService.getInventoryAt(productId, timestamp));
+    }
+
+    /**
+     * Create or update a stock location (warehouse).
+     */
+    @PutMapping("/locations/{code}")
+    @Operation(summary = "Upsert stock location", description = "Create or update a warehouse with its coordinates and priority")
+    public ResponseEntity<StockLocationResponse> upsertLocation(
+            @PathVariable String code,
+            @Valid @RequestBody StockLocationRequest request) {
+        log.info("Upserting stock location: {}", code);
+        return ResponseEntity.ok(locationService.upsertLocation(code, request));
+    }
+
+    /**
+     * List stock locations.
+     */
+    @GetMapping("/locations")
+    @Operation(summary = "Get stock locations", description = "List all warehouses")
+    public ResponseEntity<List<StockLocationResponse>> getLocations() {
+        return ResponseEntity.ok(locationService.listLocations());
+    }
+
+    /**
+     * Stock of a product per location.
+     */
+    @GetMapping("/{productId}/locations")
+    @Operation(summary = "Get location stock", description = "Stock of a located product at each location")
+    public ResponseEntity<List<InventoryShardResponse>> getLocationStock(
+            @PathVariable String productId) {
+        return ResponseEntity.ok(locationService.getLocationStock(productId));
+    }
+
+    /**
+     * Set the stock of a product at one location.
+     */
+    @PutMapping("/{productId}/locations/{code}")
+    @Operation(summary = "Set location stock",
+            description = "Set total stock at one location; the first location switches the product to located stock")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Location stock set"),
+            @ApiResponse(responseCode = "400", description = "Unknown location, quantity below reserved or product in another stock mode")
+    })
+    public ResponseEntity<InventoryShardResponse> setLocationStock(
+            @PathVariable String productId,
+            @PathVariable String code,
+            @RequestParam Integer quantity) {
+        log.info("Setting stock of product {} at location {} to {}", productId, code, quantity);
+        return ResponseEntity.ok(locationService.setLocationStock(productId, code, quantity));
+    }
+
+    /**
+     * Stop stocking a product at one location.
+     */
+    @DeleteMapping("/{productId}/locations/{code}")
+    @Operation(summary = "Remove location stock", description = "Drop free stock of a product at a location without reservations")
+    public ResponseEntity<InventoryResponse> removeLocationStock(
+            @PathVariable String productId,
+            @PathVariable String code) {
+        log.info("Removing stock of product {} at location {}", productId, code);
+        return ResponseEntity.ok(locationService.removeLocationStock(productId, code));
+    }
+
+    /**
+     * Fold all location stock back into the inventory row.
+     */
+    @DeleteMapping("/{productId}/locations")
+    @Operation(summary = "Disable location stock", description = "Merge stock of all locations back into the inventory row")
+    public ResponseEntity<InventoryResponse> disableLocations(
+            @PathVariable String productId) {
+        log.info("Disabling location stock for product: {}", productId);
+        return ResponseEntity.ok(locationService.disableLocations(productId));
+    }
+
+    /**
+     * Recompute reserved quantities from reservations and leases.
+     */
+    @PostMapping("/reconcile")
+    @Operation(summary = "Reconcile reserved stock",
+            description = "Compare reserved quantity of every inventory and shard with its reservations; optionally repair")
+    public ResponseEntity<ReconciliationReport> reconcile(
+            @RequestParam(defaultValue = "false") boolean repair) {
+        log.info("Reconciling reserved quantities, repair: {}", repair);
+        return ResponseEntity.ok(reconciliationService.reconcile(repair));
+    }
+
+    /**
+     * Flash-sale admission state of a product on this replica (the mode is shared by all replicas).
+     */
+    @GetMapping("/{productId}/flash-sale")
+    @Operation(summary = "Get flash-sale mode", description = "Remaining admission permits of a flash-sale product")
+    public ResponseEntity<FlashSaleResponse> getFlashSale(
+            @PathVariable String productId) {
+        return ResponseEntity.ok(flashSaleGate.status(productId));
+    }
+
+    /**
+     * Enable flash-sale admission control (or reload its permits).
+     */
+    @PutMapping("/{productId}/flash-sale")
+    @Operation(summary = "Enable flash-sale mode",
+            description = "Preload available stock into in-memory permits; reservations beyond them are rejected before any database work")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Flash-sale mode enabled"),
+            @ApiResponse(responseCode = "404", description = "Inventory not found")
+    })
+    public ResponseEntity<FlashSaleResponse> enableFlashSale(
+            @PathVariable String productId) {
+        log.info("Enabling flash-sale mode for product: {}", productId);
+        return ResponseEntity.ok(flashSaleGate.enable(productId));
+    }
+
+    /**
+     * Disable flash-sale admission control.
+     */
+    @DeleteMapping("/{productId}/flash-sale")
+    @Operation(summary = "Disable flash-sale mode", description = "Stop gating reservations of the product")
+    public ResponseEntity<FlashSaleResponse> disableFlashSale(
+            @PathVariable String productId) {
+        log.info("Disabling flash-sale mode for product: {}", productId);
+        return ResponseEntity.ok(flashSaleGate.disable(productId));
+    }
+}
@@ -1,11 +1,21 @@
 package com.ecommerce.inventory.controller;
 
+import com.ecommerce.inventory.dto.AvailabilityRequest;
+import com.ecommerce.inventory.dto.BulkReservationRequest;
+import com.ecommerce.inventory.dto.BulkReservationResponse;
 import com.ecommerce.inventory.dto.InventoryRequest;
 import com.ecommerce.inventory.dto.InventoryResponse;
+import com.ecommerce.inventory.dto.OrderReservationRequest;
+import com.ecommerce.inventory.dto.OrderReservationResponse;
 import com.ecommerce.inventory.dto.ReservationRequest;
+import com.ecommerce.inventory.dto.ReservationLineRequest;
 import com.ecommerce.inventory.dto.ReservationResponse;
+import com.ecommerce.inventory.service.BulkReservationService;
+import com.ecommerce.inventory.service.FlashSaleGate;
 import com.ecommerce.inventory.service.InventoryService;
+import com.ecommerce.inventory.service.ReservationRetryExecutor;
 import com.ecommerce.inventory.service.ReservationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -16,8 +26,20 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/inventory")  // ← ИЗМЕНЕНО: добавил /api/v1
@@ -28,6 +50,10 @@ public class InventoryController {
 
     private final InventoryService inventoryService;
     private final ReservationService reservationService;
+    private final BulkReservationService bulkReservationService;
+    private final ReservationRetryExecutor retryExecutor;
+    private final FlashSaleGate flashSaleGate;
+    private final ObjectMapper objectMapper;
 
     /**
      * Create new product inventory.
@@ -64,6 +90,55 @@ public class InventoryController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Get available quantity for many products at once.
+     */
+    @PostMapping("/availability")
+    @Operation(summary = "Bulk availability", description = "Available quantity per product for a list of products, one query")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Map of productId to available quantity; unknown products are omitted"),
+            @ApiResponse(responseCode = "400", description = "Invalid request or too many products")
+    })
+    public ResponseEntity<Map<String, Integer>> getAvailability(
+            @Valid @RequestBody AvailabilityRequest request) {
+        log.debug("Fetching availability for {} products", request.getProductIds().size());
+        return ResponseEntity.ok(inventoryService.getAvailability(request.getProductIds()));
+    }
+
+    /**
+     * Stream available quantity for a very large product list.
+     */
+    @PostMapping(value = "/availability/stream", produces = "application/x-ndjson")
+    @Operation(summary = "Stream bulk availability",
+            description = "Newline-delimited {\"productId\": availableQuantity} objects, written chunk by chunk")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Availability stream"),
+            @ApiResponse(responseCode = "400", description = "Invalid request")
+    })
+    public ResponseEntity<StreamingResponseBody> streamAvailability(
+            @Valid @RequestBody AvailabilityRequest request) {
+        log.info("Streaming availability for {} products", request.getProductIds().size());
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            try {
+                inventoryService.streamAvailability(request.getProductIds(), (productId, available) -> {
+                    try {
+                        writer.write(objectMapper.writeValueAsString(Map.of(productId, available)));
+                        writer.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     /**
      * Reserve stock for an order.
      */
@@ -79,7 +154,38 @@ public class InventoryController {
             @Valid @RequestBody ReservationRequest request) {
         log.info("Processing reservation - Order: {}, Product: {}, Quantity: {}",
                 request.getOrderId(), request.getProductId(), request.getQuantity());
-        ReservationResponse response = reservationService.reserveStock(request);
+        ReservationResponse response = flashSaleGate.admit(request.getProductId(), request.getQuantity(),
+                () -> retryExecutor.execute("reserve", List.of(request.getProductId()),
+                        () -> reservationService.reserveStock(request)),
+                ReservationResponse::isSuccess);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Reserve stock for all lines of an order in one transaction.
+     */
+    @PostMapping("/reserve/batch")
+    @Operation(summary = "Reserve order lines", description = "Reserve stock for every line of an order, all-or-nothing")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Order reservation processed",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = OrderReservationResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request or unknown product")
+    })
+    public ResponseEntity<OrderReservationResponse> reserveOrder(
+            @Valid @RequestBody OrderReservationRequest request) {
+        log.info("Processing order reservation - Order: {}, Lines: {}",
+                request.getOrderId(), request.getLines().size());
+        List<String> productIds = request.getLines().stream()
+                .map(ReservationLineRequest::getProductId)
+                .distinct()
+                .toList();
+        Map<String, Integer> quantities = request.getLines().stream()
+                .collect(Collectors.toMap(ReservationLineRequest::getProductId, ReservationLineRequest::getQuantity,
+                        Integer::sum));
+        OrderReservationResponse response = flashSaleGate.admit(quantities,
+                () -> retryExecutor.execute("reserve_order", productIds,
+                        () -> reservationService.reserveOrder(request)),
+                OrderReservationResponse::isSuccess);
         return ResponseEntity.ok(response);
     }
 
@@ -95,7 +201,7 @@ public class InventoryController {
     public ResponseEntity<Void> releaseReservation(
             @PathVariable String orderId) {
         log.info("Releasing reservation for order: {}", orderId);
-        reservationService.releaseReservation(orderId);
+        retryExecutor.run("release", List.of(), () -> reservationService.releaseReservation(orderId));
         return ResponseEntity.ok().build();
     }
 
@@ -111,10 +217,43 @@ public class InventoryController {
     public ResponseEntity<Void> confirmReservation(
             @PathVariable String orderId) {
         log.info("Confirming reservation for order: {}", orderId);
-        reservationService.confirmReservation(orderId);
+        retryExecutor.run("confirm", List.of(), () -> reservationService.confirmReservation(orderId));
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Release reserved stock of many orders (mass cancellation).
+     */
+    @PostMapping("/release/bulk")
+    @Operation(summary = "Bulk release reservations",
+            description = "Release reserved stock of many orders; stock is updated once per product per chunk")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Per-order results",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkReservationResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request or too many orders")
+    })
+    public ResponseEntity<BulkReservationResponse> releaseReservations(
+            @Valid @RequestBody BulkReservationRequest request) {
+        log.info("Releasing reservations for {} orders", request.getOrderIds().size());
+        return ResponseEntity.ok(bulkReservationService.release(request.getOrderIds()));
+    }
+
+    /**
+     * Confirm reservations of many orders (payment batch).
+     */
+    @PostMapping("/confirm/bulk")
+    @Operation(summary = "Bulk confirm reservations", description = "Confirm reservations of many orders after payment")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Per-order results",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkReservationResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request or too many orders")
+    })
+    public ResponseEntity<BulkReservationResponse> confirmReservations(
+            @Valid @RequestBody BulkReservationRequest request) {
+        log.info("Confirming reservations for {} orders", request.getOrderIds().size());
+        return ResponseEntity.ok(bulkReservationService.confirm(request.getOrderIds()));
+    }
+
     /**
      * Health check endpoint.
      */
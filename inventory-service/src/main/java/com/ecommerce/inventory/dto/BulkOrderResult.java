@@ -0,0 +1,29 @@
+package com.ecommerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of a bulk confirm or release for one order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkOrderResult {
+
+    private String orderId;
+    private Status status;
+    // Reservation lines changed; null when the order is held by the reservation engine
+    private Integer lines;
+    private String message;
+
+    public enum Status {
+        APPLIED,        // Lines confirmed / released
+        NOT_APPLICABLE, // No line in a state the operation applies to
+        NOT_FOUND,      // Order has no reservation
+        FAILED          // Batch failed, the order is unchanged
+    }
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.inventory.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request DTO for confirming or releasing the reservations of many orders.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkReservationRequest {
+
+    @NotEmpty(message = "At least one order ID is required")
+    private List<@NotBlank String> orderIds;
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for bulk confirm / release: per-order results in request order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkReservationResponse {
+
+    private int requested;
+    private int applied;
+    private int failed;
+    private List<BulkOrderResult> results;
+}
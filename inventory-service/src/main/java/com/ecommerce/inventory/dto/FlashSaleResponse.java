@@ -0,0 +1,22 @@
+// FlashSaleResponse.java
+package com.ecommerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for the flash-sale admission state of a product on this replica.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FlashSaleResponse {
+
+    private String productId;
+    private boolean active;
+    private Integer permits;
+    private Integer inFlight;
+}
@@ -26,6 +26,7 @@ public class InventoryResponse {
     @JsonProperty("availableQuantity")
     private Integer availableQuantity;
 
+    private Integer shardCount;
     private Integer version;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
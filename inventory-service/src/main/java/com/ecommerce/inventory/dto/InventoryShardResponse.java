@@ -0,0 +1,23 @@
+// InventoryShardResponse.java
+package com.ecommerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for a single stock shard of a sharded product.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryShardResponse {
+
+    private Integer shardNo;
+    private String locationCode;
+    private Integer totalQuantity;
+    private Integer reservedQuantity;
+    private Integer availableQuantity;
+}
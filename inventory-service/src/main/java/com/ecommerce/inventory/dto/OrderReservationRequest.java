@@ -0,0 +1,32 @@
+// OrderReservationRequest.java
+package com.ecommerce.inventory.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request DTO for reserving all lines of an order at once.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderReservationRequest {
+
+    @NotBlank(message = "Order ID cannot be blank")
+    private String orderId;
+
+    @NotEmpty(message = "Order must contain at least one line")
+    private List<@Valid ReservationLineRequest> lines;
+
+    // Optional; located products are allocated nearest to it
+    @Valid
+    private DeliveryPoint deliveryPoint;
+}
@@ -0,0 +1,25 @@
+// OrderReservationResponse.java
+package com.ecommerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for multi-line order reservation result.
+ * Either all lines are reserved or none.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderReservationResponse {
+
+    private String orderId;
+    private boolean success;
+    private String message;
+    private List<ReservationResponse> lines;
+}
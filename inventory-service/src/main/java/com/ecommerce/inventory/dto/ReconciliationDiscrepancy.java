@@ -0,0 +1,24 @@
+package com.ecommerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Reserved quantity of an inventory row or shard that does not match its reservations.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationDiscrepancy {
+
+    private Long inventoryId;
+    private String productId;
+    // Null for the inventory row itself
+    private Integer shardNo;
+    private long recordedReserved;
+    // PENDING + unsettled CONFIRMED reservations (+ leased stock on the inventory row)
+    private long expectedReserved;
+}
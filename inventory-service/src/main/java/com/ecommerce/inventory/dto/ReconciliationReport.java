@@ -0,0 +1,25 @@
+package com.ecommerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result of one reserved-quantity reconciliation run.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationReport {
+
+    private long inventoriesChecked;
+    private int discrepancyCount;
+    private int repaired;
+    private long durationMs;
+    // First inventory.reconciliation.max-reported discrepancies, all are logged
+    private List<ReconciliationDiscrepancy> discrepancies;
+}
@@ -1,6 +1,7 @@
 // ReservationRequest.java
 package com.ecommerce.inventory.dto;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -27,4 +28,8 @@ public class ReservationRequest {
     @NotNull(message = "Quantity cannot be null")
     @Positive(message = "Quantity must be positive")
     private Integer quantity;
+
+    // Optional; located products are allocated nearest to it
+    @Valid
+    private DeliveryPoint deliveryPoint;
 }
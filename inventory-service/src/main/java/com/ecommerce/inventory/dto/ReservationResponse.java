@@ -22,6 +22,7 @@ public class ReservationResponse {
     private String orderId;
     private String productId;
     private Integer reservedQuantity;
+    private String locationCode;
     private InventoryReservation.ReservationStatus status;
     private boolean success;
     private String message;
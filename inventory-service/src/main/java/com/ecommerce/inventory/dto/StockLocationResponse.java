@@ -0,0 +1,22 @@
+package com.ecommerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for a stock location (warehouse).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockLocationResponse {
+
+    private String code;
+    private String name;
+    private Double latitude;
+    private Double longitude;
+    private Integer priority;
+}
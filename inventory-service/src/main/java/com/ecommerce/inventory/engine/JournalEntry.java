@@ -0,0 +1,76 @@
+package com.ecommerce.inventory.engine;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * State change accepted by the in-memory engine and not yet persisted.
+ * Entries are flushed to Postgres in FIFO order by the write-behind flusher.
+ *
+ * @param type kind of change
+ * @param orderId order of the reservation (null for stock changes)
+ * @param productId product (null for multi-line order entries)
+ * @param inventoryId inventory row ID (null for multi-line order entries)
+ * @param quantity reservation quantity, or total quantity delta for TOTAL_CHANGED
+ * @param failureReason reason for FAILED and ORDER_FAILED entries, set on RELEASED entries of expired holds
+ * @param lines order lines of ORDER_RESERVED and ORDER_FAILED entries, else null
+ * @param occurredAt when the engine accepted the change
+ * @param enqueuedAtNanos System.nanoTime() at acceptance, for flush lag
+ */
+public record JournalEntry(
+        Type type,
+        String orderId,
+        String productId,
+        Long inventoryId,
+        Integer quantity,
+        String failureReason,
+        List<Line> lines,
+        LocalDateTime occurredAt,
+        long enqueuedAtNanos
+) {
+
+    public enum Type {
+        RESERVED,
+        FAILED,
+        RELEASED,
+        // confirmed and settled: quantity leaves total and reserved stock
+        CONFIRMED,
+        // release of a settled reservation: quantity goes back to total stock
+        RETURNED,
+        TOTAL_CHANGED,
+        // all lines of a multi-line order reserved, one entry so they flush together
+        ORDER_RESERVED,
+        // multi-line order rejected: lines are the short ones, no stock changed
+        ORDER_FAILED
+    }
+
+    /**
+     * One line of a multi-line order.
+     *
+     * @param availableQuantity available stock of a short line, null for reserved lines
+     */
+    public record Line(String productId, Long inventoryId, Integer quantity, Integer availableQuantity) {
+    }
+
+    static JournalEntry of(Type type, String orderId, String productId, Long inventoryId,
+                           Integer quantity, String failureReason) {
+        return new JournalEntry(type, orderId, productId, inventoryId, quantity, failureReason, null,
+                LocalDateTime.now(), System.nanoTime());
+    }
+
+    static JournalEntry ofOrder(Type type, String orderId, List<Line> lines, String failureReason) {
+        return new JournalEntry(type, orderId, null, null, null, failureReason, List.copyOf(lines),
+                LocalDateTime.now(), System.nanoTime());
+    }
+
+    /**
+     * Key of one reservation row: an order holds at most one line per inventory.
+     */
+    static String lineKey(String orderId, Long inventoryId) {
+        return orderId + "#" + inventoryId;
+    }
+
+    String lineKey() {
+        return lineKey(orderId, inventoryId);
+    }
+}
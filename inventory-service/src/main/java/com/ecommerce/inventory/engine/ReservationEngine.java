@@ -0,0 +1,843 @@
+package com.ecommerce.inventory.engine;
+
+import com.ecommerce.inventory.dto.OrderReservationResponse;
+import com.ecommerce.inventory.dto.ReservationResponse;
+import com.ecommerce.inventory.entity.Inventory;
+import com.ecommerce.inventory.entity.InventoryReservation;
+import com.ecommerce.inventory.event.OrderReservationFailedEvent;
+import com.ecommerce.inventory.event.OrderReservedEvent;
+import com.ecommerce.inventory.exception.InventoryException;
+import com.ecommerce.inventory.kafka.InventoryProducer;
+import com.ecommerce.inventory.repository.InventoryRepository;
+import com.ecommerce.inventory.repository.InventoryReservationRepository;
+import com.ecommerce.inventory.service.DuplicateOrderFilter;
+import com.ecommerce.inventory.service.StockChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * In-memory single-writer reservation engine with write-behind persistence.
+ *
+ * Products are partitioned by productId; each partition has exactly one
+ * writer thread that owns its {@link Inventory} copies, so reserve/release/
+ * confirm run without locks using the entity's own methods. Accepted changes
+ * are journaled and a single flusher thread persists them in batches through
+ * {@link ReservationJournalWriter}. Kafka events are published after the
+ * batch commits, so consumers never see changes that are not in Postgres.
+ *
+ * Multi-line orders hold their lines one partition at a time in productId
+ * order and are journaled as one entry once every line is held; a short line
+ * undoes the lines held before it.
+ *
+ * Confirmed lines are settled right away and leave memory once their
+ * settlement is flushed; a later return of such an order goes through the
+ * database path, which hands the returned stock back via {@link #returnStock}.
+ *
+ * The engine owns every non-sharded, non-ledger product loaded at startup or
+ * created later. While enabled it must be the only writer for those products,
+ * i.e. run a single inventory-service instance. State is rebuilt from the
+ * database on startup; unflushed journal entries are lost on a crash.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.engine.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationEngine {
+
+    // Journal entries that change reserved or total quantity, published once flushed
+    private static final Set<JournalEntry.Type> STOCK_CHANGES = EnumSet.of(
+            JournalEntry.Type.RESERVED, JournalEntry.Type.RELEASED, JournalEntry.Type.CONFIRMED,
+            JournalEntry.Type.RETURNED, JournalEntry.Type.TOTAL_CHANGED, JournalEntry.Type.ORDER_RESERVED);
+
+    private static final String EXPIRED = "Reservation expired";
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryReservationRepository reservationRepository;
+    private final ReservationJournalWriter journalWriter;
+    private final InventoryProducer kafkaProducer;
+    private final MeterRegistry meterRegistry;
+    private final DuplicateOrderFilter duplicateOrderFilter;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${inventory.engine.partitions:8}")
+    private int partitionCount;
+
+    @Value("${inventory.engine.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${inventory.engine.command-timeout-ms:5000}")
+    private long commandTimeoutMs;
+
+    @Value("${inventory.engine.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    @Value("${inventory.engine.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    private Partition[] partitions;
+    private final Set<String> ownedProducts = ConcurrentHashMap.newKeySet();
+    // orderId -> productIds of orders whose state the engine tracks; empty while a multi-line order is being held
+    private final ConcurrentHashMap<String, Set<String>> orderIndex = new ConcurrentHashMap<>();
+    private final LinkedBlockingDeque<JournalEntry> journal = new LinkedBlockingDeque<>();
+    private ScheduledExecutorService flusher;
+    private Timer flushTimer;
+    private Counter deadLetterCounter;
+
+    /**
+     * State owned by one writer thread. Never touched from other threads.
+     */
+    private static final class Partition {
+        private final ThreadPoolExecutor writer;
+        private final Map<String, Inventory> inventories = new HashMap<>();
+        // held (PENDING, or CONFIRMED until the settlement is flushed) reservations by order line
+        private final Map<LineKey, HeldReservation> reservations = new HashMap<>();
+
+        private Partition(int index, int queueCapacity) {
+            this.writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity),
+                    runnable -> new Thread(runnable, "reservation-engine-" + index));
+        }
+    }
+
+    private record LineKey(String orderId, String productId) {
+    }
+
+    private static final class HeldReservation {
+        private final Long inventoryId;
+        private final Integer quantity;
+        private final LocalDateTime reservedAt;
+        private InventoryReservation.ReservationStatus status;
+        // Confirmed quantity already taken out of total and reserved stock
+        private boolean settled;
+
+        private HeldReservation(Long inventoryId, Integer quantity, LocalDateTime reservedAt,
+                                InventoryReservation.ReservationStatus status) {
+            this.inventoryId = inventoryId;
+            this.quantity = quantity;
+            this.reservedAt = reservedAt;
+            this.status = status;
+        }
+    }
+
+    /**
+     * Rebuild partitions from the database, then start writers and flusher.
+     */
+    @PostConstruct
+    void start() {
+        partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(i, queueCapacity);
+        }
+
+        Map<Long, Inventory> byId = new HashMap<>();
+        for (Inventory inventory : inventoryRepository.findAll()) {
+            if (inventory.isSharded() || inventory.isLedgerMode()) {
+                continue;
+            }
+            partitionOf(inventory.getProductId()).inventories.put(inventory.getProductId(), inventory);
+            ownedProducts.add(inventory.getProductId());
+            byId.put(inventory.getId(), inventory);
+        }
+
+        int held = 0;
+        // Settled lines are only known to the database, a return of one goes through the database path
+        for (InventoryReservation reservation : reservationRepository.findHoldingStock()) {
+            Inventory inventory = byId.get(reservation.getInventoryId());
+            if (inventory == null) {
+                continue;
+            }
+            HeldReservation heldReservation = new HeldReservation(inventory.getId(),
+                    reservation.getReservedQuantity(), reservation.getCreatedAt(), reservation.getStatus());
+            if (reservation.getStatus() == InventoryReservation.ReservationStatus.CONFIRMED) {
+                // Confirmed before the engine settled on confirm: settle now, persisted by the first flush
+                settle(inventory, reservation.getOrderId(), heldReservation);
+            }
+            partitionOf(inventory.getProductId()).reservations.put(
+                    new LineKey(reservation.getOrderId(), inventory.getProductId()), heldReservation);
+            orderIndex.merge(reservation.getOrderId(), Set.of(inventory.getProductId()), ReservationEngine::union);
+            held++;
+        }
+
+        registerMetrics();
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "reservation-engine-flusher"));
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+
+        log.info("Reservation engine started: {} partitions, {} products, {} held reservations",
+                partitionCount, ownedProducts.size(), held);
+    }
+
+    /**
+     * Stop accepting commands, drain writers, flush remaining journal.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        for (Partition partition : partitions) {
+            partition.writer.shutdown();
+        }
+        for (Partition partition : partitions) {
+            partition.writer.awaitTermination(commandTimeoutMs, TimeUnit.MILLISECONDS);
+        }
+        flusher.shutdown();
+        flusher.awaitTermination(commandTimeoutMs, TimeUnit.MILLISECONDS);
+        while (!journal.isEmpty() && flush() > 0) {
+            // drain
+        }
+        if (!journal.isEmpty()) {
+            log.error("Reservation engine stopped with {} unflushed journal entries", journal.size());
+        }
+    }
+
+    /**
+     * @return true if the engine is the writer for this product
+     */
+    public boolean owns(String productId) {
+        return ownedProducts.contains(productId);
+    }
+
+    /**
+     * Reserve stock for a single-line order.
+     */
+    public ReservationResponse reserve(String orderId, String productId, Integer quantity) {
+        // Orders finished before startup are only known to the database. Write-behind cannot
+        // reject a duplicate at flush time, so a filter miss is not enough here
+        if (!orderIndex.containsKey(orderId) && reservationRepository.existsOrder(orderId)) {
+            throw duplicate(orderId);
+        }
+
+        return execute(productId, partition -> {
+            if (orderIndex.putIfAbsent(orderId, Set.of(productId)) != null) {
+                throw duplicate(orderId);
+            }
+            duplicateOrderFilter.record(orderId);
+            Inventory inventory = partition.inventories.get(productId);
+
+            if (!inventory.hasAvailableQuantity(quantity)) {
+                Integer available = inventory.getAvailableQuantity();
+                journal.add(JournalEntry.of(JournalEntry.Type.FAILED, orderId, productId, inventory.getId(), quantity,
+                        String.format("Insufficient stock. Requested: %d, Available: %d", quantity, available)));
+                return ReservationResponse.builder()
+                        .orderId(orderId)
+                        .productId(productId)
+                        .reservedQuantity(quantity)
+                        .status(InventoryReservation.ReservationStatus.FAILED)
+                        .success(false)
+                        .message(String.format(
+                                "Insufficient stock for product %s. Requested: %d, Available: %d",
+                                productId, quantity, available))
+                        .build();
+            }
+
+            inventory.reserve(quantity);
+            partition.reservations.put(new LineKey(orderId, productId), new HeldReservation(
+                    inventory.getId(), quantity, LocalDateTime.now(), InventoryReservation.ReservationStatus.PENDING));
+            journal.add(JournalEntry.of(JournalEntry.Type.RESERVED, orderId, productId, inventory.getId(), quantity, null));
+
+            // reservationId is assigned when the journal is flushed
+            return ReservationResponse.builder()
+                    .orderId(orderId)
+                    .productId(productId)
+                    .reservedQuantity(quantity)
+                    .status(InventoryReservation.ReservationStatus.PENDING)
+                    .success(true)
+                    .message("Stock reserved successfully")
+                    .build();
+        });
+    }
+
+    /**
+     * Reserve stock for a multi-line order whose products are all owned by
+     * the engine. Lines are held in productId order; if one is short, the
+     * lines held so far are released and only the short line is recorded.
+     *
+     * @param quantities quantity per product, productId ascending
+     */
+    public OrderReservationResponse reserveOrder(String orderId, SortedMap<String, Integer> quantities) {
+        if (!orderIndex.containsKey(orderId) && reservationRepository.existsOrder(orderId)) {
+            throw duplicate(orderId);
+        }
+        // Empty placeholder rejects duplicates while the lines are held, release sees nothing to undo yet
+        if (orderIndex.putIfAbsent(orderId, Set.of()) != null) {
+            throw duplicate(orderId);
+        }
+        duplicateOrderFilter.record(orderId);
+
+        List<JournalEntry.Line> held = new ArrayList<>(quantities.size());
+        JournalEntry.Line shortLine = null;
+        String attempted = null;
+        try {
+            for (Map.Entry<String, Integer> line : quantities.entrySet()) {
+                attempted = line.getKey();
+                JournalEntry.Line result = execute(line.getKey(),
+                        partition -> hold(partition, orderId, line.getKey(), line.getValue()));
+                if (result.availableQuantity() != null) {
+                    shortLine = result;
+                    break;
+                }
+                held.add(result);
+            }
+        } catch (RuntimeException e) {
+            // A timed-out hold may still run: its undo is queued behind it on the same writer
+            undo(orderId, held);
+            undo(orderId, attempted);
+            orderIndex.remove(orderId, Set.of());
+            throw e;
+        }
+
+        if (shortLine != null) {
+            undo(orderId, held);
+            String reason = String.format("Insufficient stock for 1 of %d lines", quantities.size());
+            // Placeholder stays until the FAILED row is flushed and covers duplicates
+            journal.add(JournalEntry.ofOrder(JournalEntry.Type.ORDER_FAILED, orderId, List.of(shortLine), reason));
+            String shortProduct = shortLine.productId();
+            Integer available = shortLine.availableQuantity();
+            return OrderReservationResponse.builder()
+                    .orderId(orderId)
+                    .success(false)
+                    .message(reason)
+                    .lines(quantities.entrySet().stream()
+                            .map(line -> {
+                                boolean lacking = line.getKey().equals(shortProduct);
+                                return ReservationResponse.builder()
+                                        .orderId(orderId)
+                                        .productId(line.getKey())
+                                        .reservedQuantity(line.getValue())
+                                        .status(lacking ? InventoryReservation.ReservationStatus.FAILED : null)
+                                        .success(false)
+                                        .message(lacking
+                                                ? String.format("Insufficient stock for product %s. Requested: %d, Available: %d",
+                                                line.getKey(), line.getValue(), available)
+                                                : "Not reserved, order rejected")
+                                        .build();
+                            })
+                            .toList())
+                    .build();
+        }
+
+        // Journal before indexing, so a release of these lines is always journaled after them
+        journal.add(JournalEntry.ofOrder(JournalEntry.Type.ORDER_RESERVED, orderId, held, null));
+        orderIndex.put(orderId, Set.copyOf(quantities.keySet()));
+
+        // reservationIds are assigned when the journal is flushed
+        return OrderReservationResponse.builder()
+                .orderId(orderId)
+                .success(true)
+                .message("Stock reserved successfully")
+                .lines(held.stream()
+                        .map(line -> ReservationResponse.builder()
+                                .orderId(orderId)
+                                .productId(line.productId())
+                                .reservedQuantity(line.quantity())
+                                .status(InventoryReservation.ReservationStatus.PENDING)
+                                .success(true)
+                                .message("Stock reserved successfully")
+                                .build())
+                        .toList())
+                .build();
+    }
+
+    /**
+     * Hold one line of a multi-line order without journaling it.
+     *
+     * @return the line, with the available quantity set if stock is short
+     */
+    private static JournalEntry.Line hold(Partition partition, String orderId, String productId, Integer quantity) {
+        Inventory inventory = partition.inventories.get(productId);
+        if (!inventory.hasAvailableQuantity(quantity)) {
+            return new JournalEntry.Line(productId, inventory.getId(), quantity, inventory.getAvailableQuantity());
+        }
+        inventory.reserve(quantity);
+        partition.reservations.put(new LineKey(orderId, productId), new HeldReservation(
+                inventory.getId(), quantity, LocalDateTime.now(), InventoryReservation.ReservationStatus.PENDING));
+        return new JournalEntry.Line(productId, inventory.getId(), quantity, null);
+    }
+
+    private void undo(String orderId, List<JournalEntry.Line> held) {
+        held.forEach(line -> undo(orderId, line.productId()));
+    }
+
+    /**
+     * Drop an unjournaled hold. Nothing was journaled for it, so nothing is journaled now.
+     */
+    private void undo(String orderId, String productId) {
+        if (productId == null) {
+            return;
+        }
+        try {
+            execute(productId, partition -> {
+                HeldReservation reservation = partition.reservations.remove(new LineKey(orderId, productId));
+                if (reservation != null) {
+                    partition.inventories.get(productId).release(reservation.quantity);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to undo held line of order {} for product {}", orderId, productId, e);
+        }
+    }
+
+    /**
+     * Release every held line of an order. A settled (confirmed) line is a
+     * return: its quantity goes back to total stock.
+     *
+     * @return false if the engine does not track the order, or no longer
+     *         does because its lines were settled meanwhile
+     */
+    public boolean release(String orderId) {
+        // Read once: the entry may be dropped by the flusher at any time
+        Set<String> productIds = orderIndex.get(orderId);
+        if (productIds == null) {
+            return false;
+        }
+        if (productIds.isEmpty()) {
+            log.warn("Order {} holds no stock in the engine, nothing to release", orderId);
+        }
+        boolean released = false;
+        for (String productId : productIds) {
+            released |= execute(productId, partition -> releaseLine(partition, orderId, productId));
+        }
+        // Lines dropped after their settlement flushed are left to the database path
+        return released || productIds.isEmpty() || orderIndex.containsKey(orderId);
+    }
+
+    private boolean releaseLine(Partition partition, String orderId, String productId) {
+        HeldReservation reservation = partition.reservations.remove(new LineKey(orderId, productId));
+        if (reservation == null) {
+            log.warn("Reservation already released or not holding stock for order: {}, product: {}",
+                    orderId, productId);
+            return false;
+        }
+        Inventory inventory = partition.inventories.get(productId);
+        if (reservation.settled) {
+            inventory.addStock(reservation.quantity);
+            journal.add(JournalEntry.of(JournalEntry.Type.RETURNED, orderId, productId,
+                    reservation.inventoryId, reservation.quantity, null));
+            return true;
+        }
+        inventory.release(reservation.quantity);
+        journal.add(JournalEntry.of(JournalEntry.Type.RELEASED, orderId, productId,
+                reservation.inventoryId, reservation.quantity, null));
+        return true;
+    }
+
+    /**
+     * Confirm every PENDING line of an order and settle it right away; the
+     * journal aggregates settlements like any other stock change.
+     *
+     * @return false if the engine does not track the order
+     */
+    public boolean confirm(String orderId) {
+        Set<String> productIds = orderIndex.get(orderId);
+        if (productIds == null) {
+            return false;
+        }
+        if (productIds.isEmpty()) {
+            log.warn("Cannot confirm reservation not in PENDING status - Order: {}", orderId);
+        }
+        for (String productId : productIds) {
+            execute(productId, partition -> {
+                HeldReservation reservation = partition.reservations.get(new LineKey(orderId, productId));
+                if (reservation == null || reservation.status != InventoryReservation.ReservationStatus.PENDING) {
+                    log.warn("Cannot confirm reservation not in PENDING status - Order: {}, Product: {}",
+                            orderId, productId);
+                    return null;
+                }
+                reservation.status = InventoryReservation.ReservationStatus.CONFIRMED;
+                settle(partition.inventories.get(productId), orderId, reservation);
+                return null;
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Release PENDING holds accepted before the cutoff, like the expiry
+     * sweeper does for reservation rows. Lines of a multi-line order that is
+     * still being held are left alone.
+     *
+     * @return number of holds expired
+     */
+    public int expirePending(LocalDateTime cutoff) {
+        int expired = 0;
+        for (Partition partition : partitions) {
+            expired += execute(partition, owned -> expire(owned, cutoff));
+        }
+        if (expired > 0) {
+            log.info("Engine expired {} reservations created before {}", expired, cutoff);
+        }
+        return expired;
+    }
+
+    private int expire(Partition partition, LocalDateTime cutoff) {
+        int expired = 0;
+        Iterator<Map.Entry<LineKey, HeldReservation>> held = partition.reservations.entrySet().iterator();
+        while (held.hasNext()) {
+            Map.Entry<LineKey, HeldReservation> entry = held.next();
+            LineKey line = entry.getKey();
+            HeldReservation reservation = entry.getValue();
+            if (reservation.status != InventoryReservation.ReservationStatus.PENDING
+                    || !reservation.reservedAt.isBefore(cutoff)) {
+                continue;
+            }
+            Set<String> indexed = orderIndex.get(line.orderId());
+            if (indexed == null || !indexed.contains(line.productId())) {
+                // Not journaled yet
+                continue;
+            }
+            held.remove();
+            partition.inventories.get(line.productId()).release(reservation.quantity);
+            journal.add(JournalEntry.of(JournalEntry.Type.RELEASED, line.orderId(), line.productId(),
+                    reservation.inventoryId, reservation.quantity, EXPIRED));
+            expired++;
+        }
+        return expired;
+    }
+
+    private void settle(Inventory inventory, String orderId, HeldReservation reservation) {
+        inventory.confirm(reservation.quantity);
+        reservation.settled = true;
+        journal.add(JournalEntry.of(JournalEntry.Type.CONFIRMED, orderId, inventory.getProductId(),
+                reservation.inventoryId, reservation.quantity, null));
+    }
+
+    /**
+     * Set total quantity of an owned product.
+     *
+     * @return snapshot of the updated inventory
+     */
+    public Inventory updateTotalQuantity(String productId, Integer newQuantity) {
+        return execute(productId, partition -> {
+            Inventory inventory = partition.inventories.get(productId);
+            if (newQuantity < inventory.getReservedQuantity()) {
+                throw new InventoryException(
+                        String.format("Total quantity %d is below reserved quantity %d for product %s",
+                                newQuantity, inventory.getReservedQuantity(), productId),
+                        "INVALID_QUANTITY"
+                );
+            }
+            int delta = newQuantity - inventory.getTotalQuantity();
+            inventory.setTotalQuantity(newQuantity);
+            journal.add(JournalEntry.of(JournalEntry.Type.TOTAL_CHANGED, null, productId, inventory.getId(), delta, null));
+            return copy(inventory);
+        });
+    }
+
+    /**
+     * Put stock returned through the database path back into an owned
+     * product. The caller has written the row already, so nothing is journaled.
+     */
+    public void returnStock(String productId, Integer quantity) {
+        execute(productId, partition -> {
+            partition.inventories.get(productId).addStock(quantity);
+            return null;
+        });
+    }
+
+    /**
+     * Current in-memory state of an owned product (ahead of the database by the flush lag).
+     */
+    public Inventory snapshot(String productId) {
+        return execute(productId, partition -> copy(partition.inventories.get(productId)));
+    }
+
+    /**
+     * Take ownership of a newly created (committed) inventory.
+     */
+    public void register(Inventory inventory) {
+        String productId = inventory.getProductId();
+        execute(productId, partition -> {
+            partition.inventories.put(productId, copy(inventory));
+            ownedProducts.add(productId);
+            return null;
+        });
+    }
+
+    private <T> T execute(String productId, Function<Partition, T> command) {
+        return execute(partitionOf(productId), command);
+    }
+
+    private <T> T execute(Partition partition, Function<Partition, T> command) {
+        Future<T> future;
+        try {
+            future = partition.writer.submit(() -> command.apply(partition));
+        } catch (RejectedExecutionException e) {
+            throw new InventoryException("Reservation engine is overloaded, please retry", "ENGINE_OVERLOADED", e);
+        }
+
+        try {
+            return future.get(commandTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new InventoryException("Reservation engine command failed", "ENGINE_ERROR", e.getCause());
+        } catch (TimeoutException e) {
+            // The command stays queued and may still be applied
+            throw new InventoryException("Reservation engine timed out, outcome unknown", "ENGINE_TIMEOUT", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InventoryException("Interrupted while waiting for reservation engine", "ENGINE_ERROR", e);
+        }
+    }
+
+    private Partition partitionOf(String productId) {
+        return partitions[Math.floorMod(productId.hashCode(), partitions.length)];
+    }
+
+    private void flushSafely() {
+        try {
+            while (flush() == flushBatchSize) {
+                // keep draining while batches are full
+            }
+        } catch (RuntimeException e) {
+            log.error("Write-behind flush failed, will retry", e);
+        }
+    }
+
+    /**
+     * Persist one batch, then publish its events.
+     * If the database is unreachable the batch is put back at the head of the
+     * journal. Any other failure is caused by some entry of the batch: the
+     * entries are then persisted one at a time and an entry that fails on its
+     * own is dead-lettered, so it cannot block the journal.
+     *
+     * @return number of entries flushed or dead-lettered
+     */
+    private int flush() {
+        List<JournalEntry> batch = new ArrayList<>(flushBatchSize);
+        journal.drainTo(batch, flushBatchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, Long> reservationIds;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            reservationIds = journalWriter.persist(batch);
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                requeue(batch);
+                throw e;
+            }
+            log.warn("Write-behind batch of {} entries failed, persisting entries one by one", batch.size(), e);
+            return flushEach(batch);
+        } finally {
+            sample.stop(flushTimer);
+        }
+
+        for (JournalEntry entry : batch) {
+            publish(entry, reservationIds);
+        }
+        return batch.size();
+    }
+
+    private int flushEach(List<JournalEntry> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            JournalEntry entry = batch.get(i);
+            Map<String, Long> reservationIds;
+            try {
+                reservationIds = journalWriter.persist(List.of(entry));
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    requeue(batch.subList(i, batch.size()));
+                    throw e;
+                }
+                deadLetter(entry, e);
+                continue;
+            }
+            publish(entry, reservationIds);
+        }
+        return batch.size();
+    }
+
+    /**
+     * Park an entry whose change cannot be persisted. Its events are not
+     * published: consumers only see changes that are in Postgres.
+     */
+    private void deadLetter(JournalEntry entry, RuntimeException cause) {
+        deadLetterCounter.increment();
+        log.error("Journal entry cannot be persisted, dead-lettered: {}", entry, cause);
+        try {
+            journalWriter.deadLetter(entry, cause);
+        } catch (RuntimeException e) {
+            // Logged above with the full entry; dropping it keeps the journal moving
+            log.error("Failed to store dead-lettered journal entry of order {}", entry.orderId(), e);
+        }
+    }
+
+    private void requeue(List<JournalEntry> entries) {
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            journal.addFirst(entries.get(i));
+        }
+    }
+
+    /**
+     * Failures that say nothing about the entries: the whole batch is retried.
+     */
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    private void publish(JournalEntry entry, Map<String, Long> reservationIds) {
+        Long reservationId = entry.inventoryId() != null ? reservationIds.get(entry.lineKey()) : null;
+        String id = reservationId != null ? reservationId.toString() : null;
+        switch (entry.type()) {
+            case RESERVED -> kafkaProducer.sendReservationSuccess(
+                    entry.orderId(), entry.productId(), entry.quantity(), id);
+            case FAILED -> {
+                kafkaProducer.sendReservationFailed(entry.orderId(), entry.productId(), entry.quantity(),
+                        entry.failureReason());
+                // Finished orders are now covered by the database duplicate check
+                orderIndex.remove(entry.orderId());
+            }
+            case RELEASED, RETURNED -> {
+                kafkaProducer.sendReservationCompensated(entry.orderId(), entry.productId(), entry.quantity(), id,
+                        entry.failureReason() != null ? entry.failureReason() : "Order cancelled or saga rollback");
+                unindex(entry.orderId(), entry.productId());
+            }
+            case ORDER_RESERVED -> kafkaProducer.sendOrderReservationSuccess(entry.orderId(), entry.lines().stream()
+                    .map(line -> OrderReservedEvent.Line.builder()
+                            .productId(line.productId())
+                            .quantity(line.quantity())
+                            .reservationId(Objects.toString(
+                                    reservationIds.get(JournalEntry.lineKey(entry.orderId(), line.inventoryId())), null))
+                            .build())
+                    .toList());
+            case ORDER_FAILED -> {
+                kafkaProducer.sendOrderReservationFailed(entry.orderId(), entry.lines().stream()
+                        .map(line -> OrderReservationFailedEvent.Line.builder()
+                                .productId(line.productId())
+                                .requestedQuantity(line.quantity())
+                                .availableQuantity(line.availableQuantity())
+                                .build())
+                        .toList(), entry.failureReason());
+                orderIndex.remove(entry.orderId());
+            }
+            case CONFIRMED -> forgetSettled(entry.orderId(), entry.productId());
+            case TOTAL_CHANGED -> {
+                // no event
+            }
+        }
+        if (STOCK_CHANGES.contains(entry.type())) {
+            eventPublisher.publishEvent(entry.lines() != null
+                    ? new StockChangedEvent(entry.lines().stream().map(JournalEntry.Line::productId).toList())
+                    : StockChangedEvent.of(entry.productId()));
+        }
+    }
+
+    /**
+     * Drop a line whose settlement is in the database. Unindexed first, so a
+     * release that no longer finds the line falls through to the database path.
+     */
+    private void forgetSettled(String orderId, String productId) {
+        unindex(orderId, productId);
+        Partition partition = partitionOf(productId);
+        LineKey line = new LineKey(orderId, productId);
+        try {
+            partition.writer.execute(() -> {
+                HeldReservation reservation = partition.reservations.get(line);
+                if (reservation != null && reservation.settled) {
+                    partition.reservations.remove(line);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Writer full or stopped: the unindexed line is never read again and goes with the next restart
+            log.debug("Could not drop settled line of order {} for product {}", orderId, productId);
+        }
+    }
+
+    /**
+     * Forget one released line; the order leaves the index with its last line.
+     */
+    private void unindex(String orderId, String productId) {
+        orderIndex.computeIfPresent(orderId, (id, productIds) -> {
+            Set<String> remaining = new HashSet<>(productIds);
+            remaining.remove(productId);
+            return remaining.isEmpty() ? null : Set.copyOf(remaining);
+        });
+    }
+
+    private static Set<String> union(Set<String> left, Set<String> right) {
+        Set<String> union = new HashSet<>(left);
+        union.addAll(right);
+        return Set.copyOf(union);
+    }
+
+    private void registerMetrics() {
+        Gauge.builder("inventory.engine.journal.depth", journal, LinkedBlockingDeque::size)
+                .description("Accepted changes waiting for write-behind flush")
+                .register(meterRegistry);
+        Gauge.builder("inventory.engine.flush.lag", journal, ReservationEngine::oldestEntryAgeSeconds)
+                .description("Age of the oldest unflushed journal entry")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        for (int i = 0; i < partitions.length; i++) {
+            Gauge.builder("inventory.engine.partition.queue.depth", partitions[i].writer, pool -> pool.getQueue().size())
+                    .description("Commands waiting for the partition writer thread")
+                    .tag("partition", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+        flushTimer = Timer.builder("inventory.engine.flush")
+                .description("Write-behind batch persistence time")
+                .register(meterRegistry);
+        deadLetterCounter = Counter.builder("inventory.engine.journal.dead.letters")
+                .description("Journal entries that could not be persisted and were dead-lettered")
+                .register(meterRegistry);
+    }
+
+    private static double oldestEntryAgeSeconds(LinkedBlockingDeque<JournalEntry> journal) {
+        JournalEntry oldest = journal.peekFirst();
+        return oldest == null ? 0.0 : (System.nanoTime() - oldest.enqueuedAtNanos()) / 1_000_000_000.0;
+    }
+
+    private static InventoryException duplicate(String orderId) {
+        return new InventoryException(
+                String.format("Order %s already has an active reservation", orderId),
+                "DUPLICATE_RESERVATION"
+        );
+    }
+
+    private static Inventory copy(Inventory inventory) {
+        return Inventory.builder()
+                .id(inventory.getId())
+                .productId(inventory.getProductId())
+                .totalQuantity(inventory.getTotalQuantity())
+                .reservedQuantity(inventory.getReservedQuantity())
+                .shardCount(inventory.getShardCount())
+                .version(inventory.getVersion())
+                .createdAt(inventory.getCreatedAt())
+                .updatedAt(inventory.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,221 @@
+package com.ecommerce.inventory.engine;
+
+import com.ecommerce.inventory.entity.EngineJournalDeadLetter;
+import com.ecommerce.inventory.entity.InventoryReservation;
+import com.ecommerce.inventory.repository.EngineJournalDeadLetterRepository;
+import com.ecommerce.inventory.repository.InventoryRepository;
+import com.ecommerce.inventory.repository.InventoryReservationRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Persists a batch of engine journal entries in one transaction.
+ *
+ * Stock changes are aggregated to one UPDATE per inventory row per batch
+ * (applied in inventory ID order); reservation rows are inserted or updated
+ * in journal order.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.engine.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationJournalWriter {
+
+    // Entries that create reservation rows of a new order
+    private static final Set<JournalEntry.Type> NEW_ROWS = EnumSet.of(
+            JournalEntry.Type.RESERVED, JournalEntry.Type.FAILED,
+            JournalEntry.Type.ORDER_RESERVED, JournalEntry.Type.ORDER_FAILED);
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryReservationRepository reservationRepository;
+    private final EngineJournalDeadLetterRepository deadLetterRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param batch journal entries in acceptance order
+     * @return reservation row ID per {@link JournalEntry#lineKey line key} touched by the batch
+     */
+    @Transactional
+    public Map<String, Long> persist(List<JournalEntry> batch) {
+        // inventoryId -> {totalDelta, reservedDelta}
+        Map<Long, int[]> deltas = new TreeMap<>();
+        Map<String, InventoryReservation> byLine = loadHeldReservations(batch);
+        List<InventoryReservation> touched = new ArrayList<>(batch.size());
+
+        for (JournalEntry entry : batch) {
+            switch (entry.type()) {
+                case RESERVED -> {
+                    InventoryReservation reservation = InventoryReservation.builder()
+                            .inventoryId(entry.inventoryId())
+                            .orderId(entry.orderId())
+                            .reservedQuantity(entry.quantity())
+                            .status(InventoryReservation.ReservationStatus.PENDING)
+                            .build();
+                    byLine.put(entry.lineKey(), reservation);
+                    touched.add(reservation);
+                    deltas.computeIfAbsent(entry.inventoryId(), id -> new int[2])[1] += entry.quantity();
+                }
+                case ORDER_RESERVED -> {
+                    for (JournalEntry.Line line : entry.lines()) {
+                        InventoryReservation reservation = InventoryReservation.builder()
+                                .inventoryId(line.inventoryId())
+                                .orderId(entry.orderId())
+                                .reservedQuantity(line.quantity())
+                                .status(InventoryReservation.ReservationStatus.PENDING)
+                                .build();
+                        byLine.put(JournalEntry.lineKey(entry.orderId(), line.inventoryId()), reservation);
+                        touched.add(reservation);
+                        deltas.computeIfAbsent(line.inventoryId(), id -> new int[2])[1] += line.quantity();
+                    }
+                }
+                case ORDER_FAILED -> {
+                    for (JournalEntry.Line line : entry.lines()) {
+                        InventoryReservation reservation = InventoryReservation.builder()
+                                .inventoryId(line.inventoryId())
+                                .orderId(entry.orderId())
+                                .reservedQuantity(line.quantity())
+                                .status(InventoryReservation.ReservationStatus.FAILED)
+                                .failureReason(String.format("Insufficient stock. Requested: %d, Available: %d",
+                                        line.quantity(), line.availableQuantity()))
+                                .build();
+                        byLine.put(JournalEntry.lineKey(entry.orderId(), line.inventoryId()), reservation);
+                        touched.add(reservation);
+                    }
+                }
+                case FAILED -> {
+                    InventoryReservation reservation = InventoryReservation.builder()
+                            .inventoryId(entry.inventoryId())
+                            .orderId(entry.orderId())
+                            .reservedQuantity(entry.quantity())
+                            .status(InventoryReservation.ReservationStatus.FAILED)
+                            .failureReason(entry.failureReason())
+                            .build();
+                    byLine.put(entry.lineKey(), reservation);
+                    touched.add(reservation);
+                }
+                case RELEASED -> {
+                    InventoryReservation reservation = byLine.get(entry.lineKey());
+                    if (reservation == null) {
+                        log.error("No reservation row to release for order {}, skipping journal entry", entry.orderId());
+                        continue;
+                    }
+                    reservation.setStatus(InventoryReservation.ReservationStatus.RELEASED);
+                    reservation.setReleasedAt(entry.occurredAt());
+                    if (entry.failureReason() != null) {
+                        reservation.setFailureReason(entry.failureReason());
+                    }
+                    touched.add(reservation);
+                    deltas.computeIfAbsent(entry.inventoryId(), id -> new int[2])[1] -= entry.quantity();
+                }
+                case CONFIRMED -> {
+                    InventoryReservation reservation = byLine.get(entry.lineKey());
+                    if (reservation == null) {
+                        log.error("No reservation row to confirm for order {}, skipping journal entry", entry.orderId());
+                        continue;
+                    }
+                    if (reservation.getSettledAt() != null) {
+                        continue;
+                    }
+                    reservation.setStatus(InventoryReservation.ReservationStatus.CONFIRMED);
+                    if (reservation.getConfirmedAt() == null) {
+                        reservation.setConfirmedAt(entry.occurredAt());
+                    }
+                    reservation.setSettledAt(entry.occurredAt());
+                    touched.add(reservation);
+                    int[] delta = deltas.computeIfAbsent(entry.inventoryId(), id -> new int[2]);
+                    delta[0] -= entry.quantity();
+                    delta[1] -= entry.quantity();
+                }
+                case RETURNED -> {
+                    InventoryReservation reservation = byLine.get(entry.lineKey());
+                    if (reservation == null) {
+                        log.error("No reservation row to return for order {}, skipping journal entry", entry.orderId());
+                        continue;
+                    }
+                    reservation.setStatus(InventoryReservation.ReservationStatus.RELEASED);
+                    reservation.setReleasedAt(entry.occurredAt());
+                    touched.add(reservation);
+                    deltas.computeIfAbsent(entry.inventoryId(), id -> new int[2])[0] += entry.quantity();
+                }
+                case TOTAL_CHANGED ->
+                        deltas.computeIfAbsent(entry.inventoryId(), id -> new int[2])[0] += entry.quantity();
+            }
+        }
+
+        deltas.forEach((inventoryId, delta) -> {
+            if (delta[0] != 0 || delta[1] != 0) {
+                inventoryRepository.applyDelta(inventoryId, delta[0], delta[1]);
+            }
+        });
+        reservationRepository.saveAllAndFlush(touched);
+        List<String> newOrders = batch.stream()
+                .filter(entry -> NEW_ROWS.contains(entry.type()))
+                .map(JournalEntry::orderId)
+                .distinct()
+                .toList();
+        if (!newOrders.isEmpty()) {
+            // The engine checked these orders already, claims only keep the row paths exact
+            reservationRepository.insertOrdersOf(newOrders);
+        }
+
+        Map<String, Long> ids = new HashMap<>();
+        byLine.forEach((lineKey, reservation) -> ids.put(lineKey, reservation.getId()));
+        return ids;
+    }
+
+    /**
+     * Park an entry that cannot be persisted, in its own transaction.
+     */
+    @Transactional
+    public void deadLetter(JournalEntry entry, Throwable error) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(entry);
+        } catch (JsonProcessingException e) {
+            payload = entry.toString();
+        }
+        deadLetterRepository.save(EngineJournalDeadLetter.builder()
+                .entryType(entry.type().name())
+                .orderId(entry.orderId())
+                .productId(entry.productId())
+                .payload(payload)
+                .error(String.valueOf(error))
+                .build());
+    }
+
+    /**
+     * Load rows of reservations created by earlier batches that this batch confirms or releases.
+     */
+    private Map<String, InventoryReservation> loadHeldReservations(List<JournalEntry> batch) {
+        List<String> orderIds = batch.stream()
+                .filter(entry -> entry.type() == JournalEntry.Type.RELEASED
+                        || entry.type() == JournalEntry.Type.CONFIRMED
+                        || entry.type() == JournalEntry.Type.RETURNED)
+                .map(JournalEntry::orderId)
+                .distinct()
+                .toList();
+
+        Map<String, InventoryReservation> byLine = new HashMap<>();
+        if (!orderIds.isEmpty()) {
+            reservationRepository.findByOrderIdIn(orderIds).stream()
+                    .filter(reservation -> reservation.getStatus() == InventoryReservation.ReservationStatus.PENDING
+                            || reservation.getStatus() == InventoryReservation.ReservationStatus.CONFIRMED)
+                    .forEach(reservation -> byLine.put(
+                            JournalEntry.lineKey(reservation.getOrderId(), reservation.getInventoryId()), reservation));
+        }
+        return byLine;
+    }
+}
@@ -0,0 +1,45 @@
+package com.ecommerce.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Engine journal entry that could not be persisted on its own.
+ * Parked by the write-behind flusher so it does not block later entries;
+ * its stock change and events are left for a manual decision.
+ */
+@Entity
+@Table(name = "engine_journal_dead_letter")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EngineJournalDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entry_type", nullable = false, length = 50)
+    private String entryType;
+
+    private String orderId;
+
+    private String productId;
+
+    /**
+     * The journal entry as JSON
+     */
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -30,6 +30,28 @@ public class Inventory {
     @Builder.Default
     private Integer reservedQuantity = 0;
 
+    /**
+     * Number of stock shards (0 = not sharded, stock lives on this row)
+     */
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer shardCount = 0;
+
+    /**
+     * Stock changes are appended to stock_ledger; quantities on this row
+     * are refreshed by the compactor and may lag behind
+     */
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean ledgerMode = false;
+
+    /**
+     * Stock is held per location in shard rows bound to stock locations
+     */
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean located = false;
+
     @Version
     @Builder.Default
     private Integer version = 0;
@@ -49,6 +71,27 @@ public class Inventory {
         return totalQuantity - reservedQuantity;
     }
 
+    /**
+     * Включен ли режим шардированных счетчиков
+     */
+    public boolean isSharded() {
+        return shardCount != null && shardCount > 0;
+    }
+
+    /**
+     * Включен ли режим журнала остатков
+     */
+    public boolean isLedgerMode() {
+        return Boolean.TRUE.equals(ledgerMode);
+    }
+
+    /**
+     * Хранится ли товар по складам
+     */
+    public boolean isLocated() {
+        return Boolean.TRUE.equals(located);
+    }
+
     /**
      * Проверить что доступно достаточно товара
      */
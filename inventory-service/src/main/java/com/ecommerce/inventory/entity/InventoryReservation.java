@@ -9,12 +9,15 @@ import java.time.LocalDateTime;
 /**
  * Tracks inventory reservations for orders.
  * Provides audit trail and supports saga pattern compensation.
+ * One row per order line (order_id + inventory_id).
+ * Partitioned monthly by created_at; old months are archived (see ReservationPartitionService).
  */
 @Entity
 @Table(name = "inventory_reservation", indexes = {
         @Index(name = "idx_order_id", columnList = "order_id"),
-        @Index(name = "idx_inventory_status", columnList = "inventory_id, status"),
-        @Index(name = "idx_created_at", columnList = "created_at")
+        @Index(name = "idx_inventory_status", columnList = "inventory_id, status")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_reservation_order_inventory", columnNames = {"order_id", "inventory_id"})
 })
 @Data
 @NoArgsConstructor
@@ -35,6 +38,18 @@ public class InventoryReservation {
     @Column(nullable = false)
     private Integer reservedQuantity;
 
+    /**
+     * Shard holding the reserved stock, null if held on the inventory row
+     */
+    @Column
+    private Integer shardNo;
+
+    /**
+     * Location the reserved stock was allocated from, null if not located
+     */
+    @Column(length = 64)
+    private String locationCode;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 50)
     @Builder.Default
@@ -50,6 +65,12 @@ public class InventoryReservation {
     @Column
     private LocalDateTime releasedAt;
 
+    /**
+     * When the confirmed quantity was taken out of stock, null until settled
+     */
+    @Column
+    private LocalDateTime settledAt;
+
     @Column(length = 500)
     private String failureReason;
 
@@ -0,0 +1,60 @@
+package com.ecommerce.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock sub-counter of a sharded product.
+ * Reservations of a hot product are spread over N shard rows so they
+ * do not all serialize on the single inventory row.
+ * Shards of a located product each hold the stock of one location.
+ */
+@Entity
+@Table(name = "inventory_shard", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_inventory_shard", columnNames = {"inventory_id", "shard_no"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long inventoryId;
+
+    @Column(nullable = false)
+    private Integer shardNo;
+
+    /**
+     * Location holding this stock, null for plain stock shards
+     */
+    @Column(length = 64)
+    private String locationCode;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer totalQuantity = 0;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer reservedQuantity = 0;
+
+    @Version
+    @Builder.Default
+    private Integer version = 0;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public Integer getAvailableQuantity() {
+        return totalQuantity - reservedQuantity;
+    }
+}
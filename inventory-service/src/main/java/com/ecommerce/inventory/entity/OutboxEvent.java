@@ -0,0 +1,47 @@
+package com.ecommerce.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Kafka event waiting in the transactional outbox.
+ * Written in the same transaction as the change it describes,
+ * deleted by the outbox relay once the broker acknowledged it.
+ */
+@Entity
+@Table(name = "outbox_event")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String topic;
+
+    /**
+     * Kafka message key (order ID); ordering is kept per key
+     */
+    @Column(name = "message_key", nullable = false)
+    private String messageKey;
+
+    /**
+     * Event class, used to restore the payload for the JSON serializer
+     */
+    @Column(nullable = false)
+    private String payloadType;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
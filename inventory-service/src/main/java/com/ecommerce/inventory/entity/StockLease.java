@@ -0,0 +1,50 @@
+package com.ecommerce.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Slice of a product's free stock leased by one service replica.
+ * The leased quantity is held in the inventory row's reserved quantity;
+ * the owner serves reservations from it and renews or returns it.
+ * Leases not renewed before expiresAt are reclaimed by any replica.
+ */
+@Entity
+@Table(name = "stock_lease", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_stock_lease_owner", columnNames = {"inventory_id", "owner_id"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLease {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long inventoryId;
+
+    /**
+     * Replica holding the lease (inventory.lease.instance-id)
+     */
+    @Column(nullable = false)
+    private String ownerId;
+
+    /**
+     * Leased stock not used by reservations yet
+     */
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
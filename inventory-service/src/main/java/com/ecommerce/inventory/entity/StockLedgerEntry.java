@@ -0,0 +1,66 @@
+package com.ecommerce.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * One stock change of a product in ledger mode. Entries are never updated;
+ * current stock is the latest {@link StockSnapshot} plus the deltas of all
+ * later entries. seq numbers the entries of one product without gaps, and
+ * the unique (inventory_id, seq) key lets only one of two concurrent
+ * appends with the same seq commit.
+ */
+@Entity
+@Table(name = "stock_ledger", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_stock_ledger_seq", columnNames = {"inventory_id", "seq"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long inventoryId;
+
+    @Column(nullable = false)
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EntryType entryType;
+
+    @Column(nullable = false)
+    private Integer totalDelta;
+
+    @Column(nullable = false)
+    private Integer reservedDelta;
+
+    private String orderId;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public enum EntryType {
+        /** Stock reserved: reserved + q */
+        RESERVED,
+        /** Reservation released: reserved - q */
+        RELEASED,
+        /** Reservation settled: total - q, reserved - q */
+        CONFIRMED,
+        /** Settled stock returned: total + q */
+        RETURNED,
+        /** Total quantity set by an operator: total + (new - old) */
+        TOTAL_CHANGED,
+        /** Ledger mode switched off, stock moved back to the inventory row */
+        CLOSED
+    }
+}
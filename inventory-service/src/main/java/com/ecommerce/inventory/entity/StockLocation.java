@@ -0,0 +1,48 @@
+package com.ecommerce.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Warehouse or store that holds stock of located products.
+ * Coordinates drive nearest-first allocation; priority orders locations
+ * when a reservation has no delivery point.
+ */
+@Entity
+@Table(name = "stock_location", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_stock_location_code", columnNames = {"code"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String code;
+
+    @Column(nullable = false)
+    private String name;
+
+    private Double latitude;
+
+    private Double longitude;
+
+    /**
+     * Lower is preferred when no delivery point is given or distances tie
+     */
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer priority = 0;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,46 @@
+package com.ecommerce.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock of a ledger-mode product after all ledger entries up to seq.
+ * Written when ledger mode is enabled and by the compactor every
+ * inventory.ledger.snapshot-every entries; asOf is the time of entry seq.
+ */
+@Entity
+@Table(name = "stock_snapshot", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_stock_snapshot_seq", columnNames = {"inventory_id", "seq"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long inventoryId;
+
+    @Column(nullable = false)
+    private Long seq;
+
+    @Column(nullable = false)
+    private Integer totalQuantity;
+
+    @Column(nullable = false)
+    private Integer reservedQuantity;
+
+    @Column(nullable = false)
+    private LocalDateTime asOf;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.inventory.event;
+
+import com.ecommerce.inventory.kafka.serialization.EventTimestamp;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Latest stock level of a product, published to the compacted inventory.levels topic.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryLevelEvent {
+    private String productId;
+    private Integer totalQuantity;
+    private Integer reservedQuantity;
+    private Integer availableQuantity;
+    @EventTimestamp
+    private String timestamp;
+}
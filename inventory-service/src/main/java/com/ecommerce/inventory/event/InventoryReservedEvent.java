@@ -1,5 +1,6 @@
 package com.ecommerce.inventory.event;
 
+import com.ecommerce.inventory.kafka.serialization.EventTimestamp;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -14,5 +15,6 @@ public class InventoryReservedEvent {
     private String productId;
     private Integer quantity;
     private String reservationId;
+    @EventTimestamp
     private String timestamp;
 }
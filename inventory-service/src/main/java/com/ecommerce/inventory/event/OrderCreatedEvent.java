@@ -0,0 +1,19 @@
+package com.ecommerce.inventory.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Inbound order.created event (single-line order).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderCreatedEvent {
+    private String orderId;
+    private String productId;
+    private Integer quantity;
+}
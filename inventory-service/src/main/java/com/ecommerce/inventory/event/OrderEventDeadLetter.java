@@ -0,0 +1,23 @@
+package com.ecommerce.inventory.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Order event that could not be processed, published to the dead-letter topic.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEventDeadLetter {
+    private String sourceTopic;
+    private Integer partition;
+    private Long offset;
+    private String key;
+    private String payload;
+    private String error;
+    private String timestamp;
+}
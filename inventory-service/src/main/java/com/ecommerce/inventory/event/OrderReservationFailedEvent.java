@@ -0,0 +1,29 @@
+package com.ecommerce.inventory.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderReservationFailedEvent {
+    private String orderId;
+    private List<Line> lines;
+    private String reason;
+    private String timestamp;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private String productId;
+        private Integer requestedQuantity;
+        private Integer availableQuantity;
+    }
+}
@@ -0,0 +1,28 @@
+package com.ecommerce.inventory.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderReservedEvent {
+    private String orderId;
+    private List<Line> lines;
+    private String timestamp;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private String productId;
+        private Integer quantity;
+        private String reservationId;
+    }
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.inventory.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Inbound order.payment-confirmed / order.cancelled event.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusEvent {
+    private String orderId;
+    private String reason;
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.inventory.event;
 
+import com.ecommerce.inventory.kafka.serialization.EventTimestamp;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,5 +16,6 @@ public class ReservationCompensatedEvent {
     private Integer quantity;
     private String reservationId;
     private String reason;
+    @EventTimestamp
     private String timestamp;
 }
@@ -0,0 +1,160 @@
+package com.ecommerce.inventory.kafka;
+
+import com.ecommerce.inventory.engine.ReservationEngine;
+import com.ecommerce.inventory.entity.Inventory;
+import com.ecommerce.inventory.event.InventoryLevelEvent;
+import com.ecommerce.inventory.repository.InventoryRepository;
+import com.ecommerce.inventory.repository.ProductLevel;
+import com.ecommerce.inventory.service.StockChangedEvent;
+import com.ecommerce.inventory.service.StockLedgerService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publishes the latest stock level of changed products to the compacted
+ * inventory.levels topic.
+ *
+ * Committed changes only mark the product dirty; every interval the dirty
+ * set is drained and the current levels are read in one IN-list query per
+ * chunk. Any number of changes to a product within one interval thus turn
+ * into a single message per replica. A failed send marks the product dirty
+ * again, so the next interval retries it with the then current level.
+ * Engine-owned and ledger-mode products are published with the engine or
+ * ledger state, which their inventory row lags behind.
+ *
+ * Replicas publish independently; consumers should keep the newest
+ * timestamp per product.
+ */
+@Component
+@ConditionalOnProperty(prefix = "inventory.levels", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryLevelPublisher {
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryProducer kafkaProducer;
+    private final Optional<ReservationEngine> reservationEngine;
+    private final StockLedgerService stockLedger;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.levels.batch-size:500}")
+    private int batchSize;
+
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private Counter published;
+    private Counter failed;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("inventory.levels.pending", dirty, Set::size)
+                .description("Products with a level change not yet published")
+                .register(meterRegistry);
+        published = Counter.builder("inventory.levels.published")
+                .description("Level updates sent to the compacted topic")
+                .register(meterRegistry);
+        failed = Counter.builder("inventory.levels.failed")
+                .description("Level updates that failed to send and were re-queued")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        dirty.addAll(event.productIds());
+    }
+
+    /**
+     * Publish one level update per product changed since the previous run.
+     */
+    @Scheduled(fixedDelayString = "${inventory.levels.interval-ms:1000}")
+    public void publishLevels() {
+        List<String> chunk = new ArrayList<>(batchSize);
+        Iterator<String> iterator = dirty.iterator();
+        while (iterator.hasNext()) {
+            chunk.add(iterator.next());
+            // Removed one by one: a change marked during the run stays for the next one
+            iterator.remove();
+            if (chunk.size() == batchSize) {
+                publishChunk(chunk);
+                chunk = new ArrayList<>(batchSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            publishChunk(chunk);
+        }
+    }
+
+    private void publishChunk(List<String> productIds) {
+        List<ProductLevel> levels;
+        try {
+            levels = inventoryRepository.findLevelsByProductIdIn(productIds);
+        } catch (RuntimeException e) {
+            dirty.addAll(productIds);
+            log.error("Failed to read inventory levels of {} products, will retry", productIds.size(), e);
+            return;
+        }
+
+        String timestamp = LocalDateTime.now().toString();
+        for (ProductLevel level : levels) {
+            InventoryLevelEvent event;
+            try {
+                event = toEvent(level, timestamp);
+            } catch (RuntimeException e) {
+                dirty.add(level.productId());
+                log.warn("Failed to read stock ledger of product {}, will retry: {}", level.productId(), e.getMessage());
+                continue;
+            }
+            kafkaProducer.sendInventoryLevel(event).whenComplete((result, ex) -> {
+                if (ex == null) {
+                    published.increment();
+                    return;
+                }
+                failed.increment();
+                dirty.add(event.getProductId());
+                log.warn("Failed to publish inventory level of product {}: {}", event.getProductId(), ex.getMessage());
+            });
+        }
+    }
+
+    private InventoryLevelEvent toEvent(ProductLevel level, String timestamp) {
+        String productId = level.productId();
+        int total = level.totalQuantity().intValue();
+        int reserved = level.reservedQuantity().intValue();
+        // Engine state is ahead of the write-behind row
+        if (reservationEngine.isPresent() && reservationEngine.get().owns(productId)) {
+            Inventory snapshot = reservationEngine.get().snapshot(productId);
+            total = snapshot.getTotalQuantity();
+            reserved = snapshot.getReservedQuantity();
+        } else if (Boolean.TRUE.equals(level.ledgerMode())) {
+            // The row lags behind the ledger until the next compaction
+            Optional<StockLedgerService.LedgerState> ledger = stockLedger.findState(level.id());
+            if (ledger.isPresent()) {
+                total = ledger.get().totalQuantity();
+                reserved = ledger.get().reservedQuantity();
+            }
+        }
+        return InventoryLevelEvent.builder()
+                .productId(productId)
+                .totalQuantity(total)
+                .reservedQuantity(reserved)
+                .availableQuantity(total - reserved)
+                .timestamp(timestamp)
+                .build();
+    }
+}
@@ -1,17 +1,32 @@
 package com.ecommerce.inventory.kafka;
 
+import com.ecommerce.inventory.entity.OutboxEvent;
+import com.ecommerce.inventory.event.InventoryLevelEvent;
 import com.ecommerce.inventory.event.InventoryReservedEvent;
+import com.ecommerce.inventory.event.OrderEventDeadLetter;
+import com.ecommerce.inventory.event.OrderReservationFailedEvent;
+import com.ecommerce.inventory.event.OrderReservedEvent;
 import com.ecommerce.inventory.event.ReservationCompensatedEvent;
 import com.ecommerce.inventory.event.ReservationFailedEvent;
+import com.ecommerce.inventory.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Component
@@ -19,10 +34,20 @@ import java.time.LocalDateTime;
 public class InventoryProducer {
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OutboxEventRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.outbox.enabled:true}")
+    private boolean outboxEnabled;
 
     private static final String INVENTORY_RESERVED_TOPIC = "inventory.reserved";
     private static final String INVENTORY_FAILED_TOPIC = "inventory.failed";
     private static final String INVENTORY_COMPENSATED_TOPIC = "inventory.compensated";
+    private static final String INVENTORY_ORDER_RESERVED_TOPIC = "inventory.order-reserved";
+    private static final String INVENTORY_ORDER_FAILED_TOPIC = "inventory.order-failed";
+    private static final String ORDER_EVENTS_DLT_TOPIC = "inventory.order-events.dlt";
+    public static final String INVENTORY_LEVELS_TOPIC = "inventory.levels";
 
     /**
      * Отправляет событие успешной резервации товара
@@ -36,13 +61,7 @@ public class InventoryProducer {
                 .timestamp(LocalDateTime.now().toString())
                 .build();
 
-        Message<InventoryReservedEvent> message = MessageBuilder
-                .withPayload(event)
-                .setHeader(KafkaHeaders.TOPIC, INVENTORY_RESERVED_TOPIC)
-                .setHeader(KafkaHeaders.KEY, orderId)  // ← ИСПРАВЛЕНО
-                .build();
-
-        kafkaTemplate.send(message);
+        publish(INVENTORY_RESERVED_TOPIC, orderId, event);
         log.info("Sent inventory reserved event for order: {}, product: {}", orderId, productId);
     }
 
@@ -58,13 +77,7 @@ public class InventoryProducer {
                 .timestamp(LocalDateTime.now().toString())
                 .build();
 
-        Message<ReservationFailedEvent> message = MessageBuilder
-                .withPayload(event)
-                .setHeader(KafkaHeaders.TOPIC, INVENTORY_FAILED_TOPIC)
-                .setHeader(KafkaHeaders.KEY, orderId)  // ← ИСПРАВЛЕНО
-                .build();
-
-        kafkaTemplate.send(message);
+        publish(INVENTORY_FAILED_TOPIC, orderId, event);
         log.warn("Sent inventory reservation failed event for order: {}, reason: {}", orderId, reason);
     }
 
@@ -81,13 +94,110 @@ public class InventoryProducer {
                 .timestamp(LocalDateTime.now().toString())
                 .build();
 
-        Message<ReservationCompensatedEvent> message = MessageBuilder
+        publish(INVENTORY_COMPENSATED_TOPIC, orderId, event);
+        log.info("Sent inventory reservation compensated event for order: {}", orderId);
+    }
+
+    /**
+     * Отправляет пачку событий компенсации одним сбросом продюсера (истёкшие резервации)
+     */
+    public void sendReservationsCompensated(List<ReservationCompensatedEvent> events) {
+        for (ReservationCompensatedEvent event : events) {
+            publish(INVENTORY_COMPENSATED_TOPIC, event.getOrderId(), event);
+        }
+        if (!writesToOutbox()) {
+            kafkaTemplate.flush();
+        }
+        log.info("Sent {} inventory reservation compensated events", events.size());
+    }
+
+    /**
+     * Отправляет одно агрегированное событие резервации всех строк заказа
+     */
+    public void sendOrderReservationSuccess(String orderId, List<OrderReservedEvent.Line> lines) {
+        OrderReservedEvent event = OrderReservedEvent.builder()
+                .orderId(orderId)
+                .lines(lines)
+                .timestamp(LocalDateTime.now().toString())
+                .build();
+
+        publish(INVENTORY_ORDER_RESERVED_TOPIC, orderId, event);
+        log.info("Sent order reserved event for order: {}, lines: {}", orderId, lines.size());
+    }
+
+    /**
+     * Отправляет одно агрегированное событие отказа в резервации заказа
+     */
+    public void sendOrderReservationFailed(String orderId, List<OrderReservationFailedEvent.Line> lines, String reason) {
+        OrderReservationFailedEvent event = OrderReservationFailedEvent.builder()
+                .orderId(orderId)
+                .lines(lines)
+                .reason(reason)
+                .timestamp(LocalDateTime.now().toString())
+                .build();
+
+        publish(INVENTORY_ORDER_FAILED_TOPIC, orderId, event);
+        log.warn("Sent order reservation failed event for order: {}, reason: {}", orderId, reason);
+    }
+
+    /**
+     * Отправляет необработанное событие заказа в dead-letter топик (без outbox, ждать подтверждения должен вызывающий)
+     */
+    public CompletableFuture<SendResult<String, Object>> sendOrderEventDeadLetter(OrderEventDeadLetter event) {
+        log.error("Sending order event from {} to dead-letter topic: {}", event.getSourceTopic(), event.getError());
+        return send(ORDER_EVENTS_DLT_TOPIC, event.getKey(), event);
+    }
+
+    /**
+     * Отправляет текущий уровень остатка товара в компактируемый топик (ключ - productId, без outbox)
+     */
+    public CompletableFuture<SendResult<String, Object>> sendInventoryLevel(InventoryLevelEvent event) {
+        log.debug("Sending inventory level for product: {}, available: {}",
+                event.getProductId(), event.getAvailableQuantity());
+        return send(INVENTORY_LEVELS_TOPIC, event.getProductId(), event);
+    }
+
+    /**
+     * Внутри транзакции событие пишется в outbox (публикует OutboxRelay),
+     * вне транзакции или при выключенном outbox отправляется сразу
+     */
+    private void publish(String topic, String key, Object event) {
+        if (!writesToOutbox()) {
+            send(topic, key, event);
+            return;
+        }
+        try {
+            outboxRepository.save(OutboxEvent.builder()
+                    .topic(topic)
+                    .messageKey(key)
+                    .payloadType(event.getClass().getName())
+                    .payload(objectMapper.writeValueAsString(event))
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize event for outbox: " + event, e);
+        }
+    }
+
+    /**
+     * Отправляет сообщение в Kafka; используется также OutboxRelay
+     */
+    public CompletableFuture<SendResult<String, Object>> send(String topic, String key, Object event) {
+        Message<Object> message = MessageBuilder
                 .withPayload(event)
-                .setHeader(KafkaHeaders.TOPIC, INVENTORY_COMPENSATED_TOPIC)
-                .setHeader(KafkaHeaders.KEY, orderId)  // ← ИСПРАВЛЕНО
+                .setHeader(KafkaHeaders.TOPIC, topic)
+                .setHeader(KafkaHeaders.KEY, key)
                 .build();
+        // Время до подтверждения брокером, по топику и результату
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return kafkaTemplate.send(message).whenComplete((result, error) -> sample.stop(
+                Timer.builder("inventory.kafka.send")
+                        .description("Time from send to broker acknowledgement")
+                        .tags("topic", topic, "result", error == null ? "ok" : "failed")
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)));
+    }
 
-        kafkaTemplate.send(message);
-        log.info("Sent inventory reservation compensated event for order: {}", orderId);
+    private boolean writesToOutbox() {
+        return outboxEnabled && TransactionSynchronizationManager.isActualTransactionActive();
     }
 }
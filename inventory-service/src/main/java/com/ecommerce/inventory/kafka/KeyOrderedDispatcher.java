@@ -0,0 +1,238 @@
+package com.ecommerce.inventory.kafka;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Fans a poll out to worker threads while keeping per-key order.
+ *
+ * The listener splits a poll into lanes, one per key (product); lanes run
+ * in parallel, the work of one lane runs in order on one worker. After the
+ * poll, offsets are committed up to the highest contiguous completed record
+ * and everything after it is redelivered.
+ *
+ * Workers are virtual threads on Java 21+, a fixed pool otherwise; at most
+ * inventory.consumer.workers lanes run at once either way, so the database
+ * connection pool is not flooded.
+ */
+@Component
+@Slf4j
+public class KeyOrderedDispatcher {
+
+    private final ExecutorService workers;
+    private final Semaphore permits;
+    private final long pollTimeoutMs;
+    private final Duration redeliveryBackoff;
+
+    public KeyOrderedDispatcher(@Value("${inventory.consumer.workers:16}") int workerCount,
+                                @Value("${inventory.consumer.poll-timeout-ms:60000}") long pollTimeoutMs,
+                                @Value("${inventory.consumer.redelivery-backoff-ms:1000}") long redeliveryBackoffMs) {
+        this.workers = newWorkers(workerCount);
+        this.permits = new Semaphore(workerCount);
+        this.pollTimeoutMs = pollTimeoutMs;
+        this.redeliveryBackoff = Duration.ofMillis(redeliveryBackoffMs);
+    }
+
+    /**
+     * Completion state of the records of one poll.
+     */
+    public static final class PollProgress {
+        private final Map<ConsumerRecord<?, ?>, Integer> indexes = new IdentityHashMap<>();
+        private final AtomicIntegerArray done;
+
+        public PollProgress(List<? extends ConsumerRecord<?, ?>> records) {
+            for (int i = 0; i < records.size(); i++) {
+                indexes.put(records.get(i), i);
+            }
+            this.done = new AtomicIntegerArray(records.size());
+        }
+
+        public void complete(ConsumerRecord<?, ?> record) {
+            done.set(indexes.get(record), 1);
+        }
+
+        /**
+         * @return index of the first record not completed, or the poll size if all are
+         */
+        int firstIncomplete() {
+            for (int i = 0; i < done.length(); i++) {
+                if (done.get(i) == 0) {
+                    return i;
+                }
+            }
+            return done.length();
+        }
+    }
+
+    /**
+     * Lanes of one runLanes call: the threads running them, so they can be
+     * interrupted on timeout, and a latch released once every lane is done.
+     */
+    private static final class LaneRun {
+        private final Set<Thread> running = new HashSet<>();
+        private final CountDownLatch finished;
+        private boolean cancelled;
+
+        LaneRun(int lanes) {
+            this.finished = new CountDownLatch(lanes);
+        }
+
+        synchronized boolean enter() {
+            if (cancelled) {
+                return false;
+            }
+            running.add(Thread.currentThread());
+            return true;
+        }
+
+        synchronized void exit() {
+            running.remove(Thread.currentThread());
+            // Do not carry a cancellation interrupt over to the next task of a pooled thread
+            Thread.interrupted();
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            running.forEach(Thread::interrupt);
+        }
+    }
+
+    /**
+     * Run lanes in parallel and wait for them. A failed lane stops at the
+     * failing record; the other lanes are not affected. Lanes still running
+     * after the poll timeout are interrupted and waited for, so no record is
+     * still being processed once the poll is committed and the rest redelivered.
+     */
+    public void runLanes(Collection<Runnable> lanes) {
+        if (lanes.size() == 1) {
+            // Nothing to fan out; run on the consumer thread
+            try {
+                runLane(lanes.iterator().next());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Order event lane failed", e);
+            }
+            return;
+        }
+        AtomicInteger failed = new AtomicInteger();
+        LaneRun run = new LaneRun(lanes.size());
+        for (Runnable lane : lanes) {
+            workers.execute(() -> {
+                try {
+                    if (run.enter()) {
+                        try {
+                            runLane(lane);
+                        } finally {
+                            run.exit();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    // Cancelled while waiting for a permit; its records are redelivered
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                    log.error("Order event lane failed", e);
+                } finally {
+                    run.finished.countDown();
+                }
+            });
+        }
+        try {
+            if (!run.finished.await(pollTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.error("Order event lanes did not finish within {} ms, cancelling them", pollTimeoutMs);
+                run.cancel();
+                awaitCancelled(run);
+            }
+        } catch (InterruptedException e) {
+            run.cancel();
+            awaitCancelled(run);
+            Thread.currentThread().interrupt();
+        }
+        if (failed.get() > 0) {
+            log.warn("{} of {} order event lanes failed", failed.get(), lanes.size());
+        }
+    }
+
+    /**
+     * Commit the contiguous completed prefix of the poll, redeliver the rest.
+     * Must be called on the consumer thread.
+     */
+    public void commit(Acknowledgment ack, PollProgress progress) {
+        int firstIncomplete = progress.firstIncomplete();
+        if (firstIncomplete == progress.done.length()) {
+            ack.acknowledge();
+            return;
+        }
+        log.warn("Committing {} of {} records, redelivering from index {}",
+                firstIncomplete, progress.done.length(), firstIncomplete);
+        ack.nack(firstIncomplete, redeliveryBackoff);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(pollTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Wait for interrupted lanes to stop; a lane blocked in a call that
+     * ignores interrupts is waited for until that call returns.
+     */
+    private void awaitCancelled(LaneRun run) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (run.finished.await(pollTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+                log.warn("Still waiting for {} cancelled order event lanes", run.finished.getCount());
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runLane(Runnable lane) throws InterruptedException {
+        permits.acquire();
+        try {
+            lane.run();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static ExecutorService newWorkers(int workerCount) {
+        if (Runtime.version().feature() >= 21) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.warn("Virtual threads unavailable, using a fixed worker pool", e);
+            }
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(workerCount,
+                runnable -> new Thread(runnable, "order-event-worker-" + counter.incrementAndGet()));
+    }
+}
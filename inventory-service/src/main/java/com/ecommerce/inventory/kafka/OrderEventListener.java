@@ -1,16 +1,48 @@
 // OrderEventListener.java
 package com.ecommerce.inventory.kafka;
 
+import com.ecommerce.inventory.dto.ReservationRequest;
+import com.ecommerce.inventory.dto.ReservationResponse;
+import com.ecommerce.inventory.event.OrderCreatedEvent;
+import com.ecommerce.inventory.event.OrderEventDeadLetter;
+import com.ecommerce.inventory.event.OrderStatusEvent;
+import com.ecommerce.inventory.exception.InsufficientStockException;
+import com.ecommerce.inventory.exception.InventoryException;
+import com.ecommerce.inventory.kafka.KeyOrderedDispatcher.PollProgress;
+import com.ecommerce.inventory.service.FlashSaleGate;
+import com.ecommerce.inventory.service.OrderEventBatchProcessor;
+import com.ecommerce.inventory.service.ReservationRetryExecutor;
 import com.ecommerce.inventory.service.ReservationService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
 /**
  * Listens to order-service events and triggers inventory reservations.
- * TODO: In Phase 2, integrate with actual order.created events from Schema Registry.
  * MVP version uses simple JSON message structure.
+ *
+ * Each listener receives a whole poll: records are parsed, grouped by
+ * product and applied one transaction per group. Groups run in parallel on
+ * the KeyOrderedDispatcher workers, records of one group stay in poll order.
+ * Offsets are committed manually up to the highest contiguous completed
+ * record. A record that cannot be parsed or applied goes to the
+ * dead-letter topic instead of blocking the batch.
  */
 @Component
 @RequiredArgsConstructor
@@ -18,58 +50,253 @@ import org.springframework.stereotype.Component;
 public class OrderEventListener {
 
     private final ReservationService reservationService;
+    private final OrderEventBatchProcessor batchProcessor;
+    private final ReservationRetryExecutor retryExecutor;
+    private final InventoryProducer kafkaProducer;
+    private final ObjectMapper objectMapper;
+    private final KeyOrderedDispatcher dispatcher;
+    private final FlashSaleGate flashSaleGate;
+
+    @Value("${inventory.consumer.dead-letter-timeout-ms:10000}")
+    private long deadLetterTimeoutMs;
+
+    private record Parsed<T>(ConsumerRecord<String, String> record, T event) {
+    }
 
     /**
      * Listen to order.created topic.
-     * When new order arrives, attempt to reserve stock.
-     * MVP: Simple event, Phase 2: Avro schema + full event model.
+     * When new orders arrive, attempt to reserve stock.
      *
-     * @param message order event message
+     * @param records one poll of order.created events
+     * @param ack commits the poll's offsets
      */
     @KafkaListener(
             topics = "order.created",
             groupId = "inventory-service",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "batchListenerContainerFactory"
     )
-    public void handleOrderCreated(String message) {
-        log.info("Received order.created event: {}", message);
-        // MVP implementation - Phase 2 will add proper event parsing
-        // TODO: Parse message to OrderCreatedEvent
-        // TODO: Extract orderId, productId, quantity
-        // TODO: Call reservationService.reserveStock()
+    public void handleOrderCreated(List<ConsumerRecord<String, String>> records, Acknowledgment ack) {
+        log.info("Received {} order.created events", records.size());
+        PollProgress progress = new PollProgress(records);
+
+        Map<String, List<Parsed<OrderCreatedEvent>>> byProduct = new TreeMap<>();
+        for (ConsumerRecord<String, String> record : records) {
+            OrderCreatedEvent event = parse(record, OrderCreatedEvent.class, progress);
+            if (event == null) {
+                continue;
+            }
+            if (event.getOrderId() == null || event.getProductId() == null
+                    || event.getQuantity() == null || event.getQuantity() < 1) {
+                deadLetter(record, "orderId, productId and a positive quantity are required");
+                progress.complete(record);
+                continue;
+            }
+            byProduct.computeIfAbsent(event.getProductId(), id -> new ArrayList<>())
+                    .add(new Parsed<>(record, event));
+        }
+
+        List<Runnable> lanes = new ArrayList<>(byProduct.size());
+        byProduct.forEach((productId, group) -> {
+            if (flashSaleGate.isActive(productId)) {
+                // Every order takes its own permits, so flash-sale products are not batched
+                lanes.add(() -> group.forEach(parsed -> processSingle(parsed, progress, this::reserveAdmitted)));
+                return;
+            }
+            lanes.add(() -> processGroup(group, progress,
+                    events -> retryExecutor.execute("reserve_batch", List.of(productId),
+                            () -> batchProcessor.reserveGroup(events.stream().map(OrderEventListener::toRequest).toList())),
+                    event -> retryExecutor.execute("reserve", List.of(productId),
+                            () -> reservationService.reserveStock(toRequest(event)))));
+        });
+        dispatcher.runLanes(lanes);
+
+        dispatcher.commit(ack, progress);
     }
 
     /**
      * Listen to order.payment-confirmed topic.
-     * When payment confirmed, move reservation from PENDING to CONFIRMED.
+     * When payment confirmed, move reservations from PENDING to CONFIRMED.
      *
-     * @param message order event message
+     * @param records one poll of order.payment-confirmed events
+     * @param ack commits the poll's offsets
      */
     @KafkaListener(
             topics = "order.payment-confirmed",
             groupId = "inventory-service",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "batchListenerContainerFactory"
     )
-    public void handlePaymentConfirmed(String message) {
-        log.info("Received order.payment-confirmed event: {}", message);
-        // TODO: Parse orderId from message
-        // TODO: Call reservationService.confirmReservation()
+    public void handlePaymentConfirmed(List<ConsumerRecord<String, String>> records, Acknowledgment ack) {
+        log.info("Received {} order.payment-confirmed events", records.size());
+        PollProgress progress = new PollProgress(records);
+        handleStatusEvents(records, progress,
+                orderIds -> retryExecutor.run("confirm_batch", List.of(), () -> batchProcessor.confirmGroup(orderIds)),
+                orderId -> retryExecutor.run("confirm", List.of(), () -> reservationService.confirmReservation(orderId)));
+        dispatcher.commit(ack, progress);
     }
 
     /**
      * Listen to order.cancelled topic.
-     * When order cancelled, release reserved stock.
+     * When orders are cancelled, release reserved stock.
      *
-     * @param message order event message
+     * @param records one poll of order.cancelled events
+     * @param ack commits the poll's offsets
      */
     @KafkaListener(
             topics = "order.cancelled",
             groupId = "inventory-service",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "batchListenerContainerFactory"
     )
-    public void handleOrderCancelled(String message) {
-        log.info("Received order.cancelled event: {}", message);
-        // TODO: Parse orderId from message
-        // TODO: Call reservationService.releaseReservation()
+    public void handleOrderCancelled(List<ConsumerRecord<String, String>> records, Acknowledgment ack) {
+        log.info("Received {} order.cancelled events", records.size());
+        PollProgress progress = new PollProgress(records);
+        handleStatusEvents(records, progress,
+                orderIds -> retryExecutor.run("release_batch", List.of(), () -> batchProcessor.releaseGroup(orderIds)),
+                orderId -> retryExecutor.run("release", List.of(), () -> reservationService.releaseReservation(orderId)));
+        dispatcher.commit(ack, progress);
+    }
+
+    /**
+     * Confirm/cancel events carry only the order ID; orders are grouped by
+     * the inventory row of their reservation lines.
+     */
+    private void handleStatusEvents(List<ConsumerRecord<String, String>> records, PollProgress progress,
+                                    Consumer<List<String>> groupAction, Consumer<String> singleAction) {
+        List<Parsed<String>> parsed = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, String> record : records) {
+            OrderStatusEvent event = parse(record, OrderStatusEvent.class, progress);
+            if (event == null) {
+                continue;
+            }
+            if (event.getOrderId() == null) {
+                deadLetter(record, "orderId is required");
+                progress.complete(record);
+                continue;
+            }
+            parsed.add(new Parsed<>(record, event.getOrderId()));
+        }
+        if (parsed.isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> inventoryByOrder = batchProcessor.groupByInventory(
+                parsed.stream().map(Parsed::event).distinct().toList());
+        Map<Long, List<Parsed<String>>> groups = new TreeMap<>();
+        List<Parsed<String>> unknown = new ArrayList<>();
+        for (Parsed<String> order : parsed) {
+            Long inventoryId = inventoryByOrder.get(order.event());
+            if (inventoryId == null) {
+                unknown.add(order);
+            } else {
+                groups.computeIfAbsent(inventoryId, id -> new ArrayList<>()).add(order);
+            }
+        }
+
+        List<Runnable> lanes = new ArrayList<>(groups.size() + 1);
+        groups.values().forEach(group -> lanes.add(() -> processGroup(group, progress, groupAction, singleAction)));
+        if (!unknown.isEmpty()) {
+            // No reservation rows: processed alone so the failure path reports each one
+            lanes.add(() -> unknown.forEach(order -> processSingle(order, progress, singleAction)));
+        }
+        dispatcher.runLanes(lanes);
+    }
+
+    private <T> void processGroup(List<Parsed<T>> group, PollProgress progress,
+                                  Consumer<List<T>> groupAction, Consumer<T> singleAction) {
+        if (Thread.currentThread().isInterrupted()) {
+            // Lane cancelled by the dispatcher; the group is redelivered
+            return;
+        }
+        try {
+            groupAction.accept(group.stream().map(Parsed::event).toList());
+        } catch (RuntimeException e) {
+            log.warn("Batch of {} order events failed ({}), processing one by one", group.size(), e.getMessage());
+            // Stops at the first record whose dead letter cannot be published; the rest is redelivered
+            group.forEach(parsed -> processSingle(parsed, progress, singleAction));
+            return;
+        }
+        group.forEach(parsed -> progress.complete(parsed.record()));
+    }
+
+    private <T> void processSingle(Parsed<T> parsed, PollProgress progress, Consumer<T> singleAction) {
+        if (Thread.currentThread().isInterrupted()) {
+            return;
+        }
+        try {
+            singleAction.accept(parsed.event());
+        } catch (InventoryException e) {
+            if ("DUPLICATE_RESERVATION".equals(e.getErrorCode())) {
+                // Redelivered event, already applied
+                log.info("Skipping already processed event at {}-{}@{}",
+                        parsed.record().topic(), parsed.record().partition(), parsed.record().offset());
+            } else {
+                deadLetter(parsed.record(), e.getErrorCode() + ": " + e.getMessage());
+            }
+        } catch (RuntimeException e) {
+            deadLetter(parsed.record(), e.getMessage());
+        }
+        progress.complete(parsed.record());
+    }
+
+    private <T> T parse(ConsumerRecord<String, String> record, Class<T> type, PollProgress progress) {
+        if (record.value() == null) {
+            deadLetter(record, "empty message");
+            progress.complete(record);
+            return null;
+        }
+        try {
+            return objectMapper.readValue(record.value(), type);
+        } catch (JsonProcessingException e) {
+            deadLetter(record, "malformed message: " + e.getOriginalMessage());
+            progress.complete(record);
+            return null;
+        }
+    }
+
+    /**
+     * Publish a failed record to the dead-letter topic and wait for the ack;
+     * if that fails the batch is not acknowledged and will be redelivered.
+     */
+    private void deadLetter(ConsumerRecord<String, String> record, String error) {
+        OrderEventDeadLetter event = OrderEventDeadLetter.builder()
+                .sourceTopic(record.topic())
+                .partition(record.partition())
+                .offset(record.offset())
+                .key(record.key())
+                .payload(record.value())
+                .error(error)
+                .timestamp(LocalDateTime.now().toString())
+                .build();
+        try {
+            kafkaProducer.sendOrderEventDeadLetter(event).get(deadLetterTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing dead letter", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Cannot publish dead letter for " + record.topic() + "@" + record.offset(), e);
+        }
+    }
+
+    /**
+     * Reserve through the flash-sale gate; an order without permits gets the
+     * regular reservation-failed event without a database round trip.
+     */
+    private void reserveAdmitted(OrderCreatedEvent event) {
+        try {
+            flashSaleGate.admit(event.getProductId(), event.getQuantity(),
+                    () -> retryExecutor.execute("reserve", List.of(event.getProductId()),
+                            () -> reservationService.reserveStock(toRequest(event))),
+                    ReservationResponse::isSuccess);
+        } catch (InsufficientStockException e) {
+            kafkaProducer.sendReservationFailed(event.getOrderId(), event.getProductId(), event.getQuantity(),
+                    e.getMessage());
+        }
+    }
+
+    private static ReservationRequest toRequest(OrderCreatedEvent event) {
+        return ReservationRequest.builder()
+                .productId(event.getProductId())
+                .orderId(event.getOrderId())
+                .quantity(event.getQuantity())
+                .build();
     }
 }
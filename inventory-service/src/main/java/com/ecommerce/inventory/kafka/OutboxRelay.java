@@ -0,0 +1,168 @@
+package com.ecommerce.inventory.kafka;
+
+import com.ecommerce.inventory.entity.OutboxEvent;
+import com.ecommerce.inventory.repository.OutboxEventRepository;
+import com.ecommerce.inventory.repository.OutboxRelayLock;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes outbox events to Kafka.
+ *
+ * Each poll takes the oldest batch in ID order and sends it per message
+ * key: the keys are sent concurrently (so the producer still batches per
+ * partition), the records of one key one after the other, each only once
+ * the previous one was acknowledged. Acknowledged rows are deleted at the
+ * end of the poll.
+ *
+ * Ordering per key: only one relay is active at a time (advisory lock),
+ * and once a send for a key fails the later rows of that key are not sent;
+ * they stay in the outbox, to be sent again after it. No transaction is
+ * open while the relay waits for acks. Delivery is at-least-once.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.outbox.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRelay {
+
+    // Advisory lock key of the relay ("OUTBOX" in ASCII)
+    private static final long RELAY_LOCK_KEY = 0x4F5554424F58L;
+    private static final String EVENT_PACKAGE = "com.ecommerce.inventory.event.";
+
+    private final OutboxEventRepository outboxRepository;
+    private final OutboxRelayLock relayLock;
+    private final InventoryProducer producer;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${inventory.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    private final AtomicLong lagMillis = new AtomicLong();
+    private Timer batchTimer;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("inventory.outbox.lag", lagMillis, lag -> lag.get() / 1000.0)
+                .description("Age of the oldest unpublished outbox event at the last poll")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("inventory.outbox.relay.batch")
+                .description("Time to publish and delete one outbox batch")
+                .register(meterRegistry);
+    }
+
+    // The scheduler pool has a thread per job (spring.task.scheduling.pool.size), so long jobs do not stall it
+    @Scheduled(fixedDelayString = "${inventory.outbox.poll-interval-ms:50}")
+    public void relay() {
+        relayLock.runLocked(RELAY_LOCK_KEY, this::relayBatch);
+    }
+
+    private void relayBatch() {
+        List<OutboxEvent> batch = outboxRepository.findBatch(batchSize);
+        if (batch.isEmpty()) {
+            lagMillis.set(0);
+            return;
+        }
+        lagMillis.set(Duration.between(batch.get(0).getCreatedAt(), LocalDateTime.now()).toMillis());
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Map<String, List<OutboxEvent>> byKey = new LinkedHashMap<>();
+        for (OutboxEvent event : batch) {
+            byKey.computeIfAbsent(event.getMessageKey(), key -> new ArrayList<>()).add(event);
+        }
+
+        Queue<Long> acknowledged = new ConcurrentLinkedQueue<>();
+        AtomicBoolean stopped = new AtomicBoolean();
+        CompletableFuture<?>[] chains = byKey.values().stream()
+                .map(events -> sendInOrder(events.iterator(), acknowledged, stopped))
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(chains).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Outbox batch not fully published within {} ms, will retry the rest", sendTimeoutMs);
+        } finally {
+            // Acks arriving from now on are not deleted; those rows are sent again
+            stopped.set(true);
+        }
+
+        List<Long> published = new ArrayList<>(acknowledged);
+        if (!published.isEmpty()) {
+            outboxRepository.deleteByIdIn(published);
+        }
+        sample.stop(batchTimer);
+        meterRegistry.counter("inventory.outbox.published").increment(published.size());
+        if (published.size() < batch.size()) {
+            meterRegistry.counter("inventory.outbox.failed").increment(batch.size() - published.size());
+        }
+    }
+
+    /**
+     * Send the records of one key one by one, stopping at the first failure.
+     */
+    private CompletableFuture<Void> sendInOrder(Iterator<OutboxEvent> events, Queue<Long> acknowledged,
+                                                AtomicBoolean stopped) {
+        if (!events.hasNext() || stopped.get()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        OutboxEvent event = events.next();
+        return send(event)
+                .handle((result, error) -> {
+                    if (error != null) {
+                        log.warn("Outbox event {} to {} not published, will retry: {}",
+                                event.getId(), event.getTopic(), error.getMessage());
+                        return false;
+                    }
+                    acknowledged.add(event.getId());
+                    return true;
+                })
+                // Next send off the producer's callback thread
+                .thenComposeAsync(sent -> sent
+                        ? sendInOrder(events, acknowledged, stopped)
+                        : CompletableFuture.completedFuture(null));
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(OutboxEvent event) {
+        try {
+            if (!event.getPayloadType().startsWith(EVENT_PACKAGE)) {
+                throw new IllegalStateException("Unexpected outbox payload type " + event.getPayloadType());
+            }
+            Object payload = objectMapper.readValue(event.getPayload(), Class.forName(event.getPayloadType()));
+            return producer.send(event.getTopic(), event.getMessageKey(), payload);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
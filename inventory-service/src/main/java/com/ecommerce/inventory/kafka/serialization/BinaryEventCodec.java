@@ -0,0 +1,365 @@
+package com.ecommerce.inventory.kafka.serialization;
+
+import com.ecommerce.inventory.kafka.serialization.EventSchema.FieldType;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact binary encoding of flat event classes.
+ *
+ * Layout: magic byte, schema ID (varint), null bitmap, then the non-null
+ * fields in schema order. Integers are zigzag varints, strings are
+ * length-prefixed UTF-8, timestamps are epoch seconds (UTC) plus nanos.
+ * Field names are not written; the reader resolves the writer schema by ID
+ * and matches fields by name, so fields may be added or removed.
+ *
+ * Only classes whose fields are all of a supported type can be encoded;
+ * see {@link #supports(Class)}.
+ */
+public class BinaryEventCodec {
+
+    static final byte MAGIC = 0x1E;
+
+    private static final byte RAW_STRING = 0;
+    private static final byte PARSED_TIMESTAMP = 1;
+
+    private final SchemaRegistry registry;
+    private final Map<Class<?>, Optional<Binding>> bindings = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Map<String, Field>> readerFields = new ConcurrentHashMap<>();
+
+    public BinaryEventCodec(SchemaRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * True if every instance field of the class maps to a binary field type.
+     */
+    public boolean supports(Class<?> type) {
+        return binding(type).isPresent();
+    }
+
+    public byte[] encode(Object event) {
+        Binding binding = binding(event.getClass())
+                .orElseThrow(() -> new SerializationException("No binary layout for " + event.getClass().getName()));
+        List<EventSchema.Field> fields = binding.schema.fields();
+
+        Object[] values = new Object[fields.size()];
+        byte[] nulls = new byte[(fields.size() + 7) / 8];
+        for (int i = 0; i < fields.size(); i++) {
+            values[i] = get(binding.accessors[i], event);
+            if (values[i] == null) {
+                nulls[i >> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(MAGIC);
+        writeVarint(out, binding.schema.id());
+        out.writeBytes(nulls);
+        for (int i = 0; i < fields.size(); i++) {
+            if (values[i] != null) {
+                writeValue(out, fields.get(i).type(), values[i]);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode into the given class using the writer schema named in the message.
+     * Writer fields missing from the class are skipped; class fields missing
+     * from the writer schema stay null.
+     */
+    public <T> T decode(byte[] data, Class<T> type) {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        EventSchema schema = readSchema(in);
+        Map<String, Field> targets = readerFields.computeIfAbsent(type, BinaryEventCodec::fieldsByName);
+
+        T event;
+        try {
+            event = type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new SerializationException("No default constructor on " + type.getName(), e);
+        }
+
+        List<EventSchema.Field> fields = schema.fields();
+        byte[] nulls = new byte[(fields.size() + 7) / 8];
+        in.get(nulls);
+        for (int i = 0; i < fields.size(); i++) {
+            if ((nulls[i >> 3] & (1 << (i & 7))) != 0) {
+                continue;
+            }
+            EventSchema.Field field = fields.get(i);
+            Object value = readValue(in, field.type());
+            Field target = targets.get(field.name());
+            if (target != null && compatible(target, field.type())) {
+                set(target, event, value);
+            }
+        }
+        return event;
+    }
+
+    /**
+     * Schema of an encoded message, without decoding it.
+     */
+    public EventSchema schemaOf(byte[] data) {
+        return readSchema(ByteBuffer.wrap(data));
+    }
+
+    private EventSchema readSchema(ByteBuffer in) {
+        if (in.remaining() == 0 || in.get() != MAGIC) {
+            throw new SerializationException("Not a binary inventory event");
+        }
+        return registry.get((int) readVarint(in));
+    }
+
+    private Optional<Binding> binding(Class<?> type) {
+        return bindings.computeIfAbsent(type, this::bind);
+    }
+
+    private Optional<Binding> bind(Class<?> type) {
+        List<EventSchema.Field> fields = new ArrayList<>();
+        List<Field> accessors = new ArrayList<>();
+        for (Field field : instanceFields(type)) {
+            Optional<FieldType> fieldType = typeOf(field);
+            if (fieldType.isEmpty()) {
+                return Optional.empty();
+            }
+            field.setAccessible(true);
+            fields.add(new EventSchema.Field(field.getName(), fieldType.get()));
+            accessors.add(field);
+        }
+        EventSchema schema = registry.register(new EventSchema(0, type.getName(), fields));
+        return Optional.of(new Binding(schema, accessors.toArray(Field[]::new)));
+    }
+
+    private static Map<String, Field> fieldsByName(Class<?> type) {
+        Map<String, Field> fields = new HashMap<>();
+        for (Field field : instanceFields(type)) {
+            field.setAccessible(true);
+            fields.put(field.getName(), field);
+        }
+        return fields;
+    }
+
+    private static List<Field> instanceFields(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    private static Optional<FieldType> typeOf(Field field) {
+        Class<?> type = field.getType();
+        if (type == String.class) {
+            return Optional.of(field.isAnnotationPresent(EventTimestamp.class)
+                    ? FieldType.TIMESTAMP_STRING : FieldType.STRING);
+        }
+        if (type == Integer.class || type == int.class) {
+            return Optional.of(FieldType.INT);
+        }
+        if (type == Long.class || type == long.class) {
+            return Optional.of(FieldType.LONG);
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return Optional.of(FieldType.BOOLEAN);
+        }
+        if (type == Double.class || type == double.class) {
+            return Optional.of(FieldType.DOUBLE);
+        }
+        if (type == LocalDateTime.class) {
+            return Optional.of(FieldType.TIMESTAMP);
+        }
+        return Optional.empty();
+    }
+
+    private static boolean compatible(Field target, FieldType written) {
+        Optional<FieldType> readerType = typeOf(target);
+        if (readerType.isEmpty()) {
+            return false;
+        }
+        // Timestamp strings and plain strings decode to the same Java value
+        if (written == FieldType.TIMESTAMP_STRING || written == FieldType.STRING) {
+            return target.getType() == String.class;
+        }
+        return readerType.get() == written;
+    }
+
+    private static void writeValue(ByteArrayOutputStream out, FieldType type, Object value) {
+        switch (type) {
+            case STRING -> writeString(out, (String) value);
+            case INT -> writeVarint(out, zigzag((Integer) value));
+            case LONG -> writeVarint(out, zigzag((Long) value));
+            case BOOLEAN -> out.write((Boolean) value ? 1 : 0);
+            case DOUBLE -> out.writeBytes(ByteBuffer.allocate(Double.BYTES).putDouble((Double) value).array());
+            case TIMESTAMP -> writeTimestamp(out, (LocalDateTime) value);
+            case TIMESTAMP_STRING -> {
+                String text = (String) value;
+                LocalDateTime timestamp = parseTimestamp(text);
+                // Round trip only if toString() reproduces the text exactly
+                if (timestamp != null && timestamp.toString().equals(text)) {
+                    out.write(PARSED_TIMESTAMP);
+                    writeTimestamp(out, timestamp);
+                } else {
+                    out.write(RAW_STRING);
+                    writeString(out, text);
+                }
+            }
+        }
+    }
+
+    private static Object readValue(ByteBuffer in, FieldType type) {
+        return switch (type) {
+            case STRING -> readString(in);
+            case INT -> (int) unzigzag(readVarint(in));
+            case LONG -> unzigzag(readVarint(in));
+            case BOOLEAN -> in.get() != 0;
+            case DOUBLE -> in.getDouble();
+            case TIMESTAMP -> readTimestamp(in);
+            case TIMESTAMP_STRING -> in.get() == PARSED_TIMESTAMP ? readTimestamp(in).toString() : readString(in);
+        };
+    }
+
+    /**
+     * Parse the LocalDateTime.toString() form, uuuu-MM-ddTHH:mm[:ss[.fraction]].
+     * Much cheaper than LocalDateTime.parse, which dominated encoding time.
+     *
+     * @return the timestamp, null if the text is in any other form
+     */
+    static LocalDateTime parseTimestamp(String text) {
+        int length = text.length();
+        if (length < 16 || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T'
+                || text.charAt(13) != ':') {
+            return null;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 7);
+        int day = digits(text, 8, 10);
+        int hour = digits(text, 11, 13);
+        int minute = digits(text, 14, 16);
+        int second = 0;
+        int nanos = 0;
+        if (length > 16) {
+            if (length < 19 || text.charAt(16) != ':') {
+                return null;
+            }
+            second = digits(text, 17, 19);
+            if (length > 19) {
+                if (length < 21 || length > 29 || text.charAt(19) != '.') {
+                    return null;
+                }
+                nanos = digits(text, 20, length);
+                for (int i = length; i < 29 && nanos > 0; i++) {
+                    nanos *= 10;
+                }
+            }
+        }
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0 || nanos < 0) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static void writeTimestamp(ByteArrayOutputStream out, LocalDateTime timestamp) {
+        writeVarint(out, zigzag(timestamp.toEpochSecond(ZoneOffset.UTC)));
+        writeVarint(out, timestamp.getNano());
+    }
+
+    private static LocalDateTime readTimestamp(ByteBuffer in) {
+        long seconds = unzigzag(readVarint(in));
+        int nanos = (int) readVarint(in);
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = (int) readVarint(in);
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static Object get(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            throw new SerializationException("Cannot read " + field, e);
+        }
+    }
+
+    private static void set(Field field, Object target, Object value) {
+        try {
+            field.set(target, value);
+        } catch (IllegalAccessException | IllegalArgumentException e) {
+            throw new SerializationException("Cannot set " + field, e);
+        }
+    }
+
+    private record Binding(EventSchema schema, Field[] accessors) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.ecommerce.inventory.kafka.serialization;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Payload format of an inventory event, carried in the inventory-format header.
+ * Records without the header are JSON, so existing consumers and old
+ * records keep working.
+ */
+public enum EventFormat {
+    JSON, BINARY;
+
+    public static final String HEADER = "inventory-format";
+
+    /**
+     * Format of a received record.
+     */
+    public static EventFormat of(Headers headers) {
+        Header header = headers == null ? null : headers.lastHeader(HEADER);
+        if (header == null) {
+            return JSON;
+        }
+        return valueOf(new String(header.value(), StandardCharsets.UTF_8));
+    }
+
+    public void writeTo(Headers headers) {
+        headers.remove(HEADER);
+        headers.add(HEADER, name().getBytes(StandardCharsets.UTF_8));
+    }
+}
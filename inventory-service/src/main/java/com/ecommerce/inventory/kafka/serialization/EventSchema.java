@@ -0,0 +1,35 @@
+package com.ecommerce.inventory.kafka.serialization;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Writer schema of a binary-encoded event: its class and field layout.
+ * Fields are written in this order; readers match them by name.
+ *
+ * @param id registry ID, written into every message
+ * @param name event class name
+ * @param fields field layout
+ */
+public record EventSchema(int id, String name, List<Field> fields) {
+
+    public enum FieldType {
+        STRING, INT, LONG, BOOLEAN, DOUBLE, TIMESTAMP, TIMESTAMP_STRING
+    }
+
+    public record Field(String name, FieldType type) {
+    }
+
+    /**
+     * Identity of the layout, independent of the ID.
+     */
+    public String fingerprint() {
+        return name + fields.stream()
+                .map(field -> field.name() + ":" + field.type())
+                .collect(Collectors.joining(",", "(", ")"));
+    }
+
+    EventSchema withId(int newId) {
+        return new EventSchema(newId, name, fields);
+    }
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.inventory.kafka.serialization;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a String event field holding LocalDateTime.toString(); the binary
+ * format stores it as seconds and nanos instead of text.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface EventTimestamp {
+}
@@ -0,0 +1,56 @@
+package com.ecommerce.inventory.kafka.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+/**
+ * Value deserializer reading both formats, chosen by the inventory-format header.
+ * Binary events are decoded into the class named by their writer schema,
+ * which must be in an allowed package.
+ */
+public class InventoryEventDeserializer implements Deserializer<Object> {
+
+    private static final String EVENT_PACKAGE = "com.ecommerce.inventory.event.";
+
+    private final BinaryEventCodec codec;
+    private final JsonDeserializer<Object> json = new JsonDeserializer<>();
+
+    public InventoryEventDeserializer(BinaryEventCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return json.deserialize(topic, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null || EventFormat.of(headers) == EventFormat.JSON) {
+            return json.deserialize(topic, headers, data);
+        }
+        String type = codec.schemaOf(data).name();
+        if (!type.startsWith(EVENT_PACKAGE)) {
+            throw new SerializationException("Unexpected binary event type " + type);
+        }
+        try {
+            return codec.decode(data, Class.forName(type));
+        } catch (ClassNotFoundException e) {
+            throw new SerializationException("Unknown binary event type " + type, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
@@ -0,0 +1,47 @@
+package com.ecommerce.inventory.kafka.serialization;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Set;
+
+/**
+ * Value serializer writing binary events to opted-in topics and JSON elsewhere.
+ *
+ * A topic is switched to binary (inventory.events.binary-topics) once all its
+ * consumers use {@link InventoryEventDeserializer}. Events the binary codec
+ * cannot lay out (e.g. with nested lines) stay JSON on every topic. The
+ * chosen format is written to the inventory-format header.
+ */
+public class InventoryEventSerializer implements Serializer<Object> {
+
+    private final BinaryEventCodec codec;
+    private final Set<String> binaryTopics;
+    private final JsonSerializer<Object> json = new JsonSerializer<>();
+
+    public InventoryEventSerializer(BinaryEventCodec codec, Set<String> binaryTopics) {
+        this.codec = codec;
+        this.binaryTopics = Set.copyOf(binaryTopics);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return json.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data != null && binaryTopics.contains(topic) && codec.supports(data.getClass())) {
+            EventFormat.BINARY.writeTo(headers);
+            return codec.encode(data);
+        }
+        EventFormat.JSON.writeTo(headers);
+        return json.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
@@ -0,0 +1,120 @@
+package com.ecommerce.inventory.kafka.serialization;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * File-backed stand-in for a schema registry.
+ *
+ * All schemas live in one JSON file shared by producers and consumers on the
+ * same host or volume. Registration takes a file lock, re-reads the file and
+ * appends the schema only if its fingerprint is new, so concurrent processes
+ * agree on IDs. Lookups of unknown IDs re-read the file once.
+ */
+@Slf4j
+public class SchemaRegistry {
+
+    private static final TypeReference<List<EventSchema>> SCHEMA_LIST = new TypeReference<>() {
+    };
+
+    private final Path path;
+    private final Path lockPath;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<Integer, EventSchema> byId = new ConcurrentHashMap<>();
+    private final Map<String, EventSchema> byFingerprint = new ConcurrentHashMap<>();
+
+    public SchemaRegistry(Path path) {
+        this.path = path.toAbsolutePath();
+        this.lockPath = this.path.resolveSibling(this.path.getFileName() + ".lock");
+        reload();
+    }
+
+    /**
+     * Register a schema (ID ignored) or return the registered one with the same layout.
+     */
+    public synchronized EventSchema register(EventSchema candidate) {
+        EventSchema known = byFingerprint.get(candidate.fingerprint());
+        if (known != null) {
+            return known;
+        }
+        try {
+            Files.createDirectories(path.getParent());
+            try (FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                // Another process may have registered it meanwhile
+                reload();
+                known = byFingerprint.get(candidate.fingerprint());
+                if (known != null) {
+                    return known;
+                }
+                int id = byId.keySet().stream().max(Integer::compare).orElse(0) + 1;
+                EventSchema registered = candidate.withId(id);
+                List<EventSchema> all = new ArrayList<>(byId.values());
+                all.add(registered);
+                all.sort(Comparator.comparingInt(EventSchema::id));
+                write(all);
+                put(registered);
+                log.info("Registered event schema {} for {}", id, registered.name());
+                return registered;
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Cannot register schema for " + candidate.name(), e);
+        }
+    }
+
+    /**
+     * Schema by ID.
+     *
+     * @throws SerializationException if no process registered it
+     */
+    public EventSchema get(int id) {
+        EventSchema schema = byId.get(id);
+        if (schema == null) {
+            reload();
+            schema = byId.get(id);
+        }
+        if (schema == null) {
+            throw new SerializationException("Unknown event schema id " + id + " in " + path);
+        }
+        return schema;
+    }
+
+    private synchronized void reload() {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try {
+            objectMapper.readValue(path.toFile(), SCHEMA_LIST).forEach(this::put);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read schema registry " + path, e);
+        }
+    }
+
+    private void put(EventSchema schema) {
+        byId.put(schema.id(), schema);
+        byFingerprint.put(schema.fingerprint(), schema);
+    }
+
+    private void write(List<EventSchema> schemas) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(tmp.toFile(), schemas);
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
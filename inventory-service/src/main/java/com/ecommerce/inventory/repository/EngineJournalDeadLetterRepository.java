@@ -0,0 +1,16 @@
+package com.ecommerce.inventory.repository;
+
+import com.ecommerce.inventory.entity.EngineJournalDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for engine journal entries parked by the write-behind flusher.
+ */
+@Repository
+public interface EngineJournalDeadLetterRepository extends JpaRepository<EngineJournalDeadLetter, Long> {
+
+    List<EngineJournalDeadLetter> findByOrderId(String orderId);
+}
@@ -1,13 +1,17 @@
 package com.ecommerce.inventory.repository;
 
 import com.ecommerce.inventory.entity.Inventory;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -23,6 +27,39 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
      */
     Optional<Inventory> findByProductId(String productId);
 
+    /**
+     * Available quantity of many products in one IN-list query, no locking.
+     * Sharded products add the free stock of their shards; the row of a
+     * ledger-mode product may lag behind its ledger.
+     * Unknown product IDs are absent from the result.
+     *
+     * @param productIds product IDs
+     * @return availability per found product
+     */
+    @Query("SELECT new com.ecommerce.inventory.repository.ProductAvailability(i.id, i.productId, " +
+            "i.totalQuantity - i.reservedQuantity + CASE WHEN i.shardCount > 0 THEN " +
+            "COALESCE((SELECT SUM(s.totalQuantity - s.reservedQuantity) FROM InventoryShard s " +
+            "WHERE s.inventoryId = i.id), 0L) ELSE 0L END, i.ledgerMode) " +
+            "FROM Inventory i WHERE i.productId IN :productIds")
+    List<ProductAvailability> findAvailabilityByProductIdIn(@Param("productIds") Collection<String> productIds);
+
+    /**
+     * Total and reserved stock of many products in one IN-list query, no locking.
+     * Sharded products add the stock of their shards; the row of a
+     * ledger-mode product may lag behind its ledger.
+     *
+     * @param productIds product IDs
+     * @return level per found product
+     */
+    @Query("SELECT new com.ecommerce.inventory.repository.ProductLevel(i.id, i.productId, " +
+            "i.totalQuantity + CASE WHEN i.shardCount > 0 THEN " +
+            "COALESCE((SELECT SUM(s.totalQuantity) FROM InventoryShard s WHERE s.inventoryId = i.id), 0L) ELSE 0L END, " +
+            "i.reservedQuantity + CASE WHEN i.shardCount > 0 THEN " +
+            "COALESCE((SELECT SUM(s.reservedQuantity) FROM InventoryShard s WHERE s.inventoryId = i.id), 0L) ELSE 0L END, " +
+            "i.ledgerMode) " +
+            "FROM Inventory i WHERE i.productId IN :productIds")
+    List<ProductLevel> findLevelsByProductIdIn(@Param("productIds") Collection<String> productIds);
+
     /**
      * Find inventory by product ID with PESSIMISTIC_WRITE lock.
      * Exclusively locks the row from first read until transaction end.
@@ -39,6 +76,29 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     @Query("SELECT i FROM Inventory i WHERE i.productId = :productId")
     Optional<Inventory> findByProductIdWithLock(@Param("productId") String productId);
 
+    /**
+     * Lock several inventories with PESSIMISTIC_WRITE in canonical productId order.
+     * Rows are locked in the ORDER BY order, so concurrent multi-line
+     * reservations always acquire locks in the same sequence and cannot deadlock.
+     *
+     * @param productIds the product IDs
+     * @return locked inventories sorted by productId (missing products omitted)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.productId IN :productIds ORDER BY i.productId")
+    List<Inventory> findAllByProductIdInWithLock(@Param("productIds") Collection<String> productIds);
+
+    /**
+     * Lock several inventories by ID with PESSIMISTIC_WRITE in canonical productId order.
+     * Same lock order as {@link #findAllByProductIdInWithLock(Collection)}.
+     *
+     * @param ids the inventory IDs
+     * @return locked inventories sorted by productId
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.id IN :ids ORDER BY i.productId")
+    List<Inventory> findAllByIdInWithLock(@Param("ids") Collection<Long> ids);
+
     /**
      * Find inventory by product ID with PESSIMISTIC_READ lock.
      * Shared lock - multiple readers allowed, but prevents writes.
@@ -61,4 +121,148 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
      * @return true if inventory tracked, false otherwise
      */
     boolean existsByProductId(String productId);
+
+    /**
+     * Resolve inventory ID by product ID without loading the entity.
+     * Used by the conditional-update reservation path, which never
+     * holds the entity in the persistence context.
+     *
+     * @param productId the product ID
+     * @return inventory ID if exists
+     */
+    @Query("SELECT i.id FROM Inventory i WHERE i.productId = :productId")
+    Optional<Long> findIdByProductId(@Param("productId") String productId);
+
+    /**
+     * Find inventory without locking, only if the product runs in sharded-counter mode.
+     * Reservations of sharded products never lock the inventory row.
+     *
+     * @param productId the product ID
+     * @return inventory if product is sharded
+     */
+    @Query("SELECT i FROM Inventory i WHERE i.productId = :productId AND i.shardCount > 0")
+    Optional<Inventory> findShardedByProductId(@Param("productId") String productId);
+
+    /**
+     * Find inventory without locking, only if the product runs in ledger mode.
+     * Reservations of ledger-mode products append to the stock ledger and
+     * never lock the inventory row.
+     *
+     * @param productId the product ID
+     * @return inventory if product is in ledger mode
+     */
+    @Query("SELECT i FROM Inventory i WHERE i.productId = :productId AND i.ledgerMode = true")
+    Optional<Inventory> findLedgerByProductId(@Param("productId") String productId);
+
+    /**
+     * IDs of all ledger-mode inventories, for the compactor.
+     */
+    @Query("SELECT i.id FROM Inventory i WHERE i.ledgerMode = true ORDER BY i.id")
+    List<Long> findLedgerModeIds();
+
+    /**
+     * Copy stock derived from the ledger onto the row of a ledger-mode product,
+     * so row-based reads (availability, levels) follow the ledger.
+     * A row that is already up to date is not touched (nor locked).
+     *
+     * @return 1 if updated, 0 if unchanged or no longer in ledger mode
+     */
+    @Modifying
+    @Query("UPDATE Inventory i SET i.totalQuantity = :totalQuantity, i.reservedQuantity = :reservedQuantity, " +
+            "i.version = i.version + 1 " +
+            "WHERE i.id = :id AND i.ledgerMode = true " +
+            "AND (i.totalQuantity <> :totalQuantity OR i.reservedQuantity <> :reservedQuantity)")
+    int refreshFromLedger(@Param("id") Long id,
+                          @Param("totalQuantity") Integer totalQuantity,
+                          @Param("reservedQuantity") Integer reservedQuantity);
+
+    /**
+     * Read current available quantity (total - reserved) without locking.
+     *
+     * @param id the inventory ID
+     * @return available quantity if inventory exists
+     */
+    @Query("SELECT i.totalQuantity - i.reservedQuantity FROM Inventory i WHERE i.id = :id")
+    Optional<Integer> findAvailableQuantityById(@Param("id") Long id);
+
+    /**
+     * Atomically reserve stock in a single guarded UPDATE.
+     * The row is changed only if enough stock is available, so the row lock
+     * is taken by this statement alone instead of a preceding SELECT ... FOR UPDATE.
+     * Version is bumped so concurrent entity-based writers detect the change.
+     * Ledger-mode rows are never changed.
+     *
+     * @param id the inventory ID
+     * @param quantity quantity to reserve
+     * @return 1 if reserved, 0 if stock was insufficient or the product is in ledger mode
+     */
+    @Modifying
+    @Query("UPDATE Inventory i SET i.reservedQuantity = i.reservedQuantity + :quantity, " +
+            "i.version = i.version + 1 " +
+            "WHERE i.id = :id AND i.totalQuantity - i.reservedQuantity >= :quantity AND i.ledgerMode = false")
+    int reserveIfAvailable(@Param("id") Long id, @Param("quantity") Integer quantity);
+
+    /**
+     * Apply aggregated stock deltas in one UPDATE.
+     * Used by batch writers that already validated the change in memory.
+     *
+     * @param id the inventory ID
+     * @param totalDelta change of total quantity
+     * @param reservedDelta change of reserved quantity
+     * @return 1 if updated, 0 if inventory does not exist
+     */
+    @Modifying
+    @Query("UPDATE Inventory i SET i.totalQuantity = i.totalQuantity + :totalDelta, " +
+            "i.reservedQuantity = i.reservedQuantity + :reservedDelta, " +
+            "i.version = i.version + 1 " +
+            "WHERE i.id = :id")
+    int applyDelta(@Param("id") Long id,
+                   @Param("totalDelta") Integer totalDelta,
+                   @Param("reservedDelta") Integer reservedDelta);
+
+    /**
+     * Keyset page of inventory rows for the reconciliation, no locking.
+     *
+     * @param afterId exclusive lower bound of the ID
+     * @param toId inclusive upper bound of the ID
+     * @param page page size (offset is ignored by callers, always 0)
+     * @return rows in ID order
+     */
+    @Query("SELECT new com.ecommerce.inventory.repository.InventoryReservedRow(" +
+            "i.id, i.productId, i.reservedQuantity, i.ledgerMode) " +
+            "FROM Inventory i WHERE i.id > :afterId AND i.id <= :toId ORDER BY i.id")
+    List<InventoryReservedRow> findReservedPage(@Param("afterId") Long afterId,
+                                                @Param("toId") Long toId,
+                                                Pageable page);
+
+    /**
+     * Products in flash-sale mode, on any replica.
+     */
+    @Query(value = "SELECT product_id FROM flash_sale_product", nativeQuery = true)
+    List<String> findFlashSaleProductIds();
+
+    /**
+     * Put a product into flash-sale mode.
+     *
+     * @return 1 if enabled, 0 if it already was
+     */
+    @Modifying
+    @Query(value = "INSERT INTO flash_sale_product (product_id) VALUES (:productId) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int insertFlashSale(@Param("productId") String productId);
+
+    /**
+     * Take a product out of flash-sale mode.
+     *
+     * @return 1 if disabled, 0 if it was not in flash-sale mode
+     */
+    @Modifying
+    @Query(value = "DELETE FROM flash_sale_product WHERE product_id = :productId", nativeQuery = true)
+    int deleteFlashSale(@Param("productId") String productId);
+
+    @Query("SELECT MIN(i.id) FROM Inventory i")
+    Optional<Long> findMinId();
+
+    @Query("SELECT MAX(i.id) FROM Inventory i")
+    Optional<Long> findMaxId();
 }
@@ -1,13 +1,17 @@
 package com.ecommerce.inventory.repository;
 
 import com.ecommerce.inventory.entity.InventoryReservation;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 /**
  * Repository for InventoryReservation persistence.
@@ -17,13 +21,88 @@ import java.util.Optional;
 public interface InventoryReservationRepository extends JpaRepository<InventoryReservation, Long> {
 
     /**
-     * Find reservation by order ID.
-     * Assuming one reservation per order (MVP).
+     * Find all reservation lines of an order.
+     * An order has one row per reserved product.
      *
      * @param orderId the order ID
-     * @return reservation if exists
+     * @return reservation lines, empty if none
      */
-    Optional<InventoryReservation> findByOrderId(String orderId);
+    List<InventoryReservation> findAllByOrderId(String orderId);
+
+    /**
+     * Find and lock all reservation lines of an order.
+     * Reservation rows are always locked before inventory rows.
+     *
+     * @param orderId the order ID
+     * @return locked reservation lines, empty if none
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM InventoryReservation r WHERE r.orderId = :orderId ORDER BY r.id")
+    List<InventoryReservation> findAllByOrderIdWithLock(@Param("orderId") String orderId);
+
+    /**
+     * Claim a batch of PENDING reservations created before the cutoff.
+     * Rows locked by another sweeper or a release/confirm are skipped,
+     * so concurrent replicas claim disjoint batches.
+     *
+     * @param cutoff reservations created before this time are expired
+     * @param excludeEngineOwned skip rows of plain (non-sharded, non-ledger)
+     *                           inventories, which the reservation engine owns
+     * @param limit batch size
+     * @return locked expired reservations, oldest first
+     */
+    @Query(value = "SELECT r.* FROM inventory_reservation r " +
+            "WHERE r.status = 'PENDING' AND r.created_at < :cutoff " +
+            "AND (:excludeEngineOwned = FALSE OR EXISTS (SELECT 1 FROM inventory i " +
+            "WHERE i.id = r.inventory_id AND (i.shard_count > 0 OR i.ledger_mode))) " +
+            "ORDER BY r.created_at " +
+            "LIMIT :limit " +
+            "FOR UPDATE OF r SKIP LOCKED", nativeQuery = true)
+    List<InventoryReservation> claimExpiredPending(@Param("cutoff") LocalDateTime cutoff,
+                                                   @Param("excludeEngineOwned") boolean excludeEngineOwned,
+                                                   @Param("limit") int limit);
+
+    /**
+     * Check if order already has any reservation line.
+     *
+     * @param orderId the order ID
+     * @return true if the order ID is claimed in reservation_order
+     */
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM reservation_order WHERE order_id = :orderId)", nativeQuery = true)
+    boolean existsOrder(@Param("orderId") String orderId);
+
+    /**
+     * Claim an order ID before creating its reservation rows. Fails with a
+     * unique violation (pk_reservation_order) if the order already has rows;
+     * a concurrent claim of the same order waits for the first one to finish.
+     *
+     * @param orderId the order ID
+     */
+    @Modifying
+    @Query(value = "INSERT INTO reservation_order (order_id) VALUES (:orderId)", nativeQuery = true)
+    void insertOrder(@Param("orderId") String orderId);
+
+    /**
+     * Claim the order IDs of reservation rows written by the reservation
+     * engine; IDs claimed already are skipped. Rows must be flushed first.
+     *
+     * @param orderIds order IDs of the rows
+     */
+    @Modifying
+    @Query(value = "INSERT INTO reservation_order (order_id) " +
+            "SELECT DISTINCT order_id FROM inventory_reservation WHERE order_id IN (:orderIds) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    void insertOrdersOf(@Param("orderIds") Collection<String> orderIds);
+
+    /**
+     * Order IDs reserved since the given time.
+     * Used to rebuild the duplicate order filter on startup.
+     *
+     * @param since lower bound of created_at
+     * @return distinct order IDs
+     */
+    @Query("SELECT DISTINCT r.orderId FROM InventoryReservation r WHERE r.createdAt >= :since")
+    List<String> findOrderIdsCreatedSince(@Param("since") LocalDateTime since);
 
     /**
      * Find all pending reservations for an inventory.
@@ -39,6 +118,27 @@ public interface InventoryReservationRepository extends JpaRepository<InventoryR
             "AND r.status = 'PENDING'")
     List<InventoryReservation> findPendingByInventoryId(@Param("inventoryId") Long inventoryId);
 
+    /**
+     * Find reservations still holding stock: PENDING, or CONFIRMED but not yet settled.
+     * Used to rebuild in-memory state on startup.
+     *
+     * @return matching reservations
+     */
+    @Query("SELECT r FROM InventoryReservation r " +
+            "WHERE r.status = 'PENDING' OR (r.status = 'CONFIRMED' AND r.settledAt IS NULL)")
+    List<InventoryReservation> findHoldingStock();
+
+    /**
+     * Move stock held on shards back to the inventory row (unsharding).
+     *
+     * @param inventoryId the inventory ID
+     * @return number of reservations updated
+     */
+    @Modifying
+    @Query("UPDATE InventoryReservation r SET r.shardNo = NULL " +
+            "WHERE r.inventoryId = :inventoryId AND r.shardNo IS NOT NULL")
+    int clearShardNo(@Param("inventoryId") Long inventoryId);
+
     /**
      * Find reservations by order IDs (batch operation).
      * Useful for event processing.
@@ -47,4 +147,88 @@ public interface InventoryReservationRepository extends JpaRepository<InventoryR
      * @return list of reservations
      */
     List<InventoryReservation> findByOrderIdIn(List<String> orderIds);
+
+    /**
+     * Find and lock all reservation lines of many orders in one query.
+     * Used by bulk confirm / release; rows are locked in ID order.
+     *
+     * @param orderIds the order IDs
+     * @return locked reservation lines of all orders
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM InventoryReservation r WHERE r.orderId IN :orderIds ORDER BY r.id")
+    List<InventoryReservation> findAllByOrderIdInWithLock(@Param("orderIds") Collection<String> orderIds);
+
+    /**
+     * Confirm PENDING reservations in one statement.
+     *
+     * @return number of reservations updated
+     */
+    @Modifying
+    @Query("UPDATE InventoryReservation r " +
+            "SET r.status = 'CONFIRMED', " +
+            "r.confirmedAt = :confirmedAt " +
+            "WHERE r.id IN :ids AND r.status = 'PENDING'")
+    int markConfirmed(@Param("ids") Collection<Long> ids, @Param("confirmedAt") LocalDateTime confirmedAt);
+
+    /**
+     * Mark reservations as released in one statement.
+     *
+     * @return number of reservations updated
+     */
+    @Modifying
+    @Query("UPDATE InventoryReservation r " +
+            "SET r.status = 'RELEASED', " +
+            "r.releasedAt = :releasedAt " +
+            "WHERE r.id IN :ids")
+    int markReleased(@Param("ids") Collection<Long> ids, @Param("releasedAt") LocalDateTime releasedAt);
+
+    /**
+     * Claim a batch of CONFIRMED reservations not settled yet.
+     * Rows locked by another settler or a release are skipped.
+     *
+     * @param excludeEngineOwned skip rows of plain (non-sharded, non-ledger)
+     *                           inventories, which the reservation engine settles itself
+     * @param limit batch size
+     * @return locked unsettled reservations in ID order
+     */
+    @Query(value = "SELECT r.* FROM inventory_reservation r " +
+            "WHERE r.status = 'CONFIRMED' AND r.settled_at IS NULL " +
+            "AND (:excludeEngineOwned = FALSE OR EXISTS (SELECT 1 FROM inventory i " +
+            "WHERE i.id = r.inventory_id AND (i.shard_count > 0 OR i.ledger_mode))) " +
+            "ORDER BY r.id " +
+            "LIMIT :limit " +
+            "FOR UPDATE OF r SKIP LOCKED", nativeQuery = true)
+    List<InventoryReservation> claimUnsettledConfirmed(@Param("excludeEngineOwned") boolean excludeEngineOwned,
+                                                       @Param("limit") int limit);
+
+    /**
+     * Mark reservations as settled in one statement.
+     *
+     * @return number of reservations updated
+     */
+    @Modifying
+    @Query("UPDATE InventoryReservation r SET r.settledAt = :settledAt " +
+            "WHERE r.id IN :ids AND r.settledAt IS NULL")
+    int markSettled(@Param("ids") Collection<Long> ids, @Param("settledAt") LocalDateTime settledAt);
+
+    /**
+     * Settlement backlog: CONFIRMED reservations not settled yet.
+     */
+    @Query("SELECT COUNT(r) FROM InventoryReservation r " +
+            "WHERE r.status = 'CONFIRMED' AND r.settledAt IS NULL")
+    long countUnsettledConfirmed();
+
+    /**
+     * Quantity held by PENDING and unsettled CONFIRMED reservations of an
+     * inventory ID range, per inventory and shard. No locking.
+     *
+     * @return one entry per inventory and shard with held stock
+     */
+    @Query("SELECT new com.ecommerce.inventory.repository.ReservedSum(r.inventoryId, r.shardNo, SUM(r.reservedQuantity)) " +
+            "FROM InventoryReservation r " +
+            "WHERE r.inventoryId BETWEEN :fromId AND :toId " +
+            "AND (r.status = 'PENDING' OR (r.status = 'CONFIRMED' AND r.settledAt IS NULL)) " +
+            "GROUP BY r.inventoryId, r.shardNo")
+    List<ReservedSum> sumHeldBetween(@Param("fromId") Long fromId, @Param("toId") Long toId);
 }
@@ -0,0 +1,7 @@
+package com.ecommerce.inventory.repository;
+
+/**
+ * Reserved quantity recorded on one inventory row, read by the reconciliation.
+ */
+public record InventoryReservedRow(Long id, String productId, Integer reservedQuantity, Boolean ledgerMode) {
+}
@@ -0,0 +1,129 @@
+package com.ecommerce.inventory.repository;
+
+import com.ecommerce.inventory.entity.InventoryShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for sharded stock counters.
+ * Hot-path operations are single guarded UPDATEs on one shard row.
+ */
+@Repository
+public interface InventoryShardRepository extends JpaRepository<InventoryShard, Long> {
+
+    /**
+     * Find all shards of an inventory without locking.
+     *
+     * @param inventoryId the inventory ID
+     * @return shards ordered by shard number
+     */
+    List<InventoryShard> findByInventoryIdOrderByShardNo(Long inventoryId);
+
+    /**
+     * Lock all shards of an inventory in shard number order.
+     * Used by admin operations (rebalance, resize, unshard).
+     *
+     * @param inventoryId the inventory ID
+     * @return locked shards ordered by shard number
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM InventoryShard s WHERE s.inventoryId = :inventoryId ORDER BY s.shardNo")
+    List<InventoryShard> findByInventoryIdWithLock(@Param("inventoryId") Long inventoryId);
+
+    /**
+     * Free stock per location of a located product, no locking.
+     * Loads the allocation index; the guarded UPDATE re-checks stock.
+     *
+     * @param inventoryId the inventory ID
+     * @return one entry per location shard ordered by shard number
+     */
+    @Query("SELECT new com.ecommerce.inventory.repository.LocationStock(s.shardNo, s.locationCode, " +
+            "s.totalQuantity - s.reservedQuantity, l.latitude, l.longitude, l.priority) " +
+            "FROM InventoryShard s, StockLocation l " +
+            "WHERE l.code = s.locationCode AND s.inventoryId = :inventoryId ORDER BY s.shardNo")
+    List<LocationStock> findLocationStock(@Param("inventoryId") Long inventoryId);
+
+    /**
+     * Sum stock over all shards of an inventory.
+     *
+     * @param inventoryId the inventory ID
+     * @return summed totals (zero if no shards)
+     */
+    @Query("SELECT new com.ecommerce.inventory.repository.InventoryShardTotals(" +
+            "COALESCE(SUM(s.totalQuantity), 0L), COALESCE(SUM(s.reservedQuantity), 0L)) " +
+            "FROM InventoryShard s WHERE s.inventoryId = :inventoryId")
+    InventoryShardTotals sumByInventoryId(@Param("inventoryId") Long inventoryId);
+
+    /**
+     * Atomically reserve stock on one shard if it has enough available.
+     *
+     * @return 1 if reserved, 0 if shard stock was insufficient
+     */
+    @Modifying
+    @Query("UPDATE InventoryShard s SET s.reservedQuantity = s.reservedQuantity + :quantity, " +
+            "s.version = s.version + 1 " +
+            "WHERE s.inventoryId = :inventoryId AND s.shardNo = :shardNo " +
+            "AND s.totalQuantity - s.reservedQuantity >= :quantity")
+    int reserveIfAvailable(@Param("inventoryId") Long inventoryId,
+                           @Param("shardNo") Integer shardNo,
+                           @Param("quantity") Integer quantity);
+
+    /**
+     * Atomically release reserved stock on one shard.
+     *
+     * @return 1 if released, 0 if shard reserved quantity was lower than requested
+     */
+    @Modifying
+    @Query("UPDATE InventoryShard s SET s.reservedQuantity = s.reservedQuantity - :quantity, " +
+            "s.version = s.version + 1 " +
+            "WHERE s.inventoryId = :inventoryId AND s.shardNo = :shardNo " +
+            "AND s.reservedQuantity >= :quantity")
+    int release(@Param("inventoryId") Long inventoryId,
+                @Param("shardNo") Integer shardNo,
+                @Param("quantity") Integer quantity);
+
+    /**
+     * Atomically settle confirmed stock on one shard (total and reserved both decrease).
+     *
+     * @return 1 if settled, 0 if shard reserved quantity was lower than requested
+     */
+    @Modifying
+    @Query("UPDATE InventoryShard s SET s.totalQuantity = s.totalQuantity - :quantity, " +
+            "s.reservedQuantity = s.reservedQuantity - :quantity, " +
+            "s.version = s.version + 1 " +
+            "WHERE s.inventoryId = :inventoryId AND s.shardNo = :shardNo " +
+            "AND s.reservedQuantity >= :quantity")
+    int confirm(@Param("inventoryId") Long inventoryId,
+                @Param("shardNo") Integer shardNo,
+                @Param("quantity") Integer quantity);
+
+    /**
+     * Atomically add stock to one shard (returned settled reservations).
+     *
+     * @return 1 if updated, 0 if the shard does not exist
+     */
+    @Modifying
+    @Query("UPDATE InventoryShard s SET s.totalQuantity = s.totalQuantity + :quantity, " +
+            "s.version = s.version + 1 " +
+            "WHERE s.inventoryId = :inventoryId AND s.shardNo = :shardNo")
+    int addStock(@Param("inventoryId") Long inventoryId,
+                 @Param("shardNo") Integer shardNo,
+                 @Param("quantity") Integer quantity);
+
+    /**
+     * Reserved quantity of every shard of an inventory ID range, no locking.
+     *
+     * @return one entry per shard
+     */
+    @Query("SELECT new com.ecommerce.inventory.repository.ReservedSum(s.inventoryId, s.shardNo, " +
+            "CAST(s.reservedQuantity AS Long)) " +
+            "FROM InventoryShard s WHERE s.inventoryId BETWEEN :fromId AND :toId")
+    List<ReservedSum> findReservedBetween(@Param("fromId") Long fromId, @Param("toId") Long toId);
+}
@@ -0,0 +1,13 @@
+package com.ecommerce.inventory.repository;
+
+/**
+ * Summed stock of all shards of one product.
+ */
+public record InventoryShardTotals(Long totalQuantity, Long reservedQuantity) {
+
+    public static final InventoryShardTotals EMPTY = new InventoryShardTotals(0L, 0L);
+
+    public int availableQuantity() {
+        return (int) (totalQuantity - reservedQuantity);
+    }
+}
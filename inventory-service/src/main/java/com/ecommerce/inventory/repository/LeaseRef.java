@@ -0,0 +1,7 @@
+package com.ecommerce.inventory.repository;
+
+/**
+ * Lease identity without its quantity; the quantity is read once the lease is locked.
+ */
+public record LeaseRef(Long id, Long inventoryId) {
+}
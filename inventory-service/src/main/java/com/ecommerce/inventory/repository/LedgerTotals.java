@@ -0,0 +1,10 @@
+package com.ecommerce.inventory.repository;
+
+/**
+ * Summed deltas of the ledger entries after a snapshot.
+ *
+ * @param lastSeq highest seq summed, null if there was no entry
+ * @param closed number of CLOSED entries among them
+ */
+public record LedgerTotals(Long totalDelta, Long reservedDelta, Long lastSeq, Long closed) {
+}
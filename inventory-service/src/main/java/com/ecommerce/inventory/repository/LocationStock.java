@@ -0,0 +1,9 @@
+package com.ecommerce.inventory.repository;
+
+/**
+ * Free stock of a located product at one location, with the location
+ * attributes the allocation strategy ranks by.
+ */
+public record LocationStock(Integer shardNo, String locationCode, Integer availableQuantity,
+                            Double latitude, Double longitude, Integer priority) {
+}
@@ -0,0 +1,39 @@
+package com.ecommerce.inventory.repository;
+
+import com.ecommerce.inventory.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the transactional event outbox.
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Oldest unsent events in insertion order.
+     *
+     * @param limit batch size
+     * @return events ordered by ID
+     */
+    @Query(value = "SELECT * FROM outbox_event ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<OutboxEvent> findBatch(@Param("limit") int limit);
+
+    /**
+     * Delete published events.
+     *
+     * @param ids event IDs
+     * @return number of deleted rows
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,64 @@
+package com.ecommerce.inventory.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Session-level advisory lock of the outbox relay.
+ *
+ * Plain JDBC: the lock is held on one dedicated connection (in auto-commit
+ * mode) for a whole relay cycle, so no transaction stays open while the
+ * relay waits for Kafka acks, and released on the same connection.
+ */
+@Repository
+@Slf4j
+public class OutboxRelayLock {
+
+    private final DataSource dataSource;
+
+    public OutboxRelayLock(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Run the work while holding the lock.
+     *
+     * @param lockKey advisory lock key
+     * @param work runs only if the lock was acquired
+     * @return false if another session holds the lock
+     */
+    public boolean runLocked(long lockKey, Runnable work) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!query(connection, "SELECT pg_try_advisory_lock(?)", lockKey)) {
+                return false;
+            }
+            try {
+                work.run();
+            } finally {
+                if (!query(connection, "SELECT pg_advisory_unlock(?)", lockKey)) {
+                    log.warn("Advisory lock {} was not held at release", lockKey);
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            // A broken connection ends its session, which releases the lock
+            throw new DataAccessResourceFailureException("Cannot use advisory lock " + lockKey, e);
+        }
+    }
+
+    private static boolean query(Connection connection, String sql, long lockKey) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, lockKey);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+}
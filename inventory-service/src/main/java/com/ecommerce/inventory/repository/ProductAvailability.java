@@ -0,0 +1,7 @@
+package com.ecommerce.inventory.repository;
+
+/**
+ * Available stock of one product, summed over shards for sharded products.
+ */
+public record ProductAvailability(Long id, String productId, Long availableQuantity, Boolean ledgerMode) {
+}
@@ -0,0 +1,8 @@
+package com.ecommerce.inventory.repository;
+
+/**
+ * Total and reserved stock of one product, summed over shards for sharded products.
+ */
+public record ProductLevel(Long id, String productId, Long totalQuantity, Long reservedQuantity,
+                           Boolean ledgerMode) {
+}
@@ -0,0 +1,121 @@
+package com.ecommerce.inventory.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Partition maintenance of inventory_reservation (monthly range partitions on created_at).
+ *
+ * Plain JDBC: these are DDL and catalog queries JPA does not model. Table names
+ * are interpolated into DDL, so only names of the generated form are accepted.
+ */
+@Repository
+public class ReservationPartitionRepository {
+
+    private static final Pattern TABLE_NAME = Pattern.compile("inventory_reservation_(archive_)?y\\d{4}m\\d{2}");
+
+    private final JdbcTemplate jdbcTemplate;
+    // Separate template with a fetch size, so exports stream instead of loading a month into memory
+    private final JdbcTemplate exportTemplate;
+
+    public ReservationPartitionRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.exportTemplate = new JdbcTemplate(dataSource);
+        this.exportTemplate.setFetchSize(1000);
+    }
+
+    /**
+     * Try to become the only partition maintainer for the current transaction.
+     *
+     * @param lockKey advisory lock key
+     * @return true if the lock was acquired (released at transaction end)
+     */
+    public boolean tryMaintenanceLock(long lockKey) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, lockKey));
+    }
+
+    /**
+     * Create the partition of the month containing the given day, if missing.
+     *
+     * @return true if the partition was created
+     */
+    public boolean createPartition(LocalDate month) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT create_reservation_partition(?)", Boolean.class, month));
+    }
+
+    /**
+     * Monthly partitions currently attached to inventory_reservation (default partition excluded).
+     */
+    public List<String> findAttachedPartitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "JOIN pg_class p ON p.oid = i.inhparent " +
+                        "WHERE p.relname = 'inventory_reservation' " +
+                        "AND c.relname LIKE 'inventory\\_reservation\\_y%' ORDER BY c.relname",
+                String.class);
+    }
+
+    /**
+     * Detached partitions still waiting to be exported.
+     */
+    public List<String> findArchiveTables() {
+        return jdbcTemplate.queryForList(
+                "SELECT relname FROM pg_class WHERE relkind = 'r' " +
+                        "AND relname LIKE 'inventory\\_reservation\\_archive\\_y%' ORDER BY relname",
+                String.class);
+    }
+
+    /**
+     * Rows still affecting stock: PENDING, or CONFIRMED and not settled.
+     */
+    public long countUnfinished(String table) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + checked(table) +
+                        " WHERE status = 'PENDING' OR (status = 'CONFIRMED' AND settled_at IS NULL)", Long.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Detach a partition and rename it to its archive name.
+     */
+    public void detach(String partition, String archiveTable) {
+        jdbcTemplate.execute("ALTER TABLE inventory_reservation DETACH PARTITION " + checked(partition));
+        jdbcTemplate.execute("ALTER TABLE " + checked(partition) + " RENAME TO " + checked(archiveTable));
+    }
+
+    /**
+     * Forget the order IDs claimed in one month, once its partition is detached.
+     *
+     * @return number of order IDs deleted
+     */
+    public int deleteOrdersCreatedBetween(LocalDate from, LocalDate to) {
+        return jdbcTemplate.update("DELETE FROM reservation_order WHERE created_at >= ? AND created_at < ?", from, to);
+    }
+
+    /**
+     * Stream all rows of a table in ID order. Must run inside a transaction to stream.
+     */
+    public void scan(String table, RowCallbackHandler handler) {
+        exportTemplate.query("SELECT * FROM " + checked(table) + " ORDER BY id", handler);
+    }
+
+    public void drop(String table) {
+        jdbcTemplate.execute("DROP TABLE " + checked(table));
+    }
+
+    private static String checked(String table) {
+        if (!TABLE_NAME.matcher(table).matches()) {
+            throw new IllegalArgumentException("Not a reservation partition: " + table);
+        }
+        return table;
+    }
+}
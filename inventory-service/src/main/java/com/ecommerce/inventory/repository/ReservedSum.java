@@ -0,0 +1,11 @@
+package com.ecommerce.inventory.repository;
+
+/**
+ * Quantity held against one inventory, per shard; shardNo is null for the inventory row.
+ */
+public record ReservedSum(Long inventoryId, Integer shardNo, Long quantity) {
+
+    public ReservedSum(Long inventoryId, Long quantity) {
+        this(inventoryId, null, quantity);
+    }
+}
@@ -0,0 +1,94 @@
+package com.ecommerce.inventory.repository;
+
+import com.ecommerce.inventory.entity.StockLease;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for stock quota leases.
+ */
+@Repository
+public interface StockLeaseRepository extends JpaRepository<StockLease, Long> {
+
+    /**
+     * Lock a replica's lease of one inventory; the inventory row must be locked first.
+     */
+    @Query(value = "SELECT * FROM stock_lease WHERE inventory_id = :inventoryId AND owner_id = :ownerId FOR UPDATE",
+            nativeQuery = true)
+    Optional<StockLease> findByInventoryIdAndOwnerIdForUpdate(@Param("inventoryId") Long inventoryId,
+                                                              @Param("ownerId") String ownerId);
+
+    List<StockLease> findByOwnerId(String ownerId);
+
+    boolean existsByInventoryId(Long inventoryId);
+
+    /**
+     * Atomically take stock from a lease for one reservation.
+     * Only the owner's lease row is locked, never the inventory row.
+     *
+     * @return 1 if taken, 0 if the lease is gone, expired or short
+     */
+    @Modifying
+    @Query("UPDATE StockLease l SET l.quantity = l.quantity - :quantity " +
+            "WHERE l.id = :id AND l.ownerId = :ownerId AND l.quantity >= :quantity AND l.expiresAt > :now")
+    int consume(@Param("id") Long id,
+                @Param("ownerId") String ownerId,
+                @Param("quantity") Integer quantity,
+                @Param("now") LocalDateTime now);
+
+    /**
+     * Extend all leases of a replica.
+     *
+     * @return number of leases renewed
+     */
+    @Modifying
+    @Query("UPDATE StockLease l SET l.expiresAt = :expiresAt WHERE l.ownerId = :ownerId")
+    int renewAll(@Param("ownerId") String ownerId, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Lock a lease row; the inventory row must be locked first.
+     */
+    @Query(value = "SELECT * FROM stock_lease WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<StockLease> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Lease of one product held by a replica, without loading its quantity.
+     */
+    @Query("SELECT new com.ecommerce.inventory.repository.LeaseRef(l.id, l.inventoryId) " +
+            "FROM StockLease l WHERE l.id = :id")
+    Optional<LeaseRef> findRefById(@Param("id") Long id);
+
+    /**
+     * Leases not renewed in time (their replica is presumably gone).
+     * Callers lock the inventory row, then the lease, and re-check expiry.
+     *
+     * @return expired leases, oldest ID first
+     */
+    @Query("SELECT new com.ecommerce.inventory.repository.LeaseRef(l.id, l.inventoryId) " +
+            "FROM StockLease l WHERE l.expiresAt < :now ORDER BY l.id")
+    List<LeaseRef> findExpired(@Param("now") LocalDateTime now, Pageable page);
+
+    /**
+     * Leased quantity per inventory of an inventory ID range, no locking.
+     */
+    @Query("SELECT new com.ecommerce.inventory.repository.ReservedSum(l.inventoryId, SUM(l.quantity)) " +
+            "FROM StockLease l WHERE l.inventoryId BETWEEN :fromId AND :toId GROUP BY l.inventoryId")
+    List<ReservedSum> sumLeasedBetween(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    /**
+     * Lock all leases of one inventory; the inventory row must be locked first.
+     *
+     * @return IDs of the locked leases
+     */
+    @Query(value = "SELECT id FROM stock_lease WHERE inventory_id = :inventoryId ORDER BY id FOR UPDATE",
+            nativeQuery = true)
+    List<Long> lockByInventoryId(@Param("inventoryId") Long inventoryId);
+}
@@ -0,0 +1,69 @@
+package com.ecommerce.inventory.repository;
+
+import com.ecommerce.inventory.entity.StockLedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repository for stock ledger entries. Entries are only inserted.
+ */
+@Repository
+public interface StockLedgerRepository extends JpaRepository<StockLedgerEntry, Long> {
+
+    /**
+     * Append an entry unless its seq is taken. If another transaction holds
+     * an uncommitted entry with the same seq, this waits for its outcome
+     * instead of failing, and the caller's transaction stays usable.
+     *
+     * @return 1 if appended, 0 if the seq was taken
+     */
+    @Modifying
+    @Query(value = "INSERT INTO stock_ledger " +
+            "(inventory_id, seq, entry_type, total_delta, reserved_delta, order_id, created_at) " +
+            "VALUES (:inventoryId, :seq, :entryType, :totalDelta, :reservedDelta, :orderId, :createdAt) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("inventoryId") Long inventoryId,
+                       @Param("seq") Long seq,
+                       @Param("entryType") String entryType,
+                       @Param("totalDelta") Integer totalDelta,
+                       @Param("reservedDelta") Integer reservedDelta,
+                       @Param("orderId") String orderId,
+                       @Param("createdAt") LocalDateTime createdAt);
+
+    /**
+     * Sum the entries of one product after a snapshot; served by the
+     * (inventory_id, seq) unique index.
+     *
+     * @param inventoryId the inventory ID
+     * @param afterSeq seq of the snapshot, exclusive
+     * @return summed deltas, lastSeq null if there is no later entry
+     */
+    @Query("SELECT new com.ecommerce.inventory.repository.LedgerTotals(" +
+            "COALESCE(SUM(e.totalDelta), 0L), COALESCE(SUM(e.reservedDelta), 0L), MAX(e.seq), " +
+            "COALESCE(SUM(CASE WHEN e.entryType = 'CLOSED' THEN 1L ELSE 0L END), 0L)) " +
+            "FROM StockLedgerEntry e WHERE e.inventoryId = :inventoryId AND e.seq > :afterSeq")
+    LedgerTotals sumAfter(@Param("inventoryId") Long inventoryId, @Param("afterSeq") Long afterSeq);
+
+    /**
+     * Same as {@link #sumAfter(Long, Long)}, limited to entries written up to a point in time.
+     */
+    @Query("SELECT new com.ecommerce.inventory.repository.LedgerTotals(" +
+            "COALESCE(SUM(e.totalDelta), 0L), COALESCE(SUM(e.reservedDelta), 0L), MAX(e.seq), " +
+            "COALESCE(SUM(CASE WHEN e.entryType = 'CLOSED' THEN 1L ELSE 0L END), 0L)) " +
+            "FROM StockLedgerEntry e WHERE e.inventoryId = :inventoryId AND e.seq > :afterSeq " +
+            "AND e.createdAt <= :at")
+    LedgerTotals sumAfterUntil(@Param("inventoryId") Long inventoryId,
+                               @Param("afterSeq") Long afterSeq,
+                               @Param("at") LocalDateTime at);
+
+    @Query("SELECT MAX(e.seq) FROM StockLedgerEntry e WHERE e.inventoryId = :inventoryId")
+    Optional<Long> findMaxSeq(@Param("inventoryId") Long inventoryId);
+
+    Optional<StockLedgerEntry> findByInventoryIdAndSeq(Long inventoryId, Long seq);
+}
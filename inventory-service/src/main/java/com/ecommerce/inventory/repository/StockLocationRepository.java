@@ -0,0 +1,19 @@
+package com.ecommerce.inventory.repository;
+
+import com.ecommerce.inventory.entity.StockLocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for stock locations (warehouses).
+ */
+@Repository
+public interface StockLocationRepository extends JpaRepository<StockLocation, Long> {
+
+    Optional<StockLocation> findByCode(String code);
+
+    List<StockLocation> findAllByOrderByCode();
+}
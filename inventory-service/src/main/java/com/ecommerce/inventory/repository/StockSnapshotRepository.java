@@ -0,0 +1,26 @@
+package com.ecommerce.inventory.repository;
+
+import com.ecommerce.inventory.entity.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repository for stock ledger snapshots.
+ */
+@Repository
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+    /**
+     * Latest snapshot of a product, base of its current stock.
+     */
+    Optional<StockSnapshot> findFirstByInventoryIdOrderBySeqDesc(Long inventoryId);
+
+    /**
+     * Latest snapshot taken at or before a point in time.
+     */
+    Optional<StockSnapshot> findFirstByInventoryIdAndAsOfLessThanEqualOrderBySeqDesc(Long inventoryId,
+                                                                                    LocalDateTime at);
+}
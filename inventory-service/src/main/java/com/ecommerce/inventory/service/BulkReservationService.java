@@ -0,0 +1,91 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.BulkOrderResult;
+import com.ecommerce.inventory.dto.BulkReservationResponse;
+import com.ecommerce.inventory.exception.InventoryException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Confirms or releases the reservations of many orders (payment batches,
+ * mass cancellations).
+ *
+ * Orders held by the reservation engine are applied first, outside any
+ * transaction, and reported on their own: an in-memory change cannot be
+ * rolled back with a chunk. The remaining orders are processed in chunks of
+ * chunk-size, one transaction per chunk with retries on lock conflicts. A
+ * chunk that still fails marks its orders FAILED and leaves them unchanged;
+ * the other chunks are applied.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkReservationService {
+
+    private final ReservationService reservationService;
+    private final ReservationRetryExecutor retryExecutor;
+
+    @Value("${inventory.reservation.bulk.max-orders:10000}")
+    private int maxOrders;
+
+    @Value("${inventory.reservation.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    public BulkReservationResponse confirm(List<String> orderIds) {
+        return process("confirm_bulk", orderIds,
+                reservationService::confirmInEngine, reservationService::confirmReservations);
+    }
+
+    public BulkReservationResponse release(List<String> orderIds) {
+        return process("release_bulk", orderIds,
+                reservationService::releaseInEngine, reservationService::releaseReservations);
+    }
+
+    private BulkReservationResponse process(String operation, List<String> orderIds,
+                                            Function<List<String>, List<BulkOrderResult>> engineOperation,
+                                            Function<List<String>, List<BulkOrderResult>> transaction) {
+        List<String> distinct = orderIds.stream().distinct().toList();
+        if (distinct.size() > maxOrders) {
+            throw new InventoryException(
+                    String.format("At most %d orders per bulk request", maxOrders),
+                    "TOO_MANY_ORDERS"
+            );
+        }
+
+        List<BulkOrderResult> results = new ArrayList<>(distinct.size());
+        results.addAll(engineOperation.apply(distinct));
+        Set<String> inEngine = results.stream().map(BulkOrderResult::getOrderId).collect(Collectors.toSet());
+        List<String> inDatabase = distinct.stream().filter(orderId -> !inEngine.contains(orderId)).toList();
+
+        for (int from = 0; from < inDatabase.size(); from += chunkSize) {
+            List<String> chunk = inDatabase.subList(from, Math.min(from + chunkSize, inDatabase.size()));
+            try {
+                results.addAll(retryExecutor.execute(operation, List.of(), () -> transaction.apply(chunk)));
+            } catch (RuntimeException e) {
+                log.warn("Bulk {} failed for {} orders starting at {}", operation, chunk.size(), chunk.get(0), e);
+                for (String orderId : chunk) {
+                    results.add(BulkOrderResult.builder()
+                            .orderId(orderId)
+                            .status(BulkOrderResult.Status.FAILED)
+                            .message(e.getMessage())
+                            .build());
+                }
+            }
+        }
+
+        return BulkReservationResponse.builder()
+                .requested(distinct.size())
+                .applied((int) results.stream().filter(result -> result.getStatus() == BulkOrderResult.Status.APPLIED).count())
+                .failed((int) results.stream().filter(result -> result.getStatus() == BulkOrderResult.Status.FAILED).count())
+                .results(results)
+                .build();
+    }
+}
@@ -0,0 +1,227 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.repository.InventoryReservationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter of recently reserved order IDs in front of the duplicate-order lookup.
+ *
+ * A definite miss skips the database; a possible hit is checked against
+ * reservation_order. Two generations are kept (current and previous window),
+ * so an order is remembered for at least one window. A miss is only safe
+ * because callers claim the order ID in reservation_order in the same
+ * transaction: orders older than the window, or reserved on another replica,
+ * fail on its primary key whatever product they are for.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DuplicateOrderFilter {
+
+    private final InventoryReservationRepository reservationRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.dedup-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${inventory.dedup-filter.expected-orders:1000000}")
+    private int expectedOrders;
+
+    @Value("${inventory.dedup-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${inventory.dedup-filter.window-hours:24}")
+    private long windowHours;
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+    // Until the startup rebuild is done every check goes to the database
+    private volatile boolean ready;
+
+    private final LongAdder definiteMisses = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    /**
+     * Load order IDs of the last window from the database.
+     */
+    @PostConstruct
+    void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        current = new BloomFilter(expectedOrders, falsePositiveRate);
+        previous = new BloomFilter(expectedOrders, falsePositiveRate);
+        registerMetrics();
+
+        List<String> orderIds = reservationRepository.findOrderIdsCreatedSince(
+                LocalDateTime.now().minusHours(windowHours));
+        orderIds.forEach(current::put);
+        ready = true;
+
+        log.info("Duplicate order filter loaded {} order IDs, {} KiB per generation",
+                orderIds.size(), current.sizeInBytes() / 1024);
+    }
+
+    /**
+     * Check whether an order already has a reservation. A false answer
+     * must be followed by a claim of the order in reservation_order.
+     *
+     * @param orderId the order ID
+     * @return true if a reservation row exists
+     */
+    public boolean isDuplicate(String orderId) {
+        if (!enabled || !ready) {
+            return reservationRepository.existsOrder(orderId);
+        }
+        if (!current.mightContain(orderId) && !previous.mightContain(orderId)) {
+            definiteMisses.increment();
+            return false;
+        }
+        boolean exists = reservationRepository.existsOrder(orderId);
+        if (!exists) {
+            falsePositives.increment();
+        }
+        return exists;
+    }
+
+    /**
+     * Remember an order that is getting a reservation row.
+     * Called before commit; a rollback only leaves a false positive behind.
+     *
+     * @param orderId the order ID
+     */
+    public void record(String orderId) {
+        if (enabled) {
+            current.put(orderId);
+        }
+    }
+
+    /**
+     * Start a new window. The old current generation becomes previous.
+     */
+    @Scheduled(fixedRateString = "#{${inventory.dedup-filter.window-hours:24} * 3600000}",
+            initialDelayString = "#{${inventory.dedup-filter.window-hours:24} * 3600000}")
+    public void rotate() {
+        if (!enabled) {
+            return;
+        }
+        BloomFilter next = new BloomFilter(expectedOrders, falsePositiveRate);
+        previous = current;
+        current = next;
+        log.info("Duplicate order filter rotated");
+    }
+
+    private double observedFalsePositiveRate() {
+        long fp = falsePositives.sum();
+        long negatives = fp + definiteMisses.sum();
+        return negatives == 0 ? 0.0 : (double) fp / negatives;
+    }
+
+    private void registerMetrics() {
+        Gauge.builder("inventory.dedup.filter.false.positive.rate", this, DuplicateOrderFilter::observedFalsePositiveRate)
+                .description("Share of new orders the filter sent to the database")
+                .register(meterRegistry);
+        Gauge.builder("inventory.dedup.filter.expected.false.positive.rate", this,
+                        filter -> 1.0 - (1.0 - filter.current.expectedFalsePositiveRate())
+                                * (1.0 - filter.previous.expectedFalsePositiveRate()))
+                .description("False-positive rate implied by the filter fill ratio")
+                .register(meterRegistry);
+        Gauge.builder("inventory.dedup.filter.memory", this,
+                        filter -> filter.current.sizeInBytes() + filter.previous.sizeInBytes())
+                .description("Memory used by the filter bit sets")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("inventory.dedup.filter.skipped.lookups", definiteMisses, LongAdder::sum)
+                .description("Duplicate checks answered without a database lookup")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Lock-free Bloom filter over a bit set of m bits with k hash functions
+     * (Kirsch-Mitzenmacher double hashing of a 64-bit FNV-1a hash).
+     */
+    static final class BloomFilter {
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+        private final AtomicLong bitsSet = new AtomicLong();
+
+        BloomFilter(int expectedInsertions, double falsePositiveRate) {
+            long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray((int) ((Math.max(bits, 64) + 63) / 64));
+            this.bitCount = words.length() * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        }
+
+        void put(String value) {
+            long hash = hash(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long word;
+                do {
+                    word = words.get(index);
+                    if ((word & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(index, word, word | mask));
+                if ((word & mask) == 0) {
+                    bitsSet.incrementAndGet();
+                }
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double expectedFalsePositiveRate() {
+            return Math.pow((double) bitsSet.get() / bitCount, hashCount);
+        }
+
+        long sizeInBytes() {
+            return words.length() * 8L;
+        }
+
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b;
+                hash *= 0x100000001b3L;
+            }
+            // fmix64 finalizer spreads FNV's weak high bits
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.FlashSaleResponse;
+import com.ecommerce.inventory.exception.InsufficientStockException;
+import com.ecommerce.inventory.exception.InventoryException;
+import com.ecommerce.inventory.repository.InventoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for flash-sale products.
+ *
+ * A product in flash-sale mode has an in-memory permit counter preloaded
+ * with its available stock. A reservation must take permits for its quantity
+ * before it starts a transaction; once permits run out, requests are rejected
+ * with INSUFFICIENT_STOCK without touching the database. Permits of a
+ * reservation that fails come back.
+ *
+ * The mode is stored in flash_sale_product; permits are per replica. Every
+ * replica resyncs periodically: it picks up products put into or taken out
+ * of flash-sale mode on any replica and reloads their permits from the
+ * database, which also picks up released stock. Reservations in flight are
+ * tagged with the generation of the permits they took: a reload bumps the
+ * generation before it reads the available stock and subtracts only the
+ * reservations started since, as the read cannot include those. Permits only
+ * gate admission: the database row stays the source of truth, so a permit
+ * surplus costs a rejected transaction, never an oversell.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FlashSaleGate {
+
+    private final InventoryService inventoryService;
+    private final InventoryRepository inventoryRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<String, Permits> products = new ConcurrentHashMap<>();
+
+    private static final class Permits {
+        private final AtomicInteger remaining;
+        // Bumped before every availability read of a reload
+        private final AtomicLong generation = new AtomicLong();
+        // generation taken in -> quantity of reservations in flight
+        private final ConcurrentHashMap<Long, Integer> inFlight = new ConcurrentHashMap<>();
+        // Generation bumped by the reload that last set remaining
+        private volatile long loaded;
+
+        private Permits(int remaining) {
+            this.remaining = new AtomicInteger(remaining);
+        }
+
+        /**
+         * @return generation the permits were taken in, or -1 if there are not enough
+         */
+        private long tryAcquire(int quantity) {
+            int current;
+            do {
+                current = remaining.get();
+                if (current < quantity) {
+                    return -1;
+                }
+            } while (!remaining.compareAndSet(current, current - quantity));
+            // Read after taking: the transaction of this reservation starts later still
+            long taken = generation.get();
+            inFlight.merge(taken, quantity, Integer::sum);
+            return taken;
+        }
+
+        private int inFlightSince(long since) {
+            return inFlight.entrySet().stream()
+                    .filter(entry -> entry.getKey() >= since)
+                    .mapToInt(Map.Entry::getValue)
+                    .sum();
+        }
+    }
+
+    private record Taken(int quantity, long generation) {
+    }
+
+    /**
+     * Put a product into flash-sale mode, or reload its permits if already in it.
+     * Other replicas follow at their next resync.
+     *
+     * @param productId the product ID
+     * @return admission state on this replica after preloading
+     */
+    @Transactional
+    public FlashSaleResponse enable(String productId) {
+        long since = mark(productId);
+        int available = inventoryService.getAvailability(List.of(productId)).getOrDefault(productId, -1);
+        if (available < 0) {
+            throw new InventoryException(
+                    String.format("Inventory not found for product %s", productId),
+                    "INVENTORY_NOT_FOUND"
+            );
+        }
+        if (inventoryRepository.insertFlashSale(productId) > 0) {
+            log.info("Flash-sale mode enabled for product {}", productId);
+        }
+        load(productId, available, since);
+        log.info("Loaded {} flash-sale permits of product {}", products.get(productId).remaining.get(), productId);
+        return status(productId);
+    }
+
+    /**
+     * Leave flash-sale mode; reservations are no longer gated.
+     * Other replicas follow at their next resync.
+     */
+    @Transactional
+    public FlashSaleResponse disable(String productId) {
+        if (inventoryRepository.deleteFlashSale(productId) > 0) {
+            log.info("Flash-sale mode disabled for product {}", productId);
+        }
+        products.remove(productId);
+        return status(productId);
+    }
+
+    public FlashSaleResponse status(String productId) {
+        Permits permits = products.get(productId);
+        return FlashSaleResponse.builder()
+                .productId(productId)
+                .active(permits != null)
+                .permits(permits != null ? permits.remaining.get() : null)
+                .inFlight(permits != null ? permits.inFlightSince(Long.MIN_VALUE) : null)
+                .build();
+    }
+
+    public boolean isActive(String productId) {
+        return products.containsKey(productId);
+    }
+
+    /**
+     * Run a reservation if permits for all flash-sale lines can be taken.
+     *
+     * @param quantities productId -> quantity of the reservation lines
+     * @param reservation the reservation call (its own transaction)
+     * @param reserved whether the result kept the stock; permits of a failed result come back
+     * @return result of the reservation
+     * @throws InsufficientStockException if a flash-sale line has no permits left
+     */
+    public <T> T admit(Map<String, Integer> quantities, Supplier<T> reservation, Predicate<T> reserved) {
+        if (products.isEmpty()) {
+            return reservation.get();
+        }
+        Map<String, Taken> taken = new TreeMap<>();
+        for (Map.Entry<String, Integer> line : quantities.entrySet()) {
+            Permits permits = products.get(line.getKey());
+            if (permits == null) {
+                continue;
+            }
+            long generation = permits.tryAcquire(line.getValue());
+            if (generation < 0) {
+                taken.forEach((productId, permit) -> finish(productId, permit, false));
+                meterRegistry.counter("inventory.flashsale.admissions", "result", "rejected").increment();
+                throw new InsufficientStockException(line.getKey(), line.getValue(), permits.remaining.get());
+            }
+            taken.put(line.getKey(), new Taken(line.getValue(), generation));
+        }
+        if (taken.isEmpty()) {
+            return reservation.get();
+        }
+
+        meterRegistry.counter("inventory.flashsale.admissions", "result", "admitted").increment();
+        boolean kept = false;
+        try {
+            T result = reservation.get();
+            kept = reserved.test(result);
+            return result;
+        } finally {
+            boolean keptStock = kept;
+            taken.forEach((productId, permit) -> finish(productId, permit, keptStock));
+        }
+    }
+
+    public <T> T admit(String productId, int quantity, Supplier<T> reservation, Predicate<T> reserved) {
+        return admit(Map.of(productId, quantity), reservation, reserved);
+    }
+
+    /**
+     * Follow the flash-sale products recorded in the database and reload
+     * their permits.
+     */
+    @Scheduled(fixedDelayString = "${inventory.flash-sale.resync-interval-ms:1000}")
+    public void resync() {
+        Set<String> flagged = new HashSet<>(inventoryRepository.findFlashSaleProductIds());
+        products.keySet().retainAll(flagged);
+        if (flagged.isEmpty()) {
+            return;
+        }
+        Map<String, Long> since = new HashMap<>();
+        flagged.forEach(productId -> since.put(productId, mark(productId)));
+        inventoryService.getAvailability(new ArrayList<>(flagged))
+                .forEach((productId, available) -> load(productId, available, since.getOrDefault(productId, 0L)));
+    }
+
+    /**
+     * Start a new generation of a product's permits, before its available stock is read.
+     *
+     * @return the new generation, 0 for a product not gated on this replica yet
+     */
+    private long mark(String productId) {
+        Permits permits = products.get(productId);
+        return permits != null ? permits.generation.incrementAndGet() : 0L;
+    }
+
+    /**
+     * Set the permits of a product to its available stock minus the
+     * reservations started since the stock was read; reservations started
+     * earlier either are in that stock already or still hold their permits
+     * until they finish. A product new to this replica starts gated.
+     *
+     * @param since generation marked before the available stock was read
+     */
+    private void load(String productId, int available, long since) {
+        products.compute(productId, (id, permits) -> {
+            if (permits == null) {
+                return new Permits(Math.max(0, available));
+            }
+            if (since < permits.loaded) {
+                // A later reload got there first
+                return permits;
+            }
+            permits.remaining.set(Math.max(0, available - permits.inFlightSince(since)));
+            permits.loaded = since;
+            return permits;
+        });
+    }
+
+    private void finish(String productId, Taken permit, boolean kept) {
+        Permits permits = products.get(productId);
+        if (permits == null) {
+            return;
+        }
+        permits.inFlight.computeIfPresent(permit.generation(),
+                (generation, quantity) -> quantity == permit.quantity() ? null : quantity - permit.quantity());
+        // A reload since this reservation started counted the stock it did not keep as available
+        if (!kept && permit.generation() >= permits.loaded) {
+            permits.remaining.addAndGet(permit.quantity());
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.InventoryResponse;
+import com.ecommerce.inventory.dto.InventoryShardResponse;
+import com.ecommerce.inventory.dto.StockLocationRequest;
+import com.ecommerce.inventory.dto.StockLocationResponse;
+import com.ecommerce.inventory.entity.Inventory;
+import com.ecommerce.inventory.entity.InventoryShard;
+import com.ecommerce.inventory.entity.StockLocation;
+import com.ecommerce.inventory.exception.InventoryException;
+import com.ecommerce.inventory.repository.InventoryRepository;
+import com.ecommerce.inventory.repository.InventoryShardRepository;
+import com.ecommerce.inventory.repository.StockLeaseRepository;
+import com.ecommerce.inventory.repository.StockLocationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Stock locations (warehouses) and per-location stock of products.
+ *
+ * A located product keeps one inventory_shard row per location it is stocked
+ * at, so reservations, releases, settlement and reconciliation run on the
+ * shard machinery unchanged; only the choice of the shard differs (see
+ * {@link LocationAllocator}). Location stock is set absolutely per location.
+ * The first location replaces the free stock of the inventory row, which
+ * keeps only what older reservations hold.
+ *
+ * Lock order: parent row, then shards by shard number.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class InventoryLocationService {
+
+    private final StockLocationRepository locationRepository;
+    private final InventoryRepository inventoryRepository;
+    private final InventoryShardRepository shardRepository;
+    private final StockLeaseRepository leaseRepository;
+    private final InventoryShardService shardService;
+    private final InventoryService inventoryService;
+    private final InventoryMapper inventoryMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Optional<LocationAllocator> locationAllocator;
+
+    @Value("${inventory.locations.enabled:false}")
+    private boolean locationsEnabled;
+
+    @Value("${inventory.engine.enabled:false}")
+    private boolean engineEnabled;
+
+    /**
+     * Create a location or update its name, coordinates and priority.
+     * Allocation indexes pick the change up on their next reload.
+     */
+    @Transactional
+    public StockLocationResponse upsertLocation(String code, StockLocationRequest request) {
+        StockLocation location = locationRepository.findByCode(code)
+                .orElseGet(() -> StockLocation.builder().code(code).build());
+        location.setName(request.getName());
+        location.setLatitude(request.getLatitude());
+        location.setLongitude(request.getLongitude());
+        location.setPriority(request.getPriority() != null ? request.getPriority() : 0);
+        return inventoryMapper.toLocationResponse(locationRepository.save(location));
+    }
+
+    public List<StockLocationResponse> listLocations() {
+        return locationRepository.findAllByOrderByCode().stream()
+                .map(inventoryMapper::toLocationResponse)
+                .toList();
+    }
+
+    public List<InventoryShardResponse> getLocationStock(String productId) {
+        Inventory inventory = inventoryRepository.findByProductId(productId)
+                .orElseThrow(() -> notFound(productId));
+        if (!inventory.isLocated()) {
+            return List.of();
+        }
+        return shardRepository.findByInventoryIdOrderByShardNo(inventory.getId()).stream()
+                .map(inventoryMapper::toShardResponse)
+                .toList();
+    }
+
+    /**
+     * Set the total stock of a product at one location. The first location
+     * switches the product to located stock.
+     *
+     * @param productId the product ID
+     * @param code location code
+     * @param quantity new total at this location, not below what it has reserved
+     * @return the location stock
+     */
+    @Transactional
+    public InventoryShardResponse setLocationStock(String productId, String code, Integer quantity) {
+        if (!locationsEnabled) {
+            throw new InventoryException("Location stock is disabled (inventory.locations.enabled)", "LOCATIONS_DISABLED");
+        }
+        if (engineEnabled) {
+            // Engine-owned products must not be changed behind its back
+            throw new InventoryException(
+                    "Location stock cannot be configured while the in-memory reservation engine is enabled",
+                    "ENGINE_UNSUPPORTED"
+            );
+        }
+        if (locationRepository.findByCode(code).isEmpty()) {
+            throw new InventoryException(String.format("Stock location %s not found", code), "LOCATION_NOT_FOUND");
+        }
+
+        Inventory inventory = lockInventory(productId);
+        if (!inventory.isLocated()) {
+            checkCanLocate(inventory);
+        }
+        List<InventoryShard> shards = shardRepository.findByInventoryIdWithLock(inventory.getId());
+        InventoryShard shard = shards.stream()
+                .filter(candidate -> code.equals(candidate.getLocationCode()))
+                .findFirst()
+                .orElseGet(() -> InventoryShard.builder()
+                        .inventoryId(inventory.getId())
+                        .shardNo(shards.stream().mapToInt(InventoryShard::getShardNo).max().orElse(-1) + 1)
+                        .locationCode(code)
+                        .build());
+
+        if (quantity < shard.getReservedQuantity()) {
+            throw new InventoryException(
+                    String.format("Quantity %d at location %s is below its reserved quantity %d for product %s",
+                            quantity, code, shard.getReservedQuantity(), productId),
+                    "INVALID_QUANTITY"
+            );
+        }
+
+        if (!inventory.isLocated()) {
+            // Location stock replaces the row's free stock
+            inventory.setTotalQuantity(inventory.getReservedQuantity());
+            inventory.setLocated(true);
+            log.info("Product {} is now stocked by location", productId);
+        }
+        shard.setTotalQuantity(quantity);
+        InventoryShard saved = shardRepository.save(shard);
+        inventory.setShardCount(Math.max(inventory.getShardCount(), saved.getShardNo() + 1));
+        inventoryRepository.save(inventory);
+
+        locationAllocator.ifPresent(allocator -> allocator.invalidate(inventory.getId()));
+        eventPublisher.publishEvent(StockChangedEvent.of(productId));
+        return inventoryMapper.toShardResponse(saved);
+    }
+
+    /**
+     * Stop stocking a product at one location. The location must hold no
+     * reservations; its free stock is dropped. Removing the last location
+     * switches the product back to the inventory row.
+     */
+    @Transactional
+    public InventoryResponse removeLocationStock(String productId, String code) {
+        Inventory inventory = lockLocatedInventory(productId);
+        List<InventoryShard> shards = shardRepository.findByInventoryIdWithLock(inventory.getId());
+        InventoryShard shard = shards.stream()
+                .filter(candidate -> code.equals(candidate.getLocationCode()))
+                .findFirst()
+                .orElseThrow(() -> new InventoryException(
+                        String.format("Product %s is not stocked at location %s", productId, code),
+                        "LOCATION_NOT_FOUND"
+                ));
+        if (shard.getReservedQuantity() > 0) {
+            throw new InventoryException(
+                    String.format("Location %s of product %s still holds %d reserved items",
+                            code, productId, shard.getReservedQuantity()),
+                    "SHARD_IN_USE"
+            );
+        }
+
+        shardRepository.delete(shard);
+        List<InventoryShard> remaining = shards.stream().filter(other -> other != shard).toList();
+        if (remaining.isEmpty()) {
+            shardService.foldShards(inventory);
+        } else {
+            inventory.setShardCount(remaining.stream().mapToInt(InventoryShard::getShardNo).max().getAsInt() + 1);
+            inventoryRepository.save(inventory);
+            eventPublisher.publishEvent(StockChangedEvent.of(productId));
+        }
+        locationAllocator.ifPresent(allocator -> allocator.invalidate(inventory.getId()));
+
+        log.info("Product {} no longer stocked at location {}", productId, code);
+        return inventoryService.toResponse(inventory);
+    }
+
+    /**
+     * Fold all location stock back into the inventory row.
+     */
+    @Transactional
+    public InventoryResponse disableLocations(String productId) {
+        Inventory inventory = lockLocatedInventory(productId);
+        int moved = shardService.foldShards(inventory);
+        locationAllocator.ifPresent(allocator -> allocator.invalidate(inventory.getId()));
+
+        log.info("Location stock disabled for product {}, {} reservations moved to inventory row", productId, moved);
+        return inventoryService.toResponse(inventory);
+    }
+
+    private void checkCanLocate(Inventory inventory) {
+        if (inventory.isSharded()) {
+            throw new InventoryException(
+                    String.format("Product %s uses stock shards, disable them first", inventory.getProductId()),
+                    "INVALID_STOCK_MODE"
+            );
+        }
+        if (inventory.isLedgerMode()) {
+            throw new InventoryException(
+                    String.format("Product %s uses the stock ledger, disable it first", inventory.getProductId()),
+                    "INVALID_STOCK_MODE"
+            );
+        }
+        if (leaseRepository.existsByInventoryId(inventory.getId())) {
+            throw new InventoryException(
+                    String.format("Product %s has stock leases, return them first", inventory.getProductId()),
+                    "INVALID_STOCK_MODE"
+            );
+        }
+    }
+
+    private Inventory lockInventory(String productId) {
+        return inventoryRepository.findByProductIdWithLock(productId)
+                .orElseThrow(() -> notFound(productId));
+    }
+
+    private Inventory lockLocatedInventory(String productId) {
+        Inventory inventory = lockInventory(productId);
+        if (!inventory.isLocated()) {
+            throw new InventoryException(
+                    String.format("Product %s is not stocked by location", productId),
+                    "INVALID_STOCK_MODE"
+            );
+        }
+        return inventory;
+    }
+
+    private static InventoryException notFound(String productId) {
+        return new InventoryException(
+                String.format("Inventory not found for product %s", productId),
+                "INVENTORY_NOT_FOUND"
+        );
+    }
+}
@@ -1,7 +1,13 @@
 package com.ecommerce.inventory.service;
 
 import com.ecommerce.inventory.dto.InventoryResponse;
+import com.ecommerce.inventory.dto.InventoryShardResponse;
+import com.ecommerce.inventory.dto.StockLocationResponse;
 import com.ecommerce.inventory.entity.Inventory;
+import com.ecommerce.inventory.entity.InventoryShard;
+import com.ecommerce.inventory.entity.StockLocation;
+import com.ecommerce.inventory.repository.InventoryShardTotals;
+import com.ecommerce.inventory.service.StockLedgerService.LedgerState;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -10,4 +16,30 @@ public interface InventoryMapper {
 
     @Mapping(target = "availableQuantity", expression = "java(inventory.getAvailableQuantity())")
     InventoryResponse toResponse(Inventory inventory);
+
+    InventoryShardResponse toShardResponse(InventoryShard shard);
+
+    StockLocationResponse toLocationResponse(StockLocation location);
+
+    /**
+     * Summed view of a sharded product: inventory row plus all shards.
+     */
+    default InventoryResponse toResponse(Inventory inventory, InventoryShardTotals shards) {
+        InventoryResponse response = toResponse(inventory);
+        response.setTotalQuantity(inventory.getTotalQuantity() + shards.totalQuantity().intValue());
+        response.setReservedQuantity(inventory.getReservedQuantity() + shards.reservedQuantity().intValue());
+        response.setAvailableQuantity(response.getTotalQuantity() - response.getReservedQuantity());
+        return response;
+    }
+
+    /**
+     * Ledger-mode product: stock derived from the ledger, the row may lag behind.
+     */
+    default InventoryResponse toResponse(Inventory inventory, LedgerState ledger) {
+        InventoryResponse response = toResponse(inventory);
+        response.setTotalQuantity(ledger.totalQuantity());
+        response.setReservedQuantity(ledger.reservedQuantity());
+        response.setAvailableQuantity(ledger.availableQuantity());
+        return response;
+    }
 }
\ No newline at end of file
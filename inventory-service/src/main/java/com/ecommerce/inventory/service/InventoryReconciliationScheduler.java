@@ -0,0 +1,33 @@
+package com.ecommerce.inventory.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the reserved-quantity reconciliation nightly; repairs only if
+ * inventory.reconciliation.repair is set, otherwise reports.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.reconciliation.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryReconciliationScheduler {
+
+    private final InventoryReconciliationService reconciliationService;
+
+    @Value("${inventory.reconciliation.repair:false}")
+    private boolean repair;
+
+    @Scheduled(cron = "${inventory.reconciliation.cron:0 45 3 * * *}")
+    public void reconcile() {
+        try {
+            reconciliationService.reconcile(repair);
+        } catch (RuntimeException e) {
+            log.error("Reserved quantity reconciliation failed", e);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.ReconciliationDiscrepancy;
+import com.ecommerce.inventory.dto.ReconciliationReport;
+import com.ecommerce.inventory.engine.ReservationEngine;
+import com.ecommerce.inventory.entity.Inventory;
+import com.ecommerce.inventory.entity.InventoryShard;
+import com.ecommerce.inventory.repository.InventoryRepository;
+import com.ecommerce.inventory.repository.InventoryReservationRepository;
+import com.ecommerce.inventory.repository.InventoryReservedRow;
+import com.ecommerce.inventory.repository.InventoryShardRepository;
+import com.ecommerce.inventory.repository.ReservedSum;
+import com.ecommerce.inventory.repository.StockLeaseRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recomputes reserved_quantity of every inventory row and shard from the
+ * stock held against it and reports (optionally repairs) the differences.
+ *
+ * Expected reserved quantity:
+ * - inventory row: PENDING + unsettled CONFIRMED reservations without shard, plus leased stock
+ * - shard: PENDING + unsettled CONFIRMED reservations on that shard
+ *
+ * The inventory ID range is split into fork-join tasks, each walking its range
+ * in keyset pages. A page is read in one read-only REPEATABLE READ transaction
+ * (inventory rows, shards and grouped reservation / lease sums), so its
+ * counters and sums come from one snapshot and no row is locked.
+ *
+ * A reported discrepancy is repaired by locking the inventory row, its shards
+ * and leases (the order every writer uses), recomputing under the locks and
+ * overwriting only if the difference is still there. Products owned by the
+ * reservation engine are skipped: their database row lags behind memory.
+ * So are ledger-mode products, whose row is refreshed from the stock ledger.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryReconciliationService {
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryShardRepository shardRepository;
+    private final InventoryReservationRepository reservationRepository;
+    private final StockLeaseRepository leaseRepository;
+    private final Optional<ReservationEngine> reservationEngine;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    // Concurrent page reads; keep well below the connection pool size
+    @Value("${inventory.reconciliation.parallelism:4}")
+    private int parallelism;
+
+    @Value("${inventory.reconciliation.page-size:1000}")
+    private int pageSize;
+
+    // Inventory IDs per fork-join leaf task
+    @Value("${inventory.reconciliation.range-size:20000}")
+    private long rangeSize;
+
+    @Value("${inventory.reconciliation.max-reported:1000}")
+    private int maxReported;
+
+    private final AtomicLong lastDiscrepancies = new AtomicLong();
+    private TransactionTemplate snapshotTransaction;
+    private TransactionTemplate repairTransaction;
+
+    @PostConstruct
+    void init() {
+        snapshotTransaction = new TransactionTemplate(transactionManager);
+        snapshotTransaction.setReadOnly(true);
+        snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        repairTransaction = new TransactionTemplate(transactionManager);
+        Gauge.builder("inventory.reconciliation.discrepancies", lastDiscrepancies, AtomicLong::get)
+                .description("Inventory rows and shards whose reserved quantity did not match, last run")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Check every inventory row and shard.
+     *
+     * @param repair overwrite reserved quantities that are still wrong under lock
+     * @return counts and the first max-reported discrepancies
+     */
+    public ReconciliationReport reconcile(boolean repair) {
+        long started = System.nanoTime();
+        Scan scan = Scan.EMPTY;
+        Optional<Long> minId = inventoryRepository.findMinId();
+        Optional<Long> maxId = inventoryRepository.findMaxId();
+        if (minId.isPresent() && maxId.isPresent()) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                scan = pool.invoke(new RangeTask(minId.get(), maxId.get()));
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        scan.discrepancies().forEach(discrepancy -> log.warn("Reserved quantity mismatch: {}", discrepancy));
+        int repaired = 0;
+        if (repair) {
+            Set<Long> inventoryIds = new LinkedHashSet<>();
+            scan.discrepancies().forEach(discrepancy -> inventoryIds.add(discrepancy.getInventoryId()));
+            for (Long inventoryId : inventoryIds) {
+                try {
+                    if (Boolean.TRUE.equals(repairTransaction.execute(status -> repair(inventoryId)))) {
+                        repaired++;
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Failed to repair reserved quantity of inventory {}", inventoryId, e);
+                }
+            }
+            meterRegistry.counter("inventory.reconciliation.repaired").increment(repaired);
+        }
+
+        long durationNanos = System.nanoTime() - started;
+        meterRegistry.timer("inventory.reconciliation.run").record(durationNanos, TimeUnit.NANOSECONDS);
+        lastDiscrepancies.set(scan.discrepancies().size());
+        log.info("Reconciled {} inventories in {} ms: {} discrepancies, {} repaired",
+                scan.checked(), TimeUnit.NANOSECONDS.toMillis(durationNanos), scan.discrepancies().size(), repaired);
+
+        return ReconciliationReport.builder()
+                .inventoriesChecked(scan.checked())
+                .discrepancyCount(scan.discrepancies().size())
+                .repaired(repaired)
+                .durationMs(TimeUnit.NANOSECONDS.toMillis(durationNanos))
+                .discrepancies(List.copyOf(scan.discrepancies().subList(0, Math.min(maxReported, scan.discrepancies().size()))))
+                .build();
+    }
+
+    /**
+     * Check one keyset page in a single snapshot.
+     *
+     * @return page result, null if no inventory is left in the range
+     */
+    private Page checkPage(long afterId, long toId) {
+        return snapshotTransaction.execute(status -> {
+            List<InventoryReservedRow> rows = inventoryRepository.findReservedPage(afterId, toId, PageRequest.of(0, pageSize));
+            if (rows.isEmpty()) {
+                return null;
+            }
+            long fromId = rows.get(0).id();
+            long lastId = rows.get(rows.size() - 1).id();
+            Map<Long, List<ReservedSum>> shards = byInventory(shardRepository.findReservedBetween(fromId, lastId));
+            Map<Long, List<ReservedSum>> held = byInventory(reservationRepository.sumHeldBetween(fromId, lastId));
+            Map<Long, List<ReservedSum>> leased = byInventory(leaseRepository.sumLeasedBetween(fromId, lastId));
+
+            List<ReconciliationDiscrepancy> discrepancies = new ArrayList<>();
+            for (InventoryReservedRow row : rows) {
+                if (Boolean.TRUE.equals(row.ledgerMode()) || isEngineOwned(row.productId())) {
+                    continue;
+                }
+                discrepancies.addAll(compare(row,
+                        shards.getOrDefault(row.id(), List.of()),
+                        held.getOrDefault(row.id(), List.of()),
+                        leased.getOrDefault(row.id(), List.of())));
+            }
+            return new Page(lastId, rows.size(), discrepancies);
+        });
+    }
+
+    /**
+     * Recompute one inventory under lock and overwrite its reserved quantities.
+     *
+     * @return true if anything was changed
+     */
+    private boolean repair(Long inventoryId) {
+        Optional<Inventory> locked = inventoryRepository.findAllByIdInWithLock(List.of(inventoryId)).stream().findFirst();
+        if (locked.isEmpty() || locked.get().isLedgerMode() || isEngineOwned(locked.get().getProductId())) {
+            return false;
+        }
+        Inventory inventory = locked.get();
+        List<InventoryShard> shards = shardRepository.findByInventoryIdWithLock(inventoryId);
+        // Lease reservations change a lease and insert a reservation without the inventory row lock
+        leaseRepository.lockByInventoryId(inventoryId);
+
+        List<ReconciliationDiscrepancy> discrepancies = compare(
+                new InventoryReservedRow(inventory.getId(), inventory.getProductId(), inventory.getReservedQuantity(), false),
+                shards.stream()
+                        .map(shard -> new ReservedSum(inventoryId, shard.getShardNo(), shard.getReservedQuantity().longValue()))
+                        .toList(),
+                reservationRepository.sumHeldBetween(inventoryId, inventoryId),
+                leaseRepository.sumLeasedBetween(inventoryId, inventoryId));
+        if (discrepancies.isEmpty()) {
+            log.info("Reserved quantity of inventory {} is consistent under lock, not repaired", inventoryId);
+            return false;
+        }
+
+        Map<Integer, InventoryShard> shardsByNo = new HashMap<>();
+        shards.forEach(shard -> shardsByNo.put(shard.getShardNo(), shard));
+        for (ReconciliationDiscrepancy discrepancy : discrepancies) {
+            int expected = Math.toIntExact(discrepancy.getExpectedReserved());
+            if (discrepancy.getShardNo() == null) {
+                inventory.setReservedQuantity(expected);
+            } else if (shardsByNo.containsKey(discrepancy.getShardNo())) {
+                shardsByNo.get(discrepancy.getShardNo()).setReservedQuantity(expected);
+            } else {
+                // Reservations point at a shard that no longer exists; needs a manual decision
+                log.error("Cannot repair {}: shard does not exist", discrepancy);
+                continue;
+            }
+            log.warn("Repaired reserved quantity: {}", discrepancy);
+        }
+        inventoryRepository.save(inventory);
+        shardRepository.saveAll(shards);
+        eventPublisher.publishEvent(StockChangedEvent.of(inventory.getProductId()));
+        return true;
+    }
+
+    private static List<ReconciliationDiscrepancy> compare(InventoryReservedRow row, List<ReservedSum> shards,
+                                                           List<ReservedSum> held, List<ReservedSum> leased) {
+        // shardNo -> quantity, null key for the inventory row
+        Map<Integer, Long> recorded = new TreeMap<>(Comparator.nullsFirst(Comparator.<Integer>naturalOrder()));
+        Map<Integer, Long> expected = new TreeMap<>(Comparator.nullsFirst(Comparator.<Integer>naturalOrder()));
+        recorded.put(null, row.reservedQuantity().longValue());
+        expected.put(null, 0L);
+        shards.forEach(shard -> {
+            recorded.put(shard.shardNo(), shard.quantity());
+            expected.put(shard.shardNo(), 0L);
+        });
+        held.forEach(sum -> expected.merge(sum.shardNo(), sum.quantity(), Long::sum));
+        leased.forEach(sum -> expected.merge(null, sum.quantity(), Long::sum));
+
+        List<ReconciliationDiscrepancy> discrepancies = new ArrayList<>();
+        expected.forEach((shardNo, quantity) -> {
+            long actual = recorded.getOrDefault(shardNo, 0L);
+            if (actual != quantity) {
+                discrepancies.add(ReconciliationDiscrepancy.builder()
+                        .inventoryId(row.id())
+                        .productId(row.productId())
+                        .shardNo(shardNo)
+                        .recordedReserved(actual)
+                        .expectedReserved(quantity)
+                        .build());
+            }
+        });
+        return discrepancies;
+    }
+
+    private static Map<Long, List<ReservedSum>> byInventory(List<ReservedSum> sums) {
+        Map<Long, List<ReservedSum>> byInventory = new HashMap<>();
+        sums.forEach(sum -> byInventory.computeIfAbsent(sum.inventoryId(), id -> new ArrayList<>()).add(sum));
+        return byInventory;
+    }
+
+    private boolean isEngineOwned(String productId) {
+        return reservationEngine.isPresent() && reservationEngine.get().owns(productId);
+    }
+
+    private record Page(long lastId, int size, List<ReconciliationDiscrepancy> discrepancies) {
+    }
+
+    private record Scan(long checked, List<ReconciliationDiscrepancy> discrepancies) {
+        static final Scan EMPTY = new Scan(0, List.of());
+
+        Scan plus(Scan other) {
+            List<ReconciliationDiscrepancy> all = new ArrayList<>(discrepancies);
+            all.addAll(other.discrepancies);
+            return new Scan(checked + other.checked, all);
+        }
+    }
+
+    /**
+     * Splits an inventory ID range until it is at most range-size IDs wide,
+     * then walks it page by page.
+     */
+    private final class RangeTask extends RecursiveTask<Scan> {
+        private final long fromId;
+        private final long toId;
+
+        private RangeTask(long fromId, long toId) {
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+
+        @Override
+        protected Scan compute() {
+            if (toId - fromId >= rangeSize) {
+                long middle = fromId + (toId - fromId) / 2;
+                RangeTask right = new RangeTask(middle + 1, toId);
+                right.fork();
+                Scan left = new RangeTask(fromId, middle).compute();
+                return left.plus(right.join());
+            }
+
+            long checked = 0;
+            List<ReconciliationDiscrepancy> discrepancies = new ArrayList<>();
+            long afterId = fromId - 1;
+            Page page;
+            do {
+                page = checkPage(afterId, toId);
+                if (page == null) {
+                    break;
+                }
+                checked += page.size();
+                discrepancies.addAll(page.discrepancies());
+                afterId = page.lastId();
+            } while (page.size() == pageSize);
+            return new Scan(checked, discrepancies);
+        }
+    }
+}
@@ -1,14 +1,31 @@
 package com.ecommerce.inventory.service;
 
+import com.ecommerce.inventory.cache.AvailabilityCache;
 import com.ecommerce.inventory.dto.InventoryRequest;
 import com.ecommerce.inventory.dto.InventoryResponse;
+import com.ecommerce.inventory.engine.ReservationEngine;
 import com.ecommerce.inventory.entity.Inventory;
+import com.ecommerce.inventory.entity.StockLedgerEntry;
 import com.ecommerce.inventory.exception.InventoryException;
 import com.ecommerce.inventory.repository.InventoryRepository;
+import com.ecommerce.inventory.repository.ProductAvailability;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
 
 @Service
 @RequiredArgsConstructor
@@ -18,6 +35,22 @@ public class InventoryService {
 
     private final InventoryRepository inventoryRepository;
     private final InventoryMapper inventoryMapper;  // ← Spring внедрит через @Component
+    private final InventoryShardService shardService;
+    private final Optional<ReservationEngine> reservationEngine;
+    private final AvailabilityCache availabilityCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReservationMetrics reservationMetrics;
+    private final StockLedgerService stockLedger;
+
+    // Staleness bound of GET /api/v1/inventory/{productId}
+    @Value("${inventory.cache.staleness.inventory-ms:1000}")
+    private long inventoryStalenessMs;
+
+    @Value("${inventory.availability.max-batch-size:1000}")
+    private int availabilityMaxBatchSize;
+
+    @Value("${inventory.availability.chunk-size:500}")
+    private int availabilityChunkSize;
 
     @Transactional
     public InventoryResponse createInventory(InventoryRequest request) {
@@ -39,6 +72,16 @@ public class InventoryService {
         Inventory saved = inventoryRepository.save(inventory);
         log.info("Inventory created successfully for product: {} with id: {}",
                 request.getProductId(), saved.getId());
+        eventPublisher.publishEvent(StockChangedEvent.of(saved.getProductId()));
+
+        // Engine takes ownership only once the row is committed
+        reservationEngine.ifPresent(engine -> TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        engine.register(saved);
+                    }
+                }));
 
         return inventoryMapper.toResponse(saved);
     }
@@ -46,12 +89,78 @@ public class InventoryService {
     public InventoryResponse getInventory(String productId) {
         log.debug("Fetching inventory for product: {}", productId);
 
-        return inventoryRepository.findByProductId(productId)
-                .map(inventoryMapper::toResponse)
-                .orElseThrow(() -> new InventoryException(
-                        String.format("Inventory not found for product %s", productId),
-                        "INVENTORY_NOT_FOUND"
-                ));
+        if (reservationEngine.isPresent() && reservationEngine.get().owns(productId)) {
+            return inventoryMapper.toResponse(reservationEngine.get().snapshot(productId));
+        }
+
+        return availabilityCache.get(productId, Duration.ofMillis(inventoryStalenessMs),
+                () -> inventoryRepository.findByProductId(productId)
+                        .map(this::toResponse)
+                        .orElseThrow(() -> new InventoryException(
+                                String.format("Inventory not found for product %s", productId),
+                                "INVENTORY_NOT_FOUND"
+                        )));
+    }
+
+    /**
+     * Available quantity of many products from one IN-list query.
+     * Unknown products are omitted; order follows the request.
+     *
+     * @param productIds product IDs, at most inventory.availability.max-batch-size
+     * @return productId -> available quantity
+     */
+    public Map<String, Integer> getAvailability(List<String> productIds) {
+        List<String> distinct = productIds.stream().distinct().toList();
+        if (distinct.size() > availabilityMaxBatchSize) {
+            throw new InventoryException(
+                    String.format("At most %d products per availability request, use the streaming endpoint",
+                            availabilityMaxBatchSize),
+                    "TOO_MANY_PRODUCTS"
+            );
+        }
+
+        Map<String, Integer> found = new HashMap<>();
+        loadAvailability(distinct, found::put);
+
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (String productId : distinct) {
+            Integer available = found.get(productId);
+            if (available != null) {
+                result.put(productId, available);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Availability of an arbitrarily long product list, one query per chunk.
+     * Each chunk is handed to the sink as soon as it is read.
+     *
+     * @param productIds product IDs
+     * @param sink receives productId and available quantity of every found product
+     */
+    public void streamAvailability(List<String> productIds, BiConsumer<String, Integer> sink) {
+        List<String> distinct = productIds.stream().distinct().toList();
+        for (int from = 0; from < distinct.size(); from += availabilityChunkSize) {
+            loadAvailability(distinct.subList(from, Math.min(from + availabilityChunkSize, distinct.size())), sink);
+        }
+    }
+
+    private void loadAvailability(List<String> productIds, BiConsumer<String, Integer> sink) {
+        for (ProductAvailability availability : inventoryRepository.findAvailabilityByProductIdIn(productIds)) {
+            String productId = availability.productId();
+            // Engine state is ahead of the write-behind row
+            if (reservationEngine.isPresent() && reservationEngine.get().owns(productId)) {
+                sink.accept(productId, reservationEngine.get().snapshot(productId).getAvailableQuantity());
+            } else if (Boolean.TRUE.equals(availability.ledgerMode())) {
+                // The row lags behind the ledger until the next compaction
+                sink.accept(productId, stockLedger.findState(availability.id())
+                        .map(StockLedgerService.LedgerState::availableQuantity)
+                        .orElse(availability.availableQuantity().intValue()));
+            } else {
+                sink.accept(productId, availability.availableQuantity().intValue());
+            }
+        }
     }
 
     @Transactional
@@ -67,11 +176,66 @@ public class InventoryService {
     public InventoryResponse updateTotalQuantity(String productId, Integer newQuantity) {
         log.info("Updating inventory quantity for product: {} to: {}", productId, newQuantity);
 
-        Inventory inventory = getInventoryLockedForUpdate(productId);
+        if (reservationEngine.isPresent() && reservationEngine.get().owns(productId)) {
+            return inventoryMapper.toResponse(reservationEngine.get().updateTotalQuantity(productId, newQuantity));
+        }
+
+        reservationMetrics.startTransaction("update_total");
+        Inventory inventory = reservationMetrics.timeLock("row", List.of(productId),
+                () -> getInventoryLockedForUpdate(productId));
+        eventPublisher.publishEvent(StockChangedEvent.of(productId));
+        if (inventory.isSharded()) {
+            shardService.updateTotalQuantity(inventory, newQuantity);
+            log.info("Sharded inventory updated for product: {}", productId);
+            return toResponse(inventory);
+        }
+        if (inventory.isLedgerMode()) {
+            StockLedgerService.LedgerState ledger = stockLedger.apply(
+                    inventory.getId(), StockLedgerEntry.EntryType.TOTAL_CHANGED, newQuantity, null);
+            log.info("Ledger inventory updated for product: {}", productId);
+            return inventoryMapper.toResponse(inventory, ledger);
+        }
+
         inventory.setTotalQuantity(newQuantity);
         Inventory updated = inventoryRepository.save(inventory);
 
         log.info("Inventory updated for product: {}", productId);
         return inventoryMapper.toResponse(updated);
     }
+
+    /**
+     * Map inventory to response; sharded products are presented as the
+     * sum of the inventory row and all shards, ledger-mode products with
+     * the stock derived from the ledger.
+     */
+    public InventoryResponse toResponse(Inventory inventory) {
+        if (inventory.isLedgerMode()) {
+            return inventoryMapper.toResponse(inventory, stockLedger.state(inventory.getId()));
+        }
+        if (!inventory.isSharded()) {
+            return inventoryMapper.toResponse(inventory);
+        }
+        return inventoryMapper.toResponse(inventory, shardService.getTotals(inventory.getId()));
+    }
+
+    /**
+     * Stock of a ledger-mode product as it was at a point in time (audits).
+     *
+     * @param productId the product ID
+     * @param at point in time
+     * @return stock at that time
+     */
+    public InventoryResponse getInventoryAt(String productId, LocalDateTime at) {
+        Inventory inventory = inventoryRepository.findByProductId(productId)
+                .orElseThrow(() -> new InventoryException(
+                        String.format("Inventory not found for product %s", productId),
+                        "INVENTORY_NOT_FOUND"
+                ));
+        return stockLedger.stateAt(inventory.getId(), at)
+                .map(ledger -> inventoryMapper.toResponse(inventory, ledger))
+                .orElseThrow(() -> new InventoryException(
+                        String.format("No stock ledger history of product %s at %s", productId, at),
+                        "HISTORY_NOT_AVAILABLE"
+                ));
+    }
 }
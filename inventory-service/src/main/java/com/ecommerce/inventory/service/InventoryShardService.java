@@ -0,0 +1,326 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.entity.Inventory;
+import com.ecommerce.inventory.entity.InventoryShard;
+import com.ecommerce.inventory.exception.InventoryException;
+import com.ecommerce.inventory.repository.InventoryRepository;
+import com.ecommerce.inventory.repository.InventoryReservationRepository;
+import com.ecommerce.inventory.repository.InventoryShardRepository;
+import com.ecommerce.inventory.repository.InventoryShardTotals;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sharded stock counters for hot products.
+ *
+ * Free stock of a sharded product is split across N inventory_shard rows.
+ * A reservation takes one shard (by order hash or at random) with a single
+ * guarded UPDATE and falls back to sibling shards when it is short.
+ * The parent inventory row keeps only stock reserved before sharding,
+ * so legacy reservations are released from it as before.
+ *
+ * Lock order for admin operations: parent row, then shards by shard number.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class InventoryShardService {
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryShardRepository shardRepository;
+    private final InventoryReservationRepository reservationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${inventory.sharding.shard-selection:HASH}")
+    private ShardSelection shardSelection;
+
+    @Value("${inventory.sharding.max-shards:64}")
+    private int maxShards;
+
+    @Value("${inventory.engine.enabled:false}")
+    private boolean engineEnabled;
+
+    /**
+     * How the first shard to try is picked.
+     */
+    public enum ShardSelection {
+        /** Shard by order ID hash - retries of one order hit the same shard */
+        HASH,
+        /** Uniformly random shard */
+        RANDOM
+    }
+
+    /**
+     * Reserve stock on one shard, trying siblings if the picked one is short.
+     * Must run inside the caller's transaction.
+     *
+     * @return shard number that holds the reservation, empty if no single shard had enough
+     */
+    @Transactional
+    public Optional<Integer> reserve(Long inventoryId, int shardCount, String orderId, Integer quantity) {
+        int start = shardSelection == ShardSelection.HASH
+                ? Math.floorMod(orderId.hashCode(), shardCount)
+                : ThreadLocalRandom.current().nextInt(shardCount);
+
+        for (int i = 0; i < shardCount; i++) {
+            int shardNo = (start + i) % shardCount;
+            if (shardRepository.reserveIfAvailable(inventoryId, shardNo, quantity) == 1) {
+                if (i > 0) {
+                    log.debug("Reserved on fallback shard {} (picked {}) for inventory {}", shardNo, start, inventoryId);
+                }
+                return Optional.of(shardNo);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Release stock reserved on a shard.
+     */
+    @Transactional
+    public void release(Long inventoryId, Integer shardNo, Integer quantity) {
+        if (shardRepository.release(inventoryId, shardNo, quantity) == 0) {
+            throw new IllegalStateException(String.format(
+                    "Cannot release %d items from shard %d of inventory %d", quantity, shardNo, inventoryId));
+        }
+    }
+
+    /**
+     * Settle confirmed stock reserved on a shard.
+     */
+    @Transactional
+    public void confirm(Long inventoryId, Integer shardNo, Integer quantity) {
+        if (shardRepository.confirm(inventoryId, shardNo, quantity) == 0) {
+            throw new IllegalStateException(String.format(
+                    "Cannot settle %d items on shard %d of inventory %d", quantity, shardNo, inventoryId));
+        }
+    }
+
+    /**
+     * Put stock back on a shard (return of a settled reservation).
+     */
+    @Transactional
+    public void addStock(Long inventoryId, Integer shardNo, Integer quantity) {
+        if (shardRepository.addStock(inventoryId, shardNo, quantity) == 0) {
+            throw new IllegalStateException(String.format(
+                    "Shard %d of inventory %d not found", shardNo, inventoryId));
+        }
+    }
+
+    public InventoryShardTotals getTotals(Long inventoryId) {
+        return shardRepository.sumByInventoryId(inventoryId);
+    }
+
+    public List<InventoryShard> getShards(Long inventoryId) {
+        return shardRepository.findByInventoryIdOrderByShardNo(inventoryId);
+    }
+
+    /**
+     * Enable sharding or change the shard count, then rebalance free stock.
+     * Shards can only be removed while they hold no reserved stock.
+     *
+     * @param productId the product ID
+     * @param shardCount new number of shards
+     * @return the parent inventory (locked)
+     */
+    @Transactional
+    public Inventory configureShards(String productId, int shardCount) {
+        if (engineEnabled) {
+            // Engine-owned products must not be changed behind its back
+            throw new InventoryException(
+                    "Sharding cannot be configured while the in-memory reservation engine is enabled",
+                    "ENGINE_UNSUPPORTED"
+            );
+        }
+        if (shardCount < 1 || shardCount > maxShards) {
+            throw new InventoryException(
+                    String.format("Shard count must be between 1 and %d", maxShards),
+                    "INVALID_SHARD_COUNT"
+            );
+        }
+
+        Inventory inventory = lockInventory(productId);
+        if (inventory.isLedgerMode()) {
+            throw new InventoryException(
+                    String.format("Product %s uses the stock ledger, disable it first", productId),
+                    "INVALID_STOCK_MODE"
+            );
+        }
+        rejectLocated(inventory);
+        List<InventoryShard> shards = new ArrayList<>(shardRepository.findByInventoryIdWithLock(inventory.getId()));
+
+        // Shrink: removed shards must not back any reservation
+        while (shards.size() > shardCount) {
+            InventoryShard removed = shards.remove(shards.size() - 1);
+            if (removed.getReservedQuantity() > 0) {
+                throw new InventoryException(
+                        String.format("Shard %d of product %s still holds %d reserved items",
+                                removed.getShardNo(), productId, removed.getReservedQuantity()),
+                        "SHARD_IN_USE"
+                );
+            }
+            // Free stock goes back to the parent row, redistributed below
+            inventory.setTotalQuantity(inventory.getTotalQuantity() + removed.getTotalQuantity());
+            shardRepository.delete(removed);
+        }
+
+        // Grow: new shards start empty
+        for (int shardNo = shards.size(); shardNo < shardCount; shardNo++) {
+            shards.add(InventoryShard.builder()
+                    .inventoryId(inventory.getId())
+                    .shardNo(shardNo)
+                    .build());
+        }
+
+        inventory.setShardCount(shardCount);
+        redistribute(inventory, shards);
+        eventPublisher.publishEvent(StockChangedEvent.of(productId));
+
+        log.info("Product {} now uses {} stock shards", productId, shardCount);
+        return inventory;
+    }
+
+    /**
+     * Spread all free stock (parent row + shards) evenly over the shards.
+     * Runs online: shard rows are locked only for this short transaction.
+     *
+     * @param productId the product ID
+     * @return the parent inventory (locked)
+     */
+    @Transactional
+    public Inventory rebalance(String productId) {
+        Inventory inventory = lockShardedInventory(productId);
+        List<InventoryShard> shards = shardRepository.findByInventoryIdWithLock(inventory.getId());
+        redistribute(inventory, shards);
+        log.info("Rebalanced {} shards of product {}", shards.size(), productId);
+        return inventory;
+    }
+
+    /**
+     * Set total quantity of a sharded product. The difference is applied to
+     * free stock and redistributed over the shards.
+     *
+     * @param inventory locked parent inventory
+     * @param newQuantity new summed total quantity
+     */
+    @Transactional
+    public void updateTotalQuantity(Inventory inventory, Integer newQuantity) {
+        rejectLocated(inventory);
+        List<InventoryShard> shards = shardRepository.findByInventoryIdWithLock(inventory.getId());
+        int currentTotal = inventory.getTotalQuantity()
+                + shards.stream().mapToInt(InventoryShard::getTotalQuantity).sum();
+        int reserved = inventory.getReservedQuantity()
+                + shards.stream().mapToInt(InventoryShard::getReservedQuantity).sum();
+
+        if (newQuantity < reserved) {
+            throw new InventoryException(
+                    String.format("Total quantity %d is below reserved quantity %d for product %s",
+                            newQuantity, reserved, inventory.getProductId()),
+                    "INVALID_QUANTITY"
+            );
+        }
+
+        inventory.setTotalQuantity(inventory.getTotalQuantity() + newQuantity - currentTotal);
+        redistribute(inventory, shards);
+    }
+
+    /**
+     * Fold all shards back into the parent row and disable sharding.
+     *
+     * @param productId the product ID
+     * @return the parent inventory (locked)
+     */
+    @Transactional
+    public Inventory disableSharding(String productId) {
+        Inventory inventory = lockShardedInventory(productId);
+        int moved = foldShards(inventory);
+        log.info("Sharding disabled for product {}, {} reservations moved to inventory row", productId, moved);
+        return inventory;
+    }
+
+    /**
+     * Move the stock of all shards (or locations) back into the locked parent
+     * row and delete the shard rows.
+     *
+     * @param inventory locked parent inventory
+     * @return number of reservations moved to the inventory row
+     */
+    @Transactional
+    public int foldShards(Inventory inventory) {
+        List<InventoryShard> shards = shardRepository.findByInventoryIdWithLock(inventory.getId());
+
+        for (InventoryShard shard : shards) {
+            inventory.setTotalQuantity(inventory.getTotalQuantity() + shard.getTotalQuantity());
+            inventory.setReservedQuantity(inventory.getReservedQuantity() + shard.getReservedQuantity());
+        }
+        inventory.setShardCount(0);
+        inventory.setLocated(false);
+        inventoryRepository.save(inventory);
+        shardRepository.deleteAll(shards);
+        int moved = reservationRepository.clearShardNo(inventory.getId());
+        eventPublisher.publishEvent(StockChangedEvent.of(inventory.getProductId()));
+        return moved;
+    }
+
+    /**
+     * Move parent free stock and shard free stock into an even split.
+     * Reserved stock never moves, so every reservation stays backed by its shard.
+     */
+    private void redistribute(Inventory inventory, List<InventoryShard> shards) {
+        int pool = inventory.getAvailableQuantity()
+                + shards.stream().mapToInt(InventoryShard::getAvailableQuantity).sum();
+
+        // Parent keeps only what legacy reservations hold
+        inventory.setTotalQuantity(inventory.getReservedQuantity());
+
+        int share = pool / shards.size();
+        int remainder = pool % shards.size();
+        for (InventoryShard shard : shards) {
+            int free = share + (shard.getShardNo() < remainder ? 1 : 0);
+            shard.setTotalQuantity(shard.getReservedQuantity() + free);
+        }
+
+        inventoryRepository.save(inventory);
+        shardRepository.saveAll(shards);
+    }
+
+    private Inventory lockInventory(String productId) {
+        return inventoryRepository.findByProductIdWithLock(productId)
+                .orElseThrow(() -> new InventoryException(
+                        String.format("Inventory not found for product %s", productId),
+                        "INVENTORY_NOT_FOUND"
+                ));
+    }
+
+    private Inventory lockShardedInventory(String productId) {
+        Inventory inventory = lockInventory(productId);
+        if (!inventory.isSharded()) {
+            throw new InventoryException(
+                    String.format("Product %s is not sharded", productId),
+                    "INVENTORY_NOT_SHARDED"
+            );
+        }
+        rejectLocated(inventory);
+        return inventory;
+    }
+
+    private static void rejectLocated(Inventory inventory) {
+        if (inventory.isLocated()) {
+            // Location stock is set per location, never spread evenly
+            throw new InventoryException(
+                    String.format("Product %s is stocked by location, use the location endpoints", inventory.getProductId()),
+                    "INVALID_STOCK_MODE"
+            );
+        }
+    }
+}
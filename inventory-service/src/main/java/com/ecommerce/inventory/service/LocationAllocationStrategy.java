@@ -0,0 +1,20 @@
+package com.ecommerce.inventory.service;
+
+/**
+ * How a reservation of a located product picks its location.
+ * Selected with {@code inventory.locations.allocation}.
+ */
+public enum LocationAllocationStrategy {
+
+    /**
+     * Closest location to the delivery point (great-circle distance).
+     * Without a delivery point, lowest priority value first.
+     */
+    NEAREST,
+
+    /**
+     * Location with the most free stock, evening out stock levels.
+     * Ties go to the lowest priority value.
+     */
+    BALANCE
+}
@@ -0,0 +1,197 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.DeliveryPoint;
+import com.ecommerce.inventory.repository.InventoryShardRepository;
+import com.ecommerce.inventory.repository.LocationStock;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Picks the location a reservation of a located product is taken from.
+ *
+ * Each replica keeps an in-memory index of free stock per location of the
+ * products it reserves, so choosing a location ranks a few cached entries
+ * instead of reading shard rows. The index is only a hint: the pick is taken
+ * with the guarded shard UPDATE, a location that turns out short marks the
+ * index stale, and an index that has no location with enough stock is
+ * reloaded once before the reservation is rejected. Releases and restocks
+ * by other replicas become visible after index-ttl-ms at the latest.
+ *
+ * The whole quantity of a line comes from one location; orders are never split.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.locations.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class LocationAllocator {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    private final InventoryShardRepository shardRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.locations.allocation:NEAREST}")
+    private LocationAllocationStrategy strategy;
+
+    @Value("${inventory.locations.index-ttl-ms:2000}")
+    private long indexTtlMs;
+
+    // inventoryId -> free stock per location
+    private final Map<Long, LocationIndex> index = new ConcurrentHashMap<>();
+
+    /**
+     * Location chosen for a reservation.
+     */
+    public record Allocation(Integer shardNo, String locationCode) {
+    }
+
+    /**
+     * Reserve the quantity at one location picked by the configured strategy.
+     * Must run inside the caller's transaction.
+     *
+     * @param deliveryPoint optional, used by NEAREST
+     * @return the location that holds the reservation, empty if no single location had enough
+     */
+    public Optional<Allocation> allocate(Long inventoryId, Integer quantity, DeliveryPoint deliveryPoint) {
+        LocationIndex current = index.get(inventoryId);
+        boolean reloaded = false;
+        if (current == null || current.isExpired(indexTtlMs)) {
+            current = reload(inventoryId);
+            reloaded = true;
+        }
+
+        Optional<Allocation> allocation = reserveBest(inventoryId, current, quantity, deliveryPoint);
+        if (allocation.isEmpty() && !reloaded) {
+            // The index may miss releases and restocks made since it was loaded
+            allocation = reserveBest(inventoryId, reload(inventoryId), quantity, deliveryPoint);
+        }
+        return allocation;
+    }
+
+    /**
+     * Most free stock at a single location, as of the index.
+     * After a failed {@link #allocate} this reflects the reloaded rows.
+     */
+    public int bestAvailable(Long inventoryId) {
+        LocationIndex current = index.get(inventoryId);
+        if (current == null) {
+            current = reload(inventoryId);
+        }
+        return current.slots.stream().mapToInt(slot -> Math.max(slot.available.get(), 0)).max().orElse(0);
+    }
+
+    /**
+     * Drop the index of a product after its locations or stock were changed.
+     */
+    public void invalidate(Long inventoryId) {
+        index.remove(inventoryId);
+    }
+
+    private Optional<Allocation> reserveBest(Long inventoryId, LocationIndex current,
+                                             Integer quantity, DeliveryPoint deliveryPoint) {
+        List<Slot> candidates = current.slots.stream()
+                .filter(slot -> slot.available.get() >= quantity)
+                .sorted(ranking(deliveryPoint))
+                .toList();
+
+        for (Slot slot : candidates) {
+            if (shardRepository.reserveIfAvailable(inventoryId, slot.stock.shardNo(), quantity) == 1) {
+                slot.available.addAndGet(-quantity);
+                if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            if (status != STATUS_COMMITTED) {
+                                slot.available.addAndGet(quantity);
+                            }
+                        }
+                    });
+                }
+                meterRegistry.counter("inventory.locations.allocations",
+                        "location", slot.stock.locationCode()).increment();
+                return Optional.of(new Allocation(slot.stock.shardNo(), slot.stock.locationCode()));
+            }
+            // Taken by another replica or transaction since the index was loaded
+            log.debug("Location {} of inventory {} was short, index marked stale",
+                    slot.stock.locationCode(), inventoryId);
+            current.stale = true;
+        }
+        return Optional.empty();
+    }
+
+    private Comparator<Slot> ranking(DeliveryPoint deliveryPoint) {
+        Comparator<Slot> byPriority = Comparator
+                .comparing((Slot slot) -> slot.stock.priority())
+                .thenComparing(slot -> slot.stock.shardNo());
+        if (strategy == LocationAllocationStrategy.BALANCE) {
+            return Comparator.comparingInt((Slot slot) -> slot.available.get()).reversed()
+                    .thenComparing(byPriority);
+        }
+        if (deliveryPoint == null) {
+            return byPriority;
+        }
+        return Comparator.comparingDouble((Slot slot) -> distanceKm(slot.stock, deliveryPoint))
+                .thenComparing(byPriority);
+    }
+
+    private LocationIndex reload(Long inventoryId) {
+        LocationIndex loaded = new LocationIndex(shardRepository.findLocationStock(inventoryId).stream()
+                .map(Slot::new)
+                .toList());
+        index.put(inventoryId, loaded);
+        meterRegistry.counter("inventory.locations.index.reloads").increment();
+        return loaded;
+    }
+
+    /**
+     * Great-circle (haversine) distance; locations without coordinates rank last.
+     */
+    private static double distanceKm(LocationStock location, DeliveryPoint point) {
+        if (location.latitude() == null || location.longitude() == null) {
+            return Double.MAX_VALUE;
+        }
+        double dLat = Math.toRadians(point.getLatitude() - location.latitude());
+        double dLon = Math.toRadians(point.getLongitude() - location.longitude());
+        double a = Math.pow(Math.sin(dLat / 2), 2)
+                + Math.cos(Math.toRadians(location.latitude())) * Math.cos(Math.toRadians(point.getLatitude()))
+                * Math.pow(Math.sin(dLon / 2), 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+
+    private static final class LocationIndex {
+        final List<Slot> slots;
+        final long loadedAt = System.currentTimeMillis();
+        volatile boolean stale;
+
+        LocationIndex(List<Slot> slots) {
+            this.slots = slots;
+        }
+
+        boolean isExpired(long ttlMs) {
+            return stale || System.currentTimeMillis() - loadedAt > ttlMs;
+        }
+    }
+
+    private static final class Slot {
+        final LocationStock stock;
+        final AtomicInteger available;
+
+        Slot(LocationStock stock) {
+            this.stock = stock;
+            this.available = new AtomicInteger(stock.availableQuantity());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.ReservationRequest;
+import com.ecommerce.inventory.dto.ReservationResponse;
+import com.ecommerce.inventory.entity.InventoryReservation;
+import com.ecommerce.inventory.repository.InventoryReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Applies a group of order events of one product in a single transaction.
+ *
+ * Any failure rolls back the whole group; the caller then replays the
+ * group record by record so only the bad record takes the failure path.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderEventBatchProcessor {
+
+    private final ReservationService reservationService;
+    private final InventoryReservationRepository reservationRepository;
+
+    /**
+     * Reserve stock for orders of one product; the inventory row is locked once for the group.
+     */
+    @Transactional
+    public List<ReservationResponse> reserveGroup(List<ReservationRequest> requests) {
+        return requests.stream()
+                .map(reservationService::reserveStock)
+                .toList();
+    }
+
+    @Transactional
+    public void confirmGroup(List<String> orderIds) {
+        orderIds.forEach(reservationService::confirmReservation);
+    }
+
+    @Transactional
+    public void releaseGroup(List<String> orderIds) {
+        orderIds.forEach(reservationService::releaseReservation);
+    }
+
+    /**
+     * Group key per order: smallest inventory ID among its lines,
+     * so every order lands in exactly one group.
+     *
+     * @param orderIds order IDs
+     * @return orderId -> inventory ID, orders without reservations are absent
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Long> groupByInventory(List<String> orderIds) {
+        return reservationRepository.findByOrderIdIn(orderIds).stream()
+                .collect(Collectors.toMap(
+                        InventoryReservation::getOrderId,
+                        InventoryReservation::getInventoryId,
+                        Math::min));
+    }
+}
@@ -0,0 +1,69 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.engine.ReservationEngine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Releases PENDING reservations older than the reservation TTL,
+ * so abandoned checkouts do not hold stock forever.
+ *
+ * Each batch is a separate transaction; every replica may run the sweeper,
+ * batches are claimed with FOR UPDATE SKIP LOCKED. Holds of the in-memory
+ * reservation engine are expired by the engine.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.reservation.expiry.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationExpirySweeper {
+
+    private final ReservationService reservationService;
+    private final Optional<ReservationEngine> reservationEngine;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.reservation.expiry.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    @Value("${inventory.reservation.expiry.batch-size:200}")
+    private int batchSize;
+
+    @Value("${inventory.reservation.expiry.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    @Scheduled(fixedDelayString = "${inventory.reservation.expiry.sweep-interval-ms:30000}",
+            initialDelayString = "${inventory.reservation.expiry.sweep-interval-ms:30000}")
+    public void sweep() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ttlMinutes);
+        int total = reservationEngine.map(engine -> engine.expirePending(cutoff)).orElse(0);
+
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int expired;
+            try {
+                expired = reservationService.expireReservations(cutoff, batchSize);
+            } catch (RuntimeException e) {
+                // Typically a lock conflict with a concurrent writer; the rows stay PENDING for the next run
+                log.warn("Reservation expiry batch failed, retrying on next run", e);
+                meterRegistry.counter("inventory.reservation.expiry.failures").increment();
+                break;
+            }
+            total += expired;
+            if (expired < batchSize) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            meterRegistry.counter("inventory.reservation.expired").increment(total);
+            log.info("Reservation expiry sweep expired {} reservations created before {}", total, cutoff);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.inventory.service;
+
+/**
+ * How reserveStock serializes concurrent writers on the inventory row.
+ * Selected with {@code inventory.reservation.lock-strategy}.
+ */
+public enum ReservationLockStrategy {
+
+    /**
+     * SELECT ... FOR UPDATE, validate and mutate the entity, then save.
+     * The row lock is held across several round trips.
+     */
+    PESSIMISTIC,
+
+    /**
+     * Single guarded UPDATE (reserved + qty where total - reserved >= qty).
+     * The row lock is taken by the statement itself, no prior read lock.
+     */
+    CONDITIONAL_UPDATE
+}
@@ -0,0 +1,180 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.exception.InsufficientStockException;
+import com.ecommerce.inventory.exception.InventoryException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Hot-path metrics of the reservation flow.
+ *
+ * - inventory.reservation.lock.wait{lock}: time to acquire inventory row locks
+ * - inventory.reservation.transaction{operation,status}: method start to commit/rollback
+ * - inventory.reservation.outcome{operation,outcome}: success, insufficient, duplicate, conflict, error
+ * - inventory.reservation.contention.top{rank,productId}: lock wait per product over the last
+ *   window, for the top-n products only, so cardinality stays bounded
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.metrics.contention.top-n:10}")
+    private int topN;
+
+    // Products tracked per window; waits on further products are not attributed
+    @Value("${inventory.metrics.contention.max-tracked:10000}")
+    private int maxTracked;
+
+    private volatile Map<String, LongAdder> lockWaitNanos = new ConcurrentHashMap<>();
+    private MultiGauge topContention;
+
+    public enum Outcome {
+        SUCCESS, INSUFFICIENT, DUPLICATE, CONFLICT, ERROR;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    @PostConstruct
+    void registerMetrics() {
+        topContention = MultiGauge.builder("inventory.reservation.contention.top")
+                .description("Row lock wait per product in the last window, hottest products only")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Time a lock acquisition and attribute the wait to the locked products.
+     *
+     * @param lock lock kind used as tag (row, ordered_rows, guarded_update)
+     * @param productIds products behind the locked rows
+     * @param acquire call that blocks until the lock is held
+     * @return result of the call
+     */
+    public <T> T timeLock(String lock, Collection<String> productIds, Supplier<T> acquire) {
+        long started = System.nanoTime();
+        try {
+            return acquire.get();
+        } finally {
+            long waited = System.nanoTime() - started;
+            Timer.builder("inventory.reservation.lock.wait")
+                    .description("Time to acquire inventory row locks")
+                    .tag("lock", lock)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(waited, TimeUnit.NANOSECONDS);
+            Map<String, LongAdder> window = lockWaitNanos;
+            for (String productId : productIds) {
+                LongAdder total = window.get(productId);
+                if (total == null && window.size() < maxTracked) {
+                    total = window.computeIfAbsent(productId, id -> new LongAdder());
+                }
+                if (total != null) {
+                    total.add(waited);
+                }
+            }
+        }
+    }
+
+    /**
+     * Time the current transaction until it completes, commit included.
+     *
+     * @param operation operation name used as tag
+     */
+    public void startTransaction(String operation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                sample.stop(Timer.builder("inventory.reservation.transaction")
+                        .description("Reservation transaction time including commit")
+                        .tags("operation", operation, "status", status == STATUS_COMMITTED ? "committed" : "rolled_back")
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+            }
+        });
+    }
+
+    public void outcome(String operation, Outcome outcome) {
+        meterRegistry.counter("inventory.reservation.outcome", "operation", operation, "outcome", outcome.tag())
+                .increment();
+    }
+
+    /**
+     * Count a failed call by the kind of failure.
+     */
+    public void outcome(String operation, RuntimeException failure) {
+        outcome(operation, classify(failure));
+    }
+
+    /**
+     * Publish the hottest products of the window that just ended and start a new one.
+     */
+    @Scheduled(fixedRateString = "${inventory.metrics.contention.window-ms:10000}",
+            initialDelayString = "${inventory.metrics.contention.window-ms:10000}")
+    public void publishTopContention() {
+        Map<String, LongAdder> window = lockWaitNanos;
+        lockWaitNanos = new ConcurrentHashMap<>();
+
+        List<Map.Entry<String, Long>> hottest = window.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(topN)
+                .toList();
+        List<MultiGauge.Row<?>> rows = IntStream.range(0, hottest.size())
+                .<MultiGauge.Row<?>>mapToObj(rank -> MultiGauge.Row.of(
+                        Tags.of("rank", String.valueOf(rank + 1), "productId", hottest.get(rank).getKey()),
+                        hottest.get(rank).getValue() / 1_000_000_000.0))
+                .toList();
+        // overwrite: products that dropped out of the top-n are removed
+        topContention.register(rows, true);
+    }
+
+    private static Outcome classify(RuntimeException failure) {
+        if (failure instanceof OptimisticLockingFailureException
+                || failure instanceof PessimisticLockingFailureException) {
+            return Outcome.CONFLICT;
+        }
+        if (failure instanceof InsufficientStockException) {
+            return Outcome.INSUFFICIENT;
+        }
+        if (failure instanceof InventoryException inventoryException) {
+            if ("DUPLICATE_RESERVATION".equals(inventoryException.getErrorCode())) {
+                return Outcome.DUPLICATE;
+            }
+            if ("RESERVATION_CONFLICT".equals(inventoryException.getErrorCode())) {
+                return Outcome.CONFLICT;
+            }
+        }
+        return Outcome.ERROR;
+    }
+}
@@ -0,0 +1,66 @@
+package com.ecommerce.inventory.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+
+/**
+ * Keeps future reservation partitions created and archives months past retention.
+ * Runs once on startup (partitions only) and then daily.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.reservation.partitions.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationPartitionScheduler {
+
+    private final ReservationPartitionService partitionService;
+
+    @Value("${inventory.reservation.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${inventory.reservation.partitions.retention-months:6}")
+    private int retentionMonths;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        createFuturePartitions();
+    }
+
+    @Scheduled(cron = "${inventory.reservation.partitions.cron:0 15 3 * * *}")
+    public void maintain() {
+        createFuturePartitions();
+        archiveOldPartitions();
+    }
+
+    private void createFuturePartitions() {
+        try {
+            partitionService.createPartitions(YearMonth.now(), monthsAhead);
+        } catch (RuntimeException e) {
+            log.error("Failed to create future reservation partitions", e);
+        }
+    }
+
+    private void archiveOldPartitions() {
+        try {
+            partitionService.detachPartitionsBefore(YearMonth.now().minusMonths(retentionMonths));
+        } catch (RuntimeException e) {
+            log.error("Failed to detach old reservation partitions", e);
+        }
+        for (String table : partitionService.findArchiveTables()) {
+            try {
+                partitionService.archive(table);
+            } catch (RuntimeException e) {
+                // The detached table stays and is exported on the next run
+                log.error("Failed to archive {}", table, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.repository.ReservationPartitionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Maintenance of the monthly inventory_reservation partitions.
+ *
+ * Future months are created ahead of time so inserts never hit the default
+ * partition. Months past the retention are detached (renamed to
+ * inventory_reservation_archive_yYYYYmMM), exported to a gzipped CSV file and
+ * dropped, together with the order claims (reservation_order) of that month.
+ * A detached table that failed to export stays in the database and is
+ * picked up again by the next run.
+ *
+ * Each step is one transaction holding an advisory lock, so only one replica
+ * maintains partitions at a time.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationPartitionService {
+
+    // Advisory lock key of partition maintenance ("RSVPAR" in ASCII)
+    private static final long MAINTENANCE_LOCK_KEY = 0x525356504152L;
+    private static final String PARTITION_PREFIX = "inventory_reservation_";
+    private static final String ARCHIVE_PREFIX = "inventory_reservation_archive_";
+    private static final DateTimeFormatter MONTH_SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+
+    private final ReservationPartitionRepository partitionRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.reservation.partitions.archive-dir:archive/reservations}")
+    private String archiveDir;
+
+    /**
+     * Create missing partitions from the given month on.
+     *
+     * @param from first month
+     * @param monthsAhead number of following months to create as well
+     * @return number of partitions created
+     */
+    @Transactional
+    public int createPartitions(YearMonth from, int monthsAhead) {
+        if (!partitionRepository.tryMaintenanceLock(MAINTENANCE_LOCK_KEY)) {
+            return 0;
+        }
+        int created = 0;
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = from.plusMonths(i);
+            if (partitionRepository.createPartition(month.atDay(1))) {
+                log.info("Created reservation partition {}", PARTITION_PREFIX + MONTH_SUFFIX.format(month));
+                created++;
+            }
+        }
+        meterRegistry.counter("inventory.reservation.partitions.created").increment(created);
+        return created;
+    }
+
+    /**
+     * Detach partitions of months before the cutoff. Partitions that still
+     * hold PENDING or unsettled CONFIRMED reservations are kept until those
+     * are settled or expired.
+     *
+     * @param before first month to keep attached
+     * @return archive tables created
+     */
+    @Transactional
+    public List<String> detachPartitionsBefore(YearMonth before) {
+        if (!partitionRepository.tryMaintenanceLock(MAINTENANCE_LOCK_KEY)) {
+            return List.of();
+        }
+        List<String> detached = new ArrayList<>();
+        for (String partition : partitionRepository.findAttachedPartitions()) {
+            YearMonth month = YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), MONTH_SUFFIX);
+            if (!month.isBefore(before)) {
+                continue;
+            }
+            long unfinished = partitionRepository.countUnfinished(partition);
+            if (unfinished > 0) {
+                log.warn("Reservation partition {} still has {} pending or unsettled reservations, not archived",
+                        partition, unfinished);
+                continue;
+            }
+            String archiveTable = ARCHIVE_PREFIX + MONTH_SUFFIX.format(month);
+            partitionRepository.detach(partition, archiveTable);
+            // Archived orders no longer block a new reservation, as before the order claims existed
+            int orders = partitionRepository.deleteOrdersCreatedBetween(month.atDay(1), month.plusMonths(1).atDay(1));
+            detached.add(archiveTable);
+            log.info("Detached reservation partition {} as {}, {} order claims deleted", partition, archiveTable, orders);
+        }
+        return detached;
+    }
+
+    /**
+     * Detached partitions not exported yet, including leftovers of failed runs.
+     */
+    @Transactional(readOnly = true)
+    public List<String> findArchiveTables() {
+        return partitionRepository.findArchiveTables();
+    }
+
+    /**
+     * Export a detached partition to archive-dir/&lt;table&gt;.csv.gz and drop it.
+     * The file is written under a temporary name and moved into place before the drop.
+     *
+     * @param archiveTable detached partition
+     * @return number of rows exported, -1 if another replica holds the maintenance lock
+     */
+    @Transactional
+    public long archive(String archiveTable) {
+        if (!partitionRepository.tryMaintenanceLock(MAINTENANCE_LOCK_KEY)) {
+            return -1;
+        }
+        Path dir = Path.of(archiveDir);
+        Path target = dir.resolve(archiveTable + ".csv.gz");
+        Path temp = dir.resolve(archiveTable + ".csv.gz.tmp");
+
+        AtomicLong rows = new AtomicLong();
+        try {
+            Files.createDirectories(dir);
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8))) {
+                partitionRepository.scan(archiveTable, resultSet -> {
+                    try {
+                        ResultSetMetaData meta = resultSet.getMetaData();
+                        if (rows.getAndIncrement() == 0) {
+                            writeHeader(writer, meta);
+                        }
+                        for (int column = 1; column <= meta.getColumnCount(); column++) {
+                            if (column > 1) {
+                                writer.write(',');
+                            }
+                            writer.write(csv(resultSet.getString(column)));
+                        }
+                        writer.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot export " + archiveTable + " to " + target, e);
+        }
+
+        partitionRepository.drop(archiveTable);
+        meterRegistry.counter("inventory.reservation.partitions.archived").increment();
+        meterRegistry.counter("inventory.reservation.archived.rows").increment(rows.get());
+        log.info("Archived {} reservations of {} to {}", rows.get(), archiveTable, target);
+        return rows.get();
+    }
+
+    private static void writeHeader(Writer writer, ResultSetMetaData meta) throws IOException {
+        try {
+            for (int column = 1; column <= meta.getColumnCount(); column++) {
+                if (column > 1) {
+                    writer.write(',');
+                }
+                writer.write(meta.getColumnName(column));
+            }
+            writer.write('\n');
+        } catch (SQLException e) {
+            throw new IOException("Cannot read columns of archive table", e);
+        }
+    }
+
+    /**
+     * RFC 4180 field: null becomes empty, fields with separators or quotes are quoted.
+     */
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
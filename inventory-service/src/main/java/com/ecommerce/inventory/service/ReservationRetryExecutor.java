@@ -0,0 +1,202 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.exception.InventoryException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a whole reservation transaction when it loses a concurrency race
+ * (optimistic version conflict, deadlock, lock timeout or RESERVATION_CONFLICT).
+ *
+ * Must be called outside the transaction so each attempt starts a new one.
+ * Backoff is exponential with full jitter. Each product has a retry budget
+ * (token bucket) so a hot product cannot turn conflicts into a retry storm;
+ * once the budget or max attempts is exhausted the conflict goes to the caller.
+ * Buckets of products without conflicts for a while are evicted; an idle
+ * bucket is full again after one second, so evicting it loses nothing.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationRetryExecutor {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.reservation.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${inventory.reservation.retry.base-delay-ms:100}")
+    private long baseDelayMs;
+
+    @Value("${inventory.reservation.retry.max-delay-ms:1000}")
+    private long maxDelayMs;
+
+    @Value("${inventory.reservation.retry.budget-per-second:20}")
+    private double budgetPerSecond;
+
+    @Value("${inventory.reservation.retry.budget-idle-ms:60000}")
+    private long budgetIdleMs;
+
+    @Value("${inventory.reservation.retry.budget-max-products:100000}")
+    private long budgetMaxProducts;
+
+    private Cache<String, RetryBudget> budgets;
+
+    @PostConstruct
+    void init() {
+        budgets = Caffeine.newBuilder()
+                .maximumSize(budgetMaxProducts)
+                .expireAfterAccess(Duration.ofMillis(budgetIdleMs))
+                .build();
+    }
+
+    /**
+     * Execute a transactional call with retries.
+     *
+     * @param operation operation name used as metric tag (reserve, release, ...)
+     * @param productIds products whose retry budget each retry consumes (may be empty)
+     * @param transaction call that runs one whole transaction
+     * @return result of the first successful attempt
+     */
+    public <T> T execute(String operation, Collection<String> productIds, Supplier<T> transaction) {
+        int attempt = 1;
+        long backoffNanos = 0;
+        try {
+            while (true) {
+                meterRegistry.counter("inventory.reservation.attempts", "operation", operation).increment();
+                try {
+                    return transaction.get();
+                } catch (RuntimeException e) {
+                    if (!isConflict(e)) {
+                        throw e;
+                    }
+                    meterRegistry.counter("inventory.reservation.conflicts", "operation", operation).increment();
+
+                    if (attempt >= maxAttempts) {
+                        throw exhausted(operation, "attempts", e);
+                    }
+                    if (!acquireBudget(productIds)) {
+                        throw exhausted(operation, "budget", e);
+                    }
+
+                    long delayMs = backoffMillis(attempt);
+                    log.debug("Reservation conflict on {} {}, retry {} in {} ms", operation, productIds, attempt, delayMs);
+                    long sleptFrom = System.nanoTime();
+                    sleep(delayMs);
+                    backoffNanos += System.nanoTime() - sleptFrom;
+                    attempt++;
+                }
+            }
+        } finally {
+            DistributionSummary.builder("inventory.reservation.attempts.per.call")
+                    .description("Transaction attempts needed per reservation call")
+                    .tag("operation", operation)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(attempt);
+            Timer.builder("inventory.reservation.retry.time")
+                    .description("Time spent backing off before retries")
+                    .tag("operation", operation)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(backoffNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Execute a transactional call without result with retries.
+     */
+    public void run(String operation, Collection<String> productIds, Runnable transaction) {
+        execute(operation, productIds, () -> {
+            transaction.run();
+            return null;
+        });
+    }
+
+    private static boolean isConflict(RuntimeException e) {
+        return e instanceof OptimisticLockingFailureException
+                || e instanceof PessimisticLockingFailureException
+                || (e instanceof InventoryException inventoryException
+                && "RESERVATION_CONFLICT".equals(inventoryException.getErrorCode()));
+    }
+
+    private InventoryException exhausted(String operation, String reason, RuntimeException cause) {
+        meterRegistry.counter("inventory.reservation.retry.exhausted",
+                "operation", operation, "reason", reason).increment();
+        log.warn("Giving up on {} after conflict, retry {} exhausted", operation, reason);
+        if (cause instanceof InventoryException inventoryException) {
+            return inventoryException;
+        }
+        return new InventoryException("Conflict during reservation, please retry", "RESERVATION_CONFLICT", cause);
+    }
+
+    /**
+     * Exponential backoff with full jitter: uniform in [0, min(max, base * 2^(attempt-1))].
+     */
+    private long backoffMillis(int attempt) {
+        long cap = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private boolean acquireBudget(Collection<String> productIds) {
+        for (String productId : productIds) {
+            if (!budgets.get(productId, id -> new RetryBudget(budgetPerSecond)).tryAcquire()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void sleep(long delayMs) {
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InventoryException("Interrupted while retrying reservation", "RESERVATION_CONFLICT", e);
+        }
+    }
+
+    /**
+     * Token bucket refilled at a fixed rate, capacity of one second of retries.
+     */
+    private static final class RetryBudget {
+        private final double ratePerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefillNanos;
+
+        private RetryBudget(double perSecond) {
+            this.ratePerNano = perSecond / 1_000_000_000.0;
+            this.capacity = perSecond;
+            this.tokens = perSecond;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        private synchronized boolean tryAcquire() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * ratePerNano);
+            lastRefillNanos = now;
+            if (tokens < 1.0) {
+                return false;
+            }
+            tokens -= 1.0;
+            return true;
+        }
+    }
+}
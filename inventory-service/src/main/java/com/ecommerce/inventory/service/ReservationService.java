@@ -1,10 +1,19 @@
 // ReservationService.java
 package com.ecommerce.inventory.service;
 
+import com.ecommerce.inventory.dto.BulkOrderResult;
+import com.ecommerce.inventory.dto.DeliveryPoint;
+import com.ecommerce.inventory.dto.OrderReservationRequest;
+import com.ecommerce.inventory.dto.OrderReservationResponse;
 import com.ecommerce.inventory.dto.ReservationRequest;
 import com.ecommerce.inventory.dto.ReservationResponse;
+import com.ecommerce.inventory.engine.ReservationEngine;
 import com.ecommerce.inventory.entity.Inventory;
 import com.ecommerce.inventory.entity.InventoryReservation;
+import com.ecommerce.inventory.entity.StockLedgerEntry;
+import com.ecommerce.inventory.event.OrderReservationFailedEvent;
+import com.ecommerce.inventory.event.OrderReservedEvent;
+import com.ecommerce.inventory.event.ReservationCompensatedEvent;
 import com.ecommerce.inventory.exception.InsufficientStockException;
 import com.ecommerce.inventory.exception.InventoryException;
 import com.ecommerce.inventory.kafka.InventoryProducer;
@@ -12,13 +21,33 @@ import com.ecommerce.inventory.repository.InventoryRepository;
 import com.ecommerce.inventory.repository.InventoryReservationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Reservation service for saga pattern orchestration.
- * Handles stock reservations with retries for optimistic locking conflicts.
+ * Each call runs one transaction; conflicts surface as RESERVATION_CONFLICT
+ * and are retried by the caller through {@link ReservationRetryExecutor}.
  */
 @Service
 @RequiredArgsConstructor
@@ -29,115 +58,445 @@ public class ReservationService {
     private final InventoryRepository inventoryRepository;
     private final InventoryReservationRepository reservationRepository;
     private final InventoryProducer kafkaProducer;
+    private final InventoryShardService shardService;
+    private final Optional<ReservationEngine> reservationEngine;
+    private final DuplicateOrderFilter duplicateOrderFilter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Optional<StockLeaseManager> leaseManager;
+    private final ReservationMetrics reservationMetrics;
+    private final StockLedgerService stockLedger;
+    private final Optional<LocationAllocator> locationAllocator;
+
+    @Value("${inventory.reservation.lock-strategy:PESSIMISTIC}")
+    private ReservationLockStrategy lockStrategy;
+
+    @Value("${inventory.sharding.enabled:false}")
+    private boolean shardingEnabled;
 
-    private static final int MAX_RETRY_ATTEMPTS = 3;
-    private static final int RETRY_DELAY_MS = 100;
+    @Value("${inventory.ledger.enabled:false}")
+    private boolean ledgerEnabled;
 
     /**
      * Reserve stock for an order.
-     * Implements optimistic locking with retries for conflict resolution.
      *
      * Flow:
      * 1. Check inventory exists
-     * 2. Acquire pessimistic lock on inventory row
-     * 3. Validate sufficient stock available
-     * 4. Create reservation record
-     * 5. Update inventory reserved quantity
-     * 6. Publish event to Kafka (async)
+     * 2. Reserve stock from shards (the location picked by the allocation
+     *    strategy for located products) or the stock ledger if the product
+     *    uses one of these modes, from this replica's lease if one is held, else
+     *    using the configured lock strategy
+     *    (PESSIMISTIC: lock row, validate, update;
+     *     CONDITIONAL_UPDATE: single guarded UPDATE)
+     * 3. Create reservation record
+     * 4. Publish event to Kafka (async)
      *
      * @param request reservation request
      * @return reservation response with success status
      */
     @Transactional
     public ReservationResponse reserveStock(ReservationRequest request) {
-        String orderId = request.getOrderId();
-        String productId = request.getProductId();
-        Integer quantity = request.getQuantity();
+        reservationMetrics.startTransaction("reserve");
+        try {
+            ReservationResponse response = reserve(request.getOrderId(), request.getProductId(),
+                    request.getQuantity(), request.getDeliveryPoint());
+            reservationMetrics.outcome("reserve", response.isSuccess()
+                    ? ReservationMetrics.Outcome.SUCCESS : ReservationMetrics.Outcome.INSUFFICIENT);
+            return response;
+        } catch (RuntimeException e) {
+            reservationMetrics.outcome("reserve", e);
+            throw e;
+        }
+    }
 
-        log.info("Processing stock reservation - Order: {}, Product: {}, Quantity: {}",
-                orderId, productId, quantity);
+    private ReservationResponse reserve(String orderId, String productId, Integer quantity,
+                                        DeliveryPoint deliveryPoint) {
+        log.info("Processing stock reservation - Order: {}, Product: {}, Quantity: {}, Strategy: {}",
+                orderId, productId, quantity, lockStrategy);
+
+        // Products owned by the in-memory engine never touch the inventory row here
+        if (reservationEngine.isPresent() && reservationEngine.get().owns(productId)) {
+            return reservationEngine.get().reserve(orderId, productId, quantity);
+        }
 
         try {
             // Check if already reserved
-            if (reservationRepository.findByOrderId(orderId).isPresent()) {
-                log.warn("Order already has reservation: {}", orderId);
+            claimOrder(orderId);
+
+            // Sharded hot products and located products bypass the inventory row entirely
+            if (shardingEnabled || locationAllocator.isPresent()) {
+                Optional<Inventory> sharded = inventoryRepository.findShardedByProductId(productId);
+                if (sharded.isPresent() && sharded.get().isLocated() && locationAllocator.isPresent()) {
+                    return reserveFromLocations(sharded.get(), orderId, productId, quantity, deliveryPoint);
+                }
+                if (sharded.isPresent()) {
+                    return reserveFromShards(sharded.get(), orderId, productId, quantity);
+                }
+            }
+
+            // Ledger-mode products append to the stock ledger instead of locking the row
+            if (ledgerEnabled) {
+                Optional<Inventory> ledger = inventoryRepository.findLedgerByProductId(productId);
+                if (ledger.isPresent()) {
+                    return reserveFromLedger(ledger.get(), orderId, productId, quantity);
+                }
+            }
+
+            // Replica-local lease: only this replica's lease row is updated
+            if (leaseManager.isPresent()) {
+                Optional<Long> leasedFrom = leaseManager.get().tryConsume(productId, quantity);
+                if (leasedFrom.isPresent()) {
+                    return acceptReservation(leasedFrom.get(), null, null, orderId, productId, quantity);
+                }
+            }
+
+            return switch (lockStrategy) {
+                case PESSIMISTIC -> reserveWithRowLock(orderId, productId, quantity);
+                case CONDITIONAL_UPDATE -> reserveWithConditionalUpdate(orderId, productId, quantity);
+            };
+
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateOrNot(orderId, e);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            log.warn("Optimistic lock conflict during reservation", e);
+            throw new InventoryException(
+                    "Conflict during reservation, please retry",
+                    "RESERVATION_CONFLICT"
+            );
+        }
+    }
+
+    /**
+     * PESSIMISTIC strategy: SELECT ... FOR UPDATE, validate, mutate entity, save.
+     */
+    private ReservationResponse reserveWithRowLock(String orderId, String productId, Integer quantity) {
+        // Get locked inventory (pessimistic write lock)
+        Inventory inventory = reservationMetrics.timeLock("row", List.of(productId),
+                () -> inventoryService.getInventoryLockedForUpdate(productId));
+        if (inventory.isLedgerMode()) {
+            // Switched to ledger mode while this request waited for the lock
+            return reserveFromLedger(inventory, orderId, productId, quantity);
+        }
+
+        // Validate sufficient stock
+        if (!inventory.hasAvailableQuantity(quantity)) {
+            return rejectReservation(inventory.getId(), orderId, productId, quantity,
+                    inventory.getAvailableQuantity());
+        }
+
+        // Update inventory
+        inventory.reserve(quantity);
+        inventoryRepository.save(inventory);
+
+        log.debug("Remaining available for product {}: {}", productId, inventory.getAvailableQuantity());
+        return acceptReservation(inventory.getId(), null, null, orderId, productId, quantity);
+    }
+
+    /**
+     * CONDITIONAL_UPDATE strategy: one guarded UPDATE takes the row lock and
+     * validates stock at the same time; the reservation row is inserted in
+     * the same transaction.
+     */
+    private ReservationResponse reserveWithConditionalUpdate(String orderId, String productId, Integer quantity) {
+        Long inventoryId = inventoryRepository.findIdByProductId(productId)
+                .orElseThrow(() -> new InventoryException(
+                        String.format("Inventory not found for product %s", productId),
+                        "INVENTORY_NOT_FOUND"
+                ));
+
+        int reserved = reservationMetrics.timeLock("guarded_update", List.of(productId),
+                () -> inventoryRepository.reserveIfAvailable(inventoryId, quantity));
+        if (reserved == 0) {
+            // The guarded UPDATE skips ledger-mode rows
+            Optional<Inventory> ledger = ledgerEnabled
+                    ? inventoryRepository.findLedgerByProductId(productId) : Optional.empty();
+            if (ledger.isPresent()) {
+                return reserveFromLedger(ledger.get(), orderId, productId, quantity);
+            }
+            Integer available = inventoryRepository.findAvailableQuantityById(inventoryId).orElse(0);
+            return rejectReservation(inventoryId, orderId, productId, quantity, available);
+        }
+
+        return acceptReservation(inventoryId, null, null, orderId, productId, quantity);
+    }
+
+    /**
+     * Sharded mode: guarded UPDATE on one shard row, falling back to siblings.
+     */
+    private ReservationResponse reserveFromShards(Inventory inventory, String orderId,
+                                                  String productId, Integer quantity) {
+        Optional<Integer> shardNo = shardService.reserve(
+                inventory.getId(), inventory.getShardCount(), orderId, quantity);
+        if (shardNo.isEmpty()) {
+            return rejectReservation(inventory.getId(), orderId, productId, quantity,
+                    shardService.getTotals(inventory.getId()).availableQuantity());
+        }
+        return acceptReservation(inventory.getId(), shardNo.get(), null, orderId, productId, quantity);
+    }
+
+    /**
+     * Located mode: guarded UPDATE on the shard of the location picked by
+     * the allocation strategy. The whole quantity comes from one location.
+     */
+    private ReservationResponse reserveFromLocations(Inventory inventory, String orderId, String productId,
+                                                     Integer quantity, DeliveryPoint deliveryPoint) {
+        LocationAllocator allocator = locationAllocator.get();
+        Optional<LocationAllocator.Allocation> allocation = reservationMetrics.timeLock("location_update",
+                List.of(productId), () -> allocator.allocate(inventory.getId(), quantity, deliveryPoint));
+        if (allocation.isEmpty()) {
+            return rejectReservation(inventory.getId(), orderId, productId, quantity,
+                    allocator.bestAvailable(inventory.getId()));
+        }
+        return acceptReservation(inventory.getId(), allocation.get().shardNo(), allocation.get().locationCode(),
+                orderId, productId, quantity);
+    }
+
+    /**
+     * Ledger mode: validate against the ledger head and append one entry.
+     * Appends racing for the same seq wait for each other, not for the row.
+     */
+    private ReservationResponse reserveFromLedger(Inventory inventory, String orderId,
+                                                  String productId, Integer quantity) {
+        Optional<StockLedgerService.LedgerState> reserved = reservationMetrics.timeLock("ledger_append",
+                List.of(productId), () -> stockLedger.tryReserve(inventory.getId(), quantity, orderId));
+        if (reserved.isEmpty()) {
+            return rejectReservation(inventory.getId(), orderId, productId, quantity,
+                    stockLedger.state(inventory.getId()).availableQuantity());
+        }
+        return acceptReservation(inventory.getId(), null, null, orderId, productId, quantity);
+    }
+
+    /**
+     * Persist PENDING reservation after stock has been reserved and publish success event.
+     */
+    private ReservationResponse acceptReservation(Long inventoryId, Integer shardNo, String locationCode,
+                                                  String orderId, String productId, Integer quantity) {
+        // Create reservation record
+        InventoryReservation reservation = InventoryReservation.builder()
+                .inventoryId(inventoryId)
+                .shardNo(shardNo)
+                .locationCode(locationCode)
+                .orderId(orderId)
+                .reservedQuantity(quantity)
+                .status(InventoryReservation.ReservationStatus.PENDING)
+                .build();
+        duplicateOrderFilter.record(orderId);
+        InventoryReservation saved = reservationRepository.save(reservation);
+        eventPublisher.publishEvent(StockChangedEvent.of(productId));
+
+        log.info("Stock reserved successfully - Order: {}, Product: {}, Quantity: {}",
+                orderId, productId, quantity);
+
+        // Publish success event (async via Kafka)
+        kafkaProducer.sendReservationSuccess(orderId, productId, quantity,
+                saved.getId().toString());
+
+        return ReservationResponse.builder()
+                .reservationId(saved.getId())
+                .orderId(orderId)
+                .productId(productId)
+                .reservedQuantity(quantity)
+                .locationCode(locationCode)
+                .status(InventoryReservation.ReservationStatus.PENDING)
+                .success(true)
+                .message("Stock reserved successfully")
+                .createdAt(saved.getCreatedAt())
+                .build();
+    }
+
+    /**
+     * Persist FAILED reservation and publish failure event.
+     */
+    private ReservationResponse rejectReservation(Long inventoryId, String orderId, String productId,
+                                                  Integer quantity, Integer available) {
+        log.warn("Insufficient stock - Product: {}, Requested: {}, Available: {}",
+                productId, quantity, available);
+
+        // Create failed reservation record
+        InventoryReservation failedReservation = InventoryReservation.builder()
+                .inventoryId(inventoryId)
+                .orderId(orderId)
+                .reservedQuantity(quantity)
+                .status(InventoryReservation.ReservationStatus.FAILED)
+                .failureReason(String.format(
+                        "Insufficient stock. Requested: %d, Available: %d",
+                        quantity, available))
+                .build();
+        duplicateOrderFilter.record(orderId);
+        reservationRepository.save(failedReservation);
+
+        // Publish failure event
+        kafkaProducer.sendReservationFailed(orderId, productId, quantity,
+                "Insufficient stock. Available: " + available);
+        return ReservationResponse.builder()
+                .orderId(orderId)
+                .productId(productId)
+                .reservedQuantity(quantity)
+                .status(InventoryReservation.ReservationStatus.FAILED)
+                .success(false)
+                .message(String.format(
+                        "Insufficient stock for product %s. Requested: %d, Available: %d",
+                        productId, quantity, available))
+                .build();
+    }
+
+    /**
+     * Reserve all lines of an order in one transaction (all-or-nothing).
+     *
+     * Flow:
+     * 1. Merge duplicate product lines, sort by productId
+     * 2. Lock all inventory rows in canonical productId order (deadlock-free
+     *    across concurrent carts)
+     * 3. Validate every line before changing any stock
+     * 4. Reserve all lines, create one reservation row per line
+     * 5. Publish one aggregated event for the whole order
+     *
+     * Always uses ordered row locks regardless of the configured lock strategy.
+     * Orders of engine-owned products are held by the reservation engine instead.
+     *
+     * @param request order reservation request
+     * @return per-line results, success only if every line was reserved
+     */
+    @Transactional
+    public OrderReservationResponse reserveOrder(OrderReservationRequest request) {
+        reservationMetrics.startTransaction("reserve_order");
+        try {
+            OrderReservationResponse response = reserveOrderLines(request);
+            reservationMetrics.outcome("reserve_order", response.isSuccess()
+                    ? ReservationMetrics.Outcome.SUCCESS : ReservationMetrics.Outcome.INSUFFICIENT);
+            return response;
+        } catch (RuntimeException e) {
+            reservationMetrics.outcome("reserve_order", e);
+            throw e;
+        }
+    }
+
+    private OrderReservationResponse reserveOrderLines(OrderReservationRequest request) {
+        String orderId = request.getOrderId();
+
+        // Canonical order: productId ascending
+        SortedMap<String, Integer> quantities = new TreeMap<>();
+        request.getLines().forEach(line ->
+                quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum));
+
+        log.info("Processing order reservation - Order: {}, Lines: {}", orderId, quantities.size());
+
+        if (reservationEngine.isPresent() && quantities.keySet().stream().anyMatch(reservationEngine.get()::owns)) {
+            // Orders of engine-owned products never touch the inventory rows here
+            if (quantities.keySet().stream().allMatch(reservationEngine.get()::owns)) {
+                return reservationEngine.get().reserveOrder(orderId, quantities);
+            }
+            throw new InventoryException(
+                    "Orders mixing products of the in-memory reservation engine with other products are not supported",
+                    "ENGINE_UNSUPPORTED"
+            );
+        }
+
+        try {
+            claimOrder(orderId);
+
+            List<Inventory> inventories = reservationMetrics.timeLock("ordered_rows", quantities.keySet(),
+                    () -> inventoryRepository.findAllByProductIdInWithLock(quantities.keySet()));
+            if (inventories.size() != quantities.size()) {
+                Set<String> missing = new TreeSet<>(quantities.keySet());
+                inventories.forEach(inventory -> missing.remove(inventory.getProductId()));
                 throw new InventoryException(
-                        String.format("Order %s already has an active reservation", orderId),
-                        "DUPLICATE_RESERVATION"
+                        String.format("Inventory not found for products %s", missing),
+                        "INVENTORY_NOT_FOUND"
                 );
             }
 
-            // Get locked inventory (pessimistic write lock)
-            Inventory inventory = inventoryService.getInventoryLockedForUpdate(productId);
+            // Validate all row-backed and ledger lines before touching stock
+            Map<Long, StockLedgerService.LedgerState> ledgerHeads = new LinkedHashMap<>();
+            inventories.stream()
+                    .filter(Inventory::isLedgerMode)
+                    .forEach(inventory -> ledgerHeads.put(inventory.getId(), stockLedger.state(inventory.getId())));
+            Map<String, Integer> insufficient = new LinkedHashMap<>();
+            for (Inventory inventory : inventories) {
+                if (inventory.isSharded()) {
+                    continue;
+                }
+                int available = inventory.isLedgerMode()
+                        ? ledgerHeads.get(inventory.getId()).availableQuantity()
+                        : inventory.getAvailableQuantity();
+                if (available < quantities.get(inventory.getProductId())) {
+                    insufficient.put(inventory.getProductId(), available);
+                }
+            }
+            if (!insufficient.isEmpty()) {
+                return rejectOrder(orderId, inventories, insufficient, quantities);
+            }
 
-            // Validate sufficient stock
-            if (!inventory.hasAvailableQuantity(quantity)) {
-                Integer available = inventory.getAvailableQuantity();
-                log.warn("Insufficient stock - Product: {}, Requested: {}, Available: {}",
-                        productId, quantity, available);
+            // Sharded and located lines reserve via guarded shard UPDATEs; undo them if one is short
+            Map<String, LocationAllocator.Allocation> shardByProduct = reserveShardedLines(
+                    orderId, inventories, quantities, request.getDeliveryPoint(), insufficient);
+            if (!insufficient.isEmpty()) {
+                return rejectOrder(orderId, inventories, insufficient, quantities);
+            }
 
-                // Create failed reservation record
-                InventoryReservation failedReservation = InventoryReservation.builder()
+            List<InventoryReservation> reservations = new ArrayList<>(inventories.size());
+            for (Inventory inventory : inventories) {
+                Integer quantity = quantities.get(inventory.getProductId());
+                Optional<LocationAllocator.Allocation> shard =
+                        Optional.ofNullable(shardByProduct.get(inventory.getProductId()));
+                if (inventory.isLedgerMode()) {
+                    stockLedger.append(inventory.getId(), ledgerHeads.get(inventory.getId()),
+                            StockLedgerEntry.EntryType.RESERVED, quantity, orderId);
+                } else if (!inventory.isSharded()) {
+                    inventory.reserve(quantity);
+                }
+                reservations.add(InventoryReservation.builder()
                         .inventoryId(inventory.getId())
+                        .shardNo(shard.map(LocationAllocator.Allocation::shardNo).orElse(null))
+                        .locationCode(shard.map(LocationAllocator.Allocation::locationCode).orElse(null))
                         .orderId(orderId)
                         .reservedQuantity(quantity)
-                        .status(InventoryReservation.ReservationStatus.FAILED)
-                        .failureReason(String.format(
-                                "Insufficient stock. Requested: %d, Available: %d",
-                                quantity, available))
-                        .build();
-                reservationRepository.save(failedReservation);
-
-                // Publish failure event
-                kafkaProducer.sendReservationFailed(orderId, productId, quantity,
-                        "Insufficient stock. Available: " + inventory.getAvailableQuantity());
-                return ReservationResponse.builder()
+                        .status(InventoryReservation.ReservationStatus.PENDING)
+                        .build());
+            }
+            inventoryRepository.saveAll(inventories);
+            duplicateOrderFilter.record(orderId);
+            List<InventoryReservation> saved = reservationRepository.saveAll(reservations);
+            eventPublisher.publishEvent(new StockChangedEvent(quantities.keySet()));
+
+            List<ReservationResponse> lines = new ArrayList<>(saved.size());
+            List<OrderReservedEvent.Line> eventLines = new ArrayList<>(saved.size());
+            for (int i = 0; i < saved.size(); i++) {
+                InventoryReservation reservation = saved.get(i);
+                String productId = inventories.get(i).getProductId();
+                lines.add(ReservationResponse.builder()
+                        .reservationId(reservation.getId())
                         .orderId(orderId)
                         .productId(productId)
-                        .reservedQuantity(quantity)
-                        .status(InventoryReservation.ReservationStatus.FAILED)
-                        .success(false)
-                        .message(String.format(
-                                "Insufficient stock for product %s. Requested: %d, Available: %d",
-                                productId, quantity, available))
-                        .build();
+                        .reservedQuantity(reservation.getReservedQuantity())
+                        .locationCode(reservation.getLocationCode())
+                        .status(InventoryReservation.ReservationStatus.PENDING)
+                        .success(true)
+                        .message("Stock reserved successfully")
+                        .createdAt(reservation.getCreatedAt())
+                        .build());
+                eventLines.add(OrderReservedEvent.Line.builder()
+                        .productId(productId)
+                        .quantity(reservation.getReservedQuantity())
+                        .reservationId(reservation.getId().toString())
+                        .build());
             }
 
-            // Create reservation record
-            InventoryReservation reservation = InventoryReservation.builder()
-                    .inventoryId(inventory.getId())
-                    .orderId(orderId)
-                    .reservedQuantity(quantity)
-                    .status(InventoryReservation.ReservationStatus.PENDING)
-                    .build();
-            InventoryReservation saved = reservationRepository.save(reservation);
+            log.info("Order reserved successfully - Order: {}, Lines: {}", orderId, lines.size());
 
-            // Update inventory
-            inventory.reserve(quantity);
-            inventoryRepository.save(inventory);
+            // One aggregated event per order
+            kafkaProducer.sendOrderReservationSuccess(orderId, eventLines);
 
-            log.info("Stock reserved successfully - Order: {}, Product: {}, Quantity: {}, " +
-                            "Remaining available: {}", orderId, productId, quantity,
-                    inventory.getAvailableQuantity());
-
-            // Publish success event (async via Kafka)
-            kafkaProducer.sendReservationSuccess(orderId, productId, quantity,
-                    reservation.getId().toString());
-
-            return ReservationResponse.builder()
-                    .reservationId(saved.getId())
+            return OrderReservationResponse.builder()
                     .orderId(orderId)
-                    .productId(productId)
-                    .reservedQuantity(quantity)
-                    .status(InventoryReservation.ReservationStatus.PENDING)
                     .success(true)
                     .message("Stock reserved successfully")
-                    .createdAt(saved.getCreatedAt())
+                    .lines(lines)
                     .build();
 
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateOrNot(orderId, e);
         } catch (ObjectOptimisticLockingFailureException e) {
-            log.warn("Optimistic lock conflict during reservation, retrying...", e);
-            // Retry logic can be implemented here with @Retry annotation
+            log.warn("Optimistic lock conflict during order reservation", e);
             throw new InventoryException(
                     "Conflict during reservation, please retry",
                     "RESERVATION_CONFLICT"
@@ -145,9 +504,119 @@ public class ReservationService {
         }
     }
 
+    /**
+     * Reserve sharded and located lines of an order. On the first short line
+     * every shard reservation made so far is released and the line is added
+     * to insufficient.
+     *
+     * @return shard (and location of located products) per reserved product
+     */
+    private Map<String, LocationAllocator.Allocation> reserveShardedLines(String orderId, List<Inventory> inventories,
+                                                                        Map<String, Integer> quantities,
+                                                                        DeliveryPoint deliveryPoint,
+                                                                        Map<String, Integer> insufficient) {
+        Map<String, LocationAllocator.Allocation> shardByProduct = new LinkedHashMap<>();
+        Map<String, Inventory> reserved = new LinkedHashMap<>();
+        for (Inventory inventory : inventories) {
+            if (!inventory.isSharded()) {
+                continue;
+            }
+            String productId = inventory.getProductId();
+            Integer quantity = quantities.get(productId);
+            boolean located = inventory.isLocated() && locationAllocator.isPresent();
+            Optional<LocationAllocator.Allocation> shard = located
+                    ? locationAllocator.get().allocate(inventory.getId(), quantity, deliveryPoint)
+                    : shardService.reserve(inventory.getId(), inventory.getShardCount(), orderId, quantity)
+                            .map(shardNo -> new LocationAllocator.Allocation(shardNo, null));
+            if (shard.isEmpty()) {
+                reserved.forEach((reservedProduct, reservedInventory) -> {
+                    shardService.release(reservedInventory.getId(), shardByProduct.get(reservedProduct).shardNo(),
+                            quantities.get(reservedProduct));
+                    locationAllocator.ifPresent(allocator -> allocator.invalidate(reservedInventory.getId()));
+                });
+                insufficient.put(productId, located
+                        ? locationAllocator.get().bestAvailable(inventory.getId())
+                        : shardService.getTotals(inventory.getId()).availableQuantity());
+                return Map.of();
+            }
+            shardByProduct.put(productId, shard.get());
+            reserved.put(productId, inventory);
+        }
+        return shardByProduct;
+    }
+
+    /**
+     * Record FAILED rows for the lines that cannot be satisfied and publish
+     * one aggregated failure event. No stock is changed.
+     *
+     * @param insufficient available quantity per short product
+     */
+    private OrderReservationResponse rejectOrder(String orderId, List<Inventory> inventories,
+                                                 Map<String, Integer> insufficient,
+                                                 Map<String, Integer> quantities) {
+        List<InventoryReservation> failed = new ArrayList<>(insufficient.size());
+        List<OrderReservationFailedEvent.Line> eventLines = new ArrayList<>(insufficient.size());
+        for (Inventory inventory : inventories) {
+            if (!insufficient.containsKey(inventory.getProductId())) {
+                continue;
+            }
+            Integer quantity = quantities.get(inventory.getProductId());
+            Integer available = insufficient.get(inventory.getProductId());
+            log.warn("Insufficient stock - Order: {}, Product: {}, Requested: {}, Available: {}",
+                    orderId, inventory.getProductId(), quantity, available);
+            failed.add(InventoryReservation.builder()
+                    .inventoryId(inventory.getId())
+                    .orderId(orderId)
+                    .reservedQuantity(quantity)
+                    .status(InventoryReservation.ReservationStatus.FAILED)
+                    .failureReason(String.format(
+                            "Insufficient stock. Requested: %d, Available: %d",
+                            quantity, available))
+                    .build());
+            eventLines.add(OrderReservationFailedEvent.Line.builder()
+                    .productId(inventory.getProductId())
+                    .requestedQuantity(quantity)
+                    .availableQuantity(available)
+                    .build());
+        }
+        duplicateOrderFilter.record(orderId);
+        reservationRepository.saveAll(failed);
+
+        String reason = String.format("Insufficient stock for %d of %d lines",
+                insufficient.size(), inventories.size());
+        kafkaProducer.sendOrderReservationFailed(orderId, eventLines, reason);
+
+        List<ReservationResponse> lines = inventories.stream()
+                .map(inventory -> {
+                    Integer quantity = quantities.get(inventory.getProductId());
+                    boolean lacking = insufficient.containsKey(inventory.getProductId());
+                    return ReservationResponse.builder()
+                            .orderId(orderId)
+                            .productId(inventory.getProductId())
+                            .reservedQuantity(quantity)
+                            .status(lacking ? InventoryReservation.ReservationStatus.FAILED : null)
+                            .success(false)
+                            .message(lacking
+                                    ? String.format("Insufficient stock for product %s. Requested: %d, Available: %d",
+                                    inventory.getProductId(), quantity, insufficient.get(inventory.getProductId()))
+                                    : "Not reserved, order rejected")
+                            .build();
+                })
+                .toList();
+
+        return OrderReservationResponse.builder()
+                .orderId(orderId)
+                .success(false)
+                .message(reason)
+                .lines(lines)
+                .build();
+    }
+
     /**
      * Release reserved stock (compensation for failed order).
      * Called when order fails or is cancelled.
+     * Releases every held line of the order; inventory rows are locked in
+     * the same productId order as {@link #reserveOrder}.
      *
      * @param orderId the order ID
      */
@@ -155,47 +624,67 @@ public class ReservationService {
     public void releaseReservation(String orderId) {
         log.info("Releasing reservation for order: {}", orderId);
 
-        InventoryReservation reservation = reservationRepository.findByOrderId(orderId)
-                .orElseThrow(() -> new InventoryException(
-                        String.format("Reservation not found for order %s", orderId),
-                        "RESERVATION_NOT_FOUND"
-                ));
-
-        if (reservation.getStatus() == InventoryReservation.ReservationStatus.RELEASED) {
-            log.warn("Reservation already released for order: {}", orderId);
+        if (reservationEngine.isPresent() && reservationEngine.get().release(orderId)) {
             return;
         }
 
-        // Get inventory and release
-        Inventory inventory = inventoryRepository.findById(reservation.getInventoryId())
-                .orElseThrow(() -> new InventoryException(
-                        "Inventory not found for release",
-                        "INVENTORY_NOT_FOUND"
-                ));
+        List<InventoryReservation> reservations = findReservations(orderId);
+        List<InventoryReservation> held = reservations.stream()
+                .filter(ReservationService::isHoldingStock)
+                .toList();
 
-        inventory.release(reservation.getReservedQuantity());
-        inventoryRepository.save(inventory);
+        if (held.isEmpty()) {
+            log.warn("Reservation already released or not holding stock for order: {}", orderId);
+            return;
+        }
 
-        // Mark reservation as released
-        reservation.setStatus(InventoryReservation.ReservationStatus.RELEASED);
-        reservation.setReleasedAt(java.time.LocalDateTime.now());
-        reservationRepository.save(reservation);
+        // Get inventories (locked, canonical order) and release
+        Map<Long, Inventory> inventories = lockInventories(held);
+        LocalDateTime now = LocalDateTime.now();
+        for (InventoryReservation reservation : held) {
+            Inventory inventory = inventories.get(reservation.getInventoryId());
+            if (inventory == null) {
+                throw new InventoryException("Inventory not found for release", "INVENTORY_NOT_FOUND");
+            }
+            if (reservation.getSettledAt() != null) {
+                // Settled stock already left total and reserved, a return puts it back
+                if (reservation.getShardNo() != null) {
+                    shardService.addStock(inventory.getId(), reservation.getShardNo(), reservation.getReservedQuantity());
+                } else {
+                    changeStock(inventory, StockLedgerEntry.EntryType.RETURNED, reservation.getReservedQuantity(), orderId);
+                    returnToEngine(inventory.getProductId(), reservation.getReservedQuantity());
+                }
+            } else if (reservation.getShardNo() != null) {
+                shardService.release(inventory.getId(), reservation.getShardNo(), reservation.getReservedQuantity());
+            } else {
+                changeStock(inventory, StockLedgerEntry.EntryType.RELEASED, reservation.getReservedQuantity(), orderId);
+            }
 
-        log.info("Reservation released for order: {}", orderId);
+            // Mark reservation as released
+            reservation.setStatus(InventoryReservation.ReservationStatus.RELEASED);
+            reservation.setReleasedAt(now);
+        }
+        inventoryRepository.saveAll(inventories.values());
+        reservationRepository.saveAll(held);
+        eventPublisher.publishEvent(new StockChangedEvent(inventories.values().stream().map(Inventory::getProductId).toList()));
+
+        log.info("Reservation released for order: {}, lines: {}", orderId, held.size());
 
         // Publish compensation event
-        kafkaProducer.sendReservationCompensated(
-                orderId,
-                inventory.getProductId(),
-                reservation.getReservedQuantity(),
-                reservation.getId().toString(),
-                "Order cancelled or saga rollback"
-        );
+        for (InventoryReservation reservation : held) {
+            kafkaProducer.sendReservationCompensated(
+                    orderId,
+                    inventories.get(reservation.getInventoryId()).getProductId(),
+                    reservation.getReservedQuantity(),
+                    reservation.getId().toString(),
+                    "Order cancelled or saga rollback"
+            );
+        }
     }
 
     /**
      * Confirm reservation (called after payment confirmation).
-     * Moves from PENDING to CONFIRMED status.
+     * Moves every PENDING line of the order to CONFIRMED status.
      *
      * @param orderId the order ID
      */
@@ -203,22 +692,465 @@ public class ReservationService {
     public void confirmReservation(String orderId) {
         log.info("Confirming reservation for order: {}", orderId);
 
-        InventoryReservation reservation = reservationRepository.findByOrderId(orderId)
-                .orElseThrow(() -> new InventoryException(
-                        String.format("Reservation not found for order %s", orderId),
-                        "RESERVATION_NOT_FOUND"
-                ));
+        if (reservationEngine.isPresent() && reservationEngine.get().confirm(orderId)) {
+            return;
+        }
+
+        List<InventoryReservation> pending = findReservations(orderId).stream()
+                .filter(reservation -> reservation.getStatus() == InventoryReservation.ReservationStatus.PENDING)
+                .toList();
+
+        if (pending.isEmpty()) {
+            log.warn("Cannot confirm reservation not in PENDING status - Order: {}", orderId);
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        pending.forEach(reservation -> {
+            reservation.setStatus(InventoryReservation.ReservationStatus.CONFIRMED);
+            reservation.setConfirmedAt(now);
+        });
+        reservationRepository.saveAll(pending);
+
+        log.info("Reservation confirmed for order: {}, lines: {}", orderId, pending.size());
+    }
+
+    /**
+     * Confirm the orders held by the reservation engine. Runs outside any
+     * transaction: the engine applies in memory, so a rolled back or retried
+     * chunk transaction must not include it.
+     *
+     * @param orderIds order IDs of a bulk request
+     * @return results of the orders the engine tracks; the others are left to
+     *         {@link #confirmReservations}
+     */
+    public List<BulkOrderResult> confirmInEngine(List<String> orderIds) {
+        return applyInEngine(orderIds, ReservationEngine::confirm);
+    }
+
+    /**
+     * Confirm the reservations of many orders in one transaction.
+     * All lines are loaded and locked with one query and confirmed with one UPDATE.
+     * Orders held by the reservation engine go through {@link #confirmInEngine} first.
+     *
+     * @param orderIds order IDs, one chunk of a bulk request
+     * @return per-order results in request order
+     */
+    @Transactional
+    public List<BulkOrderResult> confirmReservations(List<String> orderIds) {
+        Map<String, BulkOrderResult> results = new LinkedHashMap<>();
+        Map<String, List<InventoryReservation>> linesByOrder = findReservations(orderIds, results);
+
+        List<Long> confirmed = new ArrayList<>();
+        linesByOrder.forEach((orderId, reservations) -> {
+            List<Long> pending = reservations.stream()
+                    .filter(reservation -> reservation.getStatus() == InventoryReservation.ReservationStatus.PENDING)
+                    .map(InventoryReservation::getId)
+                    .toList();
+            if (pending.isEmpty()) {
+                results.put(orderId, bulkResult(orderId, BulkOrderResult.Status.NOT_APPLICABLE, 0,
+                        "No reservation line in PENDING status"));
+                return;
+            }
+            confirmed.addAll(pending);
+            results.put(orderId, bulkResult(orderId, BulkOrderResult.Status.APPLIED, pending.size(), null));
+        });
+        if (!confirmed.isEmpty()) {
+            reservationRepository.markConfirmed(confirmed, LocalDateTime.now());
+        }
+
+        log.info("Bulk confirmed {} reservation lines of {} orders", confirmed.size(), orderIds.size());
+        return List.copyOf(results.values());
+    }
+
+    /**
+     * Release the orders held by the reservation engine, outside any
+     * transaction like {@link #confirmInEngine}.
+     *
+     * @param orderIds order IDs of a bulk request
+     * @return results of the orders the engine tracks; the others are left to
+     *         {@link #releaseReservations}
+     */
+    public List<BulkOrderResult> releaseInEngine(List<String> orderIds) {
+        return applyInEngine(orderIds, ReservationEngine::release);
+    }
+
+    /**
+     * Release the reservations of many orders in one transaction.
+     * All lines are loaded and locked with one query; stock deltas are summed
+     * per inventory row / shard, so each product is updated once, and lines
+     * are marked released with one UPDATE. Compensation events go out as one batch.
+     * Orders held by the reservation engine go through {@link #releaseInEngine} first.
+     *
+     * @param orderIds order IDs, one chunk of a bulk request
+     * @return per-order results in request order
+     */
+    @Transactional
+    public List<BulkOrderResult> releaseReservations(List<String> orderIds) {
+        Map<String, BulkOrderResult> results = new LinkedHashMap<>();
+        Map<String, List<InventoryReservation>> linesByOrder = findReservations(orderIds, results);
+
+        List<InventoryReservation> held = new ArrayList<>();
+        linesByOrder.forEach((orderId, reservations) -> {
+            List<InventoryReservation> holding = reservations.stream()
+                    .filter(ReservationService::isHoldingStock)
+                    .toList();
+            if (holding.isEmpty()) {
+                results.put(orderId, bulkResult(orderId, BulkOrderResult.Status.NOT_APPLICABLE, 0,
+                        "Reservation already released or not holding stock"));
+                return;
+            }
+            held.addAll(holding);
+            results.put(orderId, bulkResult(orderId, BulkOrderResult.Status.APPLIED, holding.size(), null));
+        });
+        if (held.isEmpty()) {
+            return List.copyOf(results.values());
+        }
+
+        Map<Long, Inventory> inventories = lockInventories(held);
+        Map<Long, Integer> releasedByInventory = new TreeMap<>();
+        Map<Long, Integer> returnedByInventory = new TreeMap<>();
+        // inventoryId -> shardNo -> quantity
+        Map<Long, Map<Integer, Integer>> releasedByShard = new TreeMap<>();
+        Map<Long, Map<Integer, Integer>> returnedByShard = new TreeMap<>();
+        for (InventoryReservation reservation : held) {
+            if (!inventories.containsKey(reservation.getInventoryId())) {
+                throw new InventoryException("Inventory not found for release", "INVENTORY_NOT_FOUND");
+            }
+            // Settled stock already left total and reserved, a return puts it back
+            boolean settled = reservation.getSettledAt() != null;
+            if (reservation.getShardNo() != null) {
+                (settled ? returnedByShard : releasedByShard)
+                        .computeIfAbsent(reservation.getInventoryId(), id -> new TreeMap<>())
+                        .merge(reservation.getShardNo(), reservation.getReservedQuantity(), Integer::sum);
+            } else {
+                (settled ? returnedByInventory : releasedByInventory)
+                        .merge(reservation.getInventoryId(), reservation.getReservedQuantity(), Integer::sum);
+            }
+        }
+
+        releasedByInventory.forEach((inventoryId, quantity) ->
+                changeStock(inventories.get(inventoryId), StockLedgerEntry.EntryType.RELEASED, quantity, null));
+        returnedByInventory.forEach((inventoryId, quantity) -> {
+            changeStock(inventories.get(inventoryId), StockLedgerEntry.EntryType.RETURNED, quantity, null);
+            returnToEngine(inventories.get(inventoryId).getProductId(), quantity);
+        });
+        releasedByShard.forEach((inventoryId, shards) ->
+                shards.forEach((shardNo, quantity) -> shardService.release(inventoryId, shardNo, quantity)));
+        returnedByShard.forEach((inventoryId, shards) ->
+                shards.forEach((shardNo, quantity) -> shardService.addStock(inventoryId, shardNo, quantity)));
+        inventoryRepository.saveAll(inventories.values());
+        LocalDateTime now = LocalDateTime.now();
+        reservationRepository.markReleased(held.stream().map(InventoryReservation::getId).toList(), now);
+        eventPublisher.publishEvent(new StockChangedEvent(inventories.values().stream().map(Inventory::getProductId).toList()));
+
+        // Written to the outbox with this transaction, published as one relay batch
+        kafkaProducer.sendReservationsCompensated(held.stream()
+                .map(reservation -> ReservationCompensatedEvent.builder()
+                        .orderId(reservation.getOrderId())
+                        .productId(inventories.get(reservation.getInventoryId()).getProductId())
+                        .quantity(reservation.getReservedQuantity())
+                        .reservationId(reservation.getId().toString())
+                        .reason("Order cancelled or saga rollback")
+                        .timestamp(now.toString())
+                        .build())
+                .toList());
+
+        log.info("Bulk released {} reservation lines of {} orders on {} inventories",
+                held.size(), orderIds.size(), inventories.size());
+        return List.copyOf(results.values());
+    }
+
+    /**
+     * Expire one batch of PENDING reservations older than the cutoff.
+     * Safe to run on several replicas: rows are claimed with SKIP LOCKED.
+     *
+     * Flow:
+     * 1. Claim expired PENDING rows (reservation rows first, as release does)
+     * 2. Lock their inventory rows in canonical order
+     * 3. Release stock once per inventory row / shard
+     * 4. Write compensation events to the outbox as one batch
+     *
+     * Rows of engine-owned products are not claimed: the engine expires its
+     * own holds ({@link ReservationEngine#expirePending}).
+     *
+     * @param cutoff reservations created before this time are expired
+     * @param batchSize maximum number of reservations to claim
+     * @return number of reservations expired
+     */
+    @Transactional
+    public int expireReservations(LocalDateTime cutoff, int batchSize) {
+        List<InventoryReservation> claimed = reservationRepository.claimExpiredPending(
+                cutoff, reservationEngine.isPresent(), batchSize);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Inventory> inventories = lockInventories(claimed);
+        Map<Long, Integer> releasedByInventory = new TreeMap<>();
+        // inventoryId -> shardNo -> quantity
+        Map<Long, Map<Integer, Integer>> releasedByShard = new TreeMap<>();
+        List<InventoryReservation> expired = new ArrayList<>(claimed.size());
+        LocalDateTime now = LocalDateTime.now();
+
+        for (InventoryReservation reservation : claimed) {
+            Inventory inventory = inventories.get(reservation.getInventoryId());
+            if (reservationEngine.isPresent() && reservationEngine.get().owns(inventory.getProductId())) {
+                // Engine keeps the stock in memory and expires its holds itself
+                continue;
+            }
+            if (reservation.getShardNo() != null) {
+                releasedByShard.computeIfAbsent(reservation.getInventoryId(), id -> new TreeMap<>())
+                        .merge(reservation.getShardNo(), reservation.getReservedQuantity(), Integer::sum);
+            } else {
+                releasedByInventory.merge(reservation.getInventoryId(), reservation.getReservedQuantity(), Integer::sum);
+            }
+            reservation.setStatus(InventoryReservation.ReservationStatus.RELEASED);
+            reservation.setReleasedAt(now);
+            reservation.setFailureReason("Reservation expired");
+            expired.add(reservation);
+        }
 
-        if (reservation.getStatus() != InventoryReservation.ReservationStatus.PENDING) {
-            log.warn("Cannot confirm reservation not in PENDING status - Order: {}, Status: {}",
-                    orderId, reservation.getStatus());
+        releasedByInventory.forEach((inventoryId, quantity) ->
+                changeStock(inventories.get(inventoryId), StockLedgerEntry.EntryType.RELEASED, quantity, null));
+        releasedByShard.forEach((inventoryId, shards) ->
+                shards.forEach((shardNo, quantity) -> shardService.release(inventoryId, shardNo, quantity)));
+        inventoryRepository.saveAll(inventories.values());
+        reservationRepository.saveAll(expired);
+        eventPublisher.publishEvent(new StockChangedEvent(expired.stream()
+                .map(reservation -> inventories.get(reservation.getInventoryId()).getProductId())
+                .distinct()
+                .toList()));
+
+        List<ReservationCompensatedEvent> events = expired.stream()
+                .map(reservation -> ReservationCompensatedEvent.builder()
+                        .orderId(reservation.getOrderId())
+                        .productId(inventories.get(reservation.getInventoryId()).getProductId())
+                        .quantity(reservation.getReservedQuantity())
+                        .reservationId(reservation.getId().toString())
+                        .reason("Reservation expired")
+                        .timestamp(now.toString())
+                        .build())
+                .toList();
+        if (!events.isEmpty()) {
+            // Written to the outbox with this transaction, published as one relay batch
+            kafkaProducer.sendReservationsCompensated(events);
+        }
+
+        log.info("Expired {} of {} claimed reservations", expired.size(), claimed.size());
+        return expired.size();
+    }
+
+    /**
+     * Settle one batch of CONFIRMED reservations: take their quantity out of
+     * total and reserved stock (Inventory.confirm) and set the settled marker.
+     * Safe to run on several replicas: unsettled rows are claimed with SKIP LOCKED
+     * and marked in the same transaction, so each reservation is settled once.
+     *
+     * Flow:
+     * 1. Claim unsettled CONFIRMED rows (reservation rows first, as release does);
+     *    with the engine running, rows of the products it owns are not claimed
+     * 2. Lock their inventory rows in canonical order
+     * 3. Sum quantities per inventory row / shard: one UPDATE per product per batch
+     * 4. Mark all settled reservations with one UPDATE
+     *
+     * @param batchSize maximum number of reservations to claim
+     * @return number of reservations settled
+     */
+    @Transactional
+    public int settleConfirmed(int batchSize) {
+        List<InventoryReservation> claimed = reservationRepository.claimUnsettledConfirmed(
+                reservationEngine.isPresent(), batchSize);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Inventory> inventories = lockInventories(claimed);
+        Map<Long, Integer> settledByInventory = new TreeMap<>();
+        // inventoryId -> shardNo -> quantity
+        Map<Long, Map<Integer, Integer>> settledByShard = new TreeMap<>();
+        List<Long> settled = new ArrayList<>(claimed.size());
+
+        for (InventoryReservation reservation : claimed) {
+            Inventory inventory = inventories.get(reservation.getInventoryId());
+            if (reservationEngine.isPresent() && reservationEngine.get().owns(inventory.getProductId())) {
+                // Engine settles its reservations on confirm (and on startup)
+                continue;
+            }
+            if (reservation.getShardNo() != null) {
+                settledByShard.computeIfAbsent(reservation.getInventoryId(), id -> new TreeMap<>())
+                        .merge(reservation.getShardNo(), reservation.getReservedQuantity(), Integer::sum);
+            } else {
+                settledByInventory.merge(reservation.getInventoryId(), reservation.getReservedQuantity(), Integer::sum);
+            }
+            settled.add(reservation.getId());
+        }
+        if (settled.isEmpty()) {
+            return 0;
+        }
+
+        settledByInventory.forEach((inventoryId, quantity) ->
+                changeStock(inventories.get(inventoryId), StockLedgerEntry.EntryType.CONFIRMED, quantity, null));
+        settledByShard.forEach((inventoryId, shards) ->
+                shards.forEach((shardNo, quantity) -> shardService.confirm(inventoryId, shardNo, quantity)));
+        inventoryRepository.saveAll(inventories.values());
+        reservationRepository.markSettled(settled, LocalDateTime.now());
+
+        Set<Long> touched = new TreeSet<>(settledByInventory.keySet());
+        touched.addAll(settledByShard.keySet());
+        eventPublisher.publishEvent(new StockChangedEvent(touched.stream()
+                .map(inventoryId -> inventories.get(inventoryId).getProductId())
+                .toList()));
+
+        log.debug("Settled {} of {} claimed reservations on {} inventories", settled.size(), claimed.size(), touched.size());
+        return settled.size();
+    }
+
+    /**
+     * Apply a stock change to a locked inventory row, or append it to the
+     * stock ledger if the product is in ledger mode.
+     *
+     * @param orderId order behind the change, null for aggregated changes
+     */
+    private void changeStock(Inventory inventory, StockLedgerEntry.EntryType type, Integer quantity, String orderId) {
+        if (inventory.isLedgerMode()) {
+            stockLedger.apply(inventory.getId(), type, quantity, orderId);
             return;
         }
+        switch (type) {
+            case RESERVED -> inventory.reserve(quantity);
+            case RELEASED -> inventory.release(quantity);
+            case CONFIRMED -> inventory.confirm(quantity);
+            case RETURNED -> inventory.addStock(quantity);
+            default -> throw new IllegalArgumentException("Not a reservation stock change: " + type);
+        }
+    }
 
-        reservation.setStatus(InventoryReservation.ReservationStatus.CONFIRMED);
-        reservation.setConfirmedAt(java.time.LocalDateTime.now());
-        reservationRepository.save(reservation);
+    /**
+     * The engine drops settled lines once flushed, so their returns come here.
+     * Its in-memory copy of the product gets the stock once the row is committed.
+     */
+    private void returnToEngine(String productId, Integer quantity) {
+        if (reservationEngine.isEmpty() || !reservationEngine.get().owns(productId)) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reservationEngine.get().returnStock(productId, quantity);
+            }
+        });
+    }
 
-        log.info("Reservation confirmed for order: {}", orderId);
+    /**
+     * Reject an order that already has reservation rows, then claim its ID
+     * in reservation_order for this transaction. The filter answers most new
+     * orders without a lookup; the claim's primary key catches the rest, for
+     * any product and across replicas.
+     */
+    private void claimOrder(String orderId) {
+        if (duplicateOrderFilter.isDuplicate(orderId)) {
+            log.warn("Order already has reservation: {}", orderId);
+            throw new InventoryException(
+                    String.format("Order %s already has an active reservation", orderId),
+                    "DUPLICATE_RESERVATION"
+            );
+        }
+        reservationRepository.insertOrder(orderId);
+    }
+
+    private RuntimeException duplicateOrNot(String orderId, DataIntegrityViolationException e) {
+        String cause = String.valueOf(e.getMostSpecificCause().getMessage());
+        if (!cause.contains("pk_reservation_order") && !cause.contains("uk_reservation_order_inventory")) {
+            return e;
+        }
+        log.warn("Order already has reservation (unique constraint): {}", orderId);
+        return new InventoryException(
+                String.format("Order %s already has an active reservation", orderId),
+                "DUPLICATE_RESERVATION"
+        );
+    }
+
+    private List<InventoryReservation> findReservations(String orderId) {
+        // Locked so a concurrent expiry sweep cannot release the same lines
+        List<InventoryReservation> reservations = reservationRepository.findAllByOrderIdWithLock(orderId);
+        if (reservations.isEmpty()) {
+            throw new InventoryException(
+                    String.format("Reservation not found for order %s", orderId),
+                    "RESERVATION_NOT_FOUND"
+            );
+        }
+        return reservations;
+    }
+
+    /**
+     * Apply an engine operation to each order. Orders the engine does not
+     * track are left out; an order the engine fails on is reported FAILED.
+     */
+    private List<BulkOrderResult> applyInEngine(List<String> orderIds,
+                                                BiPredicate<ReservationEngine, String> engineOperation) {
+        if (reservationEngine.isEmpty()) {
+            return List.of();
+        }
+        List<BulkOrderResult> results = new ArrayList<>();
+        for (String orderId : orderIds) {
+            try {
+                if (engineOperation.test(reservationEngine.get(), orderId)) {
+                    results.add(bulkResult(orderId, BulkOrderResult.Status.APPLIED, null, null));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Engine failed to apply bulk operation to order {}", orderId, e);
+                results.add(bulkResult(orderId, BulkOrderResult.Status.FAILED, null, e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Lock the reservation lines of many orders with one query, grouped by order.
+     * Orders without lines are recorded as NOT_FOUND.
+     */
+    private Map<String, List<InventoryReservation>> findReservations(
+            List<String> orderIds, Map<String, BulkOrderResult> results) {
+        for (String orderId : orderIds) {
+            results.put(orderId, bulkResult(orderId, BulkOrderResult.Status.NOT_FOUND, 0,
+                    "Reservation not found"));
+        }
+        if (orderIds.isEmpty()) {
+            return Map.of();
+        }
+        return reservationRepository.findAllByOrderIdInWithLock(orderIds).stream()
+                .collect(Collectors.groupingBy(InventoryReservation::getOrderId, LinkedHashMap::new,
+                        Collectors.toList()));
+    }
+
+    private static BulkOrderResult bulkResult(String orderId, BulkOrderResult.Status status,
+                                              Integer lines, String message) {
+        return BulkOrderResult.builder()
+                .orderId(orderId)
+                .status(status)
+                .lines(lines)
+                .message(message)
+                .build();
+    }
+
+    /**
+     * Lock inventory rows of the given reservations in canonical productId order.
+     */
+    private Map<Long, Inventory> lockInventories(List<InventoryReservation> reservations) {
+        Set<Long> inventoryIds = reservations.stream()
+                .map(InventoryReservation::getInventoryId)
+                .collect(Collectors.toSet());
+        return inventoryRepository.findAllByIdInWithLock(inventoryIds).stream()
+                .collect(Collectors.toMap(Inventory::getId, Function.identity(), (a, b) -> a, LinkedHashMap::new));
+    }
+
+    /**
+     * PENDING and unsettled CONFIRMED lines count in reserved_quantity;
+     * settled CONFIRMED lines are released as a return to stock.
+     */
+    private static boolean isHoldingStock(InventoryReservation reservation) {
+        return reservation.getStatus() == InventoryReservation.ReservationStatus.PENDING
+                || reservation.getStatus() == InventoryReservation.ReservationStatus.CONFIRMED;
     }
 }
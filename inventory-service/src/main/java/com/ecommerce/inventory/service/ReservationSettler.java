@@ -0,0 +1,92 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.repository.InventoryReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Settles CONFIRMED reservations in batches: their quantity leaves total and
+ * reserved stock with one UPDATE per product per batch.
+ *
+ * Each batch is a separate transaction; every replica may run the settler,
+ * batches are claimed with FOR UPDATE SKIP LOCKED.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.settlement.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationSettler {
+
+    private final ReservationService reservationService;
+    private final InventoryReservationRepository reservationRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.settlement.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${inventory.settlement.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private Counter settledCounter;
+    private Timer batchTimer;
+
+    @PostConstruct
+    void registerMetrics() {
+        settledCounter = Counter.builder("inventory.settlement.settled")
+                .description("Confirmed reservations applied to stock")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("inventory.settlement.batch")
+                .description("Time to settle one batch of confirmed reservations")
+                .register(meterRegistry);
+        Gauge.builder("inventory.settlement.backlog", backlog, AtomicLong::get)
+                .description("Confirmed reservations not settled yet, at the end of the last run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.settlement.interval-ms:1000}",
+            initialDelayString = "${inventory.settlement.interval-ms:1000}")
+    public void settle() {
+        int total = 0;
+
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int settled;
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                settled = reservationService.settleConfirmed(batchSize);
+            } catch (RuntimeException e) {
+                // Typically a lock conflict; the rows stay unsettled for the next run
+                log.warn("Settlement batch failed, retrying on next run", e);
+                meterRegistry.counter("inventory.settlement.failures").increment();
+                break;
+            } finally {
+                sample.stop(batchTimer);
+            }
+            total += settled;
+            if (settled < batchSize) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            settledCounter.increment(total);
+            log.info("Settled {} confirmed reservations", total);
+        }
+        try {
+            backlog.set(reservationRepository.countUnsettledConfirmed());
+        } catch (RuntimeException e) {
+            log.debug("Cannot read settlement backlog", e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.ecommerce.inventory.service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Application event: stock totals of these products changed.
+ * Listeners run after the publishing transaction commits.
+ */
+public record StockChangedEvent(List<String> productIds) {
+
+    public StockChangedEvent(Collection<String> productIds) {
+        this(List.copyOf(productIds));
+    }
+
+    public static StockChangedEvent of(String productId) {
+        return new StockChangedEvent(List.of(productId));
+    }
+}
@@ -0,0 +1,267 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.entity.StockLease;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replica-local stock quotas.
+ *
+ * Each replica leases a slice of a product's free stock and serves single
+ * reservations of that product from it: the reservation only updates this
+ * replica's lease row, so replicas stop contending on the shared inventory
+ * row. The lease is topped up in the background while the product is in
+ * demand, renewed by heartbeat and returned once the product goes idle or the
+ * replica shuts down. Leases of replicas that stop renewing are reclaimed by
+ * the others after ttl-ms. Maintenance runs on its own thread, so no other
+ * background job can delay renewal past ttl-ms.
+ *
+ * Leased stock counts as reserved, so availability reads understate free
+ * stock by the unused part of all leases (at most max-slice per replica and
+ * product). Products below min-slice / slice-fraction free units are never
+ * leased, so the last units are always reservable through the shared row.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.lease.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class StockLeaseManager {
+
+    private final StockLeaseService leaseService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.lease.instance-id:${HOSTNAME:${random.uuid}}}")
+    private String instanceId;
+
+    @Value("${inventory.lease.ttl-ms:30000}")
+    private long ttlMs;
+
+    @Value("${inventory.lease.renew-interval-ms:5000}")
+    private long renewIntervalMs;
+
+    @Value("${inventory.lease.slice-fraction:0.1}")
+    private double sliceFraction;
+
+    @Value("${inventory.lease.min-slice:10}")
+    private int minSlice;
+
+    @Value("${inventory.lease.max-slice:1000}")
+    private int maxSlice;
+
+    // Top up when less than this share of the last grant is left
+    @Value("${inventory.lease.low-watermark:0.25}")
+    private double lowWatermark;
+
+    @Value("${inventory.lease.idle-return-ms:60000}")
+    private long idleReturnMs;
+
+    @Value("${inventory.lease.reclaim-batch-size:100}")
+    private int reclaimBatchSize;
+
+    private final Map<String, LocalLease> leases = new ConcurrentHashMap<>();
+    // productId -> last reservation attempt, drives acquisition and idle return
+    private final Map<String, Long> demand = new ConcurrentHashMap<>();
+
+    private final LongAdder leaseHits = new LongAdder();
+    private final LongAdder sharedFallbacks = new LongAdder();
+    private ScheduledExecutorService maintainer;
+
+    @PostConstruct
+    void start() {
+        registerMetrics();
+        maintainer = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "stock-lease-maintainer"));
+        maintainer.scheduleWithFixedDelay(this::maintain, renewIntervalMs, renewIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    void registerMetrics() {
+        Gauge.builder("inventory.lease.local.hit.ratio", this, StockLeaseManager::hitRatio)
+                .description("Share of single reservations served from a local lease")
+                .register(meterRegistry);
+        Gauge.builder("inventory.lease.held", leases,
+                        map -> map.values().stream().mapToInt(lease -> lease.remaining.get()).sum())
+                .description("Unused leased stock held by this replica")
+                .register(meterRegistry);
+        log.info("Stock leasing enabled, instance {}", instanceId);
+    }
+
+    /**
+     * Take stock for one reservation from this replica's lease, inside the
+     * caller's transaction. The local counter is restored if it rolls back.
+     *
+     * @param productId the product ID
+     * @param quantity quantity to reserve
+     * @return inventory ID if served from the lease, empty to use the shared row
+     */
+    public Optional<Long> tryConsume(String productId, Integer quantity) {
+        demand.put(productId, System.currentTimeMillis());
+        LocalLease lease = leases.get(productId);
+        if (lease == null || !lease.tryTake(quantity)) {
+            return fallback();
+        }
+        if (leaseService.consume(lease.leaseId, instanceId, quantity) == 0) {
+            // Reclaimed or expired under us; the next top-up starts a new lease
+            leases.remove(productId, lease);
+            return fallback();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        lease.remaining.addAndGet(quantity);
+                    }
+                }
+            });
+        }
+        leaseHits.increment();
+        meterRegistry.counter("inventory.lease.reservations", "source", "lease").increment();
+        return Optional.of(lease.inventoryId);
+    }
+
+    /**
+     * Renew all leases, top up those of products in demand, return idle ones
+     * and reclaim leases of replicas that stopped renewing.
+     */
+    public void maintain() {
+        long now = System.currentTimeMillis();
+        try {
+            leaseService.renew(instanceId, expiry());
+            returnIdle(now);
+            topUp(now);
+            int reclaimed = leaseService.reclaimExpired(LocalDateTime.now(), reclaimBatchSize);
+            if (reclaimed > 0) {
+                meterRegistry.counter("inventory.lease.reclaimed").increment(reclaimed);
+            }
+        } catch (RuntimeException e) {
+            // Leases are renewed well before ttl-ms, the next run catches up
+            log.warn("Stock lease maintenance failed, retrying on next run", e);
+            meterRegistry.counter("inventory.lease.failures").increment();
+        }
+    }
+
+    /**
+     * Give every lease back before the replica goes away.
+     */
+    @PreDestroy
+    public void returnAll() throws InterruptedException {
+        maintainer.shutdown();
+        // A running maintenance may still top up; let it finish before returning
+        maintainer.awaitTermination(ttlMs, TimeUnit.MILLISECONDS);
+        leases.clear();
+        for (StockLease lease : leaseService.findOwnedBy(instanceId)) {
+            try {
+                returnLease(lease.getId());
+            } catch (RuntimeException e) {
+                log.warn("Failed to return stock lease {}, it expires in {} ms", lease.getId(), ttlMs, e);
+            }
+        }
+    }
+
+    private void topUp(long now) {
+        for (Map.Entry<String, Long> entry : demand.entrySet()) {
+            String productId = entry.getKey();
+            if (now - entry.getValue() > idleReturnMs) {
+                demand.remove(productId, entry.getValue());
+                continue;
+            }
+            LocalLease lease = leases.get(productId);
+            if (lease != null && lease.remaining.get() >= lease.granted * lowWatermark) {
+                continue;
+            }
+            leaseService.acquire(productId, instanceId, sliceFraction, minSlice, maxSlice, expiry())
+                    .ifPresent(grant -> {
+                        LocalLease current = leases.get(productId);
+                        if (current != null && current.leaseId.equals(grant.leaseId())) {
+                            current.granted = grant.granted();
+                            current.remaining.addAndGet(grant.granted());
+                        } else {
+                            // New lease row; it starts with exactly the granted quantity
+                            leases.put(productId, new LocalLease(grant.leaseId(), grant.inventoryId(), grant.granted()));
+                        }
+                        meterRegistry.counter("inventory.lease.acquired").increment(grant.granted());
+                    });
+        }
+    }
+
+    private void returnIdle(long now) {
+        for (Map.Entry<String, LocalLease> entry : leases.entrySet()) {
+            Long lastDemand = demand.get(entry.getKey());
+            if (lastDemand == null || now - lastDemand > idleReturnMs) {
+                // Stop serving from it first; in-flight reservations finish before the lease row is locked
+                leases.remove(entry.getKey(), entry.getValue());
+                returnLease(entry.getValue().leaseId);
+            }
+        }
+    }
+
+    private void returnLease(Long leaseId) {
+        int returned = leaseService.returnLease(leaseId);
+        if (returned > 0) {
+            meterRegistry.counter("inventory.lease.returned").increment(returned);
+        }
+    }
+
+    private Optional<Long> fallback() {
+        sharedFallbacks.increment();
+        meterRegistry.counter("inventory.lease.reservations", "source", "shared").increment();
+        return Optional.empty();
+    }
+
+    private LocalDateTime expiry() {
+        return LocalDateTime.now().plusNanos(ttlMs * 1_000_000);
+    }
+
+    private double hitRatio() {
+        long hits = leaseHits.sum();
+        long total = hits + sharedFallbacks.sum();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * This replica's view of one lease row; remaining is decremented before
+     * the row, so it never promises more than the row holds.
+     */
+    private static final class LocalLease {
+        private final Long leaseId;
+        private final Long inventoryId;
+        private final AtomicInteger remaining;
+        private volatile int granted;
+
+        private LocalLease(Long leaseId, Long inventoryId, int granted) {
+            this.leaseId = leaseId;
+            this.inventoryId = inventoryId;
+            this.remaining = new AtomicInteger(granted);
+            this.granted = granted;
+        }
+
+        private boolean tryTake(int quantity) {
+            int current;
+            do {
+                current = remaining.get();
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!remaining.compareAndSet(current, current - quantity));
+            return true;
+        }
+    }
+}
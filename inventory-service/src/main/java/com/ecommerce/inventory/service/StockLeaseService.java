@@ -0,0 +1,171 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.entity.Inventory;
+import com.ecommerce.inventory.entity.StockLease;
+import com.ecommerce.inventory.repository.InventoryRepository;
+import com.ecommerce.inventory.repository.LeaseRef;
+import com.ecommerce.inventory.repository.StockLeaseRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Transactions moving stock between inventory rows and leases.
+ *
+ * Leased quantity is held in the inventory row's reserved quantity, so
+ * reserved = held reservations + unused leases. Lock order is always the
+ * inventory row first, then the lease row.
+ */
+@Service
+@ConditionalOnProperty(name = "inventory.lease.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class StockLeaseService {
+
+    private final InventoryRepository inventoryRepository;
+    private final StockLeaseRepository leaseRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Stock granted to a replica by one acquire call.
+     *
+     * @param leaseId lease row ID
+     * @param inventoryId inventory the lease belongs to
+     * @param granted quantity added to the lease
+     */
+    public record LeaseGrant(Long leaseId, Long inventoryId, int granted) {
+    }
+
+    /**
+     * Lease (or top up) a slice of a product's free stock.
+     * Nothing is leased when the slice would be below minSlice, so the last
+     * units of a product stay on the shared row.
+     *
+     * @param productId the product ID
+     * @param ownerId replica ID
+     * @param fraction share of the free stock to lease
+     * @param minSlice smallest worthwhile grant
+     * @param maxSlice largest grant
+     * @param expiresAt lease expiry
+     * @return grant, empty if nothing was leased
+     */
+    @Transactional
+    public Optional<LeaseGrant> acquire(String productId, String ownerId, double fraction,
+                                        int minSlice, int maxSlice, LocalDateTime expiresAt) {
+        Optional<Inventory> locked = inventoryRepository.findByProductIdWithLock(productId);
+        if (locked.isEmpty() || locked.get().isSharded() || locked.get().isLedgerMode()) {
+            return Optional.empty();
+        }
+        Inventory inventory = locked.get();
+        int grant = Math.min(maxSlice, (int) (inventory.getAvailableQuantity() * fraction));
+        if (grant < minSlice) {
+            return Optional.empty();
+        }
+
+        inventory.reserve(grant);
+        inventoryRepository.save(inventory);
+        StockLease lease = leaseRepository.findByInventoryIdAndOwnerIdForUpdate(inventory.getId(), ownerId)
+                .orElseGet(() -> StockLease.builder()
+                        .inventoryId(inventory.getId())
+                        .ownerId(ownerId)
+                        .quantity(0)
+                        .build());
+        lease.setQuantity(lease.getQuantity() + grant);
+        lease.setExpiresAt(expiresAt);
+        StockLease saved = leaseRepository.save(lease);
+        eventPublisher.publishEvent(StockChangedEvent.of(productId));
+
+        log.debug("Leased {} of product {} to {}", grant, productId, ownerId);
+        return Optional.of(new LeaseGrant(saved.getId(), inventory.getId(), grant));
+    }
+
+    /**
+     * Take stock from a lease; joins the caller's reservation transaction.
+     *
+     * @return 1 if taken, 0 if the lease is gone, expired or short
+     */
+    @Transactional
+    public int consume(Long leaseId, String ownerId, Integer quantity) {
+        return leaseRepository.consume(leaseId, ownerId, quantity, LocalDateTime.now());
+    }
+
+    /**
+     * Give the unused part of a lease back to the inventory row and delete the lease.
+     *
+     * @return quantity returned
+     */
+    @Transactional
+    public int returnLease(Long leaseId) {
+        return leaseRepository.findRefById(leaseId)
+                .map(lease -> release(List.of(lease), false))
+                .orElse(0);
+    }
+
+    /**
+     * Return leases of replicas that stopped renewing them.
+     *
+     * @return quantity returned to inventory rows
+     */
+    @Transactional
+    public int reclaimExpired(LocalDateTime now, int limit) {
+        List<LeaseRef> expired = leaseRepository.findExpired(now, PageRequest.of(0, limit));
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        return release(expired, true);
+    }
+
+    @Transactional
+    public int renew(String ownerId, LocalDateTime expiresAt) {
+        return leaseRepository.renewAll(ownerId, expiresAt);
+    }
+
+    @Transactional
+    public List<StockLease> findOwnedBy(String ownerId) {
+        return leaseRepository.findByOwnerId(ownerId);
+    }
+
+    private int release(List<LeaseRef> leases, boolean onlyExpired) {
+        Set<Long> inventoryIds = leases.stream().map(LeaseRef::inventoryId).collect(Collectors.toSet());
+        // Inventory rows first, in canonical order, then the lease rows
+        Map<Long, Inventory> inventories = inventoryRepository.findAllByIdInWithLock(inventoryIds).stream()
+                .collect(Collectors.toMap(Inventory::getId, Function.identity()));
+
+        int returned = 0;
+        List<String> productIds = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (LeaseRef ref : leases) {
+            Optional<StockLease> locked = leaseRepository.findByIdForUpdate(ref.id());
+            // Gone, or renewed by its owner meanwhile
+            if (locked.isEmpty() || (onlyExpired && !locked.get().getExpiresAt().isBefore(now))) {
+                continue;
+            }
+            StockLease lease = locked.get();
+            Inventory inventory = inventories.get(lease.getInventoryId());
+            if (lease.getQuantity() > 0) {
+                inventory.release(lease.getQuantity());
+                productIds.add(inventory.getProductId());
+            }
+            returned += lease.getQuantity();
+            leaseRepository.delete(lease);
+            log.info("{} lease of {} items of product {} held by {}", onlyExpired ? "Reclaimed" : "Returned",
+                    lease.getQuantity(), inventory.getProductId(), lease.getOwnerId());
+        }
+        inventoryRepository.saveAll(inventories.values());
+        eventPublisher.publishEvent(new StockChangedEvent(productIds));
+        return returned;
+    }
+}
@@ -0,0 +1,61 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.repository.InventoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Background compaction of the stock ledger: copies the current stock of
+ * every ledger-mode product onto its inventory row and writes a new
+ * snapshot every inventory.ledger.snapshot-every entries, so reading the
+ * current stock sums a bounded number of entries.
+ *
+ * Each product is compacted in its own transaction; every replica may run
+ * the compactor, duplicate snapshots are rejected by the unique key.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.ledger.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class StockLedgerCompactor {
+
+    private final StockLedgerService ledgerService;
+    private final InventoryRepository inventoryRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.ledger.snapshot-every:1000}")
+    private int snapshotEvery;
+
+    private Counter snapshotCounter;
+
+    @PostConstruct
+    void registerMetrics() {
+        snapshotCounter = Counter.builder("inventory.ledger.snapshots")
+                .description("Stock snapshots written by the ledger compactor")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.ledger.compact-interval-ms:1000}",
+            initialDelayString = "${inventory.ledger.compact-interval-ms:1000}")
+    public void compact() {
+        for (Long inventoryId : inventoryRepository.findLedgerModeIds()) {
+            try {
+                if (ledgerService.compact(inventoryId, snapshotEvery)) {
+                    snapshotCounter.increment();
+                }
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Snapshot of inventory {} written by another replica", inventoryId);
+            } catch (RuntimeException e) {
+                log.warn("Compacting stock ledger of inventory {} failed, retrying on next run", inventoryId, e);
+            }
+        }
+    }
+}
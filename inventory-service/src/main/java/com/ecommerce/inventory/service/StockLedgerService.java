@@ -0,0 +1,377 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.entity.Inventory;
+import com.ecommerce.inventory.entity.StockLedgerEntry;
+import com.ecommerce.inventory.entity.StockSnapshot;
+import com.ecommerce.inventory.exception.InventoryException;
+import com.ecommerce.inventory.repository.InventoryRepository;
+import com.ecommerce.inventory.repository.LedgerTotals;
+import com.ecommerce.inventory.repository.StockLeaseRepository;
+import com.ecommerce.inventory.repository.StockLedgerRepository;
+import com.ecommerce.inventory.repository.StockSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Append-only stock ledger for products in ledger mode.
+ *
+ * A stock change of a ledger-mode product is one INSERT into stock_ledger
+ * with the next seq of the product; current stock is the latest snapshot
+ * plus the deltas of all later entries. Appends do not lock the inventory
+ * row: two writers that read the same head race for the same seq, the
+ * unique (inventory_id, seq) key keeps the first, and the other waits for
+ * its commit, re-reads the head and tries the following seq. Changes of one
+ * product are therefore still serialized, only the hot row lock is gone.
+ *
+ * The inventory row of a ledger-mode product is refreshed by
+ * {@link StockLedgerCompactor}, so row-based reads may lag by one compaction
+ * interval; reads through this service are exact.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class StockLedgerService {
+
+    private final InventoryRepository inventoryRepository;
+    private final StockLedgerRepository ledgerRepository;
+    private final StockSnapshotRepository snapshotRepository;
+    private final StockLeaseRepository leaseRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${inventory.ledger.enabled:false}")
+    private boolean ledgerEnabled;
+
+    @Value("${inventory.engine.enabled:false}")
+    private boolean engineEnabled;
+
+    // Lost seq races retried within one transaction before RESERVATION_CONFLICT
+    @Value("${inventory.ledger.max-append-attempts:100}")
+    private int maxAppendAttempts;
+
+    /**
+     * Stock of a ledger-mode product after entry seq.
+     *
+     * @param seq last applied ledger entry (or snapshot seq)
+     */
+    public record LedgerState(long seq, int totalQuantity, int reservedQuantity) {
+
+        public int availableQuantity() {
+            return totalQuantity - reservedQuantity;
+        }
+    }
+
+    /**
+     * Current stock: latest snapshot plus all later entries.
+     *
+     * @throws InventoryException RESERVATION_CONFLICT if ledger mode was switched
+     *         off meanwhile; a retry then finds the stock on the inventory row
+     */
+    public LedgerState state(Long inventoryId) {
+        return findState(inventoryId)
+                .orElseThrow(() -> new InventoryException(
+                        String.format("Stock ledger of inventory %d was closed, please retry", inventoryId),
+                        "RESERVATION_CONFLICT"
+                ));
+    }
+
+    /**
+     * Current stock for readers that can fall back to the inventory row.
+     *
+     * @return current stock, empty if ledger mode was switched off meanwhile
+     *         (the row then holds the stock)
+     */
+    public Optional<LedgerState> findState(Long inventoryId) {
+        StockSnapshot snapshot = latestSnapshot(inventoryId);
+        LedgerTotals totals = ledgerRepository.sumAfter(inventoryId, snapshot.getSeq());
+        if (totals.closed() > 0) {
+            return Optional.empty();
+        }
+        return Optional.of(headOf(snapshot, totals));
+    }
+
+    /**
+     * Stock as it was at a point in time, from the last snapshot taken before
+     * it and the entries written up to it.
+     *
+     * @return stock at that time, empty if the product was not in ledger mode then
+     */
+    public Optional<LedgerState> stateAt(Long inventoryId, LocalDateTime at) {
+        Optional<StockSnapshot> snapshot = snapshotRepository
+                .findFirstByInventoryIdAndAsOfLessThanEqualOrderBySeqDesc(inventoryId, at);
+        if (snapshot.isEmpty()) {
+            return Optional.empty();
+        }
+        LedgerTotals totals = ledgerRepository.sumAfterUntil(inventoryId, snapshot.get().getSeq(), at);
+        if (totals.closed() > 0) {
+            // Ledger mode was off at that time; the row history is not kept
+            return Optional.empty();
+        }
+        return Optional.of(headOf(snapshot.get(), totals));
+    }
+
+    /**
+     * Append one stock change on top of the state it was validated against.
+     * Applies the same checks as the Inventory entity methods.
+     *
+     * @param inventoryId the inventory ID
+     * @param head state read by {@link #state(Long)} in this transaction
+     * @param type kind of change
+     * @param quantity quantity (new total quantity for TOTAL_CHANGED)
+     * @param orderId order behind the change, null for aggregated changes
+     * @return state after the change
+     * @throws InventoryException RESERVATION_CONFLICT if another change took the next seq first
+     */
+    @Transactional
+    public LedgerState append(Long inventoryId, LedgerState head, StockLedgerEntry.EntryType type,
+                              int quantity, String orderId) {
+        return tryAppend(inventoryId, head, type, quantity, orderId)
+                .orElseThrow(() -> new InventoryException("Conflict during reservation, please retry",
+                        "RESERVATION_CONFLICT"));
+    }
+
+    /**
+     * Append one stock change on top of the current state. A lost seq race
+     * is retried in this transaction against the new head.
+     *
+     * @return state after the change
+     */
+    @Transactional
+    public LedgerState apply(Long inventoryId, StockLedgerEntry.EntryType type, int quantity, String orderId) {
+        for (int attempt = 0; attempt < maxAppendAttempts; attempt++) {
+            Optional<LedgerState> appended = tryAppend(inventoryId, state(inventoryId), type, quantity, orderId);
+            if (appended.isPresent()) {
+                return appended.get();
+            }
+        }
+        throw new InventoryException("Conflict during reservation, please retry", "RESERVATION_CONFLICT");
+    }
+
+    /**
+     * Reserve stock if enough is available at the current head. A lost seq
+     * race is retried in this transaction against the new head.
+     *
+     * @return state after the reservation, empty if stock is insufficient
+     */
+    @Transactional
+    public Optional<LedgerState> tryReserve(Long inventoryId, int quantity, String orderId) {
+        for (int attempt = 0; attempt < maxAppendAttempts; attempt++) {
+            LedgerState head = state(inventoryId);
+            if (head.availableQuantity() < quantity) {
+                return Optional.empty();
+            }
+            Optional<LedgerState> appended = tryAppend(
+                    inventoryId, head, StockLedgerEntry.EntryType.RESERVED, quantity, orderId);
+            if (appended.isPresent()) {
+                return appended;
+            }
+        }
+        throw new InventoryException("Conflict during reservation, please retry", "RESERVATION_CONFLICT");
+    }
+
+    /**
+     * @return state after the change, empty if head.seq + 1 was taken meanwhile
+     */
+    private Optional<LedgerState> tryAppend(Long inventoryId, LedgerState head, StockLedgerEntry.EntryType type,
+                                            int quantity, String orderId) {
+        int totalDelta;
+        int reservedDelta;
+        switch (type) {
+            case RESERVED -> {
+                if (head.availableQuantity() < quantity) {
+                    throw new IllegalStateException(String.format(
+                            "Insufficient stock for inventory %d. Available: %d, Requested: %d",
+                            inventoryId, head.availableQuantity(), quantity));
+                }
+                totalDelta = 0;
+                reservedDelta = quantity;
+            }
+            case RELEASED, CONFIRMED -> {
+                if (head.reservedQuantity() < quantity) {
+                    throw new IllegalStateException(String.format(
+                            "Cannot %s %d items. Only %d reserved for inventory %d",
+                            type == StockLedgerEntry.EntryType.RELEASED ? "release" : "confirm",
+                            quantity, head.reservedQuantity(), inventoryId));
+                }
+                totalDelta = type == StockLedgerEntry.EntryType.CONFIRMED ? -quantity : 0;
+                reservedDelta = -quantity;
+            }
+            case RETURNED -> {
+                if (quantity <= 0) {
+                    throw new IllegalArgumentException("Quantity must be positive");
+                }
+                totalDelta = quantity;
+                reservedDelta = 0;
+            }
+            case TOTAL_CHANGED -> {
+                totalDelta = quantity - head.totalQuantity();
+                reservedDelta = 0;
+            }
+            default -> {
+                totalDelta = 0;
+                reservedDelta = 0;
+            }
+        }
+
+        long seq = head.seq() + 1;
+        if (ledgerRepository.insertIfAbsent(inventoryId, seq, type.name(), totalDelta, reservedDelta,
+                orderId, LocalDateTime.now()) == 0) {
+            log.debug("Ledger seq {} of inventory {} already taken", seq, inventoryId);
+            return Optional.empty();
+        }
+        return Optional.of(new LedgerState(seq, head.totalQuantity() + totalDelta,
+                head.reservedQuantity() + reservedDelta));
+    }
+
+    /**
+     * Switch a product to ledger mode: snapshot the row's stock, then route
+     * further changes to the ledger.
+     *
+     * @param productId the product ID
+     * @return the inventory (locked)
+     */
+    @Transactional
+    public Inventory enable(String productId) {
+        if (!ledgerEnabled) {
+            throw new InventoryException("Ledger mode is disabled (inventory.ledger.enabled)", "LEDGER_DISABLED");
+        }
+        if (engineEnabled) {
+            // Engine-owned products must not be changed behind its back
+            throw new InventoryException(
+                    "Ledger mode cannot be enabled while the in-memory reservation engine is enabled",
+                    "ENGINE_UNSUPPORTED"
+            );
+        }
+
+        Inventory inventory = lockInventory(productId);
+        if (inventory.isLedgerMode()) {
+            return inventory;
+        }
+        if (inventory.isSharded()) {
+            throw new InventoryException(
+                    String.format("Product %s uses stock shards, disable them first", productId),
+                    "INVALID_STOCK_MODE"
+            );
+        }
+        if (leaseRepository.existsByInventoryId(inventory.getId())) {
+            throw new InventoryException(
+                    String.format("Product %s has stock leases, return them first", productId),
+                    "INVALID_STOCK_MODE"
+            );
+        }
+
+        // Continue the seq chain after an earlier CLOSED entry
+        long seq = ledgerRepository.findMaxSeq(inventory.getId()).orElse(0L);
+        snapshotRepository.save(StockSnapshot.builder()
+                .inventoryId(inventory.getId())
+                .seq(seq)
+                .totalQuantity(inventory.getTotalQuantity())
+                .reservedQuantity(inventory.getReservedQuantity())
+                .asOf(LocalDateTime.now())
+                .build());
+        inventory.setLedgerMode(true);
+        inventoryRepository.save(inventory);
+
+        log.info("Product {} now uses the stock ledger from seq {}", productId, seq);
+        return inventory;
+    }
+
+    /**
+     * Switch a product back to row mode: close the ledger and write its
+     * current stock onto the inventory row. Appends racing with this see the
+     * CLOSED entry (or lose its seq) and are retried on the row.
+     *
+     * @param productId the product ID
+     * @return the inventory (locked)
+     */
+    @Transactional
+    public Inventory disable(String productId) {
+        Inventory inventory = lockInventory(productId);
+        if (!inventory.isLedgerMode()) {
+            throw new InventoryException(
+                    String.format("Product %s is not in ledger mode", productId),
+                    "INVALID_STOCK_MODE"
+            );
+        }
+
+        LedgerState head = state(inventory.getId());
+        append(inventory.getId(), head, StockLedgerEntry.EntryType.CLOSED, 0, null);
+        inventory.setTotalQuantity(head.totalQuantity());
+        inventory.setReservedQuantity(head.reservedQuantity());
+        inventory.setLedgerMode(false);
+        inventoryRepository.save(inventory);
+        eventPublisher.publishEvent(StockChangedEvent.of(productId));
+
+        log.info("Product {} left ledger mode at seq {}", productId, head.seq() + 1);
+        return inventory;
+    }
+
+    /**
+     * Refresh the inventory row of a ledger-mode product from the ledger and
+     * write a snapshot once snapshotEvery entries follow the latest one.
+     * A refreshed row is announced as a stock change, like any other write.
+     *
+     * @param inventoryId the inventory ID
+     * @param snapshotEvery entries after the latest snapshot that trigger a new one
+     * @return true if a snapshot was written
+     */
+    @Transactional
+    public boolean compact(Long inventoryId, int snapshotEvery) {
+        StockSnapshot snapshot = latestSnapshot(inventoryId);
+        LedgerTotals totals = ledgerRepository.sumAfter(inventoryId, snapshot.getSeq());
+        if (totals.closed() > 0) {
+            return false;
+        }
+        LedgerState head = headOf(snapshot, totals);
+        if (inventoryRepository.refreshFromLedger(inventoryId, head.totalQuantity(), head.reservedQuantity()) == 1) {
+            inventoryRepository.findById(inventoryId)
+                    .ifPresent(inventory -> eventPublisher.publishEvent(StockChangedEvent.of(inventory.getProductId())));
+        }
+        if (head.seq() - snapshot.getSeq() < snapshotEvery) {
+            return false;
+        }
+
+        StockLedgerEntry last = ledgerRepository.findByInventoryIdAndSeq(inventoryId, head.seq())
+                .orElseThrow();
+        // Another replica may write the same snapshot; the unique key keeps one
+        snapshotRepository.saveAndFlush(StockSnapshot.builder()
+                .inventoryId(inventoryId)
+                .seq(head.seq())
+                .totalQuantity(head.totalQuantity())
+                .reservedQuantity(head.reservedQuantity())
+                .asOf(last.getCreatedAt())
+                .build());
+        log.debug("Stock snapshot of inventory {} at seq {}", inventoryId, head.seq());
+        return true;
+    }
+
+    private StockSnapshot latestSnapshot(Long inventoryId) {
+        return snapshotRepository.findFirstByInventoryIdOrderBySeqDesc(inventoryId)
+                .orElseThrow(() -> new InventoryException(
+                        String.format("No stock snapshot for inventory %d", inventoryId),
+                        "LEDGER_NOT_INITIALIZED"
+                ));
+    }
+
+    private static LedgerState headOf(StockSnapshot snapshot, LedgerTotals totals) {
+        return new LedgerState(
+                totals.lastSeq() != null ? totals.lastSeq() : snapshot.getSeq(),
+                snapshot.getTotalQuantity() + totals.totalDelta().intValue(),
+                snapshot.getReservedQuantity() + totals.reservedDelta().intValue());
+    }
+
+    private Inventory lockInventory(String productId) {
+        return inventoryRepository.findByProductIdWithLock(productId)
+                .orElseThrow(() -> new InventoryException(
+                        String.format("Inventory not found for product %s", productId),
+                        "INVENTORY_NOT_FOUND"
+                ));
+    }
+}
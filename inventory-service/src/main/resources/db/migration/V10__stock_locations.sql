@@ -0,0 +1,26 @@
+-- src/main/resources/db/migration/V10__stock_locations.sql
+-- Multi-warehouse stock. A located product keeps its stock per location in
+-- inventory_shard rows bound to a stock_location; reservations are
+-- allocated to one location (nearest-first or balance-first) and record it.
+-- The parent inventory row keeps only stock reserved before locations were set.
+
+CREATE TABLE IF NOT EXISTS stock_location (
+    id BIGSERIAL PRIMARY KEY,
+    code VARCHAR(64) NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    latitude DOUBLE PRECISION,
+    longitude DOUBLE PRECISION,
+    -- Lower first when no delivery point is given or distances tie
+    priority INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_stock_location_code UNIQUE (code)
+    );
+
+ALTER TABLE inventory ADD COLUMN IF NOT EXISTS located BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- Location whose stock the shard row holds (NULL = plain stock shard)
+ALTER TABLE inventory_shard ADD COLUMN IF NOT EXISTS location_code VARCHAR(64) REFERENCES stock_location(code);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_inventory_shard_location ON inventory_shard(inventory_id, location_code);
+
+-- Location the reserved stock was allocated from (NULL = not located)
+ALTER TABLE inventory_reservation ADD COLUMN IF NOT EXISTS location_code VARCHAR(64);
@@ -0,0 +1,19 @@
+-- src/main/resources/db/migration/V11__reservation_order.sql
+-- One row per order that ever got a reservation row. The primary key makes
+-- "one reservation per order" hold at insert time for every product, so the
+-- duplicate-order filter may skip the lookup on a definite miss.
+-- Rows of archived months are deleted together with their partition.
+
+CREATE TABLE IF NOT EXISTS reservation_order (
+    order_id VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_reservation_order PRIMARY KEY (order_id)
+    );
+
+CREATE INDEX IF NOT EXISTS idx_reservation_order_created ON reservation_order(created_at);
+
+INSERT INTO reservation_order (order_id, created_at)
+SELECT order_id, MIN(created_at)
+FROM inventory_reservation
+GROUP BY order_id
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,10 @@
+-- src/main/resources/db/migration/V12__flash_sale_product.sql
+-- Products in flash-sale mode. The admission permits stay in memory per
+-- replica; this table only records the mode, so every replica's resync
+-- picks up an enable or disable made on another one.
+
+CREATE TABLE IF NOT EXISTS flash_sale_product (
+    product_id VARCHAR(255) NOT NULL REFERENCES inventory(product_id) ON DELETE CASCADE,
+    enabled_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_flash_sale_product PRIMARY KEY (product_id)
+    );
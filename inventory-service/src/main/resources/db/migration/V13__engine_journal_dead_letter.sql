@@ -0,0 +1,16 @@
+-- src/main/resources/db/migration/V13__engine_journal_dead_letter.sql
+-- Engine journal entries the write-behind flusher could not persist on their
+-- own (constraint violation, deleted inventory row). They are parked here
+-- instead of blocking the journal, for a manual decision.
+
+CREATE TABLE IF NOT EXISTS engine_journal_dead_letter (
+    id BIGSERIAL PRIMARY KEY,
+    entry_type VARCHAR(50) NOT NULL,
+    order_id VARCHAR(255),
+    product_id VARCHAR(255),
+    payload TEXT NOT NULL,
+    error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+    );
+
+CREATE INDEX IF NOT EXISTS idx_engine_journal_dead_letter_order ON engine_journal_dead_letter (order_id);
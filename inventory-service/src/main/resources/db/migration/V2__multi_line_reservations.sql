@@ -0,0 +1,7 @@
+-- src/main/resources/db/migration/V2__multi_line_reservations.sql
+-- One reservation row per order line: an order may reserve several products
+
+ALTER TABLE inventory_reservation DROP CONSTRAINT IF EXISTS inventory_reservation_order_id_key;
+
+ALTER TABLE inventory_reservation
+    ADD CONSTRAINT uk_reservation_order_inventory UNIQUE (order_id, inventory_id);
@@ -0,0 +1,28 @@
+-- src/main/resources/db/migration/V3__inventory_shards.sql
+-- Optional sharded stock counters for hot products.
+-- Free stock of a sharded product lives in inventory_shard rows; the parent
+-- inventory row keeps only stock reserved before sharding was enabled.
+
+ALTER TABLE inventory ADD COLUMN shard_count INTEGER NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS inventory_shard (
+    id BIGSERIAL PRIMARY KEY,
+    inventory_id BIGINT NOT NULL REFERENCES inventory(id) ON DELETE CASCADE,
+    shard_no INTEGER NOT NULL,
+    total_quantity INTEGER NOT NULL DEFAULT 0,
+    reserved_quantity INTEGER NOT NULL DEFAULT 0,
+    version INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT shard_quantity_check CHECK (total_quantity >= 0),
+    CONSTRAINT shard_reserved_check CHECK (reserved_quantity >= 0),
+    CONSTRAINT shard_reserved_not_exceed CHECK (reserved_quantity <= total_quantity),
+    CONSTRAINT uk_inventory_shard UNIQUE (inventory_id, shard_no)
+);
+
+CREATE TRIGGER update_inventory_shard_updated_at
+    BEFORE UPDATE ON inventory_shard
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
+
+-- Shard that holds the reserved stock of a reservation (NULL = parent row)
+ALTER TABLE inventory_reservation ADD COLUMN shard_no INTEGER;
@@ -0,0 +1,6 @@
+-- src/main/resources/db/migration/V4__reservation_expiry.sql
+-- Reservation TTL sweeper: find expired PENDING rows without walking
+-- the history of confirmed/released reservations in idx_created_at
+CREATE INDEX IF NOT EXISTS idx_reservation_pending_created
+    ON inventory_reservation(created_at)
+    WHERE status = 'PENDING';
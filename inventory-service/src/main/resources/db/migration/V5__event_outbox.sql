@@ -0,0 +1,12 @@
+-- src/main/resources/db/migration/V5__event_outbox.sql
+-- Transactional outbox: events are written with the business transaction
+-- and published to Kafka by the outbox relay, in id order.
+
+CREATE TABLE IF NOT EXISTS outbox_event (
+    id BIGSERIAL PRIMARY KEY,
+    topic VARCHAR(255) NOT NULL,
+    message_key VARCHAR(255) NOT NULL,
+    payload_type VARCHAR(255) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+    );
@@ -0,0 +1,97 @@
+-- src/main/resources/db/migration/V6__partition_reservations.sql
+-- Monthly range partitions of inventory_reservation on created_at.
+-- Old months are detached and archived by ReservationPartitionService, so
+-- the per-partition indexes (order_id, inventory_id/status) stay small.
+-- Partitioned unique constraints must contain created_at; the
+-- (order_id, inventory_id) uniqueness is enforced by a trigger instead.
+
+ALTER TABLE inventory_reservation RENAME TO inventory_reservation_legacy;
+ALTER INDEX idx_order_id RENAME TO idx_order_id_legacy;
+ALTER INDEX idx_inventory_status RENAME TO idx_inventory_status_legacy;
+ALTER INDEX idx_created_at RENAME TO idx_created_at_legacy;
+DROP INDEX IF EXISTS idx_reservation_pending_created;
+ALTER SEQUENCE inventory_reservation_id_seq OWNED BY NONE;
+
+CREATE TABLE inventory_reservation (
+    id BIGINT NOT NULL DEFAULT nextval('inventory_reservation_id_seq'),
+    inventory_id BIGINT NOT NULL REFERENCES inventory(id) ON DELETE CASCADE,
+    order_id VARCHAR(255) NOT NULL,
+    reserved_quantity INTEGER NOT NULL DEFAULT 0,
+    status VARCHAR(50) NOT NULL DEFAULT 'PENDING',
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    confirmed_at TIMESTAMP,
+    released_at TIMESTAMP,
+    failure_reason VARCHAR(500),
+    shard_no INTEGER,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE inventory_reservation_id_seq OWNED BY inventory_reservation.id;
+
+CREATE INDEX idx_order_id ON inventory_reservation(order_id);
+CREATE INDEX idx_inventory_status ON inventory_reservation(inventory_id, status);
+CREATE INDEX idx_reservation_pending_created
+    ON inventory_reservation(created_at)
+    WHERE status = 'PENDING';
+
+-- Safety net only: rows land here if the scheduler fell behind
+CREATE TABLE inventory_reservation_default PARTITION OF inventory_reservation DEFAULT;
+
+-- Create the partition of one month if missing, e.g. inventory_reservation_y2024m05
+CREATE OR REPLACE FUNCTION create_reservation_partition(month_start DATE)
+RETURNS BOOLEAN AS $$
+DECLARE
+    from_ts TIMESTAMP := date_trunc('month', month_start);
+    partition_name TEXT := 'inventory_reservation_' || to_char(from_ts, '"y"YYYY"m"MM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('CREATE TABLE %I PARTITION OF inventory_reservation FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, from_ts, from_ts + INTERVAL '1 month');
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
+
+-- (order_id, inventory_id) unique across partitions: inserts of one order
+-- are serialized by an advisory lock, then checked against all attached partitions
+CREATE OR REPLACE FUNCTION check_reservation_order_unique()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext(NEW.order_id));
+    IF EXISTS (SELECT 1 FROM inventory_reservation
+               WHERE order_id = NEW.order_id AND inventory_id = NEW.inventory_id) THEN
+        RAISE EXCEPTION 'duplicate key value violates unique constraint "uk_reservation_order_inventory"'
+            USING ERRCODE = 'unique_violation',
+                  CONSTRAINT = 'uk_reservation_order_inventory',
+                  DETAIL = format('Key (order_id, inventory_id)=(%s, %s) already exists.', NEW.order_id, NEW.inventory_id);
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DO $$
+DECLARE
+    month_start DATE := date_trunc('month', COALESCE(
+            (SELECT MIN(created_at) FROM inventory_reservation_legacy), CURRENT_TIMESTAMP));
+BEGIN
+    WHILE month_start <= date_trunc('month', CURRENT_TIMESTAMP) + INTERVAL '3 months' LOOP
+        PERFORM create_reservation_partition(month_start);
+        month_start := month_start + INTERVAL '1 month';
+    END LOOP;
+END;
+$$;
+
+-- Legacy rows are already unique; the trigger is created after the copy
+INSERT INTO inventory_reservation (id, inventory_id, order_id, reserved_quantity, status, created_at,
+                                   confirmed_at, released_at, failure_reason, shard_no)
+SELECT id, inventory_id, order_id, reserved_quantity, status, created_at,
+       confirmed_at, released_at, failure_reason, shard_no
+FROM inventory_reservation_legacy;
+
+CREATE TRIGGER inventory_reservation_order_unique
+    BEFORE INSERT ON inventory_reservation
+    FOR EACH ROW
+    EXECUTE FUNCTION check_reservation_order_unique();
+
+DROP TABLE inventory_reservation_legacy;
@@ -0,0 +1,9 @@
+-- src/main/resources/db/migration/V7__reservation_settlement.sql
+-- Settled marker: set once a CONFIRMED reservation's quantity has been
+-- removed from total and reserved stock (Inventory.confirm)
+ALTER TABLE inventory_reservation ADD COLUMN settled_at TIMESTAMP;
+
+-- Settlement backlog: CONFIRMED rows not settled yet
+CREATE INDEX IF NOT EXISTS idx_reservation_unsettled
+    ON inventory_reservation(id)
+    WHERE status = 'CONFIRMED' AND settled_at IS NULL;
@@ -0,0 +1,19 @@
+-- src/main/resources/db/migration/V8__stock_lease.sql
+-- Stock quota leases: a replica holds a slice of a product's free stock and
+-- serves reservations from it without locking the inventory row.
+-- Leased quantity is counted in inventory.reserved_quantity until it is
+-- used by a reservation or returned.
+
+CREATE TABLE IF NOT EXISTS stock_lease (
+    id BIGSERIAL PRIMARY KEY,
+    inventory_id BIGINT NOT NULL REFERENCES inventory(id) ON DELETE CASCADE,
+    owner_id VARCHAR(255) NOT NULL,
+    quantity INTEGER NOT NULL DEFAULT 0,
+    expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT lease_quantity_check CHECK (quantity >= 0),
+    CONSTRAINT uk_stock_lease_owner UNIQUE (inventory_id, owner_id)
+    );
+
+-- Reclaiming leases of dead replicas
+CREATE INDEX IF NOT EXISTS idx_stock_lease_expires ON stock_lease(expires_at);
@@ -0,0 +1,34 @@
+-- src/main/resources/db/migration/V9__stock_ledger.sql
+-- Ledger mode: stock changes of a product are appended to stock_ledger
+-- instead of updating the inventory row. Current stock is the latest
+-- snapshot plus the deltas of later entries; seq numbers each product's
+-- entries, and the unique (inventory_id, seq) key orders concurrent appends.
+
+ALTER TABLE inventory ADD COLUMN IF NOT EXISTS ledger_mode BOOLEAN NOT NULL DEFAULT FALSE;
+
+CREATE TABLE IF NOT EXISTS stock_ledger (
+    id BIGSERIAL PRIMARY KEY,
+    inventory_id BIGINT NOT NULL REFERENCES inventory(id) ON DELETE CASCADE,
+    seq BIGINT NOT NULL,
+    entry_type VARCHAR(20) NOT NULL,
+    total_delta INTEGER NOT NULL,
+    reserved_delta INTEGER NOT NULL,
+    order_id VARCHAR(255),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_stock_ledger_seq UNIQUE (inventory_id, seq)
+    );
+
+-- Stock of a product after all entries up to seq; as_of is the time of that entry
+CREATE TABLE IF NOT EXISTS stock_snapshot (
+    id BIGSERIAL PRIMARY KEY,
+    inventory_id BIGINT NOT NULL REFERENCES inventory(id) ON DELETE CASCADE,
+    seq BIGINT NOT NULL,
+    total_quantity INTEGER NOT NULL,
+    reserved_quantity INTEGER NOT NULL,
+    as_of TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_stock_snapshot_seq UNIQUE (inventory_id, seq)
+    );
+
+-- Point-in-time lookups: latest snapshot taken before a given time
+CREATE INDEX IF NOT EXISTS idx_stock_snapshot_as_of ON stock_snapshot(inventory_id, as_of);
@@ -0,0 +1,136 @@
+package com.ecommerce.inventory.benchmark;
+
+import com.ecommerce.inventory.dto.InventoryRequest;
+import com.ecommerce.inventory.dto.InventoryResponse;
+import com.ecommerce.inventory.dto.ReservationRequest;
+import com.ecommerce.inventory.dto.ReservationResponse;
+import com.ecommerce.inventory.service.InventoryService;
+import com.ecommerce.inventory.service.ReservationLockStrategy;
+import com.ecommerce.inventory.service.ReservationService;
+import com.ecommerce.inventory.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Contention benchmark: many threads reserve the same hot SKU
+ * with each lock strategy against a real PostgreSQL.
+ *
+ * Stock covers half of the requests, so both the success and the
+ * insufficient-stock paths are exercised. Run with:
+ * ./gradlew :inventory-service:contentionBenchmark
+ *
+ * The JMH ReservationServiceBenchmark (benchmarks module) measures steady-state
+ * throughput and latency per strategy, on H2 unless pointed at a PostgreSQL.
+ * This one is the quick PostgreSQL check on the shared test containers: one
+ * burst per strategy that must sell exactly the stock, no more.
+ */
+@Tag("benchmark")
+class ReservationContentionBenchmark extends PostgresIntegrationTest {
+
+    private static final int THREADS = 16;
+    private static final int RESERVATIONS_PER_THREAD = 200;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    private ReservationLockStrategy configuredStrategy;
+
+    @BeforeEach
+    void rememberStrategy() {
+        configuredStrategy = (ReservationLockStrategy) ReflectionTestUtils.getField(
+                AopTestUtils.getTargetObject(reservationService), "lockStrategy");
+    }
+
+    @AfterEach
+    void restoreStrategy() {
+        // The Spring context is shared with the integration tests
+        ReflectionTestUtils.setField(AopTestUtils.getTargetObject(reservationService), "lockStrategy", configuredStrategy);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ReservationLockStrategy.class)
+    void hotSkuContention(ReservationLockStrategy strategy) throws Exception {
+        ReflectionTestUtils.setField(AopTestUtils.getTargetObject(reservationService), "lockStrategy", strategy);
+
+        int requests = THREADS * RESERVATIONS_PER_THREAD;
+        int stock = requests / 2;
+        String productId = "BENCH-" + strategy + "-" + UUID.randomUUID();
+        inventoryService.createInventory(new InventoryRequest(productId, stock, null));
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                long[] latencies = new long[RESERVATIONS_PER_THREAD + 1];
+                start.await();
+                for (int i = 0; i < RESERVATIONS_PER_THREAD; i++) {
+                    String orderId = productId + "-" + thread + "-" + i;
+                    long began = System.nanoTime();
+                    ReservationResponse response = reservationService.reserveStock(
+                            ReservationRequest.builder().productId(productId).orderId(orderId).quantity(1).build());
+                    latencies[i] = System.nanoTime() - began;
+                    if (response.isSuccess()) {
+                        latencies[RESERVATIONS_PER_THREAD]++;
+                    }
+                }
+                return latencies;
+            }));
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        List<Long> latencies = new ArrayList<>(requests);
+        long succeeded = 0;
+        for (Future<long[]> future : futures) {
+            long[] result = future.get(5, TimeUnit.MINUTES);
+            for (int i = 0; i < RESERVATIONS_PER_THREAD; i++) {
+                latencies.add(result[i]);
+            }
+            succeeded += result[RESERVATIONS_PER_THREAD];
+        }
+        long elapsedNanos = System.nanoTime() - began;
+        pool.shutdown();
+
+        Collections.sort(latencies);
+        System.out.printf("%-18s threads=%d requests=%d throughput=%.0f ops/s p50=%.2f ms p99=%.2f ms%n",
+                strategy, THREADS, requests,
+                requests / (elapsedNanos / 1_000_000_000.0),
+                percentileMillis(latencies, 0.50),
+                percentileMillis(latencies, 0.99));
+
+        // No oversell, no lost updates
+        InventoryResponse inventory = inventoryService.getInventory(productId);
+        assertThat(succeeded).isEqualTo(stock);
+        assertThat(inventory.getReservedQuantity()).isEqualTo(stock);
+        assertThat(inventory.getAvailableQuantity()).isZero();
+    }
+
+    private static double percentileMillis(List<Long> sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(index, 0)) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,109 @@
+package com.ecommerce.inventory.cache;
+
+import com.ecommerce.inventory.dto.InventoryResponse;
+import com.ecommerce.inventory.service.StockChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AvailabilityCacheTest {
+
+    private static final Duration STALENESS = Duration.ofSeconds(5);
+
+    private final InMemoryAvailabilityStore sharedStore = new InMemoryAvailabilityStore();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+    private AvailabilityCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = newCache();
+    }
+
+    @Test
+    void secondReadIsServedFromL1() {
+        cache.get("P-1", STALENESS, loader(7));
+        InventoryResponse cached = cache.get("P-1", STALENESS, loader(8));
+
+        assertThat(cached.getAvailableQuantity()).isEqualTo(7);
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.counter("inventory.cache.requests", "result", "l1").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void otherReplicaIsServedFromL2() {
+        cache.get("P-1", STALENESS, loader(7));
+        AvailabilityCache otherReplica = newCache();
+
+        InventoryResponse cached = otherReplica.get("P-1", STALENESS, loader(8));
+
+        assertThat(cached.getAvailableQuantity()).isEqualTo(7);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void zeroStalenessAlwaysReadsSource() {
+        cache.get("P-1", STALENESS, loader(7));
+
+        InventoryResponse fresh = cache.get("P-1", Duration.ZERO, loader(8));
+
+        assertThat(fresh.getAvailableQuantity()).isEqualTo(8);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void entryOlderThanEndpointBoundIsReloaded() {
+        sharedStore.put("P-1", new CachedAvailability(inventory(7), System.currentTimeMillis() - 10_000),
+                Duration.ofMinutes(1));
+
+        InventoryResponse loaded = cache.get("P-1", STALENESS, loader(8));
+
+        assertThat(loaded.getAvailableQuantity()).isEqualTo(8);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void stockChangeEvictsBothTiers() {
+        cache.get("P-1", STALENESS, loader(7));
+
+        cache.onStockChanged(StockChangedEvent.of("P-1"));
+
+        assertThat(sharedStore.get("P-1")).isEqualTo(Optional.empty());
+        assertThat(cache.get("P-1", STALENESS, loader(6)).getAvailableQuantity()).isEqualTo(6);
+        assertThat(loads).hasValue(2);
+    }
+
+    private AvailabilityCache newCache() {
+        AvailabilityCache availabilityCache = new AvailabilityCache(Optional.of(sharedStore), meterRegistry);
+        ReflectionTestUtils.setField(availabilityCache, "enabled", true);
+        ReflectionTestUtils.setField(availabilityCache, "l1MaxSize", 100L);
+        ReflectionTestUtils.setField(availabilityCache, "l1TtlMs", 60_000L);
+        ReflectionTestUtils.setField(availabilityCache, "l2TtlMs", 60_000L);
+        availabilityCache.init();
+        return availabilityCache;
+    }
+
+    private Supplier<InventoryResponse> loader(int available) {
+        return () -> {
+            loads.incrementAndGet();
+            return inventory(available);
+        };
+    }
+
+    private static InventoryResponse inventory(int available) {
+        return InventoryResponse.builder()
+                .productId("P-1")
+                .totalQuantity(available)
+                .reservedQuantity(0)
+                .availableQuantity(available)
+                .build();
+    }
+}
@@ -0,0 +1,256 @@
+package com.ecommerce.inventory.engine;
+
+import com.ecommerce.inventory.dto.OrderReservationResponse;
+import com.ecommerce.inventory.entity.Inventory;
+import com.ecommerce.inventory.event.OrderReservedEvent;
+import com.ecommerce.inventory.exception.InventoryException;
+import com.ecommerce.inventory.kafka.InventoryProducer;
+import com.ecommerce.inventory.repository.InventoryRepository;
+import com.ecommerce.inventory.repository.InventoryReservationRepository;
+import com.ecommerce.inventory.service.DuplicateOrderFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReservationEngineTest {
+
+    private static final String A = "ENGINE-A";
+    private static final String B = "ENGINE-B";
+
+    private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+    private final InventoryReservationRepository reservationRepository = mock(InventoryReservationRepository.class);
+    private final ReservationJournalWriter journalWriter = mock(ReservationJournalWriter.class);
+    private final InventoryProducer kafkaProducer = mock(InventoryProducer.class);
+    private final DuplicateOrderFilter duplicateOrderFilter = mock(DuplicateOrderFilter.class);
+
+    private ReservationEngine engine;
+    // Entries of every batch handed to the writer
+    private final List<JournalEntry> persisted = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(inventoryRepository.findAll()).thenReturn(List.of(
+                Inventory.builder().id(1L).productId(A).totalQuantity(10).build(),
+                Inventory.builder().id(2L).productId(B).totalQuantity(1).build()));
+        when(reservationRepository.findHoldingStock()).thenReturn(List.of());
+        when(journalWriter.persist(anyList())).thenAnswer(invocation -> {
+            List<JournalEntry> batch = invocation.getArgument(0);
+            persisted.addAll(batch);
+            return Map.of();
+        });
+
+        engine = new ReservationEngine(inventoryRepository, reservationRepository, journalWriter, kafkaProducer,
+                new SimpleMeterRegistry(), duplicateOrderFilter, mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(engine, "partitionCount", 4);
+        ReflectionTestUtils.setField(engine, "queueCapacity", 100);
+        ReflectionTestUtils.setField(engine, "commandTimeoutMs", 5000L);
+        // Flushed explicitly through stop()
+        ReflectionTestUtils.setField(engine, "flushIntervalMs", 60_000L);
+        ReflectionTestUtils.setField(engine, "flushBatchSize", 500);
+        engine.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        engine.stop();
+    }
+
+    @Test
+    void unknownOrderIsNotFound() {
+        assertThat(engine.release("ORDER-UNKNOWN")).isFalse();
+        assertThat(engine.confirm("ORDER-UNKNOWN")).isFalse();
+    }
+
+    @Test
+    void multiLineOrderHoldsEveryLine() {
+        OrderReservationResponse response = engine.reserveOrder("ORDER-1", quantities(2, 1));
+
+        assertThat(response.isSuccess()).isTrue();
+        assertThat(response.getLines()).hasSize(2);
+        assertThat(engine.snapshot(A).getReservedQuantity()).isEqualTo(2);
+        assertThat(engine.snapshot(B).getReservedQuantity()).isEqualTo(1);
+
+        assertThat(engine.release("ORDER-1")).isTrue();
+        assertThat(engine.snapshot(A).getReservedQuantity()).isZero();
+        assertThat(engine.snapshot(B).getReservedQuantity()).isZero();
+    }
+
+    @Test
+    void shortLineUndoesHeldLines() throws InterruptedException {
+        OrderReservationResponse response = engine.reserveOrder("ORDER-2", quantities(2, 5));
+
+        assertThat(response.isSuccess()).isFalse();
+        assertThat(engine.snapshot(A).getReservedQuantity()).isZero();
+
+        engine.stop();
+        // Only the short line is journaled, the undone hold of A never reaches the database
+        assertThat(persisted).singleElement().satisfies(entry -> {
+            assertThat(entry.type()).isEqualTo(JournalEntry.Type.ORDER_FAILED);
+            assertThat(entry.lines()).extracting(JournalEntry.Line::productId).containsExactly(B);
+        });
+        verify(kafkaProducer).sendOrderReservationFailed(eq("ORDER-2"), anyList(), anyString());
+    }
+
+    @Test
+    void duplicateOrderIsRejected() {
+        engine.reserveOrder("ORDER-3", quantities(1, 1));
+
+        assertThatThrownBy(() -> engine.reserveOrder("ORDER-3", quantities(1, 0)))
+                .isInstanceOf(InventoryException.class)
+                .extracting("errorCode")
+                .isEqualTo("DUPLICATE_RESERVATION");
+        assertThatThrownBy(() -> engine.reserve("ORDER-3", A, 1))
+                .isInstanceOf(InventoryException.class);
+    }
+
+    @Test
+    void orderReservationPublishesOneAggregatedEvent() throws InterruptedException {
+        engine.reserveOrder("ORDER-4", quantities(3, 1));
+
+        engine.stop();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<OrderReservedEvent.Line>> lines =
+                ArgumentCaptor.forClass(List.class);
+        verify(kafkaProducer).sendOrderReservationSuccess(eq("ORDER-4"), lines.capture());
+        assertThat(lines.getValue()).hasSize(2);
+        verify(kafkaProducer, never()).sendReservationSuccess(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void releasedOrderLeavesIndexOnceFlushed() throws InterruptedException {
+        engine.reserve("ORDER-5", A, 1);
+        engine.release("ORDER-5");
+
+        engine.stop();
+
+        verify(kafkaProducer).sendReservationCompensated(eq("ORDER-5"), eq(A), eq(1), any(), anyString());
+        assertThat(engine.release("ORDER-5")).isFalse();
+    }
+
+    @Test
+    void expiresOnlyPendingHoldsBeforeCutoff() throws InterruptedException {
+        engine.reserve("ORDER-6", A, 2);
+        engine.reserveOrder("ORDER-7", quantities(1, 1));
+        engine.reserve("ORDER-8", A, 1);
+        engine.confirm("ORDER-8");
+
+        assertThat(engine.expirePending(LocalDateTime.now().minusMinutes(1))).isZero();
+        assertThat(engine.expirePending(LocalDateTime.now().plusMinutes(1))).isEqualTo(3);
+        assertThat(engine.snapshot(A).getReservedQuantity()).isZero();
+        assertThat(engine.snapshot(B).getReservedQuantity()).isZero();
+
+        engine.stop();
+        assertThat(persisted)
+                .filteredOn(entry -> entry.type() == JournalEntry.Type.RELEASED)
+                .hasSize(3)
+                .allSatisfy(entry -> assertThat(entry.failureReason()).isEqualTo("Reservation expired"));
+        verify(kafkaProducer).sendReservationCompensated(eq("ORDER-6"), eq(A), eq(2), any(), eq("Reservation expired"));
+    }
+
+    @Test
+    void settledLineLeavesMemoryOnceFlushed() {
+        engine.reserve("ORDER-12", A, 2);
+        engine.confirm("ORDER-12");
+        assertThat(engine.snapshot(A).getTotalQuantity()).isEqualTo(8);
+
+        ReflectionTestUtils.invokeMethod(engine, "flushSafely");
+
+        // The return is left to the database path, which hands the stock back
+        assertThat(engine.release("ORDER-12")).isFalse();
+        engine.returnStock(A, 2);
+        assertThat(engine.snapshot(A).getTotalQuantity()).isEqualTo(10);
+        assertThat(engine.snapshot(A).getReservedQuantity()).isZero();
+    }
+
+    @Test
+    void settledLineReleasedBeforeFlushIsReturnedByEngine() throws InterruptedException {
+        engine.reserve("ORDER-13", A, 2);
+        engine.confirm("ORDER-13");
+
+        assertThat(engine.release("ORDER-13")).isTrue();
+        assertThat(engine.snapshot(A).getTotalQuantity()).isEqualTo(10);
+
+        engine.stop();
+        assertThat(persisted).extracting(JournalEntry::type).containsExactly(
+                JournalEntry.Type.RESERVED, JournalEntry.Type.CONFIRMED, JournalEntry.Type.RETURNED);
+    }
+
+    @Test
+    void entryFailingOnItsOwnIsDeadLetteredWithoutBlockingOthers() throws InterruptedException {
+        doAnswer(invocation -> {
+            List<JournalEntry> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(entry -> "ORDER-POISON".equals(entry.orderId()))) {
+                throw new DataIntegrityViolationException("violates foreign key constraint");
+            }
+            persisted.addAll(batch);
+            return Map.of();
+        }).when(journalWriter).persist(anyList());
+
+        engine.reserve("ORDER-9", A, 1);
+        engine.reserve("ORDER-POISON", A, 1);
+        engine.reserve("ORDER-10", B, 1);
+        engine.stop();
+
+        assertThat(persisted).extracting(JournalEntry::orderId).containsExactly("ORDER-9", "ORDER-10");
+        verify(journalWriter).deadLetter(
+                argThat(entry -> "ORDER-POISON".equals(entry.orderId())),
+                any(DataIntegrityViolationException.class));
+        verify(kafkaProducer).sendReservationSuccess(eq("ORDER-10"), eq(B), eq(1), any());
+        verify(kafkaProducer, never()).sendReservationSuccess(eq("ORDER-POISON"), anyString(), any(), any());
+    }
+
+    @Test
+    void unreachableDatabaseKeepsBatchInJournal() throws InterruptedException {
+        doAnswer(invocation -> {
+            throw new CannotCreateTransactionException("connection refused");
+        }).doAnswer(invocation -> {
+            List<JournalEntry> batch = invocation.getArgument(0);
+            persisted.addAll(batch);
+            return Map.of();
+        }).when(journalWriter).persist(anyList());
+
+        engine.reserve("ORDER-11", A, 1);
+        ReflectionTestUtils.invokeMethod(engine, "flushSafely");
+        assertThat(persisted).isEmpty();
+
+        engine.stop();
+
+        assertThat(persisted).extracting(JournalEntry::orderId).containsExactly("ORDER-11");
+        verify(journalWriter, never()).deadLetter(any(), any());
+    }
+
+    private static TreeMap<String, Integer> quantities(int a, int b) {
+        TreeMap<String, Integer> quantities = new TreeMap<>();
+        quantities.put(A, a);
+        if (b > 0) {
+            quantities.put(B, b);
+        }
+        return quantities;
+    }
+}
@@ -0,0 +1,95 @@
+package com.ecommerce.inventory.entity;
+
+import com.ecommerce.inventory.dto.InventoryResponse;
+import com.ecommerce.inventory.service.InventoryMapper;
+import com.ecommerce.inventory.service.InventoryMapperImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Domain operations measured by InventoryBenchmark.
+ */
+class InventoryTest {
+
+    private Inventory inventory;
+
+    @BeforeEach
+    void setUp() {
+        inventory = Inventory.builder()
+                .id(1L)
+                .productId("SKU-1")
+                .totalQuantity(10)
+                .reservedQuantity(0)
+                .build();
+    }
+
+    @Test
+    void reserveHoldsAvailableStock() {
+        inventory.reserve(4);
+
+        assertThat(inventory.getReservedQuantity()).isEqualTo(4);
+        assertThat(inventory.getAvailableQuantity()).isEqualTo(6);
+    }
+
+    @Test
+    void reserveBeyondAvailableIsRejected() {
+        inventory.reserve(8);
+
+        assertThatThrownBy(() -> inventory.reserve(3)).isInstanceOf(IllegalStateException.class);
+        assertThat(inventory.getReservedQuantity()).isEqualTo(8);
+    }
+
+    @Test
+    void releaseReturnsReservedStock() {
+        inventory.reserve(4);
+        inventory.release(4);
+
+        assertThat(inventory.getReservedQuantity()).isZero();
+        assertThat(inventory.getTotalQuantity()).isEqualTo(10);
+        assertThatThrownBy(() -> inventory.release(1)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void confirmTakesStockOutOfTotalAndReserved() {
+        inventory.reserve(4);
+        inventory.confirm(3);
+
+        assertThat(inventory.getTotalQuantity()).isEqualTo(7);
+        assertThat(inventory.getReservedQuantity()).isEqualTo(1);
+        assertThatThrownBy(() -> inventory.confirm(2)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void addStockRequiresPositiveQuantity() {
+        inventory.addStock(5);
+
+        assertThat(inventory.getTotalQuantity()).isEqualTo(15);
+        assertThatThrownBy(() -> inventory.addStock(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void benchmarkPairsLeaveTheEntityUnchanged() {
+        inventory.reserve(1);
+        inventory.release(1);
+        inventory.reserve(1);
+        inventory.confirm(1);
+        inventory.addStock(1);
+
+        assertThat(inventory.getTotalQuantity()).isEqualTo(10);
+        assertThat(inventory.getReservedQuantity()).isZero();
+    }
+
+    @Test
+    void responseCarriesAvailableQuantity() {
+        InventoryMapper mapper = new InventoryMapperImpl();
+        inventory.reserve(3);
+
+        InventoryResponse response = mapper.toResponse(inventory);
+
+        assertThat(response.getProductId()).isEqualTo("SKU-1");
+        assertThat(response.getAvailableQuantity()).isEqualTo(7);
+    }
+}
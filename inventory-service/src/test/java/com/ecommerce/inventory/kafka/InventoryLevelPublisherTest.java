@@ -0,0 +1,165 @@
+package com.ecommerce.inventory.kafka;
+
+import com.ecommerce.inventory.event.InventoryLevelEvent;
+import com.ecommerce.inventory.repository.InventoryRepository;
+import com.ecommerce.inventory.repository.ProductLevel;
+import com.ecommerce.inventory.service.StockChangedEvent;
+import com.ecommerce.inventory.service.StockLedgerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryLevelPublisherTest {
+
+    private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+    private final InventoryProducer kafkaProducer = mock(InventoryProducer.class);
+    private final StockLedgerService stockLedger = mock(StockLedgerService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private InventoryLevelPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        when(inventoryRepository.findLevelsByProductIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> productIds = invocation.getArgument(0);
+            return productIds.stream().map(id -> level(id, 10L, 3L, false)).toList();
+        });
+        when(kafkaProducer.sendInventoryLevel(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        publisher = new InventoryLevelPublisher(inventoryRepository, kafkaProducer, Optional.empty(), stockLedger,
+                meterRegistry);
+        ReflectionTestUtils.setField(publisher, "batchSize", 2);
+        publisher.registerMetrics();
+    }
+
+    @Test
+    void coalescesChangesWithinOneInterval() {
+        publisher.onStockChanged(StockChangedEvent.of("P-1"));
+        publisher.onStockChanged(StockChangedEvent.of("P-1"));
+        publisher.onStockChanged(new StockChangedEvent(List.of("P-1", "P-2")));
+
+        publisher.publishLevels();
+
+        ArgumentCaptor<InventoryLevelEvent> events = ArgumentCaptor.forClass(InventoryLevelEvent.class);
+        verify(kafkaProducer, times(2)).sendInventoryLevel(events.capture());
+        assertThat(events.getAllValues())
+                .extracting(InventoryLevelEvent::getProductId)
+                .containsExactlyInAnyOrder("P-1", "P-2");
+        assertThat(events.getValue().getAvailableQuantity()).isEqualTo(7);
+    }
+
+    @Test
+    void unchangedProductsAreNotPublished() {
+        publisher.onStockChanged(StockChangedEvent.of("P-1"));
+        publisher.publishLevels();
+
+        publisher.publishLevels();
+
+        verify(kafkaProducer, times(1)).sendInventoryLevel(any());
+    }
+
+    @Test
+    void readsLevelsInChunks() {
+        publisher.onStockChanged(new StockChangedEvent(List.of("P-1", "P-2", "P-3")));
+
+        publisher.publishLevels();
+
+        verify(inventoryRepository, times(2)).findLevelsByProductIdIn(anyCollection());
+        verify(kafkaProducer, times(3)).sendInventoryLevel(any());
+    }
+
+    @Test
+    void failedSendIsRetriedNextInterval() {
+        when(kafkaProducer.sendInventoryLevel(any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        publisher.onStockChanged(StockChangedEvent.of("P-1"));
+
+        publisher.publishLevels();
+        publisher.publishLevels();
+
+        verify(kafkaProducer, times(2)).sendInventoryLevel(any());
+        assertThat(meterRegistry.counter("inventory.levels.failed").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("inventory.levels.published").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void failedReadIsRetriedNextInterval() {
+        when(inventoryRepository.findLevelsByProductIdIn(anyCollection()))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(List.of(level("P-1", 1L, 0L, false)));
+        publisher.onStockChanged(StockChangedEvent.of("P-1"));
+
+        publisher.publishLevels();
+        verify(kafkaProducer, never()).sendInventoryLevel(any());
+        publisher.publishLevels();
+
+        verify(kafkaProducer).sendInventoryLevel(any());
+    }
+
+    @Test
+    void ledgerProductPublishesLedgerState() {
+        // Row still holds the stock of the last compaction
+        when(inventoryRepository.findLevelsByProductIdIn(anyCollection()))
+                .thenReturn(List.of(level("P-1", 10L, 3L, true)));
+        when(stockLedger.findState(1L)).thenReturn(Optional.of(new StockLedgerService.LedgerState(42L, 10, 8)));
+        publisher.onStockChanged(StockChangedEvent.of("P-1"));
+
+        publisher.publishLevels();
+
+        ArgumentCaptor<InventoryLevelEvent> event = ArgumentCaptor.forClass(InventoryLevelEvent.class);
+        verify(kafkaProducer).sendInventoryLevel(event.capture());
+        assertThat(event.getValue().getReservedQuantity()).isEqualTo(8);
+        assertThat(event.getValue().getAvailableQuantity()).isEqualTo(2);
+    }
+
+    @Test
+    void closedLedgerFallsBackToRow() {
+        when(inventoryRepository.findLevelsByProductIdIn(anyCollection()))
+                .thenReturn(List.of(level("P-1", 10L, 3L, true)));
+        when(stockLedger.findState(1L)).thenReturn(Optional.empty());
+        publisher.onStockChanged(StockChangedEvent.of("P-1"));
+
+        publisher.publishLevels();
+
+        ArgumentCaptor<InventoryLevelEvent> event = ArgumentCaptor.forClass(InventoryLevelEvent.class);
+        verify(kafkaProducer).sendInventoryLevel(event.capture());
+        assertThat(event.getValue().getAvailableQuantity()).isEqualTo(7);
+    }
+
+    @Test
+    void failedLedgerReadIsRetriedNextInterval() {
+        when(inventoryRepository.findLevelsByProductIdIn(anyCollection()))
+                .thenReturn(List.of(level("P-1", 10L, 3L, true)));
+        when(stockLedger.findState(1L))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(Optional.of(new StockLedgerService.LedgerState(42L, 10, 8)));
+        publisher.onStockChanged(StockChangedEvent.of("P-1"));
+
+        publisher.publishLevels();
+        verify(kafkaProducer, never()).sendInventoryLevel(any());
+        publisher.publishLevels();
+
+        verify(kafkaProducer).sendInventoryLevel(any());
+    }
+
+    private static ProductLevel level(String productId, long total, long reserved, boolean ledgerMode) {
+        return new ProductLevel(1L, productId, total, reserved, ledgerMode);
+    }
+}
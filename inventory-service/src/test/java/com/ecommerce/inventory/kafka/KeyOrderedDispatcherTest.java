@@ -0,0 +1,144 @@
+package com.ecommerce.inventory.kafka;
+
+import com.ecommerce.inventory.kafka.KeyOrderedDispatcher.PollProgress;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class KeyOrderedDispatcherTest {
+
+    private KeyOrderedDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void lanesRunInParallelAndKeepTheirOrder() {
+        dispatcher = new KeyOrderedDispatcher(4, 5000, 0);
+        CountDownLatch allStarted = new CountDownLatch(3);
+        List<Queue<Integer>> seen = new ArrayList<>();
+        List<Runnable> lanes = new ArrayList<>();
+        for (int l = 0; l < 3; l++) {
+            Queue<Integer> lane = new ConcurrentLinkedQueue<>();
+            seen.add(lane);
+            lanes.add(() -> {
+                allStarted.countDown();
+                try {
+                    // Every lane waits for the others: passes only if they run at the same time
+                    assertThat(allStarted.await(5, TimeUnit.SECONDS)).isTrue();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                for (int i = 0; i < 100; i++) {
+                    lane.add(i);
+                }
+            });
+        }
+
+        dispatcher.runLanes(lanes);
+
+        assertThat(seen).allSatisfy(lane -> assertThat(lane).isSortedAccordingTo(Integer::compare).hasSize(100));
+    }
+
+    @Test
+    void commitsContiguousCompletedPrefix() {
+        dispatcher = new KeyOrderedDispatcher(2, 5000, 0);
+        List<ConsumerRecord<String, String>> records = records(4);
+        PollProgress progress = new PollProgress(records);
+        progress.complete(records.get(0));
+        progress.complete(records.get(1));
+        progress.complete(records.get(3));
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        dispatcher.commit(ack, progress);
+
+        verify(ack).nack(eq(2), any(Duration.class));
+        verify(ack, never()).acknowledge();
+    }
+
+    @Test
+    void acknowledgesCompletePoll() {
+        dispatcher = new KeyOrderedDispatcher(2, 5000, 0);
+        List<ConsumerRecord<String, String>> records = records(2);
+        PollProgress progress = new PollProgress(records);
+        records.forEach(progress::complete);
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        dispatcher.commit(ack, progress);
+
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    void timedOutLaneIsInterruptedBeforeTheCommit() {
+        dispatcher = new KeyOrderedDispatcher(2, 200, 0);
+        List<ConsumerRecord<String, String>> records = records(2);
+        PollProgress progress = new PollProgress(records);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        AtomicBoolean stopped = new AtomicBoolean();
+
+        dispatcher.runLanes(List.of(
+                () -> progress.complete(records.get(0)),
+                () -> {
+                    try {
+                        Thread.sleep(60_000);
+                        progress.complete(records.get(1));
+                    } catch (InterruptedException e) {
+                        interrupted.set(true);
+                    }
+                    stopped.set(true);
+                }));
+
+        assertThat(interrupted).isTrue();
+        assertThat(stopped).isTrue();
+        Acknowledgment ack = mock(Acknowledgment.class);
+        dispatcher.commit(ack, progress);
+        verify(ack).nack(eq(1), any(Duration.class));
+    }
+
+    @Test
+    void waitsForLaneThatIgnoresTheInterrupt() {
+        dispatcher = new KeyOrderedDispatcher(2, 100, 0);
+        AtomicBoolean stopped = new AtomicBoolean();
+
+        dispatcher.runLanes(List.of(
+                () -> {
+                },
+                () -> {
+                    long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+                    while (System.nanoTime() < end) {
+                        Thread.onSpinWait();
+                    }
+                    stopped.set(true);
+                }));
+
+        assertThat(stopped).isTrue();
+    }
+
+    private static List<ConsumerRecord<String, String>> records(int count) {
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            records.add(new ConsumerRecord<>("order.created", 0, i, null, "{}"));
+        }
+        return records;
+    }
+}
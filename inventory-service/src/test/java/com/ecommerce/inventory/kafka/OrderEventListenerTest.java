@@ -0,0 +1,176 @@
+package com.ecommerce.inventory.kafka;
+
+import com.ecommerce.inventory.dto.ReservationRequest;
+import com.ecommerce.inventory.event.OrderEventDeadLetter;
+import com.ecommerce.inventory.exception.InventoryException;
+import com.ecommerce.inventory.service.FlashSaleGate;
+import com.ecommerce.inventory.service.OrderEventBatchProcessor;
+import com.ecommerce.inventory.service.ReservationRetryExecutor;
+import com.ecommerce.inventory.service.ReservationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderEventListenerTest {
+
+    private final ReservationService reservationService = mock(ReservationService.class);
+    private final OrderEventBatchProcessor batchProcessor = mock(OrderEventBatchProcessor.class);
+    private final InventoryProducer kafkaProducer = mock(InventoryProducer.class);
+    private final FlashSaleGate flashSaleGate = mock(FlashSaleGate.class);
+    private final Acknowledgment ack = mock(Acknowledgment.class);
+
+    private KeyOrderedDispatcher dispatcher;
+    private OrderEventListener listener;
+
+    @BeforeEach
+    void setUp() {
+        ReservationRetryExecutor retryExecutor = new ReservationRetryExecutor(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(retryExecutor, "maxAttempts", 1);
+        ReflectionTestUtils.setField(retryExecutor, "budgetPerSecond", 20.0);
+        ReflectionTestUtils.setField(retryExecutor, "budgetIdleMs", 60_000L);
+        ReflectionTestUtils.setField(retryExecutor, "budgetMaxProducts", 100L);
+        retryExecutor.init();
+        dispatcher = new KeyOrderedDispatcher(4, 5000, 0);
+        when(kafkaProducer.sendOrderEventDeadLetter(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        listener = new OrderEventListener(reservationService, batchProcessor, retryExecutor, kafkaProducer,
+                new ObjectMapper(), dispatcher, flashSaleGate);
+        ReflectionTestUtils.setField(listener, "deadLetterTimeoutMs", 1000L);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void reservesOneGroupPerProduct() {
+        listener.handleOrderCreated(List.of(
+                created(0, "O-1", "P-1"),
+                created(1, "O-2", "P-2"),
+                created(2, "O-3", "P-1")), ack);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ReservationRequest>> groups = ArgumentCaptor.forClass(List.class);
+        verify(batchProcessor, times(2)).reserveGroup(groups.capture());
+        assertThat(groups.getAllValues())
+                .extracting(group -> group.stream().map(ReservationRequest::getOrderId).toList())
+                .containsExactlyInAnyOrder(List.of("O-1", "O-3"), List.of("O-2"));
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    void malformedRecordIsDeadLetteredWithoutBlockingTheBatch() {
+        listener.handleOrderCreated(List.of(
+                record("order.created", 0, "not json"),
+                created(1, "O-1", "P-1")), ack);
+
+        verify(kafkaProducer).sendOrderEventDeadLetter(argThat(letter -> letter.getOffset() == 0));
+        verify(batchProcessor).reserveGroup(anyList());
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    void failedGroupFallsBackToSingleRecords() {
+        when(batchProcessor.reserveGroup(anyList())).thenThrow(new IllegalStateException("deadlock"));
+        when(reservationService.reserveStock(argThat(request -> "O-2".equals(request.getOrderId()))))
+                .thenThrow(new InventoryException("missing", "INVENTORY_NOT_FOUND"));
+
+        listener.handleOrderCreated(List.of(
+                created(0, "O-1", "P-1"),
+                created(1, "O-2", "P-1"),
+                created(2, "O-3", "P-1")), ack);
+
+        verify(reservationService, times(3)).reserveStock(any());
+        ArgumentCaptor<OrderEventDeadLetter> letters = ArgumentCaptor.forClass(OrderEventDeadLetter.class);
+        verify(kafkaProducer).sendOrderEventDeadLetter(letters.capture());
+        assertThat(letters.getValue().getOffset()).isEqualTo(1L);
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    void redeliveredOrderIsSkipped() {
+        when(batchProcessor.reserveGroup(anyList())).thenThrow(new IllegalStateException("duplicate"));
+        when(reservationService.reserveStock(any()))
+                .thenThrow(new InventoryException("seen", "DUPLICATE_RESERVATION"));
+
+        listener.handleOrderCreated(List.of(created(0, "O-1", "P-1")), ack);
+
+        verify(kafkaProducer, never()).sendOrderEventDeadLetter(any());
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    void unpublishedDeadLetterRedeliversFromItsRecord() {
+        when(batchProcessor.reserveGroup(argThat(group -> group.get(0).getProductId().equals("P-2"))))
+                .thenThrow(new IllegalStateException("deadlock"));
+        when(reservationService.reserveStock(any()))
+                .thenThrow(new InventoryException("missing", "INVENTORY_NOT_FOUND"));
+        when(kafkaProducer.sendOrderEventDeadLetter(any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        listener.handleOrderCreated(List.of(
+                created(0, "O-1", "P-1"),
+                created(1, "O-2", "P-2"),
+                created(2, "O-3", "P-1")), ack);
+
+        verify(ack, never()).acknowledge();
+        verify(ack).nack(eq(1), any(Duration.class));
+    }
+
+    @Test
+    void statusEventsAreGroupedByInventoryRow() {
+        when(batchProcessor.groupByInventory(anyList())).thenReturn(Map.of("O-1", 1L, "O-2", 1L, "O-3", 2L));
+        doThrow(new InventoryException("missing", "RESERVATION_NOT_FOUND"))
+                .when(reservationService).releaseReservation("O-4");
+
+        listener.handleOrderCancelled(List.of(
+                status(0, "O-1"),
+                status(1, "O-3"),
+                status(2, "O-2"),
+                status(3, "O-4")), ack);
+
+        verify(batchProcessor).releaseGroup(List.of("O-1", "O-2"));
+        verify(batchProcessor).releaseGroup(List.of("O-3"));
+        // No reservation rows: released alone, its failure goes to the dead-letter topic
+        verify(reservationService).releaseReservation("O-4");
+        verify(kafkaProducer).sendOrderEventDeadLetter(argThat(letter -> letter.getOffset() == 3));
+        verify(ack).acknowledge();
+    }
+
+    private static ConsumerRecord<String, String> created(long offset, String orderId, String productId) {
+        return record("order.created", offset,
+                "{\"orderId\":\"" + orderId + "\",\"productId\":\"" + productId + "\",\"quantity\":1}");
+    }
+
+    private static ConsumerRecord<String, String> status(long offset, String orderId) {
+        return record("order.cancelled", offset, "{\"orderId\":\"" + orderId + "\"}");
+    }
+
+    private static ConsumerRecord<String, String> record(String topic, long offset, String value) {
+        return new ConsumerRecord<>(topic, 0, offset, null, value);
+    }
+}
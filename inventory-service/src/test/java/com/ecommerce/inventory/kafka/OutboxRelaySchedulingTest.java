@@ -0,0 +1,33 @@
+package com.ecommerce.inventory.kafka;
+
+import com.ecommerce.inventory.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Every job on, as in production
+@TestPropertySource(properties = {
+        "inventory.reservation.expiry.enabled=true",
+        "inventory.settlement.enabled=true",
+        "inventory.reconciliation.enabled=true",
+        "inventory.levels.enabled=true"
+})
+class OutboxRelaySchedulingTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    @Autowired
+    private ScheduledTaskHolder scheduledTasks;
+
+    @Test
+    void everyScheduledJobHasItsOwnThread() {
+        // A long job (partition export, reconciliation) then never holds up the relay
+        assertThat(scheduledTasks.getScheduledTasks()).isNotEmpty();
+        assertThat(taskScheduler.getPoolSize()).isGreaterThanOrEqualTo(scheduledTasks.getScheduledTasks().size());
+    }
+}
@@ -0,0 +1,128 @@
+package com.ecommerce.inventory.kafka;
+
+import com.ecommerce.inventory.entity.OutboxEvent;
+import com.ecommerce.inventory.event.InventoryLevelEvent;
+import com.ecommerce.inventory.repository.OutboxEventRepository;
+import com.ecommerce.inventory.repository.OutboxRelayLock;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+    private final OutboxEventRepository outboxRepository = mock(OutboxEventRepository.class);
+    private final OutboxRelayLock relayLock = mock(OutboxRelayLock.class);
+    private final InventoryProducer producer = mock(InventoryProducer.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private OutboxRelay relay;
+    // Product ID of each payload handed to the producer, in send order
+    private final Queue<String> sent = new ConcurrentLinkedQueue<>();
+    // Send result per product ID; unlisted sends succeed
+    private final Map<String, CompletableFuture<SendResult<String, Object>>> results = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        when(relayLock.runLocked(anyLong(), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return true;
+        });
+        when(producer.send(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            String productId = invocation.<InventoryLevelEvent>getArgument(2).getProductId();
+            sent.add(productId);
+            return results.getOrDefault(productId, CompletableFuture.completedFuture(null));
+        });
+
+        relay = new OutboxRelay(outboxRepository, relayLock, producer, new ObjectMapper(), meterRegistry);
+        ReflectionTestUtils.setField(relay, "batchSize", 500);
+        ReflectionTestUtils.setField(relay, "sendTimeoutMs", 2000L);
+        relay.registerMetrics();
+    }
+
+    @Test
+    void failedSendHoldsBackLaterRowsOfItsKey() {
+        when(outboxRepository.findBatch(anyInt())).thenReturn(List.of(
+                event(1, "K"), event(2, "L"), event(3, "K"), event(4, "L")));
+        results.put("E-1", CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        relay.relay();
+
+        assertThat(sent).containsExactlyInAnyOrder("E-1", "E-2", "E-4");
+        assertThat(deleted()).containsExactlyInAnyOrder(2L, 4L);
+        assertThat(meterRegistry.counter("inventory.outbox.failed").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void rowsOfOneKeyAreSentOneAfterTheOther() {
+        when(outboxRepository.findBatch(anyInt())).thenReturn(List.of(
+                event(1, "K"), event(2, "K"), event(3, "L")));
+        // Never acknowledged within the poll
+        results.put("E-1", new CompletableFuture<>());
+        ReflectionTestUtils.setField(relay, "sendTimeoutMs", 200L);
+
+        relay.relay();
+
+        assertThat(sent).containsExactlyInAnyOrder("E-1", "E-3");
+        assertThat(deleted()).containsExactly(3L);
+    }
+
+    @Test
+    void sendsEveryKeyInIdOrder() {
+        when(outboxRepository.findBatch(anyInt())).thenReturn(List.of(
+                event(1, "K"), event(2, "K"), event(3, "K")));
+
+        relay.relay();
+
+        assertThat(sent).containsExactly("E-1", "E-2", "E-3");
+        assertThat(deleted()).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void skipsPollWhenAnotherRelayHoldsTheLock() {
+        when(relayLock.runLocked(anyLong(), any())).thenReturn(false);
+
+        relay.relay();
+
+        verify(outboxRepository, never()).findBatch(anyInt());
+    }
+
+    private List<Long> deleted() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Long>> ids = ArgumentCaptor.forClass(List.class);
+        verify(outboxRepository).deleteByIdIn(ids.capture());
+        return ids.getValue();
+    }
+
+    private static OutboxEvent event(long id, String key) {
+        return OutboxEvent.builder()
+                .id(id)
+                .topic("inventory.levels")
+                .messageKey(key)
+                .payloadType(InventoryLevelEvent.class.getName())
+                .payload("{\"productId\":\"E-" + id + "\"}")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
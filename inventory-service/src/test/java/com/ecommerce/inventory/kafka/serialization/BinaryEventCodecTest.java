@@ -0,0 +1,177 @@
+package com.ecommerce.inventory.kafka.serialization;
+
+import com.ecommerce.inventory.event.InventoryReservedEvent;
+import com.ecommerce.inventory.event.OrderReservedEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryEventCodecTest {
+
+    @TempDir
+    Path dir;
+
+    private SchemaRegistry registry;
+    private BinaryEventCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SchemaRegistry(dir.resolve("schemas.json"));
+        codec = new BinaryEventCodec(registry);
+    }
+
+    static class WriterV1 {
+        private String orderId;
+        private Integer quantity;
+        private String dropped;
+    }
+
+    static class ReaderV2 {
+        private String orderId;
+        private Integer quantity;
+        private Long added;
+    }
+
+    static class Typed {
+        private int count;
+        private long big;
+        private Boolean flag;
+        private double ratio;
+        private LocalDateTime at;
+    }
+
+    @Test
+    void roundTripsEvent() {
+        InventoryReservedEvent event = reserved("2024-05-01T10:15:30.123456789");
+
+        InventoryReservedEvent decoded = codec.decode(codec.encode(event), InventoryReservedEvent.class);
+
+        assertThat(decoded).isEqualTo(event);
+    }
+
+    @Test
+    void binaryIsSmallerThanJson() {
+        InventoryReservedEvent event = reserved(LocalDateTime.now().toString());
+        byte[] json = new JsonSerializer<>().serialize("t", event);
+
+        assertThat(codec.encode(event).length).isLessThan(json.length / 2);
+    }
+
+    @Test
+    void keepsNullsAndTimestampsNotInCanonicalForm() {
+        InventoryReservedEvent event = reserved("2024-05-01 10:15");
+        event.setReservationId(null);
+
+        InventoryReservedEvent decoded = codec.decode(codec.encode(event), InventoryReservedEvent.class);
+
+        assertThat(decoded.getReservationId()).isNull();
+        assertThat(decoded.getTimestamp()).isEqualTo("2024-05-01 10:15");
+    }
+
+    @Test
+    void roundTripsEveryFieldType() {
+        Typed typed = new Typed();
+        typed.count = -7;
+        typed.big = Long.MIN_VALUE;
+        typed.flag = true;
+        typed.ratio = 0.25;
+        typed.at = LocalDateTime.of(1969, 12, 31, 23, 59, 59, 1);
+
+        Typed decoded = codec.decode(codec.encode(typed), Typed.class);
+
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(typed);
+    }
+
+    @Test
+    void readerMatchesFieldsByName() {
+        WriterV1 written = new WriterV1();
+        written.orderId = "O-1";
+        written.quantity = 3;
+        written.dropped = "gone";
+
+        ReaderV2 read = codec.decode(codec.encode(written), ReaderV2.class);
+
+        assertThat(read.orderId).isEqualTo("O-1");
+        assertThat(read.quantity).isEqualTo(3);
+        assertThat(read.added).isNull();
+    }
+
+    @Test
+    void anotherProcessResolvesSchemaFromTheSharedFile() {
+        byte[] data = codec.encode(reserved("2024-05-01T10:15:30"));
+
+        BinaryEventCodec other = new BinaryEventCodec(new SchemaRegistry(dir.resolve("schemas.json")));
+
+        assertThat(other.schemaOf(data).name()).isEqualTo(InventoryReservedEvent.class.getName());
+        assertThat(other.decode(data, InventoryReservedEvent.class).getOrderId()).isEqualTo("O-1");
+    }
+
+    @Test
+    void sameLayoutKeepsItsSchemaId() {
+        EventSchema schema = new EventSchema(0, "x.Event", List.of(new EventSchema.Field("a", EventSchema.FieldType.INT)));
+
+        EventSchema first = registry.register(schema);
+        EventSchema second = new SchemaRegistry(dir.resolve("schemas.json")).register(schema);
+
+        assertThat(second.id()).isEqualTo(first.id());
+    }
+
+    @Test
+    void nestedEventsAreNotSupported() {
+        assertThat(codec.supports(OrderReservedEvent.class)).isFalse();
+        assertThat(codec.supports(InventoryReservedEvent.class)).isTrue();
+    }
+
+    @Test
+    void rejectsNonBinaryPayload() {
+        assertThatThrownBy(() -> codec.decode("{}".getBytes(), InventoryReservedEvent.class))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void parsesOnlyCanonicalTimestamps() {
+        assertThat(BinaryEventCodec.parseTimestamp("2024-05-01T10:15"))
+                .isEqualTo(LocalDateTime.of(2024, 5, 1, 10, 15));
+        assertThat(BinaryEventCodec.parseTimestamp("2024-05-01T10:15:30.5"))
+                .isEqualTo(LocalDateTime.of(2024, 5, 1, 10, 15, 30, 500_000_000));
+        assertThat(BinaryEventCodec.parseTimestamp("2024-13-01T10:15")).isNull();
+        assertThat(BinaryEventCodec.parseTimestamp("2024-05-01")).isNull();
+    }
+
+    @Test
+    void serializerWritesBinaryOnlyToOptedInTopics() {
+        InventoryEventSerializer serializer = new InventoryEventSerializer(codec, Set.of("inventory.reserved"));
+        InventoryEventDeserializer deserializer = new InventoryEventDeserializer(codec);
+        InventoryReservedEvent event = reserved("2024-05-01T10:15:30");
+
+        RecordHeaders binaryHeaders = new RecordHeaders();
+        byte[] binary = serializer.serialize("inventory.reserved", binaryHeaders, event);
+        RecordHeaders jsonHeaders = new RecordHeaders();
+        serializer.serialize("inventory.failed", jsonHeaders, event);
+
+        assertThat(EventFormat.of(binaryHeaders)).isEqualTo(EventFormat.BINARY);
+        assertThat(EventFormat.of(jsonHeaders)).isEqualTo(EventFormat.JSON);
+        assertThat(deserializer.deserialize("inventory.reserved", binaryHeaders, binary)).isEqualTo(event);
+    }
+
+    private static InventoryReservedEvent reserved(String timestamp) {
+        return InventoryReservedEvent.builder()
+                .orderId("O-1")
+                .productId("P-1")
+                .quantity(2)
+                .reservationId("42")
+                .timestamp(timestamp)
+                .build();
+    }
+}
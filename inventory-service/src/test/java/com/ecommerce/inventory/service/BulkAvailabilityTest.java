@@ -0,0 +1,78 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.InventoryRequest;
+import com.ecommerce.inventory.dto.ReservationRequest;
+import com.ecommerce.inventory.exception.InventoryException;
+import com.ecommerce.inventory.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@TestPropertySource(properties = {
+        "inventory.availability.max-batch-size=5",
+        "inventory.availability.chunk-size=2"
+})
+class BulkAvailabilityTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Test
+    void returnsAvailabilityInRequestOrderWithoutUnknownProducts() {
+        String a = product(5);
+        String b = product(3);
+        reservationService.reserveStock(ReservationRequest.builder()
+                .productId(b)
+                .orderId("ORDER-" + UUID.randomUUID())
+                .quantity(2)
+                .build());
+
+        Map<String, Integer> availability = inventoryService.getAvailability(List.of(b, "MISSING-" + UUID.randomUUID(), a, b));
+
+        assertThat(availability).containsExactly(Map.entry(b, 1), Map.entry(a, 5));
+    }
+
+    @Test
+    void rejectsListsAboveMaxBatchSize() {
+        List<String> productIds = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            productIds.add("P-" + i);
+        }
+
+        assertThatThrownBy(() -> inventoryService.getAvailability(productIds))
+                .isInstanceOf(InventoryException.class)
+                .extracting("errorCode")
+                .isEqualTo("TOO_MANY_PRODUCTS");
+    }
+
+    @Test
+    void streamsEveryChunk() {
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 7; i++) {
+            expected.put(product(i + 1), i + 1);
+        }
+
+        Map<String, Integer> streamed = new LinkedHashMap<>();
+        inventoryService.streamAvailability(new ArrayList<>(expected.keySet()), streamed::put);
+
+        assertThat(streamed).containsExactlyInAnyOrderEntriesOf(expected);
+    }
+
+    private String product(int stock) {
+        String productId = "AVAIL-" + UUID.randomUUID();
+        inventoryService.createInventory(new InventoryRequest(productId, stock, null));
+        return productId;
+    }
+}
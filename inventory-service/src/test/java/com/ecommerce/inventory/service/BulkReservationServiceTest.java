@@ -0,0 +1,112 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.BulkOrderResult;
+import com.ecommerce.inventory.dto.BulkReservationResponse;
+import com.ecommerce.inventory.exception.InventoryException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkReservationServiceTest {
+
+    private final ReservationService reservationService = mock(ReservationService.class);
+    private BulkReservationService bulkService;
+
+    @BeforeEach
+    void setUp() {
+        ReservationRetryExecutor retryExecutor = new ReservationRetryExecutor(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(retryExecutor, "maxAttempts", 3);
+        ReflectionTestUtils.setField(retryExecutor, "baseDelayMs", 1L);
+        ReflectionTestUtils.setField(retryExecutor, "maxDelayMs", 2L);
+        ReflectionTestUtils.setField(retryExecutor, "budgetPerSecond", 20.0);
+        ReflectionTestUtils.setField(retryExecutor, "budgetIdleMs", 60_000L);
+        ReflectionTestUtils.setField(retryExecutor, "budgetMaxProducts", 100L);
+        retryExecutor.init();
+
+        bulkService = new BulkReservationService(reservationService, retryExecutor);
+        ReflectionTestUtils.setField(bulkService, "maxOrders", 10);
+        ReflectionTestUtils.setField(bulkService, "chunkSize", 2);
+    }
+
+    @Test
+    void engineOrdersStayAppliedWhenChunkFails() {
+        when(reservationService.confirmInEngine(anyList()))
+                .thenReturn(List.of(result("ENGINE-1", BulkOrderResult.Status.APPLIED)));
+        when(reservationService.confirmReservations(anyList()))
+                .thenThrow(new OptimisticLockingFailureException("version changed"));
+
+        BulkReservationResponse response = bulkService.confirm(List.of("ENGINE-1", "DB-1", "DB-2"));
+
+        assertThat(response.getRequested()).isEqualTo(3);
+        assertThat(response.getApplied()).isEqualTo(1);
+        assertThat(response.getFailed()).isEqualTo(2);
+        assertThat(response.getResults())
+                .filteredOn(result -> result.getOrderId().equals("ENGINE-1"))
+                .singleElement()
+                .extracting(BulkOrderResult::getStatus)
+                .isEqualTo(BulkOrderResult.Status.APPLIED);
+        // Engine applied once; only the database chunk was retried, without the engine order
+        verify(reservationService, times(1)).confirmInEngine(List.of("ENGINE-1", "DB-1", "DB-2"));
+        verify(reservationService, times(3)).confirmReservations(List.of("DB-1", "DB-2"));
+    }
+
+    @Test
+    void databaseOrdersAreChunked() {
+        when(reservationService.releaseInEngine(anyList())).thenReturn(List.of());
+        when(reservationService.releaseReservations(anyList())).thenAnswer(invocation -> {
+            List<String> chunk = invocation.getArgument(0);
+            return chunk.stream().map(orderId -> result(orderId, BulkOrderResult.Status.APPLIED)).toList();
+        });
+
+        BulkReservationResponse response = bulkService.release(List.of("A", "B", "C", "A"));
+
+        assertThat(response.getRequested()).isEqualTo(3);
+        assertThat(response.getApplied()).isEqualTo(3);
+        verify(reservationService).releaseReservations(List.of("A", "B"));
+        verify(reservationService).releaseReservations(List.of("C"));
+    }
+
+    @Test
+    void failedChunkLeavesOtherChunksApplied() {
+        when(reservationService.releaseInEngine(anyList())).thenReturn(List.of());
+        when(reservationService.releaseReservations(List.of("A", "B")))
+                .thenThrow(new InventoryException("missing", "INVENTORY_NOT_FOUND"));
+        when(reservationService.releaseReservations(List.of("C")))
+                .thenReturn(List.of(result("C", BulkOrderResult.Status.APPLIED)));
+
+        BulkReservationResponse response = bulkService.release(List.of("A", "B", "C"));
+
+        assertThat(response.getApplied()).isEqualTo(1);
+        assertThat(response.getFailed()).isEqualTo(2);
+    }
+
+    @Test
+    void tooManyOrdersAreRejected() {
+        List<String> orderIds = IntStream.range(0, 11).mapToObj(i -> "ORDER-" + i).toList();
+
+        assertThatThrownBy(() -> bulkService.confirm(orderIds))
+                .isInstanceOf(InventoryException.class)
+                .extracting("errorCode")
+                .isEqualTo("TOO_MANY_ORDERS");
+    }
+
+    private static BulkOrderResult result(String orderId, BulkOrderResult.Status status) {
+        return BulkOrderResult.builder()
+                .orderId(orderId)
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,102 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.InventoryRequest;
+import com.ecommerce.inventory.dto.InventoryResponse;
+import com.ecommerce.inventory.dto.ReservationRequest;
+import com.ecommerce.inventory.dto.ReservationResponse;
+import com.ecommerce.inventory.entity.InventoryReservation;
+import com.ecommerce.inventory.repository.InventoryReservationRepository;
+import com.ecommerce.inventory.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = "inventory.reservation.lock-strategy=CONDITIONAL_UPDATE")
+class ConditionalUpdateReservationTest extends PostgresIntegrationTest {
+
+    private static final int THREADS = 16;
+    private static final int RESERVATIONS_PER_THREAD = 10;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        String productId = "COND-" + UUID.randomUUID();
+        int stock = THREADS * RESERVATIONS_PER_THREAD / 4;
+        inventoryService.createInventory(new InventoryRequest(productId, stock, null));
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                int succeeded = 0;
+                for (int i = 0; i < RESERVATIONS_PER_THREAD; i++) {
+                    ReservationResponse response = reservationService.reserveStock(ReservationRequest.builder()
+                            .productId(productId)
+                            .orderId(productId + "-" + thread + "-" + i)
+                            .quantity(1)
+                            .build());
+                    if (response.isSuccess()) {
+                        succeeded++;
+                    }
+                }
+                return succeeded;
+            }));
+        }
+        start.countDown();
+        int succeeded = 0;
+        for (Future<Integer> future : futures) {
+            succeeded += future.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        InventoryResponse inventory = inventoryService.getInventory(productId);
+        assertThat(succeeded).isEqualTo(stock);
+        assertThat(inventory.getReservedQuantity()).isEqualTo(stock);
+        assertThat(inventory.getAvailableQuantity()).isZero();
+        assertThat(reservationRepository.findPendingByInventoryId(inventory.getId())).hasSize(stock);
+    }
+
+    @Test
+    void insufficientStockLeavesRowUnchangedAndRecordsFailure() {
+        String productId = "COND-" + UUID.randomUUID();
+        String orderId = "ORDER-" + UUID.randomUUID();
+        inventoryService.createInventory(new InventoryRequest(productId, 1, null));
+
+        ReservationResponse response = reservationService.reserveStock(ReservationRequest.builder()
+                .productId(productId)
+                .orderId(orderId)
+                .quantity(2)
+                .build());
+
+        assertThat(response.isSuccess()).isFalse();
+        assertThat(response.getStatus()).isEqualTo(InventoryReservation.ReservationStatus.FAILED);
+        InventoryResponse inventory = inventoryService.getInventory(productId);
+        assertThat(inventory.getReservedQuantity()).isZero();
+        assertThat(inventory.getAvailableQuantity()).isEqualTo(1);
+        assertThat(reservationRepository.findAllByOrderId(orderId))
+                .extracting(InventoryReservation::getStatus)
+                .containsExactly(InventoryReservation.ReservationStatus.FAILED);
+    }
+}
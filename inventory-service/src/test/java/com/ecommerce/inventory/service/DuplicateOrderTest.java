@@ -0,0 +1,109 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.InventoryRequest;
+import com.ecommerce.inventory.dto.ReservationRequest;
+import com.ecommerce.inventory.exception.InventoryException;
+import com.ecommerce.inventory.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DuplicateOrderTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private DuplicateOrderFilter duplicateOrderFilter;
+
+    @Test
+    void sameOrderForAnotherProductIsRejected() {
+        String orderId = "ORDER-" + UUID.randomUUID();
+        reserve(orderId, product());
+
+        assertThatThrownBy(() -> reserve(orderId, product()))
+                .isInstanceOf(InventoryException.class)
+                .extracting("errorCode")
+                .isEqualTo("DUPLICATE_RESERVATION");
+    }
+
+    @Test
+    void sameOrderIsRejectedWhenFilterForgotIt() {
+        String orderId = "ORDER-" + UUID.randomUUID();
+        String other = product();
+        reserve(orderId, product());
+        // Two rotations drop both generations: the filter now answers "definitely new"
+        duplicateOrderFilter.rotate();
+        duplicateOrderFilter.rotate();
+
+        assertThatThrownBy(() -> reserve(orderId, other))
+                .isInstanceOf(InventoryException.class)
+                .extracting("errorCode")
+                .isEqualTo("DUPLICATE_RESERVATION");
+        assertThat(inventoryService.getInventory(other).getReservedQuantity()).isZero();
+    }
+
+    @Test
+    void concurrentReservationsOfOneOrderSucceedOnce() throws Exception {
+        String orderId = "ORDER-" + UUID.randomUUID();
+        int threads = 8;
+        List<String> products = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            products.add(product());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (String productId : products) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return reserve(orderId, productId);
+            }));
+        }
+        start.countDown();
+        int succeeded = 0;
+        for (Future<?> future : futures) {
+            try {
+                future.get(1, TimeUnit.MINUTES);
+                succeeded++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(InventoryException.class);
+            }
+        }
+        pool.shutdown();
+
+        assertThat(succeeded).isEqualTo(1);
+        assertThat(products.stream().mapToInt(productId ->
+                inventoryService.getInventory(productId).getReservedQuantity()).sum()).isEqualTo(1);
+    }
+
+    private String product() {
+        String productId = "DUP-" + UUID.randomUUID();
+        inventoryService.createInventory(new InventoryRequest(productId, 10, null));
+        return productId;
+    }
+
+    private boolean reserve(String orderId, String productId) {
+        return reservationService.reserveStock(ReservationRequest.builder()
+                .productId(productId)
+                .orderId(orderId)
+                .quantity(1)
+                .build()).isSuccess();
+    }
+}
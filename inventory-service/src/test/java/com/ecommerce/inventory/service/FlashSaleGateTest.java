@@ -0,0 +1,179 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.exception.InsufficientStockException;
+import com.ecommerce.inventory.exception.InventoryException;
+import com.ecommerce.inventory.repository.InventoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FlashSaleGateTest {
+
+    private final InventoryService inventoryService = mock(InventoryService.class);
+    private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+
+    private FlashSaleGate gate;
+
+    @BeforeEach
+    void setUp() {
+        when(inventoryService.getAvailability(anyList())).thenReturn(Map.of("FLASH", 3));
+        when(inventoryRepository.insertFlashSale(anyString())).thenReturn(1);
+        gate = new FlashSaleGate(inventoryService, inventoryRepository, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void enablePersistsModeAndPreloadsPermits() {
+        gate.enable("FLASH");
+
+        verify(inventoryRepository).insertFlashSale("FLASH");
+        assertThat(gate.isActive("FLASH")).isTrue();
+        assertThat(gate.status("FLASH").getPermits()).isEqualTo(3);
+    }
+
+    @Test
+    void unknownProductIsNotEnabled() {
+        when(inventoryService.getAvailability(anyList())).thenReturn(Map.of());
+
+        assertThatThrownBy(() -> gate.enable("MISSING"))
+                .isInstanceOf(InventoryException.class)
+                .extracting("errorCode")
+                .isEqualTo("INVENTORY_NOT_FOUND");
+        verify(inventoryRepository, never()).insertFlashSale(anyString());
+    }
+
+    @Test
+    void rejectsOnceKeptReservationsUsedThePermits() {
+        gate.enable("FLASH");
+        AtomicInteger reservations = new AtomicInteger();
+
+        gate.admit("FLASH", 2, reservations::incrementAndGet, result -> true);
+        assertThatThrownBy(() -> gate.admit("FLASH", 2, reservations::incrementAndGet, result -> true))
+                .isInstanceOf(InsufficientStockException.class);
+
+        assertThat(reservations).hasValue(1);
+        assertThat(gate.status("FLASH").getPermits()).isEqualTo(1);
+    }
+
+    @Test
+    void failedReservationReturnsItsPermits() {
+        gate.enable("FLASH");
+
+        gate.admit("FLASH", 3, () -> false, reserved -> reserved);
+
+        assertThat(gate.status("FLASH").getPermits()).isEqualTo(3);
+        assertThat(gate.status("FLASH").getInFlight()).isZero();
+    }
+
+    @Test
+    void resyncFollowsModeSetOnAnotherReplica() {
+        when(inventoryRepository.findFlashSaleProductIds()).thenReturn(List.of("FLASH"));
+
+        gate.resync();
+
+        assertThat(gate.isActive("FLASH")).isTrue();
+        assertThat(gate.status("FLASH").getPermits()).isEqualTo(3);
+
+        when(inventoryRepository.findFlashSaleProductIds()).thenReturn(List.of());
+        gate.resync();
+
+        assertThat(gate.isActive("FLASH")).isFalse();
+    }
+
+    @Test
+    void resyncDoesNotSubtractCommittedReservationTwice() {
+        gate.enable("FLASH");
+        when(inventoryRepository.findFlashSaleProductIds()).thenReturn(List.of("FLASH"));
+        // Restocked to 10, of which this reservation took 1
+        when(inventoryService.getAvailability(anyList())).thenReturn(Map.of("FLASH", 9));
+
+        gate.admit("FLASH", 1, () -> {
+            // Resync after the commit, before the permits are finished
+            gate.resync();
+            return true;
+        }, reserved -> reserved);
+
+        assertThat(gate.status("FLASH").getPermits()).isEqualTo(9);
+        assertThat(gate.status("FLASH").getInFlight()).isZero();
+    }
+
+    @Test
+    void resyncSubtractsReservationStartedAfterTheRead() throws Exception {
+        gate.enable("FLASH");
+        when(inventoryRepository.findFlashSaleProductIds()).thenReturn(List.of("FLASH"));
+        CountDownLatch admitted = new CountDownLatch(1);
+        CountDownLatch resynced = new CountDownLatch(1);
+        ExecutorService reserver = Executors.newSingleThreadExecutor();
+        AtomicReference<Future<Boolean>> reservation = new AtomicReference<>();
+        when(inventoryService.getAvailability(anyList())).thenAnswer(invocation -> {
+            // Admitted while the stock is read, committed after the reload
+            reservation.set(reserver.submit(() -> gate.admit("FLASH", 1, () -> {
+                admitted.countDown();
+                await(resynced);
+                return true;
+            }, reserved -> reserved)));
+            await(admitted);
+            return Map.of("FLASH", 10);
+        });
+
+        gate.resync();
+        assertThat(gate.status("FLASH").getPermits()).isEqualTo(9);
+
+        resynced.countDown();
+        assertThat(reservation.get().get(5, TimeUnit.SECONDS)).isTrue();
+        reserver.shutdown();
+        assertThat(gate.status("FLASH").getPermits()).isEqualTo(9);
+    }
+
+    @Test
+    void failedReservationStartedBeforeReloadDoesNotReturnPermits() {
+        gate.enable("FLASH");
+        when(inventoryRepository.findFlashSaleProductIds()).thenReturn(List.of("FLASH"));
+        when(inventoryService.getAvailability(anyList())).thenReturn(Map.of("FLASH", 3));
+
+        gate.admit("FLASH", 2, () -> {
+            // The read still counts the stock this reservation never took
+            gate.resync();
+            return false;
+        }, reserved -> reserved);
+
+        assertThat(gate.status("FLASH").getPermits()).isEqualTo(3);
+    }
+
+    @Test
+    void disableRemovesPersistedMode() {
+        gate.enable("FLASH");
+
+        gate.disable("FLASH");
+
+        verify(inventoryRepository).deleteFlashSale("FLASH");
+        assertThat(gate.isActive("FLASH")).isFalse();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.InventoryRequest;
+import com.ecommerce.inventory.dto.ReconciliationDiscrepancy;
+import com.ecommerce.inventory.dto.ReconciliationReport;
+import com.ecommerce.inventory.dto.ReservationRequest;
+import com.ecommerce.inventory.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Small pages and ranges so a run splits into several tasks and pages
+@TestPropertySource(properties = {
+        "inventory.sharding.enabled=true",
+        "inventory.reconciliation.page-size=2",
+        "inventory.reconciliation.range-size=3"
+})
+class InventoryReconciliationTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private InventoryReconciliationService reconciliationService;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryShardService shardService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void consistentProductIsNotReported() {
+        String productId = product(10);
+        reserve(productId, 3);
+
+        ReconciliationReport report = reconciliationService.reconcile(false);
+
+        assertThat(report.getInventoriesChecked()).isPositive();
+        assertThat(report.getDiscrepancies())
+                .noneMatch(discrepancy -> discrepancy.getProductId().equals(productId));
+    }
+
+    @Test
+    void reportsDriftWithoutRepairing() {
+        String productId = product(10);
+        reserve(productId, 3);
+        setReserved(productId, 7);
+
+        ReconciliationReport report = reconciliationService.reconcile(false);
+
+        assertThat(report.getDiscrepancies())
+                .filteredOn(discrepancy -> discrepancy.getProductId().equals(productId))
+                .singleElement()
+                .satisfies(discrepancy -> {
+                    assertThat(discrepancy.getShardNo()).isNull();
+                    assertThat(discrepancy.getRecordedReserved()).isEqualTo(7);
+                    assertThat(discrepancy.getExpectedReserved()).isEqualTo(3);
+                });
+        assertThat(report.getRepaired()).isZero();
+        assertThat(reserved(productId)).isEqualTo(7);
+    }
+
+    @Test
+    void repairOverwritesDriftedRow() {
+        String productId = product(10);
+        reserve(productId, 3);
+        setReserved(productId, 0);
+
+        ReconciliationReport report = reconciliationService.reconcile(true);
+
+        assertThat(report.getRepaired()).isPositive();
+        assertThat(reserved(productId)).isEqualTo(3);
+        assertThat(reconciliationService.reconcile(false).getDiscrepancies())
+                .noneMatch(discrepancy -> discrepancy.getProductId().equals(productId));
+    }
+
+    @Test
+    void repairOverwritesDriftedShard() {
+        String productId = product(10);
+        shardService.configureShards(productId, 2);
+        reserve(productId, 2);
+        Long inventoryId = inventoryService.getInventory(productId).getId();
+        jdbcTemplate.update("UPDATE inventory_shard SET reserved_quantity = reserved_quantity + 1 "
+                + "WHERE inventory_id = ? AND shard_no = 0", inventoryId);
+
+        ReconciliationReport report = reconciliationService.reconcile(true);
+
+        assertThat(report.getDiscrepancies())
+                .filteredOn(discrepancy -> discrepancy.getProductId().equals(productId))
+                .extracting(ReconciliationDiscrepancy::getShardNo)
+                .containsExactly(0);
+        Integer shardReserved = jdbcTemplate.queryForObject(
+                "SELECT SUM(reserved_quantity) FROM inventory_shard WHERE inventory_id = ?",
+                Integer.class, inventoryId);
+        assertThat(shardReserved).isEqualTo(2);
+    }
+
+    private String product(int stock) {
+        String productId = "RECONCILE-" + UUID.randomUUID();
+        inventoryService.createInventory(new InventoryRequest(productId, stock, null));
+        return productId;
+    }
+
+    private void reserve(String productId, int quantity) {
+        reservationService.reserveStock(ReservationRequest.builder()
+                .productId(productId)
+                .orderId("ORDER-" + UUID.randomUUID())
+                .quantity(quantity)
+                .build());
+    }
+
+    private void setReserved(String productId, int quantity) {
+        jdbcTemplate.update("UPDATE inventory SET reserved_quantity = ? WHERE product_id = ?", quantity, productId);
+    }
+
+    private Integer reserved(String productId) {
+        return jdbcTemplate.queryForObject("SELECT reserved_quantity FROM inventory WHERE product_id = ?",
+                Integer.class, productId);
+    }
+}
@@ -0,0 +1,122 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.DeliveryPoint;
+import com.ecommerce.inventory.repository.InventoryShardRepository;
+import com.ecommerce.inventory.repository.LocationStock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LocationAllocatorTest {
+
+    private static final Long INVENTORY_ID = 1L;
+    // Priority 1, more stock
+    private static final LocationStock BERLIN = new LocationStock(0, "BER", 10, 52.52, 13.40, 1);
+    // Priority 2, less stock
+    private static final LocationStock MUNICH = new LocationStock(1, "MUC", 5, 48.14, 11.58, 2);
+    private static final DeliveryPoint NEAR_MUNICH = new DeliveryPoint(48.37, 10.90);
+
+    private final InventoryShardRepository shardRepository = mock(InventoryShardRepository.class);
+    private LocationAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        when(shardRepository.findLocationStock(INVENTORY_ID)).thenReturn(List.of(BERLIN, MUNICH));
+        when(shardRepository.reserveIfAvailable(anyLong(), anyInt(), anyInt())).thenReturn(1);
+
+        allocator = new LocationAllocator(shardRepository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(allocator, "strategy", LocationAllocationStrategy.NEAREST);
+        ReflectionTestUtils.setField(allocator, "indexTtlMs", 60_000L);
+    }
+
+    @Test
+    void nearestPicksClosestLocation() {
+        assertThat(allocator.allocate(INVENTORY_ID, 2, NEAR_MUNICH))
+                .contains(new LocationAllocator.Allocation(1, "MUC"));
+    }
+
+    @Test
+    void nearestWithoutDeliveryPointFollowsPriority() {
+        assertThat(allocator.allocate(INVENTORY_ID, 2, null))
+                .contains(new LocationAllocator.Allocation(0, "BER"));
+    }
+
+    @Test
+    void nearestSkipsLocationWithoutEnoughStock() {
+        assertThat(allocator.allocate(INVENTORY_ID, 8, NEAR_MUNICH))
+                .contains(new LocationAllocator.Allocation(0, "BER"));
+    }
+
+    @Test
+    void balancePicksMostFreeStock() {
+        ReflectionTestUtils.setField(allocator, "strategy", LocationAllocationStrategy.BALANCE);
+
+        // 10 vs 5 free, then 7 vs 5, then 4 vs 5
+        assertThat(allocator.allocate(INVENTORY_ID, 3, NEAR_MUNICH)).map(LocationAllocator.Allocation::shardNo).contains(0);
+        assertThat(allocator.allocate(INVENTORY_ID, 3, NEAR_MUNICH)).map(LocationAllocator.Allocation::shardNo).contains(0);
+        assertThat(allocator.allocate(INVENTORY_ID, 3, NEAR_MUNICH)).map(LocationAllocator.Allocation::shardNo).contains(1);
+    }
+
+    @Test
+    void shortLocationFallsBackToNextCandidate() {
+        when(shardRepository.reserveIfAvailable(INVENTORY_ID, 1, 2)).thenReturn(0);
+
+        assertThat(allocator.allocate(INVENTORY_ID, 2, NEAR_MUNICH))
+                .contains(new LocationAllocator.Allocation(0, "BER"));
+    }
+
+    @Test
+    void exhaustedIndexIsReloadedOnceBeforeRejecting() {
+        allocator.allocate(INVENTORY_ID, 10, null);
+        // Another replica restocked Berlin meanwhile
+        when(shardRepository.findLocationStock(INVENTORY_ID))
+                .thenReturn(List.of(new LocationStock(0, "BER", 6, 52.52, 13.40, 1), MUNICH));
+
+        assertThat(allocator.allocate(INVENTORY_ID, 6, null))
+                .contains(new LocationAllocator.Allocation(0, "BER"));
+        // No single location holds 11, not even after the reload
+        assertThat(allocator.allocate(INVENTORY_ID, 11, null)).isEmpty();
+        verify(shardRepository, times(3)).findLocationStock(INVENTORY_ID);
+    }
+
+    @Test
+    void rolledBackReservationReturnsStockToIndex() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            allocator.allocate(INVENTORY_ID, 4, null);
+            assertThat(allocator.bestAvailable(INVENTORY_ID)).isEqualTo(6);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(allocator.bestAvailable(INVENTORY_ID)).isEqualTo(10);
+        verify(shardRepository).reserveIfAvailable(eq(INVENTORY_ID), eq(0), eq(4));
+    }
+
+    @Test
+    void invalidateForcesReload() {
+        allocator.bestAvailable(INVENTORY_ID);
+        allocator.invalidate(INVENTORY_ID);
+
+        allocator.bestAvailable(INVENTORY_ID);
+
+        verify(shardRepository, times(2)).findLocationStock(INVENTORY_ID);
+    }
+}
@@ -0,0 +1,132 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.InventoryRequest;
+import com.ecommerce.inventory.dto.OrderReservationRequest;
+import com.ecommerce.inventory.dto.OrderReservationResponse;
+import com.ecommerce.inventory.dto.ReservationLineRequest;
+import com.ecommerce.inventory.entity.InventoryReservation;
+import com.ecommerce.inventory.repository.InventoryReservationRepository;
+import com.ecommerce.inventory.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderReservationTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+
+    @Test
+    void reservesAllLinesAndMergesDuplicateProducts() {
+        String a = product(10);
+        String b = product(10);
+        String orderId = "ORDER-" + UUID.randomUUID();
+
+        OrderReservationResponse response = reservationService.reserveOrder(order(orderId,
+                line(a, 2), line(b, 1), line(a, 1)));
+
+        assertThat(response.isSuccess()).isTrue();
+        assertThat(response.getLines()).hasSize(2);
+        assertThat(inventoryService.getInventory(a).getReservedQuantity()).isEqualTo(3);
+        assertThat(inventoryService.getInventory(b).getReservedQuantity()).isEqualTo(1);
+        assertThat(reservationRepository.findAllByOrderId(orderId))
+                .extracting(InventoryReservation::getStatus)
+                .containsOnly(InventoryReservation.ReservationStatus.PENDING)
+                .hasSize(2);
+    }
+
+    @Test
+    void shortLineRejectsWholeOrder() {
+        String a = product(10);
+        String b = product(1);
+        String orderId = "ORDER-" + UUID.randomUUID();
+
+        OrderReservationResponse response = reservationService.reserveOrder(order(orderId, line(a, 5), line(b, 2)));
+
+        assertThat(response.isSuccess()).isFalse();
+        assertThat(inventoryService.getInventory(a).getReservedQuantity()).isZero();
+        assertThat(inventoryService.getInventory(b).getReservedQuantity()).isZero();
+        // Only the short line is recorded
+        assertThat(reservationRepository.findAllByOrderId(orderId))
+                .singleElement()
+                .satisfies(reservation -> {
+                    assertThat(reservation.getStatus()).isEqualTo(InventoryReservation.ReservationStatus.FAILED);
+                    assertThat(reservation.getInventoryId()).isEqualTo(inventoryService.getInventory(b).getId());
+                });
+    }
+
+    @Test
+    void releaseReturnsEveryLine() {
+        String a = product(10);
+        String b = product(10);
+        String orderId = "ORDER-" + UUID.randomUUID();
+        reservationService.reserveOrder(order(orderId, line(a, 4), line(b, 3)));
+
+        reservationService.releaseReservation(orderId);
+
+        assertThat(inventoryService.getInventory(a).getReservedQuantity()).isZero();
+        assertThat(inventoryService.getInventory(b).getReservedQuantity()).isZero();
+        assertThat(reservationRepository.findAllByOrderId(orderId))
+                .extracting(InventoryReservation::getStatus)
+                .containsOnly(InventoryReservation.ReservationStatus.RELEASED);
+    }
+
+    @Test
+    void crossingCartsDoNotDeadlock() throws Exception {
+        int orders = 200;
+        String a = product(orders);
+        String b = product(orders);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            // Half of the carts list the products the other way round
+            OrderReservationRequest request = i % 2 == 0
+                    ? order("ORDER-" + UUID.randomUUID(), line(a, 1), line(b, 1))
+                    : order("ORDER-" + UUID.randomUUID(), line(b, 1), line(a, 1));
+            futures.add(pool.submit(() -> {
+                start.await();
+                return reservationService.reserveOrder(request).isSuccess();
+            }));
+        }
+        start.countDown();
+        for (Future<Boolean> future : futures) {
+            assertThat(future.get(2, TimeUnit.MINUTES)).isTrue();
+        }
+        pool.shutdown();
+
+        assertThat(inventoryService.getInventory(a).getAvailableQuantity()).isZero();
+        assertThat(inventoryService.getInventory(b).getAvailableQuantity()).isZero();
+    }
+
+    private String product(int stock) {
+        String productId = "ORDER-LINE-" + UUID.randomUUID();
+        inventoryService.createInventory(new InventoryRequest(productId, stock, null));
+        return productId;
+    }
+
+    private static ReservationLineRequest line(String productId, int quantity) {
+        return ReservationLineRequest.builder().productId(productId).quantity(quantity).build();
+    }
+
+    private static OrderReservationRequest order(String orderId, ReservationLineRequest... lines) {
+        return OrderReservationRequest.builder().orderId(orderId).lines(List.of(lines)).build();
+    }
+}
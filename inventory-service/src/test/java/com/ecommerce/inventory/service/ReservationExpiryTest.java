@@ -0,0 +1,107 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.InventoryRequest;
+import com.ecommerce.inventory.dto.ReservationRequest;
+import com.ecommerce.inventory.entity.InventoryReservation;
+import com.ecommerce.inventory.repository.InventoryReservationRepository;
+import com.ecommerce.inventory.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReservationExpiryTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+
+    @BeforeEach
+    void expireEarlierReservations() {
+        // Rows left by other tests would be claimed together with ours
+        LocalDateTime cutoff = LocalDateTime.now();
+        while (reservationService.expireReservations(cutoff, 1000) > 0) {
+            // drain
+        }
+    }
+
+    @Test
+    void expiresPendingReservationsAndReturnsStock() {
+        String productId = product(10);
+        String first = reserve(productId, 2);
+        String second = reserve(productId, 3);
+
+        int expired = reservationService.expireReservations(LocalDateTime.now().plusMinutes(1), 10);
+
+        assertThat(expired).isEqualTo(2);
+        assertThat(inventoryService.getInventory(productId).getReservedQuantity()).isZero();
+        for (String orderId : new String[] {first, second}) {
+            assertThat(reservationRepository.findAllByOrderId(orderId)).singleElement().satisfies(reservation -> {
+                assertThat(reservation.getStatus()).isEqualTo(InventoryReservation.ReservationStatus.RELEASED);
+                assertThat(reservation.getFailureReason()).isEqualTo("Reservation expired");
+            });
+        }
+    }
+
+    @Test
+    void countsOnlyClaimedBatch() {
+        String productId = product(10);
+        reserve(productId, 1);
+        reserve(productId, 1);
+        reserve(productId, 1);
+        LocalDateTime cutoff = LocalDateTime.now().plusMinutes(1);
+
+        assertThat(reservationService.expireReservations(cutoff, 2)).isEqualTo(2);
+        assertThat(reservationService.expireReservations(cutoff, 2)).isEqualTo(1);
+        assertThat(reservationService.expireReservations(cutoff, 2)).isZero();
+    }
+
+    @Test
+    void confirmedReservationsDoNotExpire() {
+        String productId = product(10);
+        String orderId = reserve(productId, 4);
+        reservationService.confirmReservation(orderId);
+
+        assertThat(reservationService.expireReservations(LocalDateTime.now().plusMinutes(1), 10)).isZero();
+        assertThat(reservationRepository.findAllByOrderId(orderId))
+                .extracting(InventoryReservation::getStatus)
+                .containsExactly(InventoryReservation.ReservationStatus.CONFIRMED);
+    }
+
+    @Test
+    void reservationsYoungerThanCutoffStayPending() {
+        String productId = product(10);
+        String orderId = reserve(productId, 1);
+
+        assertThat(reservationService.expireReservations(LocalDateTime.now().minusMinutes(1), 10)).isZero();
+        assertThat(inventoryService.getInventory(productId).getReservedQuantity()).isEqualTo(1);
+        assertThat(reservationRepository.findAllByOrderId(orderId))
+                .extracting(InventoryReservation::getStatus)
+                .containsExactly(InventoryReservation.ReservationStatus.PENDING);
+    }
+
+    private String product(int stock) {
+        String productId = "EXPIRY-" + UUID.randomUUID();
+        inventoryService.createInventory(new InventoryRequest(productId, stock, null));
+        return productId;
+    }
+
+    private String reserve(String productId, int quantity) {
+        String orderId = "ORDER-" + UUID.randomUUID();
+        reservationService.reserveStock(ReservationRequest.builder()
+                .productId(productId)
+                .orderId(orderId)
+                .quantity(quantity)
+                .build());
+        return orderId;
+    }
+}
@@ -0,0 +1,114 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.exception.InsufficientStockException;
+import com.ecommerce.inventory.exception.InventoryException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReservationMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReservationMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new ReservationMetrics(meterRegistry);
+        ReflectionTestUtils.setField(metrics, "topN", 2);
+        ReflectionTestUtils.setField(metrics, "maxTracked", 100);
+        metrics.registerMetrics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void failuresAreCountedByKind() {
+        metrics.outcome("reserve", new InsufficientStockException("P-1", 2, 1));
+        metrics.outcome("reserve", new InventoryException("seen", "DUPLICATE_RESERVATION"));
+        metrics.outcome("reserve", new InventoryException("retry", "RESERVATION_CONFLICT"));
+        metrics.outcome("reserve", new OptimisticLockingFailureException("version changed"));
+        metrics.outcome("reserve", new IllegalStateException("boom"));
+
+        assertThat(outcomes("insufficient")).isEqualTo(1.0);
+        assertThat(outcomes("duplicate")).isEqualTo(1.0);
+        assertThat(outcomes("conflict")).isEqualTo(2.0);
+        assertThat(outcomes("error")).isEqualTo(1.0);
+    }
+
+    @Test
+    void lockWaitIsTimedPerLockKind() {
+        String result = metrics.timeLock("row", List.of("P-1"), () -> "locked");
+
+        assertThat(result).isEqualTo("locked");
+        assertThat(meterRegistry.get("inventory.reservation.lock.wait").tag("lock", "row").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void transactionIsTimedUntilCompletion() {
+        TransactionSynchronizationManager.initSynchronization();
+        metrics.startTransaction("reserve");
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        assertThat(meterRegistry.get("inventory.reservation.transaction")
+                .tags("operation", "reserve", "status", "rolled_back").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void publishesOnlyTheHottestProducts() {
+        sleepingLock("P-COLD", 1);
+        sleepingLock("P-WARM", 20);
+        sleepingLock("P-HOT", 40);
+
+        metrics.publishTopContention();
+
+        assertThat(meterRegistry.find("inventory.reservation.contention.top").gauges())
+                .extracting(gauge -> gauge.getId().getTag("productId"))
+                .containsExactlyInAnyOrder("P-HOT", "P-WARM");
+        Gauge hottest = meterRegistry.get("inventory.reservation.contention.top").tag("rank", "1").gauge();
+        assertThat(hottest.getId().getTag("productId")).isEqualTo("P-HOT");
+    }
+
+    @Test
+    void eachWindowStartsEmpty() {
+        sleepingLock("P-HOT", 5);
+        metrics.publishTopContention();
+
+        metrics.publishTopContention();
+
+        assertThat(meterRegistry.find("inventory.reservation.contention.top").gauges()).isEmpty();
+    }
+
+    private void sleepingLock(String productId, long millis) {
+        metrics.timeLock("row", List.of(productId), () -> {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+    }
+
+    private double outcomes(String outcome) {
+        return meterRegistry.counter("inventory.reservation.outcome", "operation", "reserve", "outcome", outcome).count();
+    }
+}
@@ -0,0 +1,131 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.InventoryRequest;
+import com.ecommerce.inventory.repository.ReservationPartitionRepository;
+import com.ecommerce.inventory.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@TestPropertySource(properties = "inventory.reservation.partitions.archive-dir=${java.io.tmpdir}/reservation-partition-test")
+class ReservationPartitionTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private ReservationPartitionService partitionService;
+
+    @Autowired
+    private ReservationPartitionRepository partitionRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void triggerRejectsDuplicateOrderAndInventory() {
+        Long inventoryId = newInventory();
+        String orderId = "ORDER-" + UUID.randomUUID();
+        insertReservation(inventoryId, orderId, "PENDING", LocalDateTime.now());
+
+        assertThatThrownBy(() -> insertReservation(inventoryId, orderId, "PENDING", LocalDateTime.now()))
+                .isInstanceOf(DuplicateKeyException.class)
+                .hasMessageContaining("uk_reservation_order_inventory");
+    }
+
+    @Test
+    void triggerChecksAcrossPartitions() {
+        Long inventoryId = newInventory();
+        String orderId = "ORDER-" + UUID.randomUUID();
+        insertReservation(inventoryId, orderId, "RELEASED", LocalDateTime.now().minusMonths(1));
+
+        // Same key in another month's partition is still a duplicate
+        assertThatThrownBy(() -> insertReservation(inventoryId, orderId, "PENDING", LocalDateTime.now()))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    void sameOrderOnAnotherInventoryIsAllowed() {
+        String orderId = "ORDER-" + UUID.randomUUID();
+        insertReservation(newInventory(), orderId, "PENDING", LocalDateTime.now());
+        insertReservation(newInventory(), orderId, "PENDING", LocalDateTime.now());
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM inventory_reservation WHERE order_id = ?", Long.class, orderId))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void createsFuturePartitionsOnce() {
+        YearMonth from = YearMonth.now().plusYears(5);
+
+        assertThat(partitionService.createPartitions(from, 2)).isEqualTo(3);
+        assertThat(partitionService.createPartitions(from, 2)).isZero();
+        assertThat(partitionRepository.findAttachedPartitions())
+                .contains(String.format("inventory_reservation_y%04dm%02d",
+                        from.plusMonths(2).getYear(), from.plusMonths(2).getMonthValue()));
+    }
+
+    @Test
+    void archivesFinishedMonthAndForgetsItsOrders() throws Exception {
+        YearMonth month = YearMonth.of(2001, 1);
+        partitionService.createPartitions(month, 0);
+        Long inventoryId = newInventory();
+        String orderId = "ORDER-" + UUID.randomUUID();
+        LocalDateTime createdAt = month.atDay(10).atStartOfDay();
+        insertReservation(inventoryId, orderId, "RELEASED", createdAt);
+        jdbcTemplate.update("INSERT INTO reservation_order (order_id, created_at) VALUES (?, ?)", orderId, createdAt);
+
+        List<String> detached = partitionService.detachPartitionsBefore(month.plusMonths(1));
+
+        assertThat(detached).containsExactly("inventory_reservation_archive_y2001m01");
+        assertThat(partitionRepository.findAttachedPartitions()).doesNotContain("inventory_reservation_y2001m01");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM reservation_order WHERE order_id = ?", Long.class, orderId)).isZero();
+
+        assertThat(partitionService.archive(detached.get(0))).isEqualTo(1);
+        Path file = Path.of(System.getProperty("java.io.tmpdir"), "reservation-partition-test",
+                "inventory_reservation_archive_y2001m01.csv.gz");
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            assertThat(reader.lines().toList()).hasSize(2).last().asString().contains(orderId);
+        }
+        assertThat(partitionService.findArchiveTables()).doesNotContain(detached.get(0));
+    }
+
+    @Test
+    void keepsMonthWithPendingReservations() {
+        YearMonth month = YearMonth.of(2002, 1);
+        partitionService.createPartitions(month, 0);
+        insertReservation(newInventory(), "ORDER-" + UUID.randomUUID(), "PENDING", month.atDay(10).atStartOfDay());
+
+        assertThat(partitionService.detachPartitionsBefore(month.plusMonths(1))).isEmpty();
+        assertThat(partitionRepository.findAttachedPartitions()).contains("inventory_reservation_y2002m01");
+    }
+
+    private Long newInventory() {
+        String productId = "PARTITION-" + UUID.randomUUID();
+        return inventoryService.createInventory(new InventoryRequest(productId, 10, null)).getId();
+    }
+
+    private void insertReservation(Long inventoryId, String orderId, String status, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO inventory_reservation (inventory_id, order_id, reserved_quantity, status, created_at) " +
+                "VALUES (?, ?, 1, ?, ?)", inventoryId, orderId, status, createdAt);
+    }
+}
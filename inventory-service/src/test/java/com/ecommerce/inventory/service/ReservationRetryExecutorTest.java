@@ -0,0 +1,110 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.exception.InventoryException;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReservationRetryExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReservationRetryExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ReservationRetryExecutor(meterRegistry);
+        ReflectionTestUtils.setField(executor, "maxAttempts", 3);
+        ReflectionTestUtils.setField(executor, "baseDelayMs", 1L);
+        ReflectionTestUtils.setField(executor, "maxDelayMs", 2L);
+        ReflectionTestUtils.setField(executor, "budgetPerSecond", 20.0);
+        ReflectionTestUtils.setField(executor, "budgetIdleMs", 60_000L);
+        ReflectionTestUtils.setField(executor, "budgetMaxProducts", 100L);
+        executor.init();
+    }
+
+    @Test
+    void retriesConflictUntilSuccess() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = executor.execute("reserve", List.of("P-1"), () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("version changed");
+            }
+            return "ok";
+        });
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(calls).hasValue(3);
+        assertThat(meterRegistry.counter("inventory.reservation.conflicts", "operation", "reserve").count())
+                .isEqualTo(2.0);
+    }
+
+    @Test
+    void otherErrorsAreNotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute("reserve", List.of("P-1"), () -> {
+            calls.incrementAndGet();
+            throw new InventoryException("missing", "INVENTORY_NOT_FOUND");
+        })).isInstanceOf(InventoryException.class);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute("reserve", List.of("P-1"), () -> {
+            calls.incrementAndGet();
+            throw new OptimisticLockingFailureException("version changed");
+        }))
+                .isInstanceOf(InventoryException.class)
+                .extracting("errorCode")
+                .isEqualTo("RESERVATION_CONFLICT");
+        assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    void exhaustedBudgetStopsRetries() {
+        ReflectionTestUtils.setField(executor, "maxAttempts", 100);
+        ReflectionTestUtils.setField(executor, "budgetPerSecond", 2.0);
+        executor.init();
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute("reserve", List.of("HOT"), () -> {
+            calls.incrementAndGet();
+            throw new OptimisticLockingFailureException("version changed");
+        })).isInstanceOf(InventoryException.class);
+        // Two tokens, then the budget is empty: first attempt plus two retries
+        assertThat(calls).hasValue(3);
+        assertThat(meterRegistry.counter("inventory.reservation.retry.exhausted",
+                "operation", "reserve", "reason", "budget").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void budgetsAreBounded() {
+        ReflectionTestUtils.setField(executor, "maxAttempts", 2);
+        ReflectionTestUtils.setField(executor, "budgetMaxProducts", 10L);
+        executor.init();
+
+        for (int i = 0; i < 1000; i++) {
+            String productId = "P-" + i;
+            assertThatThrownBy(() -> executor.execute("reserve", List.of(productId), () -> {
+                throw new OptimisticLockingFailureException("version changed");
+            })).isInstanceOf(InventoryException.class);
+        }
+
+        Cache<?, ?> budgets = (Cache<?, ?>) ReflectionTestUtils.getField(executor, "budgets");
+        budgets.cleanUp();
+        assertThat(budgets.estimatedSize()).isLessThanOrEqualTo(10);
+    }
+}
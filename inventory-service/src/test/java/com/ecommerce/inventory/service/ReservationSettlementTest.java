@@ -0,0 +1,137 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.InventoryRequest;
+import com.ecommerce.inventory.dto.InventoryResponse;
+import com.ecommerce.inventory.dto.ReservationRequest;
+import com.ecommerce.inventory.entity.InventoryReservation;
+import com.ecommerce.inventory.repository.InventoryReservationRepository;
+import com.ecommerce.inventory.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReservationSettlementTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryShardService shardService;
+
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void settlesConfirmedReservationsIntoStock() {
+        String productId = product(10);
+        String first = confirmed(productId, 2);
+        String second = confirmed(productId, 3);
+        reserve(productId, "ORDER-" + UUID.randomUUID(), 1);
+
+        settleAll();
+
+        InventoryResponse inventory = inventoryService.getInventory(productId);
+        assertThat(inventory.getTotalQuantity()).isEqualTo(5);
+        // The PENDING reservation stays reserved
+        assertThat(inventory.getReservedQuantity()).isEqualTo(1);
+        assertThat(reservationRepository.findAllByOrderId(first).get(0).getSettledAt()).isNotNull();
+        assertThat(reservationRepository.findAllByOrderId(second).get(0).getSettledAt()).isNotNull();
+    }
+
+    @Test
+    void settlesEachReservationOnce() {
+        String productId = product(10);
+        confirmed(productId, 4);
+
+        settleAll();
+        settleAll();
+
+        InventoryResponse inventory = inventoryService.getInventory(productId);
+        assertThat(inventory.getTotalQuantity()).isEqualTo(6);
+        assertThat(inventory.getReservedQuantity()).isZero();
+    }
+
+    @Test
+    void settlesShardedReservationsOnTheirShard() {
+        String productId = product(10);
+        shardService.configureShards(productId, 2);
+        confirmed(productId, 2);
+
+        settleAll();
+
+        Long inventoryId = inventoryService.getInventory(productId).getId();
+        assertThat(shardService.getTotals(inventoryId).availableQuantity()).isEqualTo(8);
+        assertThat(shardService.getShards(inventoryId))
+                .allSatisfy(shard -> assertThat(shard.getReservedQuantity()).isZero());
+    }
+
+    @Test
+    void engineOwnedRowsAreNotClaimed() {
+        Long plain = inventoryService.getInventory(product(10)).getId();
+        String shardedProduct = product(10);
+        shardService.configureShards(shardedProduct, 2);
+        Long sharded = inventoryService.getInventory(shardedProduct).getId();
+        String plainOrder = "ORDER-" + UUID.randomUUID();
+        String shardedOrder = "ORDER-" + UUID.randomUUID();
+        // Rolled back: the inserted rows do not match the stock counters
+        List<String> claimed = transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            insertConfirmed(plain, plainOrder);
+            insertConfirmed(sharded, shardedOrder);
+            return reservationRepository.claimUnsettledConfirmed(true, 10_000).stream()
+                    .map(InventoryReservation::getOrderId)
+                    .toList();
+        });
+
+        assertThat(claimed).contains(shardedOrder).doesNotContain(plainOrder);
+    }
+
+    private void settleAll() {
+        while (reservationService.settleConfirmed(500) > 0) {
+            // drain
+        }
+    }
+
+    private String product(int stock) {
+        String productId = "SETTLE-" + UUID.randomUUID();
+        inventoryService.createInventory(new InventoryRequest(productId, stock, null));
+        return productId;
+    }
+
+    private String confirmed(String productId, int quantity) {
+        String orderId = "ORDER-" + UUID.randomUUID();
+        reserve(productId, orderId, quantity);
+        reservationService.confirmReservation(orderId);
+        return orderId;
+    }
+
+    private void reserve(String productId, String orderId, int quantity) {
+        assertThat(reservationService.reserveStock(ReservationRequest.builder()
+                .productId(productId)
+                .orderId(orderId)
+                .quantity(quantity)
+                .build()).isSuccess()).isTrue();
+    }
+
+    private void insertConfirmed(Long inventoryId, String orderId) {
+        jdbcTemplate.update("INSERT INTO inventory_reservation (inventory_id, order_id, reserved_quantity, status, " +
+                "created_at, confirmed_at, shard_no) VALUES (?, ?, 1, 'CONFIRMED', ?, ?, NULL)",
+                inventoryId, orderId, LocalDateTime.now(), LocalDateTime.now());
+    }
+}
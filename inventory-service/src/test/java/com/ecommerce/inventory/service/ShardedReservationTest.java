@@ -0,0 +1,170 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.InventoryRequest;
+import com.ecommerce.inventory.dto.InventoryResponse;
+import com.ecommerce.inventory.dto.ReservationRequest;
+import com.ecommerce.inventory.dto.ReservationResponse;
+import com.ecommerce.inventory.entity.InventoryReservation;
+import com.ecommerce.inventory.entity.InventoryShard;
+import com.ecommerce.inventory.exception.InventoryException;
+import com.ecommerce.inventory.repository.InventoryReservationRepository;
+import com.ecommerce.inventory.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@TestPropertySource(properties = "inventory.sharding.enabled=true")
+class ShardedReservationTest extends PostgresIntegrationTest {
+
+    private static final int THREADS = 16;
+    private static final int RESERVATIONS_PER_THREAD = 10;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryShardService shardService;
+
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+
+    @Test
+    void concurrentReservationsNeverOversellAcrossShards() throws Exception {
+        int stock = THREADS * RESERVATIONS_PER_THREAD / 4;
+        String productId = shardedProduct(stock, 4);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                int succeeded = 0;
+                for (int i = 0; i < RESERVATIONS_PER_THREAD; i++) {
+                    if (reserve(productId, productId + "-" + thread + "-" + i, 1).isSuccess()) {
+                        succeeded++;
+                    }
+                }
+                return succeeded;
+            }));
+        }
+        start.countDown();
+        int succeeded = 0;
+        for (Future<Integer> future : futures) {
+            succeeded += future.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        InventoryResponse inventory = inventoryService.getInventory(productId);
+        assertThat(succeeded).isEqualTo(stock);
+        assertThat(inventory.getReservedQuantity()).isEqualTo(stock);
+        assertThat(inventory.getAvailableQuantity()).isZero();
+        assertThat(shardService.getShards(inventory.getId()))
+                .allSatisfy(shard -> assertThat(shard.getAvailableQuantity()).isZero());
+    }
+
+    @Test
+    void shortShardFallsBackToSibling() {
+        // 3 items over 2 shards: 2 on shard 0, 1 on shard 1
+        String productId = shardedProduct(3, 2);
+        Long inventoryId = inventoryService.getInventory(productId).getId();
+
+        assertThat(reserve(productId, "ORDER-" + UUID.randomUUID(), 2).isSuccess()).isTrue();
+        String orderId = "ORDER-" + UUID.randomUUID();
+        assertThat(reserve(productId, orderId, 1).isSuccess()).isTrue();
+
+        // Whatever shard the order hashed to, it was served from the one with stock left
+        assertThat(reservationRepository.findAllByOrderId(orderId))
+                .singleElement()
+                .extracting(InventoryReservation::getShardNo)
+                .isNotNull();
+        assertThat(shardService.getTotals(inventoryId).availableQuantity()).isZero();
+    }
+
+    @Test
+    void reservationLargerThanAnyShardIsRejected() {
+        String productId = shardedProduct(4, 2);
+        String orderId = "ORDER-" + UUID.randomUUID();
+
+        ReservationResponse response = reserve(productId, orderId, 3);
+
+        assertThat(response.isSuccess()).isFalse();
+        assertThat(inventoryService.getInventory(productId).getAvailableQuantity()).isEqualTo(4);
+        assertThat(reservationRepository.findAllByOrderId(orderId))
+                .extracting(InventoryReservation::getStatus)
+                .containsExactly(InventoryReservation.ReservationStatus.FAILED);
+    }
+
+    @Test
+    void releaseReturnsStockToItsShard() {
+        String productId = shardedProduct(10, 2);
+        String orderId = "ORDER-" + UUID.randomUUID();
+        reserve(productId, orderId, 3);
+        InventoryReservation reservation = reservationRepository.findAllByOrderId(orderId).get(0);
+
+        reservationService.releaseReservation(orderId);
+
+        Long inventoryId = inventoryService.getInventory(productId).getId();
+        InventoryShard shard = shardService.getShards(inventoryId).get(reservation.getShardNo());
+        assertThat(shard.getReservedQuantity()).isZero();
+        assertThat(shardService.getTotals(inventoryId).availableQuantity()).isEqualTo(10);
+    }
+
+    @Test
+    void shrinkRejectedWhileRemovedShardHoldsReservations() {
+        String productId = shardedProduct(8, 2);
+        // Keep reserving until shard 1 holds something
+        for (int i = 0; i < 8; i++) {
+            reserve(productId, "ORDER-" + UUID.randomUUID(), 1);
+        }
+
+        assertThatThrownBy(() -> shardService.configureShards(productId, 1))
+                .isInstanceOf(InventoryException.class)
+                .extracting("errorCode")
+                .isEqualTo("SHARD_IN_USE");
+    }
+
+    @Test
+    void disableShardingFoldsStockBackIntoRow() {
+        String productId = shardedProduct(10, 3);
+        reserve(productId, "ORDER-" + UUID.randomUUID(), 2);
+
+        shardService.disableSharding(productId);
+
+        InventoryResponse inventory = inventoryService.getInventory(productId);
+        assertThat(inventory.getTotalQuantity()).isEqualTo(10);
+        assertThat(inventory.getReservedQuantity()).isEqualTo(2);
+        assertThat(shardService.getShards(inventory.getId())).isEmpty();
+    }
+
+    private String shardedProduct(int stock, int shardCount) {
+        String productId = "SHARD-" + UUID.randomUUID();
+        inventoryService.createInventory(new InventoryRequest(productId, stock, null));
+        shardService.configureShards(productId, shardCount);
+        return productId;
+    }
+
+    private ReservationResponse reserve(String productId, String orderId, int quantity) {
+        return reservationService.reserveStock(ReservationRequest.builder()
+                .productId(productId)
+                .orderId(orderId)
+                .quantity(quantity)
+                .build());
+    }
+}
@@ -0,0 +1,64 @@
+package com.ecommerce.inventory.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StockLeaseManagerTest {
+
+    private final StockLeaseService leaseService = mock(StockLeaseService.class);
+    private final Set<String> renewingThreads = ConcurrentHashMap.newKeySet();
+    private StockLeaseManager leaseManager;
+
+    @BeforeEach
+    void setUp() {
+        when(leaseService.renew(eq("lease-unit"), any())).thenAnswer(invocation -> {
+            renewingThreads.add(Thread.currentThread().getName());
+            return 0;
+        });
+        when(leaseService.findOwnedBy("lease-unit")).thenReturn(List.of());
+
+        leaseManager = new StockLeaseManager(leaseService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(leaseManager, "instanceId", "lease-unit");
+        ReflectionTestUtils.setField(leaseManager, "ttlMs", 30_000L);
+        ReflectionTestUtils.setField(leaseManager, "renewIntervalMs", 10L);
+        ReflectionTestUtils.setField(leaseManager, "reclaimBatchSize", 100);
+        leaseManager.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        leaseManager.returnAll();
+    }
+
+    @Test
+    void renewsOnItsOwnThread() {
+        verify(leaseService, timeout(5000).atLeast(2)).renew(eq("lease-unit"), any());
+        // Not the shared scheduler pool, so long scheduled jobs cannot delay renewal
+        assertThat(renewingThreads).containsExactly("stock-lease-maintainer");
+    }
+
+    @Test
+    void failedRunDoesNotStopRenewal() {
+        when(leaseService.reclaimExpired(any(), eq(100)))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(0);
+
+        verify(leaseService, timeout(5000).atLeast(3)).renew(eq("lease-unit"), any());
+    }
+}
@@ -0,0 +1,170 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.InventoryRequest;
+import com.ecommerce.inventory.dto.InventoryResponse;
+import com.ecommerce.inventory.dto.ReservationRequest;
+import com.ecommerce.inventory.entity.StockLease;
+import com.ecommerce.inventory.repository.StockLeaseRepository;
+import com.ecommerce.inventory.service.StockLeaseService.LeaseGrant;
+import com.ecommerce.inventory.support.PostgresIntegrationTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = {
+        "inventory.lease.enabled=true",
+        "inventory.lease.instance-id=lease-test",
+        "inventory.lease.slice-fraction=0.5",
+        "inventory.lease.min-slice=2",
+        "inventory.lease.max-slice=40",
+        // maintain() is called by the tests
+        "inventory.lease.renew-interval-ms=3600000"
+})
+class StockLeaseTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private StockLeaseService leaseService;
+
+    @Autowired
+    private StockLeaseManager leaseManager;
+
+    @Autowired
+    private StockLeaseRepository leaseRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void leasedStockCountsAsReserved() {
+        String productId = product(100);
+
+        LeaseGrant grant = acquire(productId, "replica-a", 0.5, 2, 30, later()).orElseThrow();
+
+        assertThat(grant.granted()).isEqualTo(30);
+        InventoryResponse inventory = inventoryService.getInventory(productId);
+        assertThat(inventory.getReservedQuantity()).isEqualTo(30);
+        assertThat(inventory.getAvailableQuantity()).isEqualTo(70);
+        assertThat(leaseRepository.findById(grant.leaseId())).get()
+                .extracting(StockLease::getQuantity)
+                .isEqualTo(30);
+    }
+
+    @Test
+    void topUpAddsToTheSameLease() {
+        String productId = product(100);
+
+        LeaseGrant first = acquire(productId, "replica-a", 0.1, 2, 100, later()).orElseThrow();
+        LeaseGrant second = acquire(productId, "replica-a", 0.1, 2, 100, later()).orElseThrow();
+
+        assertThat(second.leaseId()).isEqualTo(first.leaseId());
+        assertThat(leaseRepository.findById(first.leaseId()).orElseThrow().getQuantity())
+                .isEqualTo(first.granted() + second.granted());
+    }
+
+    @Test
+    void lastUnitsAreNotLeased() {
+        String productId = product(5);
+
+        assertThat(acquire(productId, "replica-a", 0.5, 10, 40, later())).isEmpty();
+        assertThat(inventoryService.getInventory(productId).getReservedQuantity()).isZero();
+    }
+
+    @Test
+    void consumeNeverTakesMoreThanTheLease() {
+        String productId = product(100);
+        LeaseGrant grant = acquire(productId, "replica-a", 0.1, 2, 10, later()).orElseThrow();
+
+        assertThat(leaseService.consume(grant.leaseId(), "replica-a", 8)).isEqualTo(1);
+        assertThat(leaseService.consume(grant.leaseId(), "replica-a", 3)).isZero();
+        // Another replica cannot use it
+        assertThat(leaseService.consume(grant.leaseId(), "replica-b", 1)).isZero();
+        assertThat(leaseRepository.findById(grant.leaseId()).orElseThrow().getQuantity()).isEqualTo(2);
+    }
+
+    @Test
+    void returnGivesUnusedStockBack() {
+        String productId = product(100);
+        LeaseGrant grant = acquire(productId, "replica-a", 0.2, 2, 100, later()).orElseThrow();
+        leaseService.consume(grant.leaseId(), "replica-a", 5);
+
+        assertThat(leaseService.returnLease(grant.leaseId())).isEqualTo(15);
+
+        // The 5 consumed items stay reserved for their reservations
+        assertThat(inventoryService.getInventory(productId).getReservedQuantity()).isEqualTo(5);
+        assertThat(leaseRepository.findById(grant.leaseId())).isEmpty();
+    }
+
+    @Test
+    void expiredLeaseOfDeadReplicaIsReclaimed() {
+        String productId = product(100);
+        LeaseGrant expired = acquire(productId, "dead-replica", 0.1, 2, 100,
+                LocalDateTime.now().minusSeconds(1)).orElseThrow();
+        LeaseGrant alive = acquire(productId, "live-replica", 0.1, 2, 100, later()).orElseThrow();
+
+        while (leaseService.reclaimExpired(LocalDateTime.now(), 100) > 0) {
+            // drain leases expired by other tests as well
+        }
+
+        assertThat(leaseRepository.findById(expired.leaseId())).isEmpty();
+        assertThat(leaseRepository.findById(alive.leaseId())).isPresent();
+        assertThat(inventoryService.getInventory(productId).getReservedQuantity()).isEqualTo(alive.granted());
+    }
+
+    @Test
+    void reservationsAreServedFromTheLocalLease() {
+        String productId = product(100);
+        double leaseHits = meterRegistry.counter("inventory.lease.reservations", "source", "lease").count();
+
+        // First reservation goes to the shared row and marks the product in demand
+        reserve(productId, 1);
+        leaseManager.maintain();
+        reserve(productId, 1);
+        reserve(productId, 1);
+
+        assertThat(meterRegistry.counter("inventory.lease.reservations", "source", "lease").count())
+                .isEqualTo(leaseHits + 2);
+        StockLease lease = leaseService.findOwnedBy("lease-test").stream()
+                .filter(owned -> owned.getInventoryId().equals(inventoryService.getInventory(productId).getId()))
+                .findFirst()
+                .orElseThrow();
+        // reserved = three reservations + unused lease
+        assertThat(inventoryService.getInventory(productId).getReservedQuantity())
+                .isEqualTo(3 + lease.getQuantity());
+    }
+
+    private Optional<LeaseGrant> acquire(String productId, String ownerId, double fraction,
+                                         int minSlice, int maxSlice, LocalDateTime expiresAt) {
+        return leaseService.acquire(productId, ownerId, fraction, minSlice, maxSlice, expiresAt);
+    }
+
+    private String product(int stock) {
+        String productId = "LEASE-" + UUID.randomUUID();
+        inventoryService.createInventory(new InventoryRequest(productId, stock, null));
+        return productId;
+    }
+
+    private void reserve(String productId, int quantity) {
+        assertThat(reservationService.reserveStock(ReservationRequest.builder()
+                .productId(productId)
+                .orderId("ORDER-" + UUID.randomUUID())
+                .quantity(quantity)
+                .build()).isSuccess()).isTrue();
+    }
+
+    private static LocalDateTime later() {
+        return LocalDateTime.now().plusMinutes(10);
+    }
+}
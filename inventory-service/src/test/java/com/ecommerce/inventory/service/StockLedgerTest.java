@@ -0,0 +1,147 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.InventoryRequest;
+import com.ecommerce.inventory.dto.ReservationRequest;
+import com.ecommerce.inventory.exception.InventoryException;
+import com.ecommerce.inventory.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Compaction is run explicitly, so the row lags until it is
+@TestPropertySource(properties = {
+        "inventory.ledger.enabled=true",
+        "inventory.ledger.compact-interval-ms=3600000"
+})
+class StockLedgerTest extends PostgresIntegrationTest {
+
+    private static final int THREADS = 8;
+    private static final int RESERVATIONS_PER_THREAD = 10;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private StockLedgerService stockLedger;
+
+    @Autowired
+    private StockLedgerCompactor compactor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentReservationsTakeContiguousSeqsWithoutOverselling() throws Exception {
+        int stock = THREADS * RESERVATIONS_PER_THREAD / 2;
+        String productId = ledgerProduct(stock);
+        Long inventoryId = inventoryService.getInventory(productId).getId();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                int succeeded = 0;
+                for (int i = 0; i < RESERVATIONS_PER_THREAD; i++) {
+                    if (reserve(productId, productId + "-" + thread + "-" + i, 1)) {
+                        succeeded++;
+                    }
+                }
+                return succeeded;
+            }));
+        }
+        start.countDown();
+        int succeeded = 0;
+        for (Future<Integer> future : futures) {
+            succeeded += future.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        StockLedgerService.LedgerState state = stockLedger.state(inventoryId);
+        assertThat(succeeded).isEqualTo(stock);
+        assertThat(state.reservedQuantity()).isEqualTo(stock);
+        assertThat(state.availableQuantity()).isZero();
+        // One entry per reservation, no seq skipped or taken twice
+        Map<String, Object> seqs = jdbcTemplate.queryForMap(
+                "SELECT COUNT(*) AS entries, COUNT(DISTINCT seq) AS distinct_seqs, MAX(seq) AS max_seq "
+                        + "FROM stock_ledger WHERE inventory_id = ?", inventoryId);
+        assertThat(((Number) seqs.get("entries")).longValue()).isEqualTo(stock);
+        assertThat(((Number) seqs.get("distinct_seqs")).longValue()).isEqualTo(stock);
+        assertThat(((Number) seqs.get("max_seq")).longValue()).isEqualTo(stock);
+    }
+
+    @Test
+    void availabilityReadsLedgerBeforeCompaction() {
+        String productId = ledgerProduct(10);
+        reserve(productId, "ORDER-" + UUID.randomUUID(), 3);
+
+        // Row still holds the stock of the snapshot
+        assertThat(rowReserved(productId)).isZero();
+        assertThat(inventoryService.getAvailability(List.of(productId))).containsEntry(productId, 7);
+
+        compactor.compact();
+
+        assertThat(rowReserved(productId)).isEqualTo(3);
+        assertThat(inventoryService.getAvailability(List.of(productId))).containsEntry(productId, 7);
+    }
+
+    @Test
+    void disableFoldsLedgerIntoRow() {
+        String productId = ledgerProduct(10);
+        reserve(productId, "ORDER-" + UUID.randomUUID(), 4);
+
+        stockLedger.disable(productId);
+
+        assertThat(rowReserved(productId)).isEqualTo(4);
+        assertThat(inventoryService.getAvailability(List.of(productId))).containsEntry(productId, 6);
+    }
+
+    private String ledgerProduct(int stock) {
+        String productId = "LEDGER-" + UUID.randomUUID();
+        inventoryService.createInventory(new InventoryRequest(productId, stock, null));
+        stockLedger.enable(productId);
+        return productId;
+    }
+
+    /**
+     * @return true if reserved, false if stock ran out
+     */
+    private boolean reserve(String productId, String orderId, int quantity) {
+        while (true) {
+            try {
+                return reservationService.reserveStock(ReservationRequest.builder()
+                        .productId(productId)
+                        .orderId(orderId)
+                        .quantity(quantity)
+                        .build()).isSuccess();
+            } catch (InventoryException e) {
+                if (!"RESERVATION_CONFLICT".equals(e.getErrorCode())) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private Integer rowReserved(String productId) {
+        return jdbcTemplate.queryForObject("SELECT reserved_quantity FROM inventory WHERE product_id = ?",
+                Integer.class, productId);
+    }
+}
@@ -0,0 +1,49 @@
+package com.ecommerce.inventory.support;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.KafkaContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Base of integration tests against a real PostgreSQL (SKIP LOCKED, advisory
+ * locks, the partition trigger) and Kafka.
+ *
+ * Containers are started once per JVM and shared by all subclasses, so cached
+ * Spring contexts keep pointing at live containers. Skipped without Docker.
+ * Background jobs are switched off; tests call the services directly.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "inventory.cache.enabled=false",
+        "inventory.cache.l2.type=in-memory",
+        "inventory.reservation.expiry.enabled=false",
+        "inventory.settlement.enabled=false",
+        "inventory.reconciliation.enabled=false",
+        "inventory.levels.enabled=false",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.ecommerce.inventory=WARN",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+})
+public abstract class PostgresIntegrationTest {
+
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+    static final KafkaContainer KAFKA = new KafkaContainer(DockerImageName.parse("confluentinc/cp-kafka:7.5.0"));
+
+    static {
+        POSTGRES.start();
+        KAFKA.start();
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.kafka.bootstrap-servers", KAFKA::getBootstrapServers);
+    }
+}
@@ -23,5 +23,6 @@ include(
     "product-service",
     "inventory-service",
     "order-service",
-    "notification-service"
+    "notification-service",
+    "benchmarks"
 )
\ No newline at end of file